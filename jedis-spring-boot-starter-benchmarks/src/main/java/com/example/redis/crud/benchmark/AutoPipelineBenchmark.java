@@ -0,0 +1,82 @@
+package com.example.redis.crud.benchmark;
+
+import com.example.redis.crud.starter.component.RedisClusterUtil;
+import com.example.redis.crud.starter.component.RedisUtil;
+import com.example.redis.crud.starter.component.RedisUtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author jackie wang
+ * @Title: AutoPipelineBenchmark
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 自动pipeline基准测试：64个线程并发执行单条get/set，对比启用和不启用jedis.auto-pipeline.enabled。
+ * @date 2019/12/17 10:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class AutoPipelineBenchmark {
+
+    @Param({"false", "true"})
+    private boolean autoPipeline;
+
+    @Param({"false", "true"})
+    private boolean cluster;
+
+    private BenchmarkContext context;
+    private RedisClusterUtil redisClusterUtil;
+    private RedisUtil redisUtil;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jedis.auto-pipeline.enabled", autoPipeline);
+        if (cluster) {
+            context = new BenchmarkContext(true, properties, RedisClusterUtil.class);
+            redisClusterUtil = context.getBean(RedisClusterUtil.class);
+        } else {
+            context = new BenchmarkContext(false, properties, RedisUtilImpl.class);
+            redisUtil = context.getBean(RedisUtil.class);
+        }
+        value = BenchmarkContext.value(64);
+        set();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return cluster ? redisClusterUtil.get("bench:auto") : redisUtil.get("bench:auto");
+    }
+
+    @Benchmark
+    public Object set() {
+        return cluster ? redisClusterUtil.set("bench:auto", value) : redisUtil.set("bench:auto", value);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.redis.crud.benchmark;
+
+import com.example.redis.crud.starter.configuration.RedisAutoConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: BenchmarkContext
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 基准测试环境：启动进程内RESP服务，并用starter的自动配置创建连接池和工具类。
+ * 使用普通的spring容器，只注册RedisAutoConfiguration和需要测试的工具类，不加载其他自动配置。
+ * @date 2019/12/9 10:00
+ */
+public class BenchmarkContext implements Closeable {
+
+    /** 连接池大小，大于最大测试线程数，避免测试结果受连接池等待影响 */
+    private static final int POOL_SIZE = 64;
+
+    private final RespServer server;
+    private final AnnotationConfigApplicationContext context;
+
+    /**
+     * @param cluster true：集群模式（RedisClusterUtil），false：单机版分片模式（RedisUtil）
+     * @param components 需要注册的工具类
+     */
+    public BenchmarkContext(boolean cluster, Class<?>... components) throws IOException {
+        this(cluster, new HashMap<>(), components);
+    }
+
+    /**
+     * @param cluster true：集群模式（RedisClusterUtil），false：单机版分片模式（RedisUtil）
+     * @param extraProperties 额外的配置属性，如jedis.auto-pipeline.enabled
+     * @param components 需要注册的工具类
+     */
+    public BenchmarkContext(boolean cluster, Map<String, Object> extraProperties, Class<?>... components)
+            throws IOException {
+        this.server = new RespServer();
+        Map<String, Object> properties = new HashMap<>();
+        if (cluster) {
+            properties.put("spring.redis.cluster.nodes", server.getHost() + ":" + server.getPort());
+        } else {
+            properties.put("spring.redis.host", server.getHost());
+            properties.put("spring.redis.port", server.getPort());
+        }
+        properties.put("spring.redis.timeout", 2000);
+        properties.put("spring.redis.pool.max-active", POOL_SIZE);
+        properties.put("spring.redis.pool.max-idle", POOL_SIZE);
+        properties.put("spring.redis.pool.min-idle", 16);
+        properties.putAll(extraProperties);
+
+        this.context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(RedisAutoConfiguration.class);
+        context.register(components);
+        context.refresh();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        server.close();
+    }
+
+    /**
+     * 指定字节数的值。
+     * @param size
+     * @return
+     */
+    public static String value(int size) {
+        StringBuilder value = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.redis.crud.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * @author jackie wang
+ * @Title: BenchmarkRunner
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 按不同线程数运行所有基准测试，每个线程数的结果输出为一个JSON文件，用于不同版本之间对比。
+ * 使用示例：
+ * mvn -pl jedis-spring-boot-starter-benchmarks -am package
+ * java -jar jedis-spring-boot-starter-benchmarks/target/benchmarks.jar [线程数，默认1,4,16] [结果目录，默认jmh-results] [过滤正则]
+ * 结果文件：jmh-results/threads-1.json、threads-4.json ...
+ * 也可以直接使用JMH命令行：java -cp target/benchmarks.jar org.openjdk.jmh.Main -t 8 -rf json
+ * @date 2019/12/9 10:00
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String[] threadCounts = (args.length > 0 ? args[0] : "1,4,16").split(",");
+        File resultDir = new File(args.length > 1 ? args[1] : "jmh-results");
+        String include = args.length > 2 ? args[2] : BenchmarkRunner.class.getPackage().getName() + ".*Benchmark";
+        if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+            throw new IllegalStateException("Can not create result directory " + resultDir);
+        }
+
+        for (String threadCount : threadCounts) {
+            int threads = Integer.parseInt(threadCount.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "threads-" + threads + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
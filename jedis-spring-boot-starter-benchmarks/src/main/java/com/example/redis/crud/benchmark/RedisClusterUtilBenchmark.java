@@ -0,0 +1,121 @@
+package com.example.redis.crud.benchmark;
+
+import com.example.redis.crud.starter.component.RedisClusterUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author jackie wang
+ * @Title: RedisClusterUtilBenchmark
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群模式RedisClusterUtil基准测试：单条get/set、hash、list、mget/mset批量命令、SCAN遍历key。
+ * @date 2019/12/9 10:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisClusterUtilBenchmark {
+
+    private static final int BATCH_SIZE = 16;
+
+    /** 值的字节数 */
+    @Param({"64", "1024", "16384"})
+    private int valueSize;
+
+    private BenchmarkContext context;
+    private RedisClusterUtil redisClusterUtil;
+    private String value;
+    private String[] batchKeys;
+    private Map<String, String> batchValues;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = new BenchmarkContext(true, RedisClusterUtil.class);
+        redisClusterUtil = context.getBean(RedisClusterUtil.class);
+        value = BenchmarkContext.value(valueSize);
+
+        batchKeys = new String[BATCH_SIZE];
+        batchValues = new HashMap<>();
+        Map<String, String> hash = new HashMap<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batchKeys[i] = "bench:batch:" + i;
+            batchValues.put(batchKeys[i], value);
+            hash.put("field" + i, value);
+        }
+        redisClusterUtil.set("bench:get", value);
+        redisClusterUtil.mset(batchValues);
+        redisClusterUtil.hmset("bench:hash", hash);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return redisClusterUtil.get("bench:get");
+    }
+
+    @Benchmark
+    public boolean set() {
+        return redisClusterUtil.set("bench:set", value);
+    }
+
+    @Benchmark
+    public Long hset() {
+        return redisClusterUtil.hset("bench:hash", "field0", value);
+    }
+
+    @Benchmark
+    public String hget() {
+        return redisClusterUtil.hget("bench:hash", "field1");
+    }
+
+    @Benchmark
+    public Map<String, String> hgetAll() {
+        return redisClusterUtil.hgetAll("bench:hash");
+    }
+
+    @Benchmark
+    public String pushPop() {
+        redisClusterUtil.rPush("bench:list", value);
+        return redisClusterUtil.lPop("bench:list");
+    }
+
+    @Benchmark
+    public List<String> mget() {
+        return redisClusterUtil.mget(batchKeys);
+    }
+
+    @Benchmark
+    public boolean mset() {
+        return redisClusterUtil.mset(batchValues);
+    }
+
+    @Benchmark
+    public Set<String> keys() {
+        return redisClusterUtil.keys("bench:*");
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.redis.crud.benchmark;
+
+import com.example.redis.crud.starter.component.BatchResult;
+import com.example.redis.crud.starter.component.RedisUtil;
+import com.example.redis.crud.starter.component.RedisUtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author jackie wang
+ * @Title: RedisUtilBenchmark
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 单机版分片模式RedisUtil基准测试：单条get/set、pipeline批量命令。
+ * @date 2019/12/9 10:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisUtilBenchmark {
+
+    private static final int BATCH_SIZE = 16;
+
+    /** 值的字节数 */
+    @Param({"64", "1024", "16384"})
+    private int valueSize;
+
+    private BenchmarkContext context;
+    private RedisUtil redisUtil;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = new BenchmarkContext(false, RedisUtilImpl.class);
+        redisUtil = context.getBean(RedisUtil.class);
+        value = BenchmarkContext.value(valueSize);
+        redisUtil.set("bench:get", value);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return redisUtil.get("bench:get");
+    }
+
+    @Benchmark
+    public String set() {
+        return redisUtil.set("bench:set", value);
+    }
+
+    @Benchmark
+    public List<BatchResult<?>> pipelined() {
+        return redisUtil.pipelined(batch -> {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.set("bench:batch:" + i, value);
+                batch.get("bench:get");
+            }
+        });
+    }
+}
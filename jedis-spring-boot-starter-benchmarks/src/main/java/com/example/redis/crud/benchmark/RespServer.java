@@ -0,0 +1,445 @@
+package com.example.redis.crud.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * @author jackie wang
+ * @Title: RespServer
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 基准测试用的进程内RESP服务，不依赖外部Redis，离线也能运行。
+ * 只实现基准测试用到的命令（string、hash、list、mget/mset、SCAN、CLUSTER SLOTS等），数据保存在内存中，
+ * 不处理过期时间。集群模式下CLUSTER SLOTS返回当前节点负责全部slot。
+ * 每个连接一个线程，按请求顺序回复，支持pipeline。
+ * @date 2019/12/9 10:00
+ */
+public class RespServer implements Closeable {
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PONG = "+PONG\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NIL = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Object> store = new ConcurrentHashMap<>();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    public RespServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "resp-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                clients.add(socket);
+                Thread worker = new Thread(() -> serve(socket), "resp-server-" + socket.getPort());
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                if (running) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             InputStream in = new BufferedInputStream(s.getInputStream(), 64 * 1024);
+             OutputStream out = new BufferedOutputStream(s.getOutputStream(), 64 * 1024)) {
+            while (running) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                execute(command, out);
+                // pipeline中还有未读取的命令时继续处理，最后一起发送
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // 客户端关闭连接
+        } catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        } finally {
+            clients.remove(socket);
+        }
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        if (first != '*') {
+            throw new IOException("Unsupported request type: " + (char) first);
+        }
+        int count = (int) readLong(in);
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Bulk string expected.");
+            }
+            byte[] arg = new byte[(int) readLong(in)];
+            int read = 0;
+            while (read < arg.length) {
+                int n = in.read(arg, read, arg.length - read);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                read += n;
+            }
+            in.read();
+            in.read();
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static long readLong(InputStream in) throws IOException {
+        long value = 0;
+        boolean negative = false;
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            if (b == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (b - '0');
+            }
+        }
+        in.read();
+        return negative ? -value : value;
+    }
+
+    private void execute(List<byte[]> command, OutputStream out) throws IOException {
+        String name = str(command.get(0)).toUpperCase();
+        switch (name) {
+            case "PING":
+                out.write(PONG);
+                break;
+            case "AUTH":
+            case "SELECT":
+            case "CLIENT":
+            case "EXPIRE":
+            case "PEXPIRE":
+                writeLongOrOk(name, out);
+                break;
+            case "CLUSTER":
+                writeClusterSlots(out);
+                break;
+            case "GET":
+                writeBulk(out, (byte[]) store.get(str(command.get(1))));
+                break;
+            case "SET":
+            case "SETEX":
+            case "PSETEX":
+                set(name, command, out);
+                break;
+            case "MGET":
+                writeArrayHeader(out, command.size() - 1);
+                for (int i = 1; i < command.size(); i++) {
+                    Object value = store.get(str(command.get(i)));
+                    writeBulk(out, value instanceof byte[] ? (byte[]) value : null);
+                }
+                break;
+            case "MSET":
+                for (int i = 1; i + 1 < command.size(); i += 2) {
+                    store.put(str(command.get(i)), command.get(i + 1));
+                }
+                out.write(OK);
+                break;
+            case "DEL":
+            case "UNLINK":
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    removed += store.remove(str(command.get(i))) != null ? 1 : 0;
+                }
+                writeLong(out, removed);
+                break;
+            case "EXISTS":
+                long exists = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    exists += store.containsKey(str(command.get(i))) ? 1 : 0;
+                }
+                writeLong(out, exists);
+                break;
+            case "INCR":
+            case "INCRBY":
+                writeLong(out, incr(str(command.get(1)), command.size() > 2 ? Long.parseLong(str(command.get(2))) : 1));
+                break;
+            case "HSET":
+            case "HMSET":
+                Map<String, byte[]> hash = hash(str(command.get(1)));
+                long added = 0;
+                synchronized (hash) {
+                    for (int i = 2; i + 1 < command.size(); i += 2) {
+                        added += hash.put(str(command.get(i)), command.get(i + 1)) == null ? 1 : 0;
+                    }
+                }
+                if ("HMSET".equals(name)) {
+                    out.write(OK);
+                } else {
+                    writeLong(out, added);
+                }
+                break;
+            case "HGET":
+                Object hget = store.get(str(command.get(1)));
+                if (hget instanceof Map) {
+                    synchronized (hget) {
+                        writeBulk(out, (byte[]) ((Map<?, ?>) hget).get(str(command.get(2))));
+                    }
+                } else {
+                    out.write(NIL);
+                }
+                break;
+            case "HGETALL":
+                Object hgetAll = store.get(str(command.get(1)));
+                if (hgetAll instanceof Map) {
+                    synchronized (hgetAll) {
+                        Map<?, ?> map = (Map<?, ?>) hgetAll;
+                        writeArrayHeader(out, map.size() * 2);
+                        for (Map.Entry<?, ?> entry : map.entrySet()) {
+                            writeBulk(out, ((String) entry.getKey()).getBytes(StandardCharsets.UTF_8));
+                            writeBulk(out, (byte[]) entry.getValue());
+                        }
+                    }
+                } else {
+                    writeArrayHeader(out, 0);
+                }
+                break;
+            case "RPUSH":
+            case "LPUSH":
+                Deque<byte[]> list = list(str(command.get(1)));
+                synchronized (list) {
+                    for (int i = 2; i < command.size(); i++) {
+                        if ("RPUSH".equals(name)) {
+                            list.addLast(command.get(i));
+                        } else {
+                            list.addFirst(command.get(i));
+                        }
+                    }
+                    writeLong(out, list.size());
+                }
+                break;
+            case "LPOP":
+            case "RPOP":
+                Object popList = store.get(str(command.get(1)));
+                if (popList instanceof Deque) {
+                    synchronized (popList) {
+                        Deque<?> deque = (Deque<?>) popList;
+                        writeBulk(out, (byte[]) ("LPOP".equals(name) ? deque.pollFirst() : deque.pollLast()));
+                    }
+                } else {
+                    out.write(NIL);
+                }
+                break;
+            case "LLEN":
+                Object lenList = store.get(str(command.get(1)));
+                if (lenList instanceof Deque) {
+                    synchronized (lenList) {
+                        writeLong(out, ((Deque<?>) lenList).size());
+                    }
+                } else {
+                    writeLong(out, 0);
+                }
+                break;
+            case "SCAN":
+                scan(command, out);
+                break;
+            default:
+                writeError(out, "ERR unknown command '" + name + "'");
+        }
+    }
+
+    private void set(String name, List<byte[]> command, OutputStream out) throws IOException {
+        String key = str(command.get(1));
+        byte[] value = command.get("SET".equals(name) ? 2 : 3);
+        String condition = null;
+        for (int i = 3; "SET".equals(name) && i < command.size(); i++) {
+            String option = str(command.get(i)).toUpperCase();
+            if ("NX".equals(option) || "XX".equals(option)) {
+                condition = option;
+            }
+        }
+        if ("NX".equals(condition) && store.putIfAbsent(key, value) != null
+                || "XX".equals(condition) && store.replace(key, value) == null) {
+            out.write(NIL);
+            return;
+        }
+        if (condition == null) {
+            store.put(key, value);
+        }
+        out.write(OK);
+    }
+
+    private long incr(String key, long delta) {
+        synchronized (store) {
+            Object current = store.get(key);
+            long value = (current == null ? 0 : Long.parseLong(str((byte[]) current))) + delta;
+            store.put(key, String.valueOf(value).getBytes(StandardCharsets.US_ASCII));
+            return value;
+        }
+    }
+
+    /**
+     * SCAN：游标为按key排序后的下标，支持MATCH（*和?）和COUNT。
+     */
+    private void scan(List<byte[]> command, OutputStream out) throws IOException {
+        int cursor = Integer.parseInt(str(command.get(1)));
+        Pattern match = null;
+        int count = 10;
+        for (int i = 2; i + 1 < command.size(); i += 2) {
+            String option = str(command.get(i)).toUpperCase();
+            if ("MATCH".equals(option)) {
+                match = glob(str(command.get(i + 1)));
+            } else if ("COUNT".equals(option)) {
+                count = Integer.parseInt(str(command.get(i + 1)));
+            }
+        }
+        List<String> keys = new ArrayList<>(store.keySet());
+        Collections.sort(keys);
+        int end = Math.min(keys.size(), cursor + count);
+        List<String> result = new ArrayList<>();
+        for (int i = cursor; i < end; i++) {
+            if (match == null || match.matcher(keys.get(i)).matches()) {
+                result.add(keys.get(i));
+            }
+        }
+        writeArrayHeader(out, 2);
+        writeBulk(out, String.valueOf(end >= keys.size() ? 0 : end).getBytes(StandardCharsets.US_ASCII));
+        writeArrayHeader(out, result.size());
+        for (String key : result) {
+            writeBulk(out, key.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * store按key保存不同类型的值（byte[]、hash、list），类型由写入的命令决定，读取时强制转换。
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> hash(String key) {
+        return (Map<String, byte[]>) store.computeIfAbsent(key, k -> new LinkedHashMap<String, byte[]>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Deque<byte[]> list(String key) {
+        return (Deque<byte[]>) store.computeIfAbsent(key, k -> new ArrayDeque<byte[]>());
+    }
+
+    private void writeClusterSlots(OutputStream out) throws IOException {
+        // [[0, 16383, [host, port, id]]]
+        writeArrayHeader(out, 1);
+        writeArrayHeader(out, 3);
+        writeLong(out, 0);
+        writeLong(out, 16383);
+        writeArrayHeader(out, 3);
+        writeBulk(out, getHost().getBytes(StandardCharsets.US_ASCII));
+        writeLong(out, getPort());
+        writeBulk(out, "0000000000000000000000000000000000000000".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeLongOrOk(String name, OutputStream out) throws IOException {
+        if (name.endsWith("EXPIRE")) {
+            writeLong(out, 1);
+        } else {
+            out.write(OK);
+        }
+    }
+
+    private static void writeArrayHeader(OutputStream out, int size) throws IOException {
+        out.write('*');
+        out.write(String.valueOf(size).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    private static void writeBulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write(NIL);
+            return;
+        }
+        out.write('$');
+        out.write(String.valueOf(value.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+        out.write(value);
+        out.write(CRLF);
+    }
+
+    private static void writeLong(OutputStream out, long value) throws IOException {
+        out.write(':');
+        out.write(String.valueOf(value).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    private static void writeError(OutputStream out, String message) throws IOException {
+        out.write('-');
+        out.write(message.getBytes(StandardCharsets.UTF_8));
+        out.write(CRLF);
+    }
+
+    private static String str(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,469 @@
+package com.example.redis.crud.starter.async;
+
+import com.example.redis.crud.starter.codec.HashMapper;
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.codec.TrackedHash;
+import com.example.redis.crud.starter.component.RedisClusterUtil;
+import com.example.redis.crud.starter.component.WriteOptions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: AsyncRedisClusterUtil
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: redis集群版异步工具类，每个方法对应RedisClusterUtil的同名方法，返回CompletableFuture。
+ * 命令在RedisAsyncExecutor中执行，不占用调用线程；异常处理与RedisClusterUtil一致（记录日志并返回null/false）。
+ * bLPop/bRPop在超时前一直占用一个执行线程和一个连接，使用线程池时注意线程数。
+ * @date 2019/12/9 11:20
+ */
+public class AsyncRedisClusterUtil {
+
+    private final RedisClusterUtil redisClusterUtil;
+    private final RedisAsyncExecutor executor;
+
+    public AsyncRedisClusterUtil(RedisClusterUtil redisClusterUtil, RedisAsyncExecutor executor) {
+        this.redisClusterUtil = redisClusterUtil;
+        this.executor = executor;
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#keys(String)}。
+     */
+    public CompletableFuture<Set<String>> keys(String pattern) {
+        return executor.supply(() -> redisClusterUtil.keys(pattern));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hKeys(String)}。
+     */
+    public CompletableFuture<Set<String>> hKeys(String key) {
+        return executor.supply(() -> redisClusterUtil.hKeys(key));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#expire(String, int)}。
+     */
+    public CompletableFuture<Boolean> expire(String key, int timeout) {
+        return executor.supply(() -> redisClusterUtil.expire(key, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hasKey(String)}。
+     */
+    public CompletableFuture<Boolean> hasKey(String key) {
+        return executor.supply(() -> redisClusterUtil.hasKey(key));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#del(String...)}。
+     */
+    public CompletableFuture<Long> del(String... key) {
+        return executor.supply(() -> redisClusterUtil.del(key));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#unlink(String...)}。
+     */
+    public CompletableFuture<Long> unlink(String... keys) {
+        return executor.supply(() -> redisClusterUtil.unlink(keys));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#exists(String...)}。
+     */
+    public CompletableFuture<Long> exists(String... keys) {
+        return executor.supply(() -> redisClusterUtil.exists(keys));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#get(String)}。
+     */
+    public CompletableFuture<String> get(String key) {
+        return executor.supply(() -> redisClusterUtil.get(key));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#get(String, Supplier, WriteOptions)}。
+     */
+    public CompletableFuture<String> get(String key, Supplier<String> loader, WriteOptions options) {
+        return executor.supply(() -> redisClusterUtil.get(key, loader, options));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#mget(String...)}。
+     */
+    public CompletableFuture<List<String>> mget(String... keys) {
+        return executor.supply(() -> redisClusterUtil.mget(keys));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#mset(Map)}。
+     */
+    public CompletableFuture<Boolean> mset(Map<String, String> keyValues) {
+        return executor.supply(() -> redisClusterUtil.mset(keyValues));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#set(String, String)}。
+     */
+    public CompletableFuture<Boolean> set(String key, String value) {
+        return executor.supply(() -> redisClusterUtil.set(key, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#set(String, String, Long)}。
+     */
+    public CompletableFuture<Boolean> set(String key, String value, Long timeout) {
+        return executor.supply(() -> redisClusterUtil.set(key, value, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#set(String, String, WriteOptions)}。
+     */
+    public CompletableFuture<Boolean> set(String key, String value, WriteOptions options) {
+        return executor.supply(() -> redisClusterUtil.set(key, value, options));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#set(String, Object, RedisCodec)}。
+     */
+    public <T> CompletableFuture<Boolean> set(String key, T value, RedisCodec<T> codec) {
+        return executor.supply(() -> redisClusterUtil.set(key, value, codec));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#get(String, RedisCodec)}。
+     */
+    public <T> CompletableFuture<T> get(String key, RedisCodec<T> codec) {
+        return executor.supply(() -> redisClusterUtil.get(key, codec));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#set(String, Object, RedisCodec, WriteOptions)}。
+     */
+    public <T> CompletableFuture<Boolean> set(String key, T value, RedisCodec<T> codec, WriteOptions options) {
+        return executor.supply(() -> redisClusterUtil.set(key, value, codec, options));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#mget(RedisCodec, String...)}。
+     */
+    public <T> CompletableFuture<List<T>> mget(RedisCodec<T> codec, String... keys) {
+        return executor.supply(() -> redisClusterUtil.mget(codec, keys));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#incr(String, Long)}。
+     */
+    public CompletableFuture<Long> incr(String key, Long delta) {
+        return executor.supply(() -> redisClusterUtil.incr(key, delta));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#decr(String, Long)}。
+     */
+    public CompletableFuture<Long> decr(String key, Long delta) {
+        return executor.supply(() -> redisClusterUtil.decr(key, delta));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hget(String, String)}。
+     */
+    public CompletableFuture<String> hget(String key, String item) {
+        return executor.supply(() -> redisClusterUtil.hget(key, item));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hget(String, String, RedisCodec)}。
+     */
+    public <T> CompletableFuture<T> hget(String key, String item, RedisCodec<T> codec) {
+        return executor.supply(() -> redisClusterUtil.hget(key, item, codec));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hmget(String, String[])}。
+     */
+    public CompletableFuture<List<String>> hmget(String key, String[] fields) {
+        return executor.supply(() -> redisClusterUtil.hmget(key, fields));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hgetAll(String)}。
+     */
+    public CompletableFuture<Map<String, String>> hgetAll(String key) {
+        return executor.supply(() -> redisClusterUtil.hgetAll(key));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hgetAll(String, Supplier, WriteOptions)}。
+     */
+    public CompletableFuture<Map<String, String>> hgetAll(String key, Supplier<Map<String, String>> loader,
+                                                          WriteOptions options) {
+        return executor.supply(() -> redisClusterUtil.hgetAll(key, loader, options));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hmset(String, Map)}。
+     */
+    public CompletableFuture<String> hmset(String key, Map<String, String> map) {
+        return executor.supply(() -> redisClusterUtil.hmset(key, map));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hmset(String, Map, int)}。
+     */
+    public CompletableFuture<String> hmset(String key, Map<String, String> map, int timeout) {
+        return executor.supply(() -> redisClusterUtil.hmset(key, map, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hmset(String, Map, WriteOptions)}。
+     */
+    public CompletableFuture<String> hmset(String key, Map<String, String> map, WriteOptions options) {
+        return executor.supply(() -> redisClusterUtil.hmset(key, map, options));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hmset(String, Object, HashMapper, String...)}。
+     */
+    public <T> CompletableFuture<String> hmset(String key, T value, HashMapper<T> mapper, String... fields) {
+        return executor.supply(() -> redisClusterUtil.hmset(key, value, mapper, fields));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hmget(String, HashMapper, String...)}。
+     */
+    public <T> CompletableFuture<T> hmget(String key, HashMapper<T> mapper, String... fields) {
+        return executor.supply(() -> redisClusterUtil.hmget(key, mapper, fields));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hmgetTracked(String, HashMapper, String...)}。
+     */
+    public <T> CompletableFuture<TrackedHash<T>> hmgetTracked(String key, HashMapper<T> mapper, String... fields) {
+        return executor.supply(() -> redisClusterUtil.hmgetTracked(key, mapper, fields));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hsetChanged(TrackedHash)}。
+     */
+    public <T> CompletableFuture<Long> hsetChanged(TrackedHash<T> tracked) {
+        return executor.supply(() -> redisClusterUtil.hsetChanged(tracked));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hset(String, String, String)}。
+     */
+    public CompletableFuture<Long> hset(String key, String item, String value) {
+        return executor.supply(() -> redisClusterUtil.hset(key, item, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hset(String, String, Object, RedisCodec)}。
+     */
+    public <T> CompletableFuture<Long> hset(String key, String item, T value, RedisCodec<T> codec) {
+        return executor.supply(() -> redisClusterUtil.hset(key, item, value, codec));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hset(String, String, String, int)}。
+     */
+    public CompletableFuture<Long> hset(String key, String item, String value, int timeout) {
+        return executor.supply(() -> redisClusterUtil.hset(key, item, value, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hset(String, String, String, WriteOptions)}。
+     */
+    public CompletableFuture<Long> hset(String key, String item, String value, WriteOptions options) {
+        return executor.supply(() -> redisClusterUtil.hset(key, item, value, options));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hdel(String, String...)}。
+     */
+    public CompletableFuture<Void> hdel(String key, String... item) {
+        return executor.run(() -> redisClusterUtil.hdel(key, item));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hHasKey(String, String)}。
+     */
+    public CompletableFuture<Boolean> hHasKey(String key, String item) {
+        return executor.supply(() -> redisClusterUtil.hHasKey(key, item));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hincr(String, String, Long)}。
+     */
+    public CompletableFuture<Long> hincr(String key, String item, Long by) {
+        return executor.supply(() -> redisClusterUtil.hincr(key, item, by));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#hdecr(String, String, Long)}。
+     */
+    public CompletableFuture<Long> hdecr(String key, String item, Long by) {
+        return executor.supply(() -> redisClusterUtil.hdecr(key, item, by));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#sSet(String, Map)}。
+     */
+    public CompletableFuture<Long> sSet(String key, Map<String, Double> scoreMembers) {
+        return executor.supply(() -> redisClusterUtil.sSet(key, scoreMembers));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#sSet(String, Double, String)}。
+     */
+    public CompletableFuture<Long> sSet(String key, Double score, String member) {
+        return executor.supply(() -> redisClusterUtil.sSet(key, score, member));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#sSetAndTime(String, Map, Integer)}。
+     */
+    public CompletableFuture<Long> sSetAndTime(String key, Map<String, Double> scoreMembers, Integer timeout) {
+        return executor.supply(() -> redisClusterUtil.sSetAndTime(key, scoreMembers, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#sSet(String, Map, WriteOptions)}。
+     */
+    public CompletableFuture<Long> sSet(String key, Map<String, Double> scoreMembers, WriteOptions options) {
+        return executor.supply(() -> redisClusterUtil.sSet(key, scoreMembers, options));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#setRemove(String, String...)}。
+     */
+    public CompletableFuture<Long> setRemove(String key, String... values) {
+        return executor.supply(() -> redisClusterUtil.setRemove(key, values));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lGet(String, Long, Long)}。
+     */
+    public CompletableFuture<List<String>> lGet(String key, Long start, Long end) {
+        return executor.supply(() -> redisClusterUtil.lGet(key, start, end));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lGetListSize(String)}。
+     */
+    public CompletableFuture<Long> lGetListSize(String key) {
+        return executor.supply(() -> redisClusterUtil.lGetListSize(key));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lGetIndex(String, Long)}。
+     */
+    public CompletableFuture<Object> lGetIndex(String key, Long index) {
+        return executor.supply(() -> redisClusterUtil.lGetIndex(key, index));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#rPush(String, String...)}。
+     */
+    public CompletableFuture<Boolean> rPush(String key, String... value) {
+        return executor.supply(() -> redisClusterUtil.rPush(key, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#rPush(Integer, String, String...)}。
+     */
+    public CompletableFuture<Boolean> rPush(Integer timeout, String key, String... value) {
+        return executor.supply(() -> redisClusterUtil.rPush(timeout, key, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#rPush(WriteOptions, String, String...)}。
+     */
+    public CompletableFuture<Boolean> rPush(WriteOptions options, String key, String... value) {
+        return executor.supply(() -> redisClusterUtil.rPush(options, key, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lPush(String, String...)}。
+     */
+    public CompletableFuture<Boolean> lPush(String key, String... value) {
+        return executor.supply(() -> redisClusterUtil.lPush(key, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lPush(Integer, String, String...)}。
+     */
+    public CompletableFuture<Boolean> lPush(Integer timeout, String key, String... value) {
+        return executor.supply(() -> redisClusterUtil.lPush(timeout, key, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lPush(WriteOptions, String, String...)}。
+     */
+    public CompletableFuture<Boolean> lPush(WriteOptions options, String key, String... value) {
+        return executor.supply(() -> redisClusterUtil.lPush(options, key, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lUpdateIndex(String, Long, String)}。
+     */
+    public CompletableFuture<Boolean> lUpdateIndex(String key, Long index, String value) {
+        return executor.supply(() -> redisClusterUtil.lUpdateIndex(key, index, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lRemove(String, Long, String)}。
+     */
+    public CompletableFuture<Long> lRemove(String key, Long count, String value) {
+        return executor.supply(() -> redisClusterUtil.lRemove(key, count, value));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lPop(String)}。
+     */
+    public CompletableFuture<String> lPop(String key) {
+        return executor.supply(() -> redisClusterUtil.lPop(key));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#lPop(String, Integer)}。
+     */
+    public CompletableFuture<String> lPop(String key, Integer timeout) {
+        return executor.supply(() -> redisClusterUtil.lPop(key, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#rPop(String)}。
+     */
+    public CompletableFuture<String> rPop(String key) {
+        return executor.supply(() -> redisClusterUtil.rPop(key));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#rPop(String, Integer)}。
+     */
+    public CompletableFuture<String> rPop(String key, Integer timeout) {
+        return executor.supply(() -> redisClusterUtil.rPop(key, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#bLPop(Integer, String...)}。
+     */
+    public CompletableFuture<List<String>> bLPop(Integer timeout, String... keys) {
+        return executor.supply(() -> redisClusterUtil.bLPop(timeout, keys));
+    }
+
+    /**
+     * 异步执行{@link RedisClusterUtil#bRPop(Integer, String...)}。
+     */
+    public CompletableFuture<List<String>> bRPop(Integer timeout, String... keys) {
+        return executor.supply(() -> redisClusterUtil.bRPop(timeout, keys));
+    }
+
+}
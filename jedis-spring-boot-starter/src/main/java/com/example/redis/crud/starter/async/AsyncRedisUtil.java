@@ -0,0 +1,148 @@
+package com.example.redis.crud.starter.async;
+
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.component.BatchResult;
+import com.example.redis.crud.starter.component.RedisBatch;
+import com.example.redis.crud.starter.component.RedisUtil;
+import com.example.redis.crud.starter.component.WriteOptions;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: AsyncRedisUtil
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: redis单击版分片模式异步工具类，每个方法对应RedisUtil的同名方法，返回CompletableFuture。
+ * 命令在RedisAsyncExecutor中执行，不占用调用线程；异常处理与RedisUtil一致（记录日志并返回null）。
+ * 使用示例：
+ * CompletableFuture<String> user = asyncRedisUtil.get("user:1");
+ * CompletableFuture<String> order = asyncRedisUtil.get("order:1");
+ * CompletableFuture.allOf(user, order).join();
+ * @date 2019/12/9 11:20
+ */
+public class AsyncRedisUtil {
+
+    private final RedisUtil redisUtil;
+    private final RedisAsyncExecutor executor;
+
+    public AsyncRedisUtil(RedisUtil redisUtil, RedisAsyncExecutor executor) {
+        this.redisUtil = redisUtil;
+        this.executor = executor;
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#set(String, String)}。
+     */
+    public CompletableFuture<String> set(String key, String value) {
+        return executor.supply(() -> redisUtil.set(key, value));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#get(String)}。
+     */
+    public CompletableFuture<String> get(String key) {
+        return executor.supply(() -> redisUtil.get(key));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#get(String, Supplier, WriteOptions)}。
+     */
+    public CompletableFuture<String> get(String key, Supplier<String> loader, WriteOptions options) {
+        return executor.supply(() -> redisUtil.get(key, loader, options));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#del(String)}。
+     */
+    public CompletableFuture<Long> del(String key) {
+        return executor.supply(() -> redisUtil.del(key));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#expire(String, Integer)}。
+     */
+    public CompletableFuture<Long> expire(String key, Integer timeout) {
+        return executor.supply(() -> redisUtil.expire(key, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#set(String, String, Integer)}。
+     */
+    public CompletableFuture<Long> set(String key, String value, Integer timeout) {
+        return executor.supply(() -> redisUtil.set(key, value, timeout));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#set(String, String, WriteOptions)}。
+     */
+    public CompletableFuture<String> set(String key, String value, WriteOptions options) {
+        return executor.supply(() -> redisUtil.set(key, value, options));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#incr(String)}。
+     */
+    public CompletableFuture<Long> incr(String key) {
+        return executor.supply(() -> redisUtil.incr(key));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#hasKey(String)}。
+     */
+    public CompletableFuture<Boolean> hasKey(String key) {
+        return executor.supply(() -> redisUtil.hasKey(key));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#set(String, Object, RedisCodec)}。
+     */
+    public <T> CompletableFuture<String> set(String key, T value, RedisCodec<T> codec) {
+        return executor.supply(() -> redisUtil.set(key, value, codec));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#get(String, RedisCodec)}。
+     */
+    public <T> CompletableFuture<T> get(String key, RedisCodec<T> codec) {
+        return executor.supply(() -> redisUtil.get(key, codec));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#set(String, Object, RedisCodec, WriteOptions)}。
+     */
+    public <T> CompletableFuture<String> set(String key, T value, RedisCodec<T> codec, WriteOptions options) {
+        return executor.supply(() -> redisUtil.set(key, value, codec, options));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#mget(RedisCodec, String...)}。
+     */
+    public <T> CompletableFuture<List<T>> mget(RedisCodec<T> codec, String... keys) {
+        return executor.supply(() -> redisUtil.mget(codec, keys));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#hset(String, String, Object, RedisCodec)}。
+     */
+    public <T> CompletableFuture<Long> hset(String key, String field, T value, RedisCodec<T> codec) {
+        return executor.supply(() -> redisUtil.hset(key, field, value, codec));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#hget(String, String, RedisCodec)}。
+     */
+    public <T> CompletableFuture<T> hget(String key, String field, RedisCodec<T> codec) {
+        return executor.supply(() -> redisUtil.hget(key, field, codec));
+    }
+
+    /**
+     * 异步执行{@link RedisUtil#pipelined(Consumer)}。
+     */
+    public CompletableFuture<List<BatchResult<?>>> pipelined(Consumer<RedisBatch> batch) {
+        return executor.supply(() -> redisUtil.pipelined(batch));
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.example.redis.crud.starter.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: RedisAsyncExecutor
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 异步API的执行器。命令在独立的线程池中执行（Java 21+可以选择每个命令一个虚拟线程），
+ * 通过maxInFlight限制执行中+排队的命令数：用满时调用线程最多等待acquireTimeoutMillis，超时后返回失败的future，
+ * 避免请求积压把内存或连接池压垮。
+ * 虚拟线程通过反射检测（Executors.newVirtualThreadPerTaskExecutor），Java 8也可以编译运行。
+ * 注意：future在执行命令的线程中完成，thenApply等回调默认也在该线程执行，耗时的回调请使用thenApplyAsync并指定业务线程池。
+ * @date 2019/12/9 10:15
+ */
+public class RedisAsyncExecutor implements DisposableBean {
+    private Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final long acquireTimeoutMillis;
+    private final boolean virtualThreads;
+
+    /**
+     * @param threads 线程池线程数，使用虚拟线程时不生效
+     * @param maxInFlight 最大并发（执行中+排队）命令数
+     * @param acquireTimeoutMillis 并发数用满时调用线程最长等待时间(毫秒)，负数表示一直等待
+     * @param virtualThreads 是否使用虚拟线程，当前JVM不支持时退回线程池
+     */
+    public RedisAsyncExecutor(int threads, int maxInFlight, long acquireTimeoutMillis, boolean virtualThreads) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        ExecutorService virtualExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.virtualThreads = true;
+        } else {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-async-");
+            threadFactory.setDaemon(true);
+            int poolSize = Math.max(1, threads);
+            // 队列长度由permits限制，这里不再设置上限
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.virtualThreads = false;
+        }
+    }
+
+    /**
+     * 异步执行命令。
+     * @param command 命令
+     * @return 命令结果；等待并发数超时或执行器已关闭时以RejectedExecutionException结束
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            if (!acquire()) {
+                future.completeExceptionally(new RejectedExecutionException(
+                        "Too many in-flight redis commands, maxInFlight: " + maxInFlight));
+                return future;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(command.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 异步执行没有返回值的命令。
+     * @param command 命令
+     * @return 命令执行完成时结束
+     */
+    public CompletableFuture<Void> run(Runnable command) {
+        return supply(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * 是否使用虚拟线程。
+     * @return
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 当前执行中+排队的命令数。
+     * @return
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean acquire() throws InterruptedException {
+        if (acquireTimeoutMillis < 0) {
+            permits.acquire();
+            return true;
+        }
+        return permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            LOGGER.warn("[RedisAsyncExecutor]Virtual threads require Java 21+, current: {}, use thread pool instead.",
+                    System.getProperty("java.version"));
+        } catch (Exception e) {
+            LOGGER.warn("[RedisAsyncExecutor]Failed to create virtual thread executor, use thread pool instead.", e);
+        }
+        return null;
+    }
+
+}
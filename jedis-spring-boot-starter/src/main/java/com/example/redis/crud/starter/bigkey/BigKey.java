@@ -0,0 +1,75 @@
+package com.example.redis.crud.starter.bigkey;
+
+/**
+ * @author jackie wang
+ * @Title: BigKey
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一次超过阈值的命令：写入值、返回值的字节数和元素个数。
+ * @date 2019/12/20 10:20
+ */
+public class BigKey {
+
+    private final String command;
+    private final String key;
+    private final String pattern;
+    private final long requestBytes;
+    private final long replyBytes;
+    private final long elements;
+    private final long timestamp;
+
+    public BigKey(String command, String key, String pattern, long requestBytes, long replyBytes, long elements,
+                  long timestamp) {
+        this.command = command;
+        this.key = key;
+        this.pattern = pattern;
+        this.requestBytes = requestBytes;
+        this.replyBytes = replyBytes;
+        this.elements = elements;
+        this.timestamp = timestamp;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 写入的值的字节数，读命令为0。
+     * @return
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getReplyBytes() {
+        return replyBytes;
+    }
+
+    /**
+     * 写入或返回的元素个数（hmset、hgetAll的field数，lrange的元素数等），字符串为0。
+     * @return
+     */
+    public long getElements() {
+        return elements;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    long size() {
+        return Math.max(requestBytes, replyBytes);
+    }
+
+    @Override
+    public String toString() {
+        return command + " " + key + " request=" + requestBytes + "B reply=" + replyBytes + "B elements=" + elements;
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.redis.crud.starter.bigkey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.PatternMatchUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author jackie wang
+ * @Title: BigKeyDetector
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 大key检测，jedis.big-keys.enabled=true时注入RedisUtilImpl和RedisClusterUtil。
+ * 单key命令执行后先按长度估算写入值和返回值的字节数上限（byte[]取长度，字符串取length()*3），
+ * 上限达到byte-threshold或元素个数达到element-threshold时才逐个字符计算实际字节数，超过阈值的命令放入环形缓冲区
+ * （保留最近capacity个），并打印WARN日志（同一命令和key模式每log-interval最多一次）。
+ * 按命令和key模式累计的大小按sample-rate采样，未采样且不可能超过阈值的命令不计算key模式和字节数。
+ * key模式优先使用配置的key-patterns（支持*通配符），未匹配时把key中含数字的段（以:分隔）替换为*，
+ * 例如user:1001:orders统计为user:*:orders；key到模式的结果缓存最多PATTERN_CACHE_SIZE个。
+ * 同时注册为JMX MBean（jedis:name=bigKeys）。
+ * @date 2019/12/20 10:20
+ */
+@ManagedResource(objectName = "jedis:name=bigKeys", description = "Redis big keys")
+public class BigKeyDetector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BigKeyDetector.class);
+
+    /** key模式个数超过上限后统计到该模式下 */
+    static final String OTHER_PATTERN = "(other)";
+
+    /** key到模式的缓存上限，超过后不再缓存 */
+    static final int PATTERN_CACHE_SIZE = 4096;
+
+    private final long byteThreshold;
+    private final long elementThreshold;
+    private final List<String> keyPatterns;
+    private final int maxPatterns;
+    private final long logIntervalMillis;
+    private final int period;
+
+    private final AtomicReferenceArray<BigKey> offenders;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder detectedCount = new LongAdder();
+    private final LongAccumulator maxReplyBytes = new LongAccumulator(Math::max, 0);
+    /** 命令 -> key模式 -> 累计值 */
+    private final ConcurrentMap<String, ConcurrentMap<String, Accumulator>> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger patternCount = new AtomicInteger();
+    private final ConcurrentMap<String, String> patternCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param byteThreshold 写入值或返回值超过该字节数时记录，0表示不检查
+     * @param elementThreshold 写入或返回的元素个数超过该值时记录，0表示不检查
+     * @param capacity 环形缓冲区大小
+     * @param keyPatterns key模式，支持*通配符
+     * @param maxPatterns 最多统计的命令和key模式组合数
+     * @param logIntervalMillis 同一命令和key模式打印WARN日志的最小间隔(毫秒)
+     * @param sampleRate 累计大小的采样率，(0, 1]，1表示每个命令都统计；超过阈值的命令不受采样影响
+     */
+    public BigKeyDetector(long byteThreshold, long elementThreshold, int capacity, List<String> keyPatterns,
+                          int maxPatterns, long logIntervalMillis, double sampleRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The parameter 'capacity' must be greater than 0.");
+        }
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("The parameter 'sampleRate' must be in (0, 1].");
+        }
+        this.byteThreshold = byteThreshold;
+        this.elementThreshold = elementThreshold;
+        this.keyPatterns = keyPatterns == null ? Collections.emptyList() : new ArrayList<>(keyPatterns);
+        this.maxPatterns = Math.max(1, maxPatterns);
+        this.logIntervalMillis = logIntervalMillis;
+        this.period = (int) Math.max(1, Math.round(1 / sampleRate));
+        this.offenders = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 统计一次单key命令的大小。
+     * @param command 命令类型，如get、hgetall
+     * @param key 键
+     * @param request 写入的值（String、byte[]、Map、数组等），读命令为null
+     * @param reply 返回值
+     * @return reply
+     */
+    public <R> R record(String command, String key, Object request, R reply) {
+        if (key == null) {
+            return reply;
+        }
+        long elements = Math.max(Sizes.elements(request), Sizes.elements(reply));
+        boolean sampled = period == 1 || ThreadLocalRandom.current().nextInt(period) == 0;
+        if (!sampled && !mayExceed(request, reply, elements)) {
+            return reply;
+        }
+        long requestBytes = Sizes.bytes(request);
+        long replyBytes = Sizes.bytes(reply);
+        maxReplyBytes.accumulate(replyBytes);
+        boolean exceeded = (byteThreshold > 0 && (requestBytes >= byteThreshold || replyBytes >= byteThreshold))
+                || (elementThreshold > 0 && elements >= elementThreshold);
+        if (!sampled && !exceeded) {
+            return reply;
+        }
+        Accumulator accumulator = accumulator(command, patternOf(key));
+        if (sampled) {
+            accumulator.add(requestBytes, replyBytes, elements);
+        }
+        if (exceeded) {
+            BigKey bigKey = new BigKey(command, key, accumulator.pattern, requestBytes, replyBytes, elements,
+                    System.currentTimeMillis());
+            offenders.set((int) (cursor.getAndIncrement() % offenders.length()), bigKey);
+            detectedCount.increment();
+            accumulator.warn(bigKey, logIntervalMillis);
+        }
+        return reply;
+    }
+
+    /**
+     * 环形缓冲区中超过阈值的命令，同一命令和key只保留最大的一次，按大小倒序。
+     * @return
+     */
+    public List<BigKey> getOffenders() {
+        Map<String, BigKey> largest = new LinkedHashMap<>();
+        for (int i = 0; i < offenders.length(); i++) {
+            BigKey bigKey = offenders.get(i);
+            if (bigKey != null) {
+                largest.merge(bigKey.getCommand() + ' ' + bigKey.getKey(), bigKey,
+                        (a, b) -> a.size() >= b.size() ? a : b);
+            }
+        }
+        List<BigKey> result = new ArrayList<>(largest.values());
+        result.sort(Comparator.comparingLong(BigKey::size).reversed());
+        return result;
+    }
+
+    /**
+     * 按命令和key模式累计的大小，按最大返回字节数倒序。
+     * @return
+     */
+    public List<KeySizeStats> getStats() {
+        List<KeySizeStats> result = new ArrayList<>(patternCount.get());
+        for (Map<String, Accumulator> patterns : stats.values()) {
+            for (Accumulator accumulator : patterns.values()) {
+                result.add(accumulator.snapshot());
+            }
+        }
+        result.sort(Comparator.comparingLong(KeySizeStats::getMaxReplyBytes)
+                .thenComparingLong(KeySizeStats::getMaxRequestBytes).reversed());
+        return result;
+    }
+
+    /**
+     * 累计超过阈值的命令数。
+     * @return
+     */
+    public long getDetectedCount() {
+        return detectedCount.sum();
+    }
+
+    /**
+     * 启动以来采样和超过阈值的命令中最大的返回字节数。
+     * @return
+     */
+    public long getMaxReplyBytes() {
+        return maxReplyBytes.get();
+    }
+
+    @ManagedOperation(description = "Commands over the byte or element threshold, largest first")
+    public String bigKeys() {
+        return join(getOffenders());
+    }
+
+    @ManagedOperation(description = "Request and reply sizes per command and key pattern")
+    public String keySizes() {
+        return join(getStats());
+    }
+
+    /**
+     * 按长度估算的字节数上限或元素个数是否可能超过阈值。
+     */
+    private boolean mayExceed(Object request, Object reply, long elements) {
+        if (elementThreshold > 0 && elements >= elementThreshold) {
+            return true;
+        }
+        return byteThreshold > 0 && (Sizes.maxBytes(request, byteThreshold) >= byteThreshold
+                || Sizes.maxBytes(reply, byteThreshold) >= byteThreshold);
+    }
+
+    private Accumulator accumulator(String command, String pattern) {
+        ConcurrentMap<String, Accumulator> patterns = stats.get(command);
+        if (patterns == null) {
+            patterns = stats.computeIfAbsent(command, c -> new ConcurrentHashMap<>());
+        }
+        Accumulator accumulator = patterns.get(pattern);
+        if (accumulator != null) {
+            return accumulator;
+        }
+        String statsPattern = patternCount.get() >= maxPatterns ? OTHER_PATTERN : pattern;
+        return patterns.computeIfAbsent(statsPattern, p -> {
+            patternCount.incrementAndGet();
+            return new Accumulator(command, p);
+        });
+    }
+
+    String patternOf(String key) {
+        String pattern = patternCache.get(key);
+        if (pattern != null) {
+            return pattern;
+        }
+        pattern = matchPattern(key);
+        if (patternCache.size() < PATTERN_CACHE_SIZE) {
+            patternCache.putIfAbsent(key, pattern);
+        }
+        return pattern;
+    }
+
+    private String matchPattern(String key) {
+        for (String keyPattern : keyPatterns) {
+            if (PatternMatchUtils.simpleMatch(keyPattern, key)) {
+                return keyPattern;
+            }
+        }
+        return normalize(key);
+    }
+
+    /**
+     * 把含数字的段替换为*，没有数字时直接返回key。
+     */
+    static String normalize(String key) {
+        int length = key.length();
+        int i = 0;
+        while (i < length && !Character.isDigit(key.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return key;
+        }
+        StringBuilder builder = new StringBuilder(length);
+        int start = 0;
+        while (start <= length) {
+            int end = key.indexOf(':', start);
+            if (end < 0) {
+                end = length;
+            }
+            boolean digit = false;
+            for (int j = start; j < end && !digit; j++) {
+                digit = Character.isDigit(key.charAt(j));
+            }
+            if (start > 0) {
+                builder.append(':');
+            }
+            if (digit) {
+                builder.append('*');
+            } else {
+                builder.append(key, start, end);
+            }
+            start = end + 1;
+        }
+        return builder.toString();
+    }
+
+    private static String join(List<?> items) {
+        StringBuilder builder = new StringBuilder();
+        for (Object item : items) {
+            builder.append(item).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 一种命令在一个key模式上的累计值。
+     */
+    private static final class Accumulator {
+        private final String command;
+        private final String pattern;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAccumulator maxRequestBytes = new LongAccumulator(Math::max, 0);
+        private final LongAdder replyBytes = new LongAdder();
+        private final LongAccumulator maxReplyBytes = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxElements = new LongAccumulator(Math::max, 0);
+        /** 上次打印WARN日志的时间，0表示未打印过 */
+        private final AtomicLong lastWarned = new AtomicLong();
+
+        Accumulator(String command, String pattern) {
+            this.command = command;
+            this.pattern = pattern;
+        }
+
+        void add(long request, long reply, long elements) {
+            count.increment();
+            if (request > 0) {
+                requestBytes.add(request);
+                maxRequestBytes.accumulate(request);
+            }
+            if (reply > 0) {
+                replyBytes.add(reply);
+                maxReplyBytes.accumulate(reply);
+            }
+            if (elements > 0) {
+                maxElements.accumulate(elements);
+            }
+        }
+
+        /**
+         * 同一命令和key模式每logIntervalMillis最多打印一次WARN日志。
+         */
+        void warn(BigKey bigKey, long logIntervalMillis) {
+            long now = bigKey.getTimestamp();
+            long last = lastWarned.get();
+            if ((last == 0 || now - last >= logIntervalMillis) && lastWarned.compareAndSet(last, now)) {
+                LOGGER.warn("[BigKeyDetector]Big key detected: {}", bigKey);
+            }
+        }
+
+        KeySizeStats snapshot() {
+            return new KeySizeStats(command, pattern, count.sum(), requestBytes.sum(), maxRequestBytes.get(),
+                    replyBytes.sum(), maxReplyBytes.get(), maxElements.get());
+        }
+    }
+}
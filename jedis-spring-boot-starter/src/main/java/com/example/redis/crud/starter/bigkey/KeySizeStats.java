@@ -0,0 +1,78 @@
+package com.example.redis.crud.starter.bigkey;
+
+/**
+ * @author jackie wang
+ * @Title: KeySizeStats
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一种命令在一个key模式上的累计请求、返回大小，count为采样到的命令次数（jedis.big-keys.sample-rate）。
+ * @date 2019/12/20 10:20
+ */
+public class KeySizeStats {
+
+    private final String command;
+    private final String pattern;
+    private final long count;
+    private final long requestBytes;
+    private final long maxRequestBytes;
+    private final long replyBytes;
+    private final long maxReplyBytes;
+    private final long maxElements;
+
+    public KeySizeStats(String command, String pattern, long count, long requestBytes, long maxRequestBytes,
+                        long replyBytes, long maxReplyBytes, long maxElements) {
+        this.command = command;
+        this.pattern = pattern;
+        this.count = count;
+        this.requestBytes = requestBytes;
+        this.maxRequestBytes = maxRequestBytes;
+        this.replyBytes = replyBytes;
+        this.maxReplyBytes = maxReplyBytes;
+        this.maxElements = maxElements;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 累计写入的字节数。
+     * @return
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+
+    /**
+     * 累计返回的字节数。
+     * @return
+     */
+    public long getReplyBytes() {
+        return replyBytes;
+    }
+
+    public long getMaxReplyBytes() {
+        return maxReplyBytes;
+    }
+
+    public long getMaxElements() {
+        return maxElements;
+    }
+
+    @Override
+    public String toString() {
+        return command + " " + pattern + " count=" + count + " request=" + requestBytes + "B(max " + maxRequestBytes
+                + "B) reply=" + replyBytes + "B(max " + maxReplyBytes + "B) maxElements=" + maxElements;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.redis.crud.starter.bigkey;
+
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: Sizes
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 计算请求值和返回值的字节数（UTF-8）和元素个数，只遍历不复制：字符串逐个字符累加UTF-8长度，
+ * 集合累加每个元素。数字、状态码等非数据类型按0字节计算。
+ * maxBytes只取长度估算上限（字符串按每个char最多3个字节），用于判断是否可能超过阈值，避免逐个字符遍历。
+ * @date 2019/12/20 10:20
+ */
+final class Sizes {
+
+    private Sizes() {
+    }
+
+    /**
+     * 字节数。
+     */
+    static long bytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof String) {
+            return utf8Length((String) value);
+        }
+        if (value instanceof Collection) {
+            long bytes = 0;
+            for (Object element : (Collection<?>) value) {
+                bytes += bytes(element);
+            }
+            return bytes;
+        }
+        if (value instanceof Map) {
+            long bytes = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                bytes += bytes(entry.getKey()) + bytes(entry.getValue());
+            }
+            return bytes;
+        }
+        if (value instanceof Object[]) {
+            long bytes = 0;
+            for (Object element : (Object[]) value) {
+                bytes += bytes(element);
+            }
+            return bytes;
+        }
+        if (value instanceof Tuple) {
+            return ((Tuple) value).getBinaryElement().length;
+        }
+        if (value instanceof ScanResult) {
+            return bytes(((ScanResult<?>) value).getResult());
+        }
+        return 0;
+    }
+
+    /**
+     * 字节数上限：byte[]取长度，字符串取length()*3，集合累加每个元素，累计达到limit后不再继续遍历。
+     */
+    static long maxBytes(Object value, long limit) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof String) {
+            return ((String) value).length() * 3L;
+        }
+        if (value instanceof Collection) {
+            long bytes = 0;
+            for (Object element : (Collection<?>) value) {
+                bytes += maxBytes(element, limit - bytes);
+                if (bytes >= limit) {
+                    break;
+                }
+            }
+            return bytes;
+        }
+        if (value instanceof Map) {
+            long bytes = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                bytes += maxBytes(entry.getKey(), limit - bytes) + maxBytes(entry.getValue(), limit - bytes);
+                if (bytes >= limit) {
+                    break;
+                }
+            }
+            return bytes;
+        }
+        if (value instanceof Object[]) {
+            long bytes = 0;
+            for (Object element : (Object[]) value) {
+                bytes += maxBytes(element, limit - bytes);
+                if (bytes >= limit) {
+                    break;
+                }
+            }
+            return bytes;
+        }
+        if (value instanceof ScanResult) {
+            return maxBytes(((ScanResult<?>) value).getResult(), limit);
+        }
+        return bytes(value);
+    }
+
+    /**
+     * 元素个数：集合、hash、数组为元素个数，其它为0。
+     */
+    static long elements(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        if (value instanceof Object[]) {
+            return ((Object[]) value).length;
+        }
+        if (value instanceof ScanResult) {
+            return elements(((ScanResult<?>) value).getResult());
+        }
+        return 0;
+    }
+
+    /**
+     * 字符串按UTF-8编码后的字节数，不编码。
+     */
+    static long utf8Length(String value) {
+        int length = value.length();
+        long bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // 4字节字符占两个char
+                    bytes += 2;
+                    i++;
+                } else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+}
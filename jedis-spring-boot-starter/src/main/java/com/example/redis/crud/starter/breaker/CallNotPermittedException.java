@@ -0,0 +1,17 @@
+package com.example.redis.crud.starter.breaker;
+
+/**
+ * @author jackie wang
+ * @Title: CallNotPermittedException
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 节点已熔断或并发调用数已满，调用没有执行。快速失败的路径上频繁创建，不填充异常栈。
+ * @date 2019/12/25 10:20
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CallNotPermittedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,415 @@
+package com.example.redis.crud.starter.breaker;
+
+import com.example.redis.crud.starter.configuration.JedisProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.exceptions.JedisBusyException;
+import redis.clients.jedis.exceptions.JedisClusterException;
+import redis.clients.jedis.exceptions.JedisClusterMaxRedirectionsException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author jackie wang
+ * @Title: CircuitBreaker
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一个节点的熔断器和并发隔离。
+ * 关闭状态下按秒分桶统计滑动窗口内的调用数、失败数和慢调用数，调用数达到minimum-calls并且失败率或慢调用率
+ * 超过阈值时熔断；熔断期间调用直接失败，经过wait-in-open-millis后进入半开状态，放行half-open-calls个探测调用，
+ * 全部成功时恢复，任何一个失败或超时重新熔断。每个调用按申请时的状态统计：关闭状态下申请的调用在半开状态结束时
+ * 不计为探测调用，半开状态的探测调用在状态变化后结束时也不再计入。
+ * 只有连接异常、超时、BUSY和集群不可用计为失败，WRONGTYPE等命令错误是调用方的问题，不计为失败。
+ * 配置了max-concurrent-calls时，同一节点的并发调用数超过该值的调用等待max-wait-millis后失败，
+ * 节点变慢时不会占满所有业务线程；等待期间阻塞调用线程，max-wait-millis默认为0，即立即失败。
+ * @date 2019/12/25 10:20
+ */
+public class CircuitBreaker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * 熔断器状态，value为监控指标的值。
+     */
+    public enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int value;
+
+        State(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    private final String node;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long waitInOpenNanos;
+    private final int halfOpenCalls;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    /** 并发隔离，不限制时为null */
+    private final Semaphore bulkhead;
+
+    /** 不填充异常栈，可以复用 */
+    private final CallNotPermittedException openException;
+    private final CallNotPermittedException bulkheadFullException;
+
+    /** 关闭状态和半开状态申请的调用，不需要每次调用创建 */
+    private final Permit closedPermit = new Permit(State.CLOSED);
+    private final Permit probePermit = new Permit(State.HALF_OPEN);
+
+    private final Bucket[] buckets;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openedAt;
+    /** 半开状态剩余的探测调用数和已成功的探测调用数，在进入半开状态之后设置 */
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder bulkheadFullCount = new LongAdder();
+    private final LongAdder openedCount = new LongAdder();
+
+    CircuitBreaker(String node, JedisProperties.CircuitBreaker properties) {
+        this.node = node;
+        this.minimumCalls = Math.max(1, properties.getMinimumCalls());
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowCallDurationMillis());
+        this.slowCallRateThreshold = properties.getSlowCallRateThreshold();
+        this.waitInOpenNanos = TimeUnit.MILLISECONDS.toNanos(properties.getWaitInOpenMillis());
+        this.halfOpenCalls = Math.max(1, properties.getHalfOpenCalls());
+        this.maxConcurrentCalls = properties.getMaxConcurrentCalls();
+        this.maxWaitMillis = properties.getMaxWaitMillis();
+        this.bulkhead = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
+        this.openException = new CallNotPermittedException("Redis node " + node + " circuit is open.");
+        this.bulkheadFullException = new CallNotPermittedException("Redis node " + node + " has "
+                + maxConcurrentCalls + " concurrent calls.");
+        this.buckets = new Bucket[Math.max(1, properties.getWindowSeconds())];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 申请执行一次调用，成功返回后调用结束时必须调用返回的Permit的onComplete(...)。
+     * @return 带有申请时状态的调用许可
+     * @throws CallNotPermittedException 已熔断、半开状态的探测调用已满或并发调用数已满
+     */
+    public Permit acquire() {
+        State current = state.get();
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt < waitInOpenNanos || !toHalfOpen()) {
+                rejectedCount.increment();
+                throw openException;
+            }
+            current = State.HALF_OPEN;
+        }
+        if (current == State.HALF_OPEN && !acquireProbe()) {
+            rejectedCount.increment();
+            throw openException;
+        }
+        if (bulkhead != null && !acquireBulkhead()) {
+            if (current == State.HALF_OPEN) {
+                halfOpenPermits.incrementAndGet();
+            }
+            bulkheadFullCount.increment();
+            throw bulkheadFullException;
+        }
+        return current == State.HALF_OPEN ? probePermit : closedPermit;
+    }
+
+    /**
+     * 记录一次已申请的调用的结果，释放并发调用数。
+     * @param admitted 申请时的状态
+     * @param durationNanos 耗时(纳秒)，包括等待连接的时间
+     * @param error 异常，成功时为null
+     */
+    private void onComplete(State admitted, long durationNanos, Throwable error) {
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+        // 状态已经变化，申请时的统计不再有效
+        if (state.get() != admitted) {
+            return;
+        }
+        boolean failed = isFailure(error);
+        boolean slow = durationNanos >= slowCallNanos;
+        if (admitted == State.HALF_OPEN) {
+            if (failed || slow) {
+                toOpen(State.HALF_OPEN, failed ? "probe failed" : "probe slow");
+            } else if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls) {
+                toClosed();
+            }
+            return;
+        }
+        Bucket bucket = bucket();
+        bucket.calls.increment();
+        if (failed) {
+            bucket.failures.increment();
+        }
+        if (slow) {
+            bucket.slowCalls.increment();
+        }
+        // 成功的调用只会降低失败率和慢调用率，不需要检查
+        if (failed || slow) {
+            checkRates();
+        }
+    }
+
+    /**
+     * 判断异常是否说明节点不可用：连接异常（包括超时、连接池耗尽）、BUSY、CLUSTERDOWN和重定向次数超限。
+     * @param error
+     * @return
+     */
+    public static boolean isFailure(Throwable error) {
+        if (!(error instanceof JedisException)) {
+            return false;
+        }
+        return !(error instanceof JedisDataException) || error instanceof JedisBusyException
+                || error instanceof JedisClusterException || error instanceof JedisClusterMaxRedirectionsException;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public State getState() {
+        State current = state.get();
+        // 熔断时间已到但还没有调用触发状态变化时，按半开状态显示
+        return current == State.OPEN && System.nanoTime() - openedAt >= waitInOpenNanos ? State.HALF_OPEN : current;
+    }
+
+    /**
+     * 滑动窗口内的失败率(百分比)。
+     * @return 窗口内没有调用时为0
+     */
+    public double getFailureRate() {
+        long[] counts = counts();
+        return counts[0] == 0 ? 0 : counts[1] * 100.0 / counts[0];
+    }
+
+    /**
+     * 滑动窗口内的慢调用率(百分比)。
+     * @return 窗口内没有调用时为0
+     */
+    public double getSlowCallRate() {
+        long[] counts = counts();
+        return counts[0] == 0 ? 0 : counts[2] * 100.0 / counts[0];
+    }
+
+    /**
+     * 滑动窗口内的调用数。
+     * @return
+     */
+    public long getCalls() {
+        return counts()[0];
+    }
+
+    /**
+     * 熔断（包括半开状态探测调用已满）拒绝的调用数。
+     * @return
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * 并发调用数已满拒绝的调用数。
+     * @return
+     */
+    public long getBulkheadFullCount() {
+        return bulkheadFullCount.sum();
+    }
+
+    /**
+     * 熔断次数。
+     * @return
+     */
+    public long getOpenedCount() {
+        return openedCount.sum();
+    }
+
+    /**
+     * 正在执行的调用数，没有配置并发隔离时为-1。
+     * @return
+     */
+    public int getConcurrentCalls() {
+        return bulkhead == null ? -1 : maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    /**
+     * 强制恢复为关闭状态，清空统计。
+     */
+    public void reset() {
+        toClosed();
+    }
+
+    @Override
+    public String toString() {
+        return node + " " + getState() + " calls=" + getCalls() + " failureRate="
+                + String.format("%.1f", getFailureRate()) + "% slowCallRate=" + String.format("%.1f", getSlowCallRate())
+                + "% opened=" + getOpenedCount() + " rejected=" + getRejectedCount() + " bulkheadFull="
+                + getBulkheadFullCount();
+    }
+
+    /**
+     * 占用一个探测调用，探测调用已满时返回false。
+     */
+    private boolean acquireProbe() {
+        int permits;
+        do {
+            permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+        } while (!halfOpenPermits.compareAndSet(permits, permits - 1));
+        return true;
+    }
+
+    private boolean acquireBulkhead() {
+        if (maxWaitMillis <= 0) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void checkRates() {
+        long[] counts = counts();
+        if (counts[0] < minimumCalls) {
+            return;
+        }
+        if (counts[1] * 100 >= failureRateThreshold * counts[0]) {
+            toOpen(State.CLOSED, "failure rate " + counts[1] * 100 / counts[0] + "%");
+        } else if (counts[2] * 100 >= slowCallRateThreshold * counts[0]) {
+            toOpen(State.CLOSED, "slow call rate " + counts[2] * 100 / counts[0] + "%");
+        }
+    }
+
+    private void toOpen(State from, String reason) {
+        // 先设置时间，其他线程看到OPEN时时间已经生效
+        long now = System.nanoTime();
+        if (state.get() == from) {
+            openedAt = now;
+            if (state.compareAndSet(from, State.OPEN)) {
+                // 剩余的探测调用作废，下次进入半开状态时重新设置
+                halfOpenPermits.set(0);
+                openedCount.increment();
+                LOGGER.warn("[CircuitBreaker]Redis node {} circuit opened: {}, calls fail fast for {} ms.", node,
+                        reason, TimeUnit.NANOSECONDS.toMillis(waitInOpenNanos));
+            }
+        }
+    }
+
+    /**
+     * 只有把状态从OPEN改为HALF_OPEN的线程重置探测调用数，其他线程在设置之前申请的探测调用被拒绝。
+     */
+    private boolean toHalfOpen() {
+        if (!state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            return state.get() == State.HALF_OPEN;
+        }
+        halfOpenSuccesses.set(0);
+        halfOpenPermits.set(halfOpenCalls);
+        LOGGER.info("[CircuitBreaker]Redis node {} circuit half-open, probing with {} calls.", node, halfOpenCalls);
+        return true;
+    }
+
+    private void toClosed() {
+        for (Bucket bucket : buckets) {
+            synchronized (bucket) {
+                bucket.reset(Long.MIN_VALUE);
+            }
+        }
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            LOGGER.info("[CircuitBreaker]Redis node {} circuit closed.", node);
+        }
+    }
+
+    /**
+     * 当前秒的桶，已过期的桶先清零。
+     */
+    private Bucket bucket() {
+        // nanoTime的起点是任意的，可能为负数
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        Bucket bucket = buckets[(int) Math.floorMod(second, (long) buckets.length)];
+        if (bucket.second != second) {
+            synchronized (bucket) {
+                if (bucket.second != second) {
+                    bucket.reset(second);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * 窗口内的调用数、失败数、慢调用数。
+     */
+    private long[] counts() {
+        long oldest = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime()) - buckets.length;
+        long[] counts = new long[3];
+        for (Bucket bucket : buckets) {
+            if (bucket.second > oldest) {
+                counts[0] += bucket.calls.sum();
+                counts[1] += bucket.failures.sum();
+                counts[2] += bucket.slowCalls.sum();
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 一次调用的许可，记录申请时的状态。
+     */
+    public final class Permit {
+        private final State admitted;
+
+        private Permit(State admitted) {
+            this.admitted = admitted;
+        }
+
+        /**
+         * 记录调用结果，释放并发调用数。
+         * @param durationNanos 耗时(纳秒)，包括等待连接的时间
+         * @param error 异常，成功时为null
+         */
+        public void onComplete(long durationNanos, Throwable error) {
+            CircuitBreaker.this.onComplete(admitted, durationNanos, error);
+        }
+
+        public CircuitBreaker getBreaker() {
+            return CircuitBreaker.this;
+        }
+    }
+
+    /**
+     * 一秒的统计。
+     */
+    private static final class Bucket {
+        private volatile long second = Long.MIN_VALUE;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder slowCalls = new LongAdder();
+
+        void reset(long second) {
+            calls.reset();
+            failures.reset();
+            slowCalls.reset();
+            this.second = second;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.redis.crud.starter.breaker;
+
+import com.example.redis.crud.starter.configuration.JedisProperties;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: CircuitBreakers
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 按节点的熔断器，jedis.circuit-breaker.enabled=true时注入RedisUtilImpl和RedisClusterUtil。
+ * RedisUtil按key所在的分片（哨兵模式为当前主节点），RedisClusterUtil按key所在slot的主节点，多key命令按第一个key，
+ * 节点第一次被调用时创建熔断器。熔断或并发调用数已满时命令不执行，与执行失败一样返回null（或false），
+ * 不等待连接超时和读超时；本来就抛出异常的方法抛出CallNotPermittedException。
+ * 没有key的命令（pipelined、scan等）和阻塞命令（blpop、brpop）不经过熔断器。
+ * 同时注册为JMX MBean（jedis:name=circuitBreakers）。
+ * @date 2019/12/25 10:20
+ */
+@ManagedResource(objectName = "jedis:name=circuitBreakers", description = "Redis circuit breakers")
+public class CircuitBreakers {
+
+    private final JedisProperties.CircuitBreaker properties;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final List<Consumer<CircuitBreaker>> listeners = new CopyOnWriteArrayList<>();
+
+    public CircuitBreakers(JedisProperties.CircuitBreaker properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 节点的熔断器，不存在时创建。
+     * @param node 节点名称（host:port）
+     * @return
+     */
+    public CircuitBreaker get(String node) {
+        CircuitBreaker breaker = breakers.get(node);
+        if (breaker != null) {
+            return breaker;
+        }
+        boolean[] created = new boolean[1];
+        breaker = breakers.computeIfAbsent(node, n -> {
+            created[0] = true;
+            return new CircuitBreaker(n, properties);
+        });
+        if (created[0]) {
+            for (Consumer<CircuitBreaker> listener : listeners) {
+                listener.accept(breaker);
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * 申请在节点上执行一次调用，调用结束时必须调用返回的许可的onComplete(...)。
+     * @param node 节点名称，为null时不经过熔断器
+     * @return 调用许可，node为null时返回null
+     * @throws CallNotPermittedException 已熔断或并发调用数已满
+     */
+    public CircuitBreaker.Permit acquire(String node) {
+        return node == null ? null : get(node).acquire();
+    }
+
+    /**
+     * 经过节点的熔断器执行，异常原样抛出。
+     * @param node 节点名称，为null时直接执行
+     * @param body 命令
+     * @return 命令返回值
+     * @throws CallNotPermittedException 已熔断或并发调用数已满
+     */
+    public <R> R execute(String node, Supplier<R> body) {
+        CircuitBreaker.Permit permit = acquire(node);
+        if (permit == null) {
+            return body.get();
+        }
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            return body.get();
+        } catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            permit.onComplete(System.nanoTime() - start, error);
+        }
+    }
+
+    /**
+     * 注册熔断器创建的监听，已创建的熔断器立即回调（监控使用）。
+     * @param listener
+     */
+    public void forEach(Consumer<CircuitBreaker> listener) {
+        listeners.add(listener);
+        for (CircuitBreaker breaker : breakers.values()) {
+            listener.accept(breaker);
+        }
+    }
+
+    /**
+     * 所有节点的熔断器，按节点名称排序。
+     * @return
+     */
+    public List<CircuitBreaker> getBreakers() {
+        return new ArrayList<>(new TreeMap<>(breakers).values());
+    }
+
+    @ManagedOperation(description = "Circuit breaker state per node")
+    public String states() {
+        StringBuilder builder = new StringBuilder();
+        for (CircuitBreaker breaker : getBreakers()) {
+            builder.append(breaker).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @ManagedOperation(description = "Close the circuit of a node (host:port)")
+    public void reset(String node) {
+        CircuitBreaker breaker = breakers.get(node);
+        if (breaker != null) {
+            breaker.reset();
+        }
+    }
+
+    @ManagedOperation(description = "Close the circuits of all nodes")
+    public void resetAll() {
+        for (CircuitBreaker breaker : breakers.values()) {
+            breaker.reset();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.redis.crud.starter.cache;
+
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.component.WriteOptions;
+
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: CacheCommands
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: Spring Cache用到的redis命令，集群版委托RedisClusterUtil，单机版分片模式委托RedisUtil，
+ * 值的压缩和本地缓存失效由工具类处理。
+ * @date 2019/12/13 10:20
+ */
+public interface CacheCommands {
+
+    /**
+     * GET，并按编解码器反序列化。
+     * @param key
+     * @param codec
+     * @return key不存在返回null
+     */
+    <T> T get(String key, RedisCodec<T> codec);
+
+    /**
+     * 批量GET，集群版按slot分组、分片模式按分片分组，一次网络往返。
+     * @param codec
+     * @param keys
+     * @return 与keys顺序一致，不存在的key对应null
+     */
+    <T> List<T> mget(RedisCodec<T> codec, String... keys);
+
+    /**
+     * 按写入选项SET。
+     * @param key
+     * @param value
+     * @param codec
+     * @param options
+     * @return 是否写入成功，NX条件不满足时返回false
+     */
+    <T> boolean set(String key, T value, RedisCodec<T> codec, WriteOptions options);
+
+    /**
+     * 删除key。
+     * @param keys
+     */
+    void del(String... keys);
+
+    /**
+     * 删除匹配的所有key（SCAN + DEL）。
+     * @param pattern
+     * @return 删除的个数
+     */
+    long clear(String pattern);
+}
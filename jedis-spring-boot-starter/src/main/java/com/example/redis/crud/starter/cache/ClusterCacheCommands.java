@@ -0,0 +1,71 @@
+package com.example.redis.crud.starter.cache;
+
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.component.RedisClusterUtil;
+import com.example.redis.crud.starter.component.WriteOptions;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author jackie wang
+ * @Title: ClusterCacheCommands
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群版Spring Cache命令。
+ * @date 2019/12/13 10:20
+ */
+public class ClusterCacheCommands implements CacheCommands {
+
+    /** clear时每次SCAN的COUNT参数，也是每批删除的key数 */
+    private static final int CLEAR_BATCH_SIZE = 500;
+
+    private final RedisClusterUtil redisClusterUtil;
+
+    public ClusterCacheCommands(RedisClusterUtil redisClusterUtil) {
+        this.redisClusterUtil = redisClusterUtil;
+    }
+
+    @Override
+    public <T> T get(String key, RedisCodec<T> codec) {
+        return redisClusterUtil.get(key, codec);
+    }
+
+    @Override
+    public <T> List<T> mget(RedisCodec<T> codec, String... keys) {
+        return redisClusterUtil.mget(codec, keys);
+    }
+
+    @Override
+    public <T> boolean set(String key, T value, RedisCodec<T> codec, WriteOptions options) {
+        return redisClusterUtil.set(key, value, codec, options);
+    }
+
+    @Override
+    public void del(String... keys) {
+        redisClusterUtil.del(keys);
+    }
+
+    @Override
+    public long clear(String pattern) {
+        long count = 0;
+        try (Stream<String> keys = redisClusterUtil.scan(pattern, CLEAR_BATCH_SIZE)) {
+            if (keys == null) {
+                throw new JedisException("Failed to scan keys: " + pattern);
+            }
+            List<String> batch = new ArrayList<>(CLEAR_BATCH_SIZE);
+            for (String key : (Iterable<String>) keys::iterator) {
+                batch.add(key);
+                if (batch.size() == CLEAR_BATCH_SIZE) {
+                    count += redisClusterUtil.del(batch.toArray(new String[0]));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += redisClusterUtil.del(batch.toArray(new String[0]));
+            }
+        }
+        return count;
+    }
+}
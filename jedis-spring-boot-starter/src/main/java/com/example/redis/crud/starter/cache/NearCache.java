@@ -0,0 +1,242 @@
+package com.example.redis.crud.starter.cache;
+
+import com.example.redis.crud.starter.configuration.JedisProperties;
+import org.springframework.util.PatternMatchUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author jackie wang
+ * @Title: NearCache
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 进程内本地缓存（L1），放在RedisUtil/RedisClusterUtil前面，减少热点key的网络读取。
+ * 按key哈希分成多个段，每个段是一个按访问顺序排列的LinkedHashMap（LRU），同时限制条数和内存占用（估算值）。
+ * 并发控制：读取Redis之前先获取stamp(key)，写入本地缓存时如果期间发生过失效则放弃写入，避免旧值覆盖失效。
+ * @date 2019/11/27 10:20
+ */
+public class NearCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+    private final long defaultTtlNanos;
+    private final List<PatternTtl> patternTtls = new ArrayList<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    public NearCache(JedisProperties.NearCache properties) {
+        this.segments = new Segment[SEGMENT_COUNT];
+        int maxEntries = Math.max(1, properties.getMaxEntries() / SEGMENT_COUNT);
+        long maxBytes = Math.max(1, properties.getMaxBytes() / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(maxEntries, maxBytes);
+        }
+        this.defaultTtlNanos = TimeUnit.SECONDS.toNanos(properties.getTimeToLive());
+        for (JedisProperties.KeyPatternTtl keyPattern : properties.getKeyPatterns()) {
+            patternTtls.add(new PatternTtl(keyPattern.getPattern(),
+                    TimeUnit.SECONDS.toNanos(keyPattern.getTimeToLive())));
+        }
+    }
+
+    /**
+     * 查询本地缓存。
+     * @param key
+     * @return 缓存的值，不存在或已过期返回null
+     */
+    public Object get(String key) {
+        Object value = segmentFor(key).get(key, System.nanoTime());
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 读取Redis之前调用，作为put(...)的参数。
+     * @param key
+     * @return
+     */
+    public long stamp(String key) {
+        return segmentFor(key).version;
+    }
+
+    /**
+     * 放入本地缓存，如果stamp之后key所在的段发生过失效则不放入。
+     * @param key
+     * @param value 不能为null
+     * @param stamp stamp(key)的返回值
+     */
+    public void put(String key, Object value, long stamp) {
+        long ttlNanos = ttlFor(key);
+        if (ttlNanos <= 0 || value == null) {
+            return;
+        }
+        segmentFor(key).put(key, new Entry(value, weigh(key, value), System.nanoTime() + ttlNanos), stamp);
+    }
+
+    /**
+     * 失效某个key。
+     * @param key
+     */
+    public void invalidate(String key) {
+        if (segmentFor(key).remove(key)) {
+            invalidationCount.increment();
+        }
+    }
+
+    /**
+     * 失效所有key，例如失效通知连接断开期间可能漏掉通知。
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            invalidationCount.add(segment.clear());
+        }
+    }
+
+    /**
+     * 命中率等统计信息。
+     * @return
+     */
+    public NearCacheStats stats() {
+        long size = 0;
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+                bytes += segment.bytes;
+            }
+        }
+        return new NearCacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), invalidationCount.sum(),
+                size, bytes);
+    }
+
+    private long ttlFor(String key) {
+        for (PatternTtl patternTtl : patternTtls) {
+            if (PatternMatchUtils.simpleMatch(patternTtl.pattern, key)) {
+                return patternTtl.ttlNanos;
+            }
+        }
+        return defaultTtlNanos;
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * 估算占用内存：对象头 + 每个字符2字节。
+     */
+    static long weigh(String key, Object value) {
+        long weight = 64 + 2L * key.length();
+        if (value instanceof String) {
+            weight += 40 + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            weight += 16 + ((byte[]) value).length;
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                weight += 32 + weigh(String.valueOf(entry.getKey()), entry.getValue()) - 64;
+            }
+        } else {
+            weight += 64;
+        }
+        return weight;
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxEntries;
+        private final long maxBytes;
+        private long bytes;
+
+        /** 失效次数，用于丢弃失效之前读取到的旧值 */
+        private volatile long version;
+
+        Segment(int maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Object get(String key, long now) {
+            Entry entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt - now <= 0) {
+                map.remove(key);
+                bytes -= entry.weight;
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(String key, Entry entry, long stamp) {
+            if (version != stamp || entry.weight > maxBytes) {
+                return;
+            }
+            Entry old = map.put(key, entry);
+            if (old != null) {
+                bytes -= old.weight;
+            }
+            bytes += entry.weight;
+
+            Iterator<Entry> iterator = map.values().iterator();
+            while ((map.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+                bytes -= iterator.next().weight;
+                iterator.remove();
+                evictionCount.increment();
+            }
+        }
+
+        synchronized boolean remove(String key) {
+            version++;
+            Entry old = map.remove(key);
+            if (old != null) {
+                bytes -= old.weight;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized int clear() {
+            version++;
+            int size = map.size();
+            map.clear();
+            bytes = 0;
+            return size;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long weight;
+        private final long expireAt;
+
+        Entry(Object value, long weight, long expireAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class PatternTtl {
+        private final String pattern;
+        private final long ttlNanos;
+
+        PatternTtl(String pattern, long ttlNanos) {
+            this.pattern = pattern;
+            this.ttlNanos = ttlNanos;
+        }
+    }
+}
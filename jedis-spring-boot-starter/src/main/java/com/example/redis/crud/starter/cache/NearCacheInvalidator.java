@@ -0,0 +1,194 @@
+package com.example.redis.crud.starter.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.JedisShardInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: NearCacheInvalidator
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 本地缓存失效监听：每个Redis节点一个独立的订阅连接（不占用连接池），
+ * 订阅__keyspace@<db>__:*，key被修改、删除、过期时失效本地缓存，使多个应用节点之间的本地缓存保持一致。
+ * 订阅连接断开期间可能漏掉通知，因此断开时清空本地缓存，并在1秒后重连；每次订阅成功时再清空一次，
+ * 断开到重新订阅之间放入本地缓存的值可能已经过期。
+ * 说明：keyspace通知需要服务端开启notify-keyspace-events（至少包含K和A），
+ * 可以通过jedis.near-cache.configure-notifications=true在启动时自动开启。
+ * 哨兵模式订阅当前主节点，主从切换后调用resubscribe()在新主节点上重新订阅。
+ * @date 2019/11/27 10:20
+ */
+public class NearCacheInvalidator implements InitializingBean, DisposableBean {
+    private Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    private static final long RECONNECT_INTERVAL_MILLIS = 1000L;
+
+    private final NearCache nearCache;
+    private final List<Supplier<JedisShardInfo>> endpoints = new ArrayList<>();
+    private final boolean configureNotifications;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    /**
+     * @param nearCache              本地缓存
+     * @param endpoints              需要订阅的节点（单机版/分片的每个分片，集群的每个节点）
+     * @param configureNotifications 是否通过CONFIG SET开启keyspace通知
+     */
+    public NearCacheInvalidator(NearCache nearCache, List<JedisShardInfo> endpoints, boolean configureNotifications) {
+        this.nearCache = nearCache;
+        for (JedisShardInfo endpoint : endpoints) {
+            this.endpoints.add(() -> endpoint);
+        }
+        this.configureNotifications = configureNotifications;
+    }
+
+    /**
+     * 只订阅一个节点，每次（重新）订阅时读取节点地址，用于哨兵模式的当前主节点。
+     * @param nearCache              本地缓存
+     * @param endpoint               需要订阅的节点
+     * @param configureNotifications 是否通过CONFIG SET开启keyspace通知
+     */
+    public NearCacheInvalidator(NearCache nearCache, Supplier<JedisShardInfo> endpoint, boolean configureNotifications) {
+        this.nearCache = nearCache;
+        this.endpoints.add(endpoint);
+        this.configureNotifications = configureNotifications;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (Supplier<JedisShardInfo> endpoint : endpoints) {
+            Subscriber subscriber = new Subscriber(endpoint);
+            subscribers.add(subscriber);
+            JedisShardInfo first = endpoint.get();
+            Thread thread = new Thread(subscriber,
+                    "redis-near-cache-invalidator-" + first.getHost() + ":" + first.getPort());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.stop();
+        }
+    }
+
+    /**
+     * 节点地址变化（哨兵模式主从切换）后重新订阅，订阅地址没有变化的节点不受影响。
+     */
+    public void resubscribe() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.resubscribe();
+        }
+    }
+
+    /**
+     * 合并notify-keyspace-events，保留服务端已有的配置。
+     */
+    static String mergeNotifyFlags(String current) {
+        StringBuilder flags = new StringBuilder(current == null ? "" : current);
+        for (char flag : new char[]{'K', 'A'}) {
+            if (flags.indexOf(String.valueOf(flag)) < 0) {
+                flags.append(flag);
+            }
+        }
+        return flags.toString();
+    }
+
+    private class Subscriber implements Runnable {
+        private final Supplier<JedisShardInfo> endpointSupplier;
+        private final String channelPrefix;
+        /** 当前订阅的节点 */
+        private volatile JedisShardInfo endpoint;
+        private volatile boolean running = true;
+
+        private final JedisPubSub pubSub = new JedisPubSub() {
+            @Override
+            public void onPMessage(String pattern, String channel, String message) {
+                nearCache.invalidate(channel.substring(channelPrefix.length()));
+            }
+
+            @Override
+            public void onPSubscribe(String pattern, int subscribedChannels) {
+                // 订阅之前读到的值收不到失效通知
+                nearCache.invalidateAll();
+                LOGGER.info("[NearCacheInvalidator]Subscribed {} on {}:{}.", pattern, endpoint.getHost(),
+                        endpoint.getPort());
+                // 订阅期间节点地址已经变化，resubscribe()时还没有订阅成功
+                if (endpointSupplier.get() != endpoint) {
+                    punsubscribe();
+                }
+            }
+        };
+
+        Subscriber(Supplier<JedisShardInfo> endpointSupplier) {
+            this.endpointSupplier = endpointSupplier;
+            this.channelPrefix = "__keyspace@" + endpointSupplier.get().getDb() + "__:";
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                JedisShardInfo endpoint = endpointSupplier.get();
+                this.endpoint = endpoint;
+                boolean lost = true;
+                // 订阅连接会一直阻塞读取，soTimeout必须为0
+                Jedis jedis = new Jedis(endpoint.getHost(), endpoint.getPort(), endpoint.getConnectionTimeout(), 0);
+                try {
+                    if (StringUtils.hasText(endpoint.getPassword())) {
+                        jedis.auth(endpoint.getPassword());
+                    }
+                    if (configureNotifications) {
+                        List<String> current = jedis.configGet("notify-keyspace-events");
+                        jedis.configSet("notify-keyspace-events",
+                                mergeNotifyFlags(current.size() > 1 ? current.get(1) : null));
+                    }
+                    jedis.psubscribe(pubSub, channelPrefix + "*");
+                    // resubscribe()主动取消的订阅，立即订阅新节点
+                    lost = endpointSupplier.get() == endpoint;
+                } catch (Exception e) {
+                    if (running) {
+                        LOGGER.warn("[NearCacheInvalidator]Subscription to {}:{} lost, near cache cleared.",
+                                endpoint.getHost(), endpoint.getPort(), e);
+                    }
+                } finally {
+                    jedis.close();
+                }
+
+                if (running) {
+                    nearCache.invalidateAll();
+                    if (!lost) {
+                        continue;
+                    }
+                    try {
+                        Thread.sleep(RECONNECT_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        void resubscribe() {
+            if (endpointSupplier.get() != endpoint && pubSub.isSubscribed()) {
+                pubSub.punsubscribe();
+            }
+        }
+
+        void stop() {
+            running = false;
+            if (pubSub.isSubscribed()) {
+                pubSub.punsubscribe();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.redis.crud.starter.cache;
+
+/**
+ * @author jackie wang
+ * @Title: NearCacheStats
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 本地缓存统计信息快照。
+ * @date 2019/11/27 10:20
+ */
+public class NearCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+    private final long size;
+    private final long weightedSize;
+
+    public NearCacheStats(long hitCount, long missCount, long evictionCount, long invalidationCount, long size,
+                          long weightedSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+        this.size = size;
+        this.weightedSize = weightedSize;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 命中率，没有请求时返回1。
+     * @return
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /** 因超过条数或内存限制被淘汰的条数 */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /** 因写入或keyspace通知被失效的条数 */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /** 估算的内存占用，单位字节 */
+    public long getWeightedSize() {
+        return weightedSize;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+                + ", invalidationCount=" + invalidationCount + ", size=" + size + ", weightedSize=" + weightedSize + '}';
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.redis.crud.starter.cache;
+
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.component.WriteOptions;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * @author jackie wang
+ * @Title: RedisCache
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: Spring Cache的redis实现，redis中的key为keyPrefix + 缓存名称 + "::" + key.toString()。
+ * 值通过编解码器序列化（启用压缩时由工具类压缩），null值保存为空字节数组；可选使用NearCache作为本地缓存（L1），
+ * 本地缓存的过期时间通过jedis.near-cache.key-patterns按缓存名称配置，其他进程的修改通过失效通知同步。
+ * 批量查询：getAll(...)先查本地缓存，未命中的key通过一次MGET（集群版按slot分组并行，分片模式按分片分组）读取。
+ * 使用示例：
+ * RedisCache cache = (RedisCache) cacheManager.getCache("users");
+ * Map<Long, UserVo> users = cache.getAll(ids, missing -> userMapper.selectByIds(missing));
+ * @date 2019/12/13 10:20
+ */
+public class RedisCache extends AbstractValueAdaptingCache {
+
+    /** get(key, valueLoader)按key加锁的分段数 */
+    private static final int LOCK_STRIPES = 64;
+
+    private final String name;
+    private final String keyPrefix;
+    private final CacheCommands commands;
+    private final RedisCodec<Object> codec;
+    private final NearCache nearCache;
+    private final WriteOptions writeOptions;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param name 缓存名称
+     * @param keyPrefix redis key前缀
+     * @param commands redis命令
+     * @param codec 值的编解码器
+     * @param nearCache 本地缓存，为null时不使用
+     * @param timeToLive 过期时间(秒)，小于等于0表示不过期
+     * @param allowNullValues 是否缓存null值
+     */
+    public RedisCache(String name, String keyPrefix, CacheCommands commands, RedisCodec<Object> codec,
+                      NearCache nearCache, long timeToLive, boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.keyPrefix = (keyPrefix == null ? "" : keyPrefix) + name + "::";
+        this.commands = commands;
+        this.codec = new StoreValueCodec(codec);
+        this.nearCache = nearCache;
+        this.writeOptions = timeToLive > 0 ? WriteOptions.ex(timeToLive) : WriteOptions.none();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CacheCommands getNativeCache() {
+        return commands;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String redisKey = createKey(key);
+        if (nearCache != null) {
+            Object cached = nearCache.get(redisKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long stamp = nearCache != null ? nearCache.stamp(redisKey) : 0L;
+        Object value = commands.get(redisKey, codec);
+        if (value != null && nearCache != null) {
+            nearCache.put(redisKey, value, stamp);
+        }
+        return value;
+    }
+
+    /**
+     * 查询缓存，不存在时调用valueLoader加载并放入缓存；同一个进程中同一个key同时只有一个线程加载。
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        synchronized (lockFor(key)) {
+            wrapper = get(key);
+            if (wrapper != null) {
+                return (T) wrapper.get();
+            }
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Throwable e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            put(key, value);
+            return value;
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        commands.set(createKey(key), toStoreValue(value), codec, writeOptions);
+    }
+
+    /**
+     * 不存在时放入（SET NX），已存在时返回当前值。
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (commands.set(createKey(key), toStoreValue(value), codec, writeOptions.nx())) {
+            return null;
+        }
+        return toValueWrapper(lookup(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        commands.del(createKey(key));
+    }
+
+    /**
+     * 删除当前缓存的所有key，通过SCAN遍历，key很多时耗时较长。
+     */
+    @Override
+    public void clear() {
+        commands.clear(keyPrefix + "*");
+    }
+
+    /**
+     * 批量查询，本地缓存未命中的key通过一次MGET读取。
+     * @param keys
+     * @return 存在的key及其值（缓存的null值对应值为null的ValueWrapper），不存在的key不包含在结果中
+     */
+    public <K> Map<K, ValueWrapper> getAll(Collection<K> keys) {
+        Map<K, ValueWrapper> result = new LinkedHashMap<>();
+        List<K> missing = new ArrayList<>();
+        List<String> missingKeys = new ArrayList<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            String redisKey = createKey(key);
+            Object cached = nearCache != null ? nearCache.get(redisKey) : null;
+            if (cached != null) {
+                result.put(key, toValueWrapper(cached));
+            } else {
+                missing.add(key);
+                missingKeys.add(redisKey);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long[] stamps = new long[missingKeys.size()];
+        if (nearCache != null) {
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = nearCache.stamp(missingKeys.get(i));
+            }
+        }
+        List<Object> values = commands.mget(codec, missingKeys.toArray(new String[0]));
+        if (values == null) {
+            return result;
+        }
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value != null) {
+                result.put(missing.get(i), toValueWrapper(value));
+                if (nearCache != null) {
+                    nearCache.put(missingKeys.get(i), value, stamps[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量查询，不存在的key通过loader一次加载并放入缓存。
+     * @param keys
+     * @param loader 参数为缓存中不存在的key，返回加载到的值；没有返回的key不放入缓存
+     * @return 按keys顺序排列的key及其值
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, ValueWrapper> cached = getAll(keys);
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (!cached.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        Map<K, V> loaded = missing.isEmpty() ? null : loader.apply(missing);
+        if (loaded != null) {
+            for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            ValueWrapper wrapper = cached.get(key);
+            if (wrapper != null) {
+                result.put(key, (V) wrapper.get());
+            } else if (loaded != null && loaded.containsKey(key)) {
+                result.put(key, loaded.get(key));
+            }
+        }
+        return result;
+    }
+
+    private String createKey(Object key) {
+        return keyPrefix + key;
+    }
+
+    private Object lockFor(Object key) {
+        int h = key.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * 处理null值：NullValue编码为空字节数组。
+     */
+    private static final class StoreValueCodec implements RedisCodec<Object> {
+        private static final byte[] NULL_VALUE = new byte[0];
+
+        private final RedisCodec<Object> delegate;
+
+        StoreValueCodec(RedisCodec<Object> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public byte[] encode(Object value) {
+            return value == NullValue.INSTANCE ? NULL_VALUE : delegate.encode(value);
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            return bytes.length == 0 ? NullValue.INSTANCE : delegate.decode(bytes);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.redis.crud.starter.cache;
+
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.configuration.JedisProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: RedisCacheManager
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: Spring Cache管理器，jedis.cache.enabled=true时启用，配合@EnableCaching和@Cacheable使用。
+ * 配置了jedis.cache.cache-names时只能使用这些缓存，否则按名称动态创建；
+ * 过期时间通过jedis.cache.time-to-live和jedis.cache.expires.<缓存名称>配置。
+ * @date 2019/12/13 10:20
+ */
+public class RedisCacheManager extends AbstractCacheManager {
+
+    private final CacheCommands commands;
+    private final RedisCodec<Object> codec;
+    private final NearCache nearCache;
+    private final JedisProperties.Cache properties;
+
+    /**
+     * @param commands redis命令
+     * @param codec 值的编解码器
+     * @param nearCache 本地缓存，为null时不使用
+     * @param properties 缓存配置
+     */
+    public RedisCacheManager(CacheCommands commands, RedisCodec<Object> codec, NearCache nearCache,
+                             JedisProperties.Cache properties) {
+        this.commands = commands;
+        this.codec = codec;
+        this.nearCache = nearCache;
+        this.properties = properties;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>();
+        for (String name : properties.getCacheNames()) {
+            caches.add(createCache(name));
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return properties.getCacheNames().isEmpty() ? createCache(name) : null;
+    }
+
+    private RedisCache createCache(String name) {
+        Long timeToLive = properties.getExpires().get(name);
+        return new RedisCache(name, properties.getKeyPrefix(), commands, codec, nearCache,
+                timeToLive != null ? timeToLive : properties.getTimeToLive(), properties.isCacheNullValues());
+    }
+}
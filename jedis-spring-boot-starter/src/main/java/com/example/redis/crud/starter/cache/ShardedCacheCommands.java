@@ -0,0 +1,97 @@
+package com.example.redis.crud.starter.cache;
+
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.component.BatchResult;
+import com.example.redis.crud.starter.component.RedisUtil;
+import com.example.redis.crud.starter.component.WriteOptions;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author jackie wang
+ * @Title: ShardedCacheCommands
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 单机版分片模式Spring Cache命令（单机版也通过只有一个分片的ShardedJedisPool访问）。
+ * @date 2019/12/13 10:20
+ */
+public class ShardedCacheCommands implements CacheCommands {
+
+    /** clear时每次SCAN的COUNT参数，也是每批删除的key数 */
+    private static final int CLEAR_BATCH_SIZE = 500;
+
+    private final RedisUtil redisUtil;
+
+    public ShardedCacheCommands(RedisUtil redisUtil) {
+        this.redisUtil = redisUtil;
+    }
+
+    @Override
+    public <T> T get(String key, RedisCodec<T> codec) {
+        return redisUtil.get(key, codec);
+    }
+
+    @Override
+    public <T> List<T> mget(RedisCodec<T> codec, String... keys) {
+        return redisUtil.mget(codec, keys);
+    }
+
+    @Override
+    public <T> boolean set(String key, T value, RedisCodec<T> codec, WriteOptions options) {
+        return redisUtil.set(key, value, codec, options) != null;
+    }
+
+    @Override
+    public void del(String... keys) {
+        if (keys.length == 1) {
+            redisUtil.del(keys[0]);
+        } else {
+            delete(keys);
+        }
+    }
+
+    @Override
+    public long clear(String pattern) {
+        long count = 0;
+        try (Stream<String> keys = redisUtil.scan(pattern, CLEAR_BATCH_SIZE)) {
+            if (keys == null) {
+                throw new JedisException("Failed to scan keys: " + pattern);
+            }
+            List<String> batch = new ArrayList<>(CLEAR_BATCH_SIZE);
+            for (String key : (Iterable<String>) keys::iterator) {
+                batch.add(key);
+                if (batch.size() == CLEAR_BATCH_SIZE) {
+                    count += delete(batch.toArray(new String[0]));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += delete(batch.toArray(new String[0]));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 通过pipeline批量删除，每个分片一次网络往返。
+     */
+    private long delete(String[] keys) {
+        List<BatchResult<?>> results = redisUtil.pipelined(batch -> {
+            for (String key : keys) {
+                batch.del(key);
+            }
+        });
+        long count = 0;
+        if (results != null) {
+            for (BatchResult<?> result : results) {
+                Object deleted = result.isSuccess() ? result.get() : null;
+                if (deleted instanceof Long) {
+                    count += (Long) deleted;
+                }
+            }
+        }
+        return count;
+    }
+}
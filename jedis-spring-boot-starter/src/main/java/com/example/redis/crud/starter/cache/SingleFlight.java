@@ -0,0 +1,122 @@
+package com.example.redis.crud.starter.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: SingleFlight
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 请求合并：同一个进程中对同一个key的并发调用只执行一次，其他线程等待并共享结果，
+ * 避免热点key过期时大量线程同时访问redis和数据库（缓存击穿）。
+ * 第一个调用的线程在自己的线程中执行，执行结束后其他线程返回相同的结果或抛出相同的异常；
+ * 其他线程最多等待maxWaitMillis，超时抛出SingleFlightWaitException（执行中的调用不受影响）。
+ * 共享的结果是同一个对象，可变对象（如Map）需要调用方复制后再返回给各自的调用者。
+ * @date 2019/12/16 10:20
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<String, Call> calls = new ConcurrentHashMap<>();
+    private final long maxWaitMillis;
+
+    private final LongAdder executedCount = new LongAdder();
+    private final LongAdder sharedCount = new LongAdder();
+
+    /**
+     * @param maxWaitMillis 等待执行中的调用的最长时间(毫秒)
+     */
+    public SingleFlight(long maxWaitMillis) {
+        if (maxWaitMillis <= 0) {
+            throw new IllegalArgumentException("The parameter 'maxWaitMillis' must be greater than 0.");
+        }
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * 执行调用，同一个key已经有调用在执行时等待其结果。
+     * @param key 合并的key，不同命令的结果类型不同，key需要包含命令，如"get:" + key
+     * @param supplier 实际的调用
+     * @return 调用结果
+     * @throws SingleFlightWaitException 等待超时或被中断，被中断时保留中断标志
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> supplier) {
+        Call call = new Call();
+        Call inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            sharedCount.increment();
+            return (T) inFlight.await(key, maxWaitMillis);
+        }
+
+        executedCount.increment();
+        try {
+            T value = supplier.get();
+            call.complete(value, null);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.complete(null, e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * 正在执行的调用数。
+     * @return
+     */
+    public int getInFlight() {
+        return calls.size();
+    }
+
+    /**
+     * 实际执行的调用数。
+     * @return
+     */
+    public long getExecutedCount() {
+        return executedCount.sum();
+    }
+
+    /**
+     * 共享其他线程结果（没有实际执行）的调用数。
+     * @return
+     */
+    public long getSharedCount() {
+        return sharedCount.sum();
+    }
+
+    private static final class Call {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Object value;
+        private volatile Throwable error;
+
+        void complete(Object value, Throwable error) {
+            this.value = value;
+            this.error = error;
+            done.countDown();
+        }
+
+        Object await(String key, long maxWaitMillis) {
+            try {
+                if (!done.await(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                    throw new SingleFlightWaitException("Timed out after " + maxWaitMillis
+                            + "ms waiting for in-flight call of " + key);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SingleFlightWaitException("Interrupted while waiting for in-flight call of " + key, e);
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.redis.crud.starter.cache;
+
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * @author jackie wang
+ * @Title: SingleFlightWaitException
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 等待其他线程执行中的调用超时或被中断，当前线程没有得到结果（执行中的调用不受影响）。
+ * 与调用本身抛出的异常区分，调用方可以只处理等待失败。
+ * @date 2019/12/16 10:20
+ */
+public class SingleFlightWaitException extends JedisException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SingleFlightWaitException(String message) {
+        super(message);
+    }
+
+    public SingleFlightWaitException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.redis.crud.starter.codec;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: Accessors
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: HashMapper和SchemaCodec共用的构造方法、getter、setter调用：通过LambdaMetafactory生成，
+ * 类对starter不可见或方法不能直接访问（非public，已setAccessible）时使用MethodHandle，读写不经过Method.invoke。
+ * @date 2019/12/11 14:10
+ */
+final class Accessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Accessors() {
+    }
+
+    /**
+     * 类能否由starter的类加载器加载：可以时生成lambda，否则（如devtools重启类加载器）使用MethodHandle。
+     */
+    static boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, Accessors.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 无参构造方法调用。
+     */
+    @SuppressWarnings("unchecked")
+    static Supplier<Object> constructor(Constructor<?> constructor, boolean lambda) throws IllegalAccessException {
+        Class<?> type = constructor.getDeclaringClass();
+        MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+        if (lambda) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+                return (Supplier<Object>) site.getTarget().invokeExact();
+            } catch (Throwable e) {
+                // 退回MethodHandle
+            }
+        }
+        MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+        return () -> {
+            try {
+                return generic.invokeExact();
+            } catch (Throwable e) {
+                throw new RedisCodecException("Failed to create " + type.getName(), e);
+            }
+        };
+    }
+
+    /**
+     * getter调用，基本类型返回包装类。
+     */
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> getter(Method method, boolean lambda) throws IllegalAccessException {
+        MethodHandle handle = LOOKUP.unreflect(method);
+        if (lambda) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class), handle,
+                        MethodType.methodType(box(method.getReturnType()), method.getDeclaringClass()));
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable e) {
+                // 退回MethodHandle
+            }
+        }
+        MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return target -> {
+            try {
+                return generic.invokeExact(target);
+            } catch (Throwable e) {
+                throw new RedisCodecException("Failed to invoke " + method.getName(), e);
+            }
+        };
+    }
+
+    /**
+     * setter调用，基本类型参数传入包装类。
+     */
+    @SuppressWarnings("unchecked")
+    static BiConsumer<Object, Object> setter(Method method, boolean lambda) throws IllegalAccessException {
+        MethodHandle handle = LOOKUP.unreflect(method);
+        if (lambda) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class), handle,
+                        MethodType.methodType(void.class, method.getDeclaringClass(),
+                                box(method.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable e) {
+                // 退回MethodHandle
+            }
+        }
+        MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (target, value) -> {
+            try {
+                generic.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new RedisCodecException("Failed to invoke " + method.getName(), e);
+            }
+        };
+    }
+
+    private static Class<?> box(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+}
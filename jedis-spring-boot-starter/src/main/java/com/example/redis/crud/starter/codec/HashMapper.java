@@ -0,0 +1,386 @@
+package com.example.redis.crud.starter.codec;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: HashMapper
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 对象与hash的映射：每个属性对应一个hash field，属性值按类型转换为字符串（数字、布尔直接toString，
+ * Date保存毫秒数，枚举保存名称），读取时按属性类型还原，不经过JSON。
+ * 每个类只在第一次使用时解析属性，并通过LambdaMetafactory生成getter/setter调用（类对starter不可见时使用MethodHandle），
+ * 之后读写不再使用反射。
+ * 支持按属性名只读取/写入部分field，配合TrackedHash只写入修改过的field。
+ * 支持的属性类型：基本类型及包装类、String、Date、枚举、BigDecimal、BigInteger、LocalDate、LocalDateTime、Instant，
+ * 只处理同时有public getter和setter的属性，类必须有public无参构造方法。null属性不写入hash。
+ *
+ * @param <T> 对象类型
+ * @date 2019/12/11 14:10
+ */
+public class HashMapper<T> {
+
+    /** 映射保存在各自的Class上，应用类加载器卸载（devtools重启、重新部署）时一起回收，不会被starter持有 */
+    private static final ClassValue<HashMapper<?>> MAPPERS = new ClassValue<HashMapper<?>>() {
+        @Override
+        protected HashMapper<?> computeValue(Class<?> type) {
+            return new HashMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final Supplier<Object> constructor;
+    private final Map<String, Property> properties;
+    private final String[] fields;
+
+    private HashMapper(Class<T> type) {
+        this.type = type;
+        boolean lambda = Accessors.isVisible(type);
+        try {
+            this.constructor = Accessors.constructor(type.getConstructor(), lambda);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " has no public default constructor.");
+        }
+
+        List<Property> list = new ArrayList<>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(type, Object.class);
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                Method getter = descriptor.getReadMethod();
+                Method setter = descriptor.getWriteMethod();
+                if (getter == null || setter == null
+                        || !Modifier.isPublic(getter.getModifiers()) || !Modifier.isPublic(setter.getModifiers())) {
+                    continue;
+                }
+                list.add(new Property(descriptor.getName(), FieldType.of(type, descriptor), getter.getReturnType(),
+                        Accessors.getter(getter, lambda), Accessors.setter(setter, lambda)));
+            }
+        } catch (IntrospectionException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Failed to introspect " + type.getName(), e);
+        }
+        list.sort(Comparator.comparing(property -> property.name));
+
+        Map<String, Property> map = new LinkedHashMap<>();
+        for (Property property : list) {
+            map.put(property.name, property);
+        }
+        this.properties = Collections.unmodifiableMap(map);
+        this.fields = map.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * 获取类对应的映射，每个类只解析一次。
+     * @param type 对象类型
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> HashMapper<T> of(Class<T> type) {
+        return (HashMapper<T>) MAPPERS.get(type);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 所有field名称（属性名），按名称排序。
+     * @return
+     */
+    public String[] getFields() {
+        return fields.clone();
+    }
+
+    /**
+     * 对象转换为hash，null属性不写入。
+     * @param value 对象
+     * @param fields 只转换这些属性，为空时转换所有属性
+     * @return field -> 值
+     */
+    public Map<String, String> toHash(T value, String... fields) {
+        String[] names = fields == null || fields.length == 0 ? this.fields : fields;
+        Map<String, String> hash = new LinkedHashMap<>(names.length * 2);
+        for (String name : names) {
+            String fieldValue = read(value, name);
+            if (fieldValue != null) {
+                hash.put(name, fieldValue);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * hash转换为对象，hash中没有的属性保持默认值。
+     * @param hash field -> 值
+     * @return hash为空时返回null
+     */
+    public T fromHash(Map<String, String> hash) {
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        T value = newInstance();
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            Property property = properties.get(entry.getKey());
+            if (property != null && entry.getValue() != null) {
+                property.set(value, entry.getValue());
+            }
+        }
+        return value;
+    }
+
+    /**
+     * HMGET结果转换为对象。
+     * @param fields field名称
+     * @param values 与fields一一对应的值
+     * @return 所有值都为null（key不存在）时返回null
+     */
+    public T fromHash(String[] fields, List<String> values) {
+        T value = null;
+        for (int i = 0; i < fields.length; i++) {
+            String fieldValue = values.get(i);
+            if (fieldValue != null) {
+                if (value == null) {
+                    value = newInstance();
+                }
+                property(fields[i]).set(value, fieldValue);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 读取对象某个属性转换后的值。
+     * @param value 对象
+     * @param field 属性名
+     * @return 属性为null时返回null
+     */
+    public String read(T value, String field) {
+        return property(field).get(value);
+    }
+
+    /**
+     * 检查field都是对象的属性。
+     * @param fields
+     * @return 为空时返回所有field
+     */
+    public String[] checkFields(String... fields) {
+        if (fields == null || fields.length == 0) {
+            return this.fields.clone();
+        }
+        for (String field : fields) {
+            property(field);
+        }
+        return fields.clone();
+    }
+
+    /**
+     * 通过无参构造方法创建新的对象。
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T newInstance() {
+        try {
+            return (T) constructor.get();
+        } catch (RuntimeException e) {
+            throw new RedisCodecException("Failed to create " + type.getName(), e);
+        }
+    }
+
+    private Property property(String field) {
+        Property property = properties.get(field);
+        if (property == null) {
+            throw new IllegalArgumentException(type.getName() + " has no property '" + field + "'.");
+        }
+        return property;
+    }
+
+    private static final class Property {
+        private final String name;
+        private final FieldType fieldType;
+        private final Class<?> javaType;
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+
+        Property(String name, FieldType fieldType, Class<?> javaType, Function<Object, Object> getter,
+                 BiConsumer<Object, Object> setter) {
+            this.name = name;
+            this.fieldType = fieldType;
+            this.javaType = javaType;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        String get(Object target) {
+            Object value = getter.apply(target);
+            return value == null ? null : fieldType.format(value);
+        }
+
+        void set(Object target, String value) {
+            Object parsed;
+            try {
+                parsed = fieldType.parse(value, javaType);
+            } catch (RuntimeException e) {
+                throw new RedisCodecException("Failed to parse property '" + name + "' from '" + value + "'.", e);
+            }
+            setter.accept(target, parsed);
+        }
+    }
+
+    /**
+     * 属性类型与字符串之间的转换。
+     */
+    private enum FieldType {
+        STRING {
+            Object parse(String value, Class<?> javaType) {
+                return value;
+            }
+        },
+        BOOLEAN {
+            Object parse(String value, Class<?> javaType) {
+                return Boolean.valueOf(value);
+            }
+        },
+        BYTE {
+            Object parse(String value, Class<?> javaType) {
+                return Byte.valueOf(value);
+            }
+        },
+        SHORT {
+            Object parse(String value, Class<?> javaType) {
+                return Short.valueOf(value);
+            }
+        },
+        CHAR {
+            Object parse(String value, Class<?> javaType) {
+                return value.charAt(0);
+            }
+        },
+        INT {
+            Object parse(String value, Class<?> javaType) {
+                return Integer.valueOf(value);
+            }
+        },
+        LONG {
+            Object parse(String value, Class<?> javaType) {
+                return Long.valueOf(value);
+            }
+        },
+        FLOAT {
+            Object parse(String value, Class<?> javaType) {
+                return Float.valueOf(value);
+            }
+        },
+        DOUBLE {
+            Object parse(String value, Class<?> javaType) {
+                return Double.valueOf(value);
+            }
+        },
+        DATE {
+            String format(Object value) {
+                return String.valueOf(((Date) value).getTime());
+            }
+
+            Object parse(String value, Class<?> javaType) {
+                return new Date(Long.parseLong(value));
+            }
+        },
+        ENUM {
+            String format(Object value) {
+                return ((Enum<?>) value).name();
+            }
+
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Object parse(String value, Class<?> javaType) {
+                return Enum.valueOf((Class<? extends Enum>) javaType, value);
+            }
+        },
+        BIG_DECIMAL {
+            Object parse(String value, Class<?> javaType) {
+                return new BigDecimal(value);
+            }
+        },
+        BIG_INTEGER {
+            Object parse(String value, Class<?> javaType) {
+                return new BigInteger(value);
+            }
+        },
+        LOCAL_DATE {
+            Object parse(String value, Class<?> javaType) {
+                return LocalDate.parse(value);
+            }
+        },
+        LOCAL_DATE_TIME {
+            Object parse(String value, Class<?> javaType) {
+                return LocalDateTime.parse(value);
+            }
+        },
+        INSTANT {
+            Object parse(String value, Class<?> javaType) {
+                return Instant.parse(value);
+            }
+        };
+
+        String format(Object value) {
+            return value.toString();
+        }
+
+        abstract Object parse(String value, Class<?> javaType);
+
+        static FieldType of(Class<?> owner, PropertyDescriptor descriptor) {
+            Class<?> javaType = descriptor.getPropertyType();
+            if (javaType == String.class) {
+                return STRING;
+            } else if (javaType == boolean.class || javaType == Boolean.class) {
+                return BOOLEAN;
+            } else if (javaType == byte.class || javaType == Byte.class) {
+                return BYTE;
+            } else if (javaType == short.class || javaType == Short.class) {
+                return SHORT;
+            } else if (javaType == char.class || javaType == Character.class) {
+                return CHAR;
+            } else if (javaType == int.class || javaType == Integer.class) {
+                return INT;
+            } else if (javaType == long.class || javaType == Long.class) {
+                return LONG;
+            } else if (javaType == float.class || javaType == Float.class) {
+                return FLOAT;
+            } else if (javaType == double.class || javaType == Double.class) {
+                return DOUBLE;
+            } else if (javaType == Date.class) {
+                return DATE;
+            } else if (javaType.isEnum()) {
+                return ENUM;
+            } else if (javaType == BigDecimal.class) {
+                return BIG_DECIMAL;
+            } else if (javaType == BigInteger.class) {
+                return BIG_INTEGER;
+            } else if (javaType == LocalDate.class) {
+                return LOCAL_DATE;
+            } else if (javaType == LocalDateTime.class) {
+                return LOCAL_DATE_TIME;
+            } else if (javaType == Instant.class) {
+                return INSTANT;
+            }
+            throw new IllegalArgumentException("Unsupported property type " + javaType.getName() + " of "
+                    + owner.getName() + "." + descriptor.getName());
+        }
+    }
+}
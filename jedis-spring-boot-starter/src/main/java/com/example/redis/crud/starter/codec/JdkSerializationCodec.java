@@ -0,0 +1,54 @@
+package com.example.redis.crud.starter.codec;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * @author jackie wang
+ * @Title: JdkSerializationCodec
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 基于JDK序列化的编解码，对象必须实现Serializable，不需要指定类型，用作Spring Cache的默认编解码。
+ * 反序列化使用指定的类加载器（默认为线程上下文类加载器），兼容devtools等自定义类加载器。
+ * @date 2019/12/13 10:20
+ */
+public class JdkSerializationCodec implements RedisCodec<Object> {
+
+    private final ClassLoader classLoader;
+
+    public JdkSerializationCodec() {
+        this(null);
+    }
+
+    /**
+     * @param classLoader 反序列化使用的类加载器，为null时使用线程上下文类加载器
+     */
+    public JdkSerializationCodec(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(value);
+        } catch (IOException e) {
+            throw new RedisCodecException("Failed to encode " + value.getClass().getName(), e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        ClassLoader loader = classLoader != null ? classLoader : Thread.currentThread().getContextClassLoader();
+        try (ObjectInputStream objectIn = new ConfigurableObjectInputStream(new ByteArrayInputStream(bytes), loader)) {
+            return objectIn.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RedisCodecException("Failed to decode " + bytes.length + " bytes", e);
+        }
+    }
+}
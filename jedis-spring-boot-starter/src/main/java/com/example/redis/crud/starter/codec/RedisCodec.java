@@ -0,0 +1,29 @@
+package com.example.redis.crud.starter.codec;
+
+/**
+ * @author jackie wang
+ * @Title: RedisCodec
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 对象编解码接口，对象直接编码为byte[]并通过Jedis的byte[]接口读写，避免JSON字符串的中间转换。
+ * 实现类必须是线程安全的。
+ *
+ * @param <T> 对象类型
+ * @date 2019/11/29 15:30
+ */
+public interface RedisCodec<T> {
+
+    /**
+     * 编码。
+     * @param value 不为null
+     * @return
+     */
+    public byte[] encode(T value);
+
+    /**
+     * 解码。
+     * @param bytes 不为null
+     * @return
+     */
+    public T decode(byte[] bytes);
+
+}
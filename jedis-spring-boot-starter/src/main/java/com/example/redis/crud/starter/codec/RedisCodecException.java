@@ -0,0 +1,21 @@
+package com.example.redis.crud.starter.codec;
+
+/**
+ * @author jackie wang
+ * @Title: RedisCodecException
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 编解码异常。
+ * @date 2019/11/29 15:30
+ */
+public class RedisCodecException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RedisCodecException(String message) {
+        super(message);
+    }
+
+    public RedisCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
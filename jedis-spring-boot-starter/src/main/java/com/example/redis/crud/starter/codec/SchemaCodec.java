@@ -0,0 +1,357 @@
+package com.example.redis.crud.starter.codec;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: SchemaCodec
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 基于schema的紧凑编解码：属性按名称排序形成固定的schema，编码时只写属性值，不写属性名。
+ * 格式：版本(1字节) + schema指纹(4字节) + null位图 + 非null属性值（整数使用zigzag变长编码）。
+ * schema指纹由属性名和类型计算，类增删改属性后读取旧数据会抛出RedisCodecException，需要更换key或清理旧数据。
+ * 支持的属性类型：基本类型及包装类、String、Date、枚举、byte[]、BigDecimal、BigInteger，
+ * 只处理同时有getter和setter的属性，类必须有无参构造方法。
+ * 构造方法和getter/setter与HashMapper一样通过LambdaMetafactory生成调用（见Accessors），编解码不经过反射。
+ *
+ * @param <T> 对象类型
+ * @date 2019/11/29 15:30
+ */
+public class SchemaCodec<T> implements RedisCodec<T> {
+
+    private static final byte VERSION = 1;
+
+    private final Class<T> type;
+    private final Supplier<Object> constructor;
+    private final Property[] properties;
+    private final int fingerprint;
+
+    public SchemaCodec(Class<T> type) {
+        this.type = type;
+        boolean lambda = Accessors.isVisible(type);
+        try {
+            Constructor<T> declared = type.getDeclaredConstructor();
+            declared.setAccessible(true);
+            this.constructor = Accessors.constructor(declared, lambda);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " has no default constructor.");
+        }
+
+        List<Property> list = new ArrayList<>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(type, Object.class);
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                Method getter = descriptor.getReadMethod();
+                Method setter = descriptor.getWriteMethod();
+                if (getter == null || setter == null) {
+                    continue;
+                }
+                getter.setAccessible(true);
+                setter.setAccessible(true);
+                list.add(new Property(descriptor.getName(), FieldType.of(type, descriptor), getter.getReturnType(),
+                        Accessors.getter(getter, lambda), Accessors.setter(setter, lambda)));
+            }
+        } catch (IntrospectionException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Failed to introspect " + type.getName(), e);
+        }
+        list.sort(Comparator.comparing(property -> property.name));
+        this.properties = list.toArray(new Property[0]);
+
+        StringBuilder schema = new StringBuilder();
+        for (Property property : properties) {
+            schema.append(property.name).append(':').append(property.fieldType.name()).append(';');
+        }
+        this.fingerprint = schema.toString().hashCode();
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + properties.length * 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(VERSION);
+            out.writeInt(fingerprint);
+
+            Object[] values = new Object[properties.length];
+            byte[] nullBits = new byte[(properties.length + 7) / 8];
+            for (int i = 0; i < properties.length; i++) {
+                values[i] = properties[i].getter.apply(value);
+                if (values[i] == null) {
+                    nullBits[i >> 3] |= 1 << (i & 7);
+                }
+            }
+            out.write(nullBits);
+            for (int i = 0; i < properties.length; i++) {
+                if (values[i] != null) {
+                    properties[i].fieldType.write(out, values[i]);
+                }
+            }
+            return bytes.toByteArray();
+        } catch (Exception e) {
+            throw new RedisCodecException("Failed to encode " + type.getName(), e);
+        }
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (in.readByte() != VERSION || in.readInt() != fingerprint) {
+                throw new RedisCodecException("Schema of " + type.getName() + " does not match the stored data.");
+            }
+            byte[] nullBits = new byte[(properties.length + 7) / 8];
+            in.readFully(nullBits);
+
+            @SuppressWarnings("unchecked")
+            T value = (T) constructor.get();
+            for (int i = 0; i < properties.length; i++) {
+                if ((nullBits[i >> 3] & (1 << (i & 7))) == 0) {
+                    Property property = properties[i];
+                    property.setter.accept(value, property.fieldType.read(in, property.javaType));
+                }
+            }
+            return value;
+        } catch (RedisCodecException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisCodecException("Failed to decode " + type.getName(), e);
+        }
+    }
+
+    private static final class Property {
+        private final String name;
+        private final FieldType fieldType;
+        private final Class<?> javaType;
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+
+        Property(String name, FieldType fieldType, Class<?> javaType, Function<Object, Object> getter,
+                 BiConsumer<Object, Object> setter) {
+            this.name = name;
+            this.fieldType = fieldType;
+            this.javaType = javaType;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private enum FieldType {
+        BOOLEAN {
+            void write(DataOutputStream out, Object value) throws IOException {
+                out.writeBoolean((Boolean) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return in.readBoolean();
+            }
+        },
+        BYTE {
+            void write(DataOutputStream out, Object value) throws IOException {
+                out.writeByte((Byte) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return in.readByte();
+            }
+        },
+        SHORT {
+            void write(DataOutputStream out, Object value) throws IOException {
+                writeVarLong(out, (Short) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return (short) readVarLong(in);
+            }
+        },
+        CHAR {
+            void write(DataOutputStream out, Object value) throws IOException {
+                out.writeChar((Character) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return in.readChar();
+            }
+        },
+        INT {
+            void write(DataOutputStream out, Object value) throws IOException {
+                writeVarLong(out, (Integer) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return (int) readVarLong(in);
+            }
+        },
+        LONG {
+            void write(DataOutputStream out, Object value) throws IOException {
+                writeVarLong(out, (Long) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return readVarLong(in);
+            }
+        },
+        FLOAT {
+            void write(DataOutputStream out, Object value) throws IOException {
+                out.writeFloat((Float) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return in.readFloat();
+            }
+        },
+        DOUBLE {
+            void write(DataOutputStream out, Object value) throws IOException {
+                out.writeDouble((Double) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return in.readDouble();
+            }
+        },
+        STRING {
+            void write(DataOutputStream out, Object value) throws IOException {
+                writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            }
+        },
+        DATE {
+            void write(DataOutputStream out, Object value) throws IOException {
+                writeVarLong(out, ((Date) value).getTime());
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return new Date(readVarLong(in));
+            }
+        },
+        ENUM {
+            void write(DataOutputStream out, Object value) throws IOException {
+                STRING.write(out, ((Enum<?>) value).name());
+            }
+
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return Enum.valueOf((Class<Enum>) javaType, (String) STRING.read(in, String.class));
+            }
+        },
+        BYTES {
+            void write(DataOutputStream out, Object value) throws IOException {
+                writeBytes(out, (byte[]) value);
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return readBytes(in);
+            }
+        },
+        BIG_DECIMAL {
+            void write(DataOutputStream out, Object value) throws IOException {
+                STRING.write(out, value.toString());
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return new BigDecimal((String) STRING.read(in, String.class));
+            }
+        },
+        BIG_INTEGER {
+            void write(DataOutputStream out, Object value) throws IOException {
+                writeBytes(out, ((BigInteger) value).toByteArray());
+            }
+
+            Object read(DataInputStream in, Class<?> javaType) throws IOException {
+                return new BigInteger(readBytes(in));
+            }
+        };
+
+        abstract void write(DataOutputStream out, Object value) throws IOException;
+
+        abstract Object read(DataInputStream in, Class<?> javaType) throws IOException;
+
+        static FieldType of(Class<?> owner, PropertyDescriptor descriptor) {
+            Class<?> javaType = descriptor.getPropertyType();
+            if (javaType == boolean.class || javaType == Boolean.class) {
+                return BOOLEAN;
+            } else if (javaType == byte.class || javaType == Byte.class) {
+                return BYTE;
+            } else if (javaType == short.class || javaType == Short.class) {
+                return SHORT;
+            } else if (javaType == char.class || javaType == Character.class) {
+                return CHAR;
+            } else if (javaType == int.class || javaType == Integer.class) {
+                return INT;
+            } else if (javaType == long.class || javaType == Long.class) {
+                return LONG;
+            } else if (javaType == float.class || javaType == Float.class) {
+                return FLOAT;
+            } else if (javaType == double.class || javaType == Double.class) {
+                return DOUBLE;
+            } else if (javaType == String.class) {
+                return STRING;
+            } else if (javaType == Date.class) {
+                return DATE;
+            } else if (javaType.isEnum()) {
+                return ENUM;
+            } else if (javaType == byte[].class) {
+                return BYTES;
+            } else if (javaType == BigDecimal.class) {
+                return BIG_DECIMAL;
+            } else if (javaType == BigInteger.class) {
+                return BIG_INTEGER;
+            }
+            throw new IllegalArgumentException("Unsupported property type " + javaType.getName() + " of "
+                    + owner.getName() + "." + descriptor.getName());
+        }
+
+        private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.writeByte((int) zigzag);
+        }
+
+        private static long readVarLong(DataInputStream in) throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IOException("Malformed varint.");
+        }
+
+        private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+
+        private static byte[] readBytes(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[(int) readVarLong(in)];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+}
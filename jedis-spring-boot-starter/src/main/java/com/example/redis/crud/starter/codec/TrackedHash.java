@@ -0,0 +1,117 @@
+package com.example.redis.crud.starter.codec;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * @author jackie wang
+ * @Title: TrackedHash
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 带修改跟踪的hash对象：记录读取时每个field的值，写入时与对象当前的属性值比较，只写入修改过的field。
+ * 只跟踪读取过的field（部分读取时其他属性即使有默认值也不会写入）。
+ * key不存在时hmgetTracked返回新创建的对象，所有field视为不存在，写入时写入所有非null的属性。
+ * 使用示例：
+ * TrackedHash<UserVo> user = redisClusterUtil.hmgetTracked("user:1", mapper, "name", "date");
+ * user.get().setName("李四");
+ * redisClusterUtil.hsetChanged(user); // 只写入name
+ *
+ * @param <T> 对象类型
+ * @date 2019/12/11 14:10
+ */
+public class TrackedHash<T> {
+
+    private final String key;
+    private final T value;
+    private final HashMapper<T> mapper;
+    private final String[] fields;
+    /** field -> 上次读取/写入时的值，null表示hash中没有该field */
+    private final Map<String, String> snapshot;
+
+    /**
+     * @param key hash的key
+     * @param value 从hash读取的对象
+     * @param mapper 对象映射
+     * @param fields 跟踪的field
+     */
+    public TrackedHash(String key, T value, HashMapper<T> mapper, String... fields) {
+        this(key, value, mapper, true, fields);
+    }
+
+    /**
+     * @param key hash的key
+     * @param value 对象，key不存在时为新创建的对象
+     * @param mapper 对象映射
+     * @param exists key是否存在，不存在时所有field视为没有值
+     * @param fields 跟踪的field
+     */
+    public TrackedHash(String key, T value, HashMapper<T> mapper, boolean exists, String... fields) {
+        this.key = key;
+        this.value = value;
+        this.mapper = mapper;
+        this.fields = mapper.checkFields(fields);
+        this.snapshot = new HashMap<>(this.fields.length * 2);
+        if (exists) {
+            markClean();
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 被跟踪的对象，直接修改其属性。
+     * @return
+     */
+    public T get() {
+        return value;
+    }
+
+    public HashMapper<T> getMapper() {
+        return mapper;
+    }
+
+    public String[] getFields() {
+        return fields.clone();
+    }
+
+    /**
+     * 修改过的field。
+     * @return field -> 新的值，值为null表示属性被置为null，需要删除该field
+     */
+    public Map<String, String> changes() {
+        Map<String, String> changes = new LinkedHashMap<>();
+        for (String field : fields) {
+            String current = mapper.read(value, field);
+            if (!Objects.equals(current, snapshot.get(field))) {
+                changes.put(field, current);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 是否有修改过的field。
+     * @return
+     */
+    public boolean isDirty() {
+        return !changes().isEmpty();
+    }
+
+    /**
+     * 以对象当前的属性值作为新的比较基准，写入成功后调用。
+     */
+    public void markClean() {
+        for (String field : fields) {
+            snapshot.put(field, mapper.read(value, field));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TrackedHash{key='" + key + "', fields=" + Arrays.toString(fields) + "}";
+    }
+}
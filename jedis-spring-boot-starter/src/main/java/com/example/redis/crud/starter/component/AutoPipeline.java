@@ -0,0 +1,185 @@
+package com.example.redis.crud.starter.component;
+
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: AutoPipeline
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一个分片/节点的自动pipeline。调用线程把命令放入队列，没有线程在发送时当前线程成为发送线程，
+ * 取出最多maxBatchSize条命令，借用一个连接通过一次pipeline往返发送，然后逐条设置结果并唤醒对应的调用线程；
+ * 发送线程每次只发送一批，发送完如果队列中还有命令，唤醒队首的调用线程接着发送，避免某个调用线程一直在发送。
+ * 不使用后台线程，所有网络读写都在调用线程中执行。
+ *
+ * @param <B> 批量命令的类型，集群版为Pipeline，分片模式为RedisBatch
+ * @date 2019/12/17 10:20
+ */
+class AutoPipeline<B> {
+
+    /** 等待结果时的最长休眠时间，防止错过唤醒 */
+    private static final long PARK_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AutoPipelining settings;
+    private final BatchExecutor<B> executor;
+    private final Queue<Command<B, ?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    AutoPipeline(AutoPipelining settings, BatchExecutor<B> executor) {
+        this.settings = settings;
+        this.executor = executor;
+    }
+
+    /**
+     * 排队执行一条命令，等待结果。
+     * @param command 向批量命令中添加命令，返回读取结果的Supplier（在批量命令执行完之后调用）
+     * @return 命令结果，命令失败时抛出对应的异常
+     */
+    <T> T execute(Function<B, Supplier<T>> command) {
+        Command<B, T> pending = new Command<>(command, Thread.currentThread());
+        queue.add(pending);
+        size.incrementAndGet();
+
+        long deadline = System.nanoTime() + settings.getTimeoutNanos();
+        boolean interrupted = false;
+        try {
+            while (!pending.done) {
+                if (flushing.compareAndSet(false, true)) {
+                    try {
+                        flushOnce();
+                    } finally {
+                        flushing.set(false);
+                    }
+                    // 交给队首的调用线程发送下一批
+                    Command<B, ?> next = queue.peek();
+                    if (next != null && next != pending) {
+                        LockSupport.unpark(next.thread);
+                    }
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 && queue.remove(pending)) {
+                    size.decrementAndGet();
+                    throw new JedisException("Timed out waiting for auto-pipelined command.");
+                }
+                // 已经在发送中的命令等待到连接超时为止
+                LockSupport.parkNanos(this, remaining > 0 ? Math.min(remaining, PARK_SLICE_NANOS)
+                        : PARK_SLICE_NANOS);
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return pending.get();
+    }
+
+    private void flushOnce() {
+        long lingerNanos = settings.getLingerNanos();
+        int maxBatchSize = settings.getMaxBatchSize();
+        if (lingerNanos > 0 && size.get() < maxBatchSize) {
+            LockSupport.parkNanos(this, lingerNanos);
+        }
+
+        List<Command<B, ?>> commands = new ArrayList<>(Math.min(Math.max(1, size.get()), maxBatchSize));
+        Command<B, ?> command;
+        while (commands.size() < maxBatchSize && (command = queue.poll()) != null) {
+            size.decrementAndGet();
+            commands.add(command);
+        }
+        if (commands.isEmpty()) {
+            return;
+        }
+        settings.recordBatch(commands.size());
+
+        List<Command<B, ?>> sent = new ArrayList<>(commands.size());
+        try {
+            executor.execute(batch -> {
+                for (Command<B, ?> each : commands) {
+                    try {
+                        each.send(batch);
+                        sent.add(each);
+                    } catch (RuntimeException e) {
+                        each.fail(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            for (Command<B, ?> each : commands) {
+                each.fail(e);
+            }
+            return;
+        }
+        for (Command<B, ?> each : sent) {
+            each.complete();
+        }
+    }
+
+    /**
+     * 借用连接，创建批量命令，执行回调添加命令，然后发送并读取所有回复。
+     */
+    interface BatchExecutor<B> {
+        void execute(Consumer<B> commands);
+    }
+
+    private static final class Command<B, T> {
+        private final Function<B, Supplier<T>> command;
+        private final Thread thread;
+        private Supplier<T> response;
+        private T value;
+        private RuntimeException error;
+        private volatile boolean done;
+
+        Command(Function<B, Supplier<T>> command, Thread thread) {
+            this.command = command;
+            this.thread = thread;
+        }
+
+        void send(B batch) {
+            response = command.apply(batch);
+        }
+
+        void complete() {
+            try {
+                value = response.get();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            finish();
+        }
+
+        void fail(RuntimeException e) {
+            if (!done) {
+                error = e;
+                finish();
+            }
+        }
+
+        T get() {
+            if (error != null) {
+                throw error;
+            }
+            return value;
+        }
+
+        private void finish() {
+            done = true;
+            LockSupport.unpark(thread);
+        }
+    }
+}
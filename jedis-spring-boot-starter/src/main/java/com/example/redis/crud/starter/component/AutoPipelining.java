@@ -0,0 +1,72 @@
+package com.example.redis.crud.starter.component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author jackie wang
+ * @Title: AutoPipelining
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 自动pipeline配置和统计，jedis.auto-pipeline.enabled=true时注入RedisUtilImpl和RedisClusterUtil。
+ * 启用后，多个线程并发执行的单key命令（get/set/del/expire/exists/incr/hget等）按分片/节点排队，
+ * 由其中一个调用线程把排队的命令通过一个连接、一次pipeline往返发送，每个调用线程各自得到自己的结果。
+ * 批次大小随并发自适应：上一批执行期间到达的命令组成下一批，并发低时每批只有一条命令，不增加延迟；
+ * linger-micros大于0时，发送前额外等待该时间收集更多命令。每个分片/节点同时只占用一个连接。
+ * @date 2019/12/17 10:20
+ */
+public class AutoPipelining {
+
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final long timeoutNanos;
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder commandCount = new LongAdder();
+
+    /**
+     * @param maxBatchSize 每批最多的命令数
+     * @param lingerMicros 发送前等待更多命令的时间(微秒)，0表示不等待
+     * @param timeoutMillis 命令排队的最长时间(毫秒)，超时抛出JedisException
+     */
+    public AutoPipelining(int maxBatchSize, long lingerMicros, long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("The parameter 'timeoutMillis' must be greater than 0.");
+        }
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, lingerMicros));
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * 已发送的批次数。
+     * @return
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 已发送的命令数，除以批次数为平均批次大小。
+     * @return
+     */
+    public long getCommandCount() {
+        return commandCount.sum();
+    }
+
+    long getLingerNanos() {
+        return lingerNanos;
+    }
+
+    long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    void recordBatch(int size) {
+        batchCount.increment();
+        commandCount.add(size);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.redis.crud.starter.component;
+
+import redis.clients.jedis.Response;
+
+import java.util.function.Function;
+
+/**
+ * @author jackie wang
+ * @Title: BatchResult
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 批量（pipeline）命令的单条执行结果。单条命令失败不会影响同一批次中其他命令的结果，
+ * 失败原因通过getError()获取。
+ *
+ * @param <T> 命令返回值类型
+ * @date 2019/11/20 10:15
+ */
+public class BatchResult<T> {
+
+    private final Response<?> response;
+
+    /** 回复转换（如解压），不需要转换时为null */
+    private final Function<Object, T> converter;
+
+    /** 连接级别异常（如网络中断），此时该分片上所有命令都失败 */
+    private volatile Exception failure;
+
+    BatchResult(Response<T> response) {
+        this.response = response;
+        this.converter = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    <R> BatchResult(Response<R> response, Function<? super R, T> converter) {
+        this.response = response;
+        this.converter = (Function<Object, T>) converter;
+    }
+
+    void fail(Exception failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * 命令是否执行成功。
+     * @return
+     */
+    public boolean isSuccess() {
+        return getError() == null;
+    }
+
+    /**
+     * 获取命令执行结果，命令执行失败时抛出对应的异常。
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T get() {
+        if (failure != null) {
+            throw new IllegalStateException("Batch command was not executed.", failure);
+        }
+        return converter == null ? (T) response.get() : converter.apply(response.get());
+    }
+
+    /**
+     * 获取命令执行失败的原因，成功返回null。
+     * @return
+     */
+    public Exception getError() {
+        if (failure != null) {
+            return failure;
+        }
+        try {
+            response.get();
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        Exception error = getError();
+        return error == null ? String.valueOf(get()) : "error: " + error.getMessage();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.redis.crud.starter.component;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * @author jackie wang
+ * @Title: ClusterMultiKeyExecutor
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群多key命令执行器。key先按slot分组（每个slot一条命令，避免CROSSSLOT），
+ * 再按主节点分组，每个节点一次pipeline往返，多个节点并行执行。
+ * 某个slot收到MOVED/ASK或节点连接失败时，该slot回退为JedisCluster单条命令（JedisCluster会处理重定向）。
+ * @date 2019/11/22 14:05
+ */
+class ClusterMultiKeyExecutor {
+
+    private final ClusterSlotRouter router;
+    private final ExecutorService executor;
+
+    ClusterMultiKeyExecutor(ClusterSlotRouter router) {
+        this.router = router;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-cluster-fanout-");
+        threadFactory.setDaemon(true);
+        // 线程数用满时由调用线程执行，天然形成背压
+        this.executor = new ThreadPoolExecutor(0, Math.max(4, Runtime.getRuntime().availableProcessors() * 2),
+                60L, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    ClusterSlotRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * 按slot分组执行命令。
+     * @param keys     所有key
+     * @param command  向pipeline发送某个slot的命令
+     * @param fallback pipeline执行失败时，通过JedisCluster执行某个slot的命令
+     * @return 每个slot的执行结果
+     */
+    <R> List<SlotGroup<R>> execute(String[] keys, SlotCommand<R> command, Function<SlotGroup<R>, R> fallback) {
+        List<SlotGroup<R>> groups = new ArrayList<>();
+        List<Runnable> tasks = new ArrayList<>();
+        for (Map.Entry<JedisPool, Map<Integer, List<Integer>>> node : router.groupByNode(keys).entrySet()) {
+            List<SlotGroup<R>> nodeGroups = new ArrayList<>(node.getValue().size());
+            for (Map.Entry<Integer, List<Integer>> slot : node.getValue().entrySet()) {
+                nodeGroups.add(new SlotGroup<>(slot.getKey(), slot.getValue(), keys));
+            }
+            groups.addAll(nodeGroups);
+            JedisPool pool = node.getKey();
+            tasks.add(() -> executeOnNode(pool, nodeGroups, command, fallback));
+        }
+
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        for (int i = 1; i < tasks.size(); i++) {
+            futures.add(executor.submit(tasks.get(i)));
+        }
+        // 第一个节点在当前线程执行
+        if (!tasks.isEmpty()) {
+            tasks.get(0).run();
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JedisException("Interrupted while waiting for cluster nodes.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new JedisException(cause);
+            }
+        }
+        return groups;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private <R> void executeOnNode(JedisPool pool, List<SlotGroup<R>> groups, SlotCommand<R> command,
+                                   Function<SlotGroup<R>, R> fallback) {
+        List<Response<R>> responses = new ArrayList<>(groups.size());
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (SlotGroup<R> group : groups) {
+                responses.add(command.send(pipeline, group));
+            }
+            pipeline.sync();
+        } catch (JedisConnectionException e) {
+            // 节点不可用（如正在故障转移），交给JedisCluster重试
+            for (SlotGroup<R> group : groups) {
+                group.result = fallback.apply(group);
+            }
+            return;
+        }
+
+        for (int i = 0; i < groups.size(); i++) {
+            SlotGroup<R> group = groups.get(i);
+            try {
+                group.result = responses.get(i).get();
+            } catch (JedisRedirectionException e) {
+                // slot已迁移，JedisCluster会根据MOVED刷新slot缓存
+                group.result = fallback.apply(group);
+            }
+        }
+    }
+
+    /**
+     * 向pipeline发送某个slot的命令。
+     */
+    interface SlotCommand<R> {
+        Response<R> send(Pipeline pipeline, SlotGroup<R> group);
+    }
+
+    /**
+     * 同一个slot的key。
+     */
+    static class SlotGroup<R> {
+        private final int slot;
+        private final int[] indexes;
+        private final String[] keys;
+        private R result;
+
+        SlotGroup(int slot, List<Integer> indexes, String[] allKeys) {
+            this.slot = slot;
+            this.indexes = new int[indexes.size()];
+            this.keys = new String[indexes.size()];
+            for (int i = 0; i < this.indexes.length; i++) {
+                this.indexes[i] = indexes.get(i);
+                this.keys[i] = allKeys[this.indexes[i]];
+            }
+        }
+
+        int getSlot() {
+            return slot;
+        }
+
+        /** key在调用方数组中的下标 */
+        int[] getIndexes() {
+            return indexes;
+        }
+
+        String[] getKeys() {
+            return keys;
+        }
+
+        R getResult() {
+            return result;
+        }
+    }
+}
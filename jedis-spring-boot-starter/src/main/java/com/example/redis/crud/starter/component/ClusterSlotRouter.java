@@ -0,0 +1,148 @@
+package com.example.redis.crud.starter.component;
+
+import redis.clients.jedis.BinaryJedisCluster;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisClusterConnectionHandler;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisClusterException;
+import redis.clients.util.JedisClusterCRC16;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * @author jackie wang
+ * @Title: ClusterSlotRouter
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: JedisCluster slot路由：根据key计算CRC16 slot，并找到slot所属主节点的连接池。
+ * 说明：JedisCluster没有对外暴露slot -> 连接池的映射，这里通过反射读取其内部的JedisClusterInfoCache，
+ * 与JedisCluster共用同一份slot缓存和连接池，MOVED之后JedisCluster刷新缓存，这里同步生效。
+ * @date 2019/11/22 14:05
+ */
+public class ClusterSlotRouter {
+
+    private final JedisCluster jedisCluster;
+    private final JedisClusterConnectionHandler connectionHandler;
+    private final JedisClusterInfoCache cache;
+
+    public ClusterSlotRouter(JedisCluster jedisCluster) {
+        this.jedisCluster = jedisCluster;
+        this.connectionHandler = (JedisClusterConnectionHandler) readField(BinaryJedisCluster.class,
+                "connectionHandler", jedisCluster);
+        this.cache = (JedisClusterInfoCache) readField(JedisClusterConnectionHandler.class, "cache",
+                connectionHandler);
+    }
+
+    /**
+     * 计算key所在的slot，支持hash tag（{...}）。
+     * @param key
+     * @return
+     */
+    public static int getSlot(String key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    /**
+     * 获取slot所属主节点的连接池，缓存中没有时刷新一次slot缓存。
+     * @param slot
+     * @return
+     */
+    public JedisPool getSlotPool(int slot) {
+        JedisPool pool = cache.getSlotPool(slot);
+        if (pool == null) {
+            renewSlotCache();
+            pool = cache.getSlotPool(slot);
+        }
+        if (pool == null) {
+            throw new JedisClusterException("No reachable node in cluster for slot " + slot);
+        }
+        return pool;
+    }
+
+    /**
+     * 获取缓存中slot所属主节点的连接池，不刷新slot缓存。
+     * @param slot
+     * @return 缓存中没有时返回null
+     */
+    public JedisPool getCachedSlotPool(int slot) {
+        return cache.getSlotPool(slot);
+    }
+
+    /**
+     * 集群所有节点（包括从节点）的连接池，key为host:port。
+     * @return
+     */
+    public Map<String, JedisPool> getNodes() {
+        return jedisCluster.getClusterNodes();
+    }
+
+    /**
+     * 刷新slot缓存（CLUSTER SLOTS）。
+     */
+    public void renewSlotCache() {
+        connectionHandler.renewSlotCache();
+    }
+
+    /**
+     * 把key按slot分组，再按slot所属主节点分组，保留每个key在原数组中的下标。
+     * @param keys
+     * @return 主节点连接池 -> (slot -> key下标列表)
+     */
+    public Map<JedisPool, Map<Integer, List<Integer>>> groupByNode(String[] keys) {
+        Map<Integer, List<Integer>> slots = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            slots.computeIfAbsent(getSlot(keys[i]), slot -> new ArrayList<>()).add(i);
+        }
+
+        Map<JedisPool, Map<Integer, List<Integer>>> nodes = new IdentityHashMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : slots.entrySet()) {
+            nodes.computeIfAbsent(getSlotPool(entry.getKey()), pool -> new LinkedHashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+        return nodes;
+    }
+
+    JedisClusterInfoCache getCache() {
+        return cache;
+    }
+
+    /**
+     * 从JedisCluster的节点列表中移除节点（JedisClusterInfoCache没有提供移除方法，通过反射在写锁中移除），
+     * 不关闭连接池。调用前节点不能再有slot指向它。
+     * @param node host:port
+     * @return 移除的连接池，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    JedisPool removeNode(String node) {
+        Map<String, JedisPool> nodes = (Map<String, JedisPool>) readField(JedisClusterInfoCache.class, "nodes", cache);
+        Lock lock = (Lock) readField(JedisClusterInfoCache.class, "w", cache);
+        lock.lock();
+        try {
+            return nodes.remove(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    JedisClusterConnectionHandler getConnectionHandler() {
+        return connectionHandler;
+    }
+
+    private static Object readField(Class<?> clz, String name, Object target) {
+        try {
+            Field declaredField = clz.getDeclaredField(name);
+            declaredField.setAccessible(true);
+            return declaredField.get(target);
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException(clz.getSimpleName() + " no field '" + name + "'.");
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Illegally get " + clz.getSimpleName() + "'s property '" + name + "'.");
+        }
+    }
+}
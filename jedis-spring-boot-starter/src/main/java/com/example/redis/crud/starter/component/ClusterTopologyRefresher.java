@@ -0,0 +1,388 @@
+package com.example.redis.crud.starter.component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import redis.clients.jedis.BinaryJedisCluster;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @author jackie wang
+ * @Title: ClusterTopologyRefresher
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群拓扑主动刷新，jedis.cluster.topology-refresh.enabled=true时启用。
+ * 按固定间隔执行CLUSTER SLOTS，与JedisCluster的slot缓存对比：新节点先创建连接池并预热连接，再把slot指向新节点；
+ * 不在集群中的节点从JedisCluster中移除，延迟一段时间（等待已借出的连接归还）后关闭连接池。
+ * 使用TopologyRefreshingJedisCluster时，MOVED和连接失败也触发刷新：同一时间只执行一次，
+ * 其他遇到重定向的线程等待同一次刷新完成后再重试，避免迁移或故障转移期间大量线程重复刷新、反复重定向。
+ * @date 2019/12/22 10:20
+ */
+public class ClusterTopologyRefresher implements InitializingBean, DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterTopologyRefresher.class);
+
+    private final ClusterSlotRouter router;
+    private final long periodMillis;
+    private final boolean refreshOnRedirect;
+    private final int warmConnections;
+    private final long retireDelayMillis;
+    /** 遇到重定向的线程等待刷新的最长时间(毫秒) */
+    private final long redirectWaitMillis;
+
+    private final Object lock = new Object();
+    private CompletableFuture<Boolean> inflight;
+    private final ScheduledExecutorService scheduler;
+    /** 已移除、等待关闭的连接池 */
+    private final Set<JedisPool> retiring = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /** 移除的节点连接池关闭后的回调 */
+    private final List<Consumer<JedisPool>> retireListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshNanos = new AtomicLong();
+    private volatile long lastRefreshNanos;
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong redirectCount = new AtomicLong();
+    private final AtomicLong movedSlotCount = new AtomicLong();
+    private final AtomicLong addedNodeCount = new AtomicLong();
+    private final AtomicLong retiredNodeCount = new AtomicLong();
+
+    /**
+     * @param jedisCluster 集群客户端
+     * @param periodMillis 定时刷新间隔(毫秒)，小于等于0时不定时刷新
+     * @param refreshOnRedirect MOVED和连接失败时是否刷新（需要TopologyRefreshingJedisCluster）
+     * @param warmConnections 新节点接入流量前预热的连接数
+     * @param retireDelayMillis 移除节点后延迟关闭连接池的时间(毫秒)
+     * @param redirectWaitMillis 遇到重定向的线程等待刷新的最长时间(毫秒)
+     */
+    public ClusterTopologyRefresher(JedisCluster jedisCluster, long periodMillis, boolean refreshOnRedirect,
+                                    int warmConnections, long retireDelayMillis, long redirectWaitMillis) {
+        this.router = new ClusterSlotRouter(jedisCluster);
+        this.periodMillis = periodMillis;
+        this.refreshOnRedirect = refreshOnRedirect;
+        this.warmConnections = Math.max(0, warmConnections);
+        this.retireDelayMillis = Math.max(0, retireDelayMillis);
+        this.redirectWaitMillis = redirectWaitMillis;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-topology-refresh-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (periodMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::refresh, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+        if (refreshOnRedirect) {
+            if (router.getConnectionHandler() instanceof TopologyAwareConnectionHandler) {
+                ((TopologyAwareConnectionHandler) router.getConnectionHandler()).setRefresher(this);
+            } else {
+                LOGGER.warn("[ClusterTopologyRefresher]JedisCluster is not a TopologyRefreshingJedisCluster, "
+                        + "refresh on redirect is disabled.");
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (router.getConnectionHandler() instanceof TopologyAwareConnectionHandler) {
+            ((TopologyAwareConnectionHandler) router.getConnectionHandler()).setRefresher(null);
+        }
+        scheduler.shutdownNow();
+        for (JedisPool pool : retiring) {
+            close(pool);
+        }
+        retiring.clear();
+    }
+
+    /**
+     * 注册节点连接池关闭后的回调，按连接池缓存了数据的组件（如RedisClusterUtil的自动pipeline）用于清理缓存。
+     * @param listener 参数为已关闭的连接池
+     */
+    public void addRetireListener(Consumer<JedisPool> listener) {
+        retireListeners.add(listener);
+    }
+
+    /**
+     * 刷新拓扑。已经有刷新在执行时等待其完成，不再重复执行CLUSTER SLOTS。
+     * @return 刷新成功返回true（拓扑可能没有变化），所有节点都不可达时返回false
+     */
+    public boolean refresh() {
+        return refresh(Long.MAX_VALUE);
+    }
+
+    /**
+     * JedisCluster遇到MOVED或连接失败时调用，等待刷新完成后JedisCluster按新的slot缓存重试。
+     */
+    void onRedirect() {
+        redirectCount.incrementAndGet();
+        refresh(redirectWaitMillis);
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * 累计刷新耗时(纳秒)。
+     * @return
+     */
+    public long getRefreshNanos() {
+        return refreshNanos.get();
+    }
+
+    /**
+     * 最近一次刷新耗时(纳秒)。
+     * @return
+     */
+    public long getLastRefreshNanos() {
+        return lastRefreshNanos;
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * 累计MOVED和连接失败触发的刷新请求数（合并执行，大于实际刷新次数）。
+     * @return
+     */
+    public long getRedirectCount() {
+        return redirectCount.get();
+    }
+
+    /**
+     * 累计指向新节点的slot数。
+     * @return
+     */
+    public long getMovedSlotCount() {
+        return movedSlotCount.get();
+    }
+
+    public long getAddedNodeCount() {
+        return addedNodeCount.get();
+    }
+
+    public long getRetiredNodeCount() {
+        return retiredNodeCount.get();
+    }
+
+    private boolean refresh(long waitMillis) {
+        CompletableFuture<Boolean> future;
+        boolean owner = false;
+        synchronized (lock) {
+            future = inflight;
+            if (future == null) {
+                future = new CompletableFuture<>();
+                inflight = future;
+                owner = true;
+            }
+        }
+        if (owner) {
+            boolean result = false;
+            try {
+                result = doRefresh();
+            } catch (Exception e) {
+                LOGGER.warn("[ClusterTopologyRefresher]Failed to refresh cluster topology.", e);
+            } finally {
+                if (!result) {
+                    failureCount.incrementAndGet();
+                }
+                synchronized (lock) {
+                    inflight = null;
+                }
+                future.complete(result);
+            }
+            return result;
+        }
+        try {
+            return waitMillis == Long.MAX_VALUE ? future.get() : future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 通过任意一个节点执行CLUSTER SLOTS，对比并更新JedisCluster的slot缓存和节点连接池。
+     */
+    @SuppressWarnings("unchecked")
+    private boolean doRefresh() {
+        long start = System.nanoTime();
+        JedisClusterInfoCache cache = router.getCache();
+        List<Object> clusterSlots = null;
+        String connectedHost = null;
+        for (JedisPool pool : cache.getShuffledNodesPool()) {
+            try (Jedis jedis = pool.getResource()) {
+                clusterSlots = jedis.clusterSlots();
+                connectedHost = jedis.getClient().getHost();
+                break;
+            } catch (JedisException e) {
+                LOGGER.debug("[ClusterTopologyRefresher]Failed to get cluster slots from node.", e);
+            }
+        }
+        if (clusterSlots == null) {
+            LOGGER.warn("[ClusterTopologyRefresher]No reachable node in cluster, keep the current topology.");
+            return false;
+        }
+
+        HostAndPort[] masters = new HostAndPort[BinaryJedisCluster.HASHSLOTS];
+        Map<String, HostAndPort> alive = new HashMap<>();
+        for (Object item : clusterSlots) {
+            // [start, end, [masterHost, masterPort, id], [replicaHost, replicaPort, id], ...]
+            List<Object> info = (List<Object>) item;
+            if (info.size() < 3) {
+                continue;
+            }
+            HostAndPort master = null;
+            for (int i = 2; i < info.size(); i++) {
+                List<Object> hostAndPort = (List<Object>) info.get(i);
+                String host = SafeEncoder.encode((byte[]) hostAndPort.get(0));
+                HostAndPort node = new HostAndPort(host.isEmpty() ? connectedHost : host,
+                        ((Long) hostAndPort.get(1)).intValue());
+                alive.put(JedisClusterInfoCache.getNodeKey(node), node);
+                if (i == 2) {
+                    master = node;
+                }
+            }
+            int from = ((Long) info.get(0)).intValue();
+            int to = ((Long) info.get(1)).intValue();
+            for (int slot = from; slot <= to; slot++) {
+                masters[slot] = master;
+            }
+        }
+
+        // 新节点：创建连接池
+        Set<String> added = new HashSet<>();
+        for (Map.Entry<String, HostAndPort> node : alive.entrySet()) {
+            if (cache.getNode(node.getKey()) == null) {
+                cache.setupNodeIfNotExist(node.getValue());
+                added.add(node.getKey());
+            }
+        }
+
+        // slot所属主节点变化：先预热目标节点的连接池，再更新slot缓存
+        Map<HostAndPort, List<Integer>> moved = new LinkedHashMap<>();
+        for (int slot = 0; slot < masters.length; slot++) {
+            if (masters[slot] != null
+                    && cache.getSlotPool(slot) != cache.getNode(JedisClusterInfoCache.getNodeKey(masters[slot]))) {
+                moved.computeIfAbsent(masters[slot], node -> new ArrayList<>()).add(slot);
+            }
+        }
+        for (Map.Entry<HostAndPort, List<Integer>> entry : moved.entrySet()) {
+            warm(JedisClusterInfoCache.getNodeKey(entry.getKey()), cache.getNode(
+                    JedisClusterInfoCache.getNodeKey(entry.getKey())));
+            cache.assignSlotsToNode(entry.getValue(), entry.getKey());
+        }
+
+        // 不在集群中并且没有slot指向的节点：移除，延迟关闭连接池
+        Set<JedisPool> serving = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int slot = 0; slot < BinaryJedisCluster.HASHSLOTS; slot++) {
+            JedisPool pool = cache.getSlotPool(slot);
+            if (pool != null) {
+                serving.add(pool);
+            }
+        }
+        List<String> retired = new ArrayList<>();
+        for (Map.Entry<String, JedisPool> node : cache.getNodes().entrySet()) {
+            if (!alive.containsKey(node.getKey()) && !serving.contains(node.getValue())) {
+                retired.add(node.getKey());
+            }
+        }
+        for (String node : retired) {
+            retire(node);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        refreshCount.incrementAndGet();
+        refreshNanos.addAndGet(elapsed);
+        lastRefreshNanos = elapsed;
+        int movedSlots = 0;
+        for (List<Integer> slots : moved.values()) {
+            movedSlots += slots.size();
+        }
+        movedSlotCount.addAndGet(movedSlots);
+        addedNodeCount.addAndGet(added.size());
+        retiredNodeCount.addAndGet(retired.size());
+        if (movedSlots > 0 || !added.isEmpty() || !retired.isEmpty()) {
+            LOGGER.info("[ClusterTopologyRefresher]Cluster topology changed: {} slots moved, nodes added {}, "
+                    + "nodes retired {}, took {}ms.", movedSlots, added, retired,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        return true;
+    }
+
+    /**
+     * 把连接池补齐到warmConnections个连接，失败时只打印日志（slot仍然指向该节点，由JedisCluster重试）。
+     */
+    private void warm(String node, JedisPool pool) {
+        int missing = warmConnections - pool.getNumIdle() - pool.getNumActive();
+        if (missing <= 0) {
+            return;
+        }
+        try {
+            pool.addObjects(missing);
+        } catch (Exception e) {
+            LOGGER.warn("[ClusterTopologyRefresher]Failed to warm up connections of node {}.", node, e);
+        }
+    }
+
+    private void retire(String node) {
+        JedisPool pool = router.removeNode(node);
+        if (pool == null) {
+            return;
+        }
+        retiring.add(pool);
+        try {
+            scheduler.schedule(() -> {
+                if (retiring.remove(pool)) {
+                    close(pool);
+                }
+            }, retireDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭
+            retiring.remove(pool);
+            close(pool);
+        }
+    }
+
+    private void close(JedisPool pool) {
+        pool.close();
+        for (Consumer<JedisPool> listener : retireListeners) {
+            try {
+                listener.accept(pool);
+            } catch (RuntimeException e) {
+                LOGGER.warn("[ClusterTopologyRefresher]Retire listener failed.", e);
+            }
+        }
+    }
+}
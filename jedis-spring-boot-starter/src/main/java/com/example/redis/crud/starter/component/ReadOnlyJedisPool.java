@@ -0,0 +1,43 @@
+package com.example.redis.crud.starter.component;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * @author jackie wang
+ * @Title: ReadOnlyJedisPool
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群从节点连接池：每个连接第一次借出时执行一次READONLY，之后该连接可以读取从节点负责的slot，
+ * 不会返回MOVED。连接断开后由连接池销毁，新建的连接重新执行READONLY。
+ * @date 2019/12/18 10:20
+ */
+class ReadOnlyJedisPool extends JedisPool {
+
+    /** 已经执行过READONLY的连接，连接销毁后自动移除 */
+    private final Set<Jedis> readOnly = Collections.newSetFromMap(
+            Collections.synchronizedMap(new WeakHashMap<Jedis, Boolean>()));
+
+    ReadOnlyJedisPool(GenericObjectPoolConfig poolConfig, String host, int port, int timeout, String password) {
+        super(poolConfig, host, port, timeout, password);
+    }
+
+    @Override
+    public Jedis getResource() {
+        Jedis jedis = super.getResource();
+        if (!readOnly.contains(jedis)) {
+            try {
+                jedis.readonly();
+            } catch (RuntimeException e) {
+                jedis.close();
+                throw e;
+            }
+            readOnly.add(jedis);
+        }
+        return jedis;
+    }
+}
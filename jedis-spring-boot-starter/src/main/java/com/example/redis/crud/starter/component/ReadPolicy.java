@@ -0,0 +1,20 @@
+package com.example.redis.crud.starter.component;
+
+/**
+ * @author jackie wang
+ * @Title: ReadPolicy
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群版只读命令的路由策略（jedis.read.policy）。从节点异步复制，从从节点读取可能读到旧值。
+ * @date 2019/12/18 10:20
+ */
+public enum ReadPolicy {
+
+    /** 只从主节点读取（默认） */
+    MASTER,
+
+    /** 优先从从节点读取，slot没有可用的从节点或从节点读取失败时从主节点读取 */
+    REPLICA_PREFERRED,
+
+    /** 从主节点和从节点中选择最近一段时间平均延迟最低的节点读取 */
+    NEAREST
+}
@@ -0,0 +1,58 @@
+package com.example.redis.crud.starter.component;
+
+/**
+ * @author jackie wang
+ * @Title: RedisBatch
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 批量命令接口，在RedisUtil.pipelined(...)回调中排队命令，回调结束后统一通过pipeline发送，
+ * 每个分片只需要一次网络往返。
+ * 注意：回调执行期间返回的BatchResult还没有结果，需要在pipelined(...)返回之后再读取。
+ * @date 2019/11/20 10:15
+ */
+public interface RedisBatch {
+
+    /**
+     * 保存到缓存。
+     * @param key
+     * @param value
+     * @return
+     */
+    public BatchResult<String> set(String key, String value);
+
+    /**
+     * 根据key查询
+     * @param key
+     * @return
+     */
+    public BatchResult<String> get(String key);
+
+    /**
+     * 删除
+     * @param key
+     * @return
+     */
+    public BatchResult<Long> del(String key);
+
+    /**
+     * 设置key的过期时间
+     * @param key
+     * @param timeout 时间(秒)
+     * @return
+     */
+    public BatchResult<Long> expire(String key, Integer timeout);
+
+    /**
+     * 值递增1
+     * @param key
+     * @return
+     */
+    public BatchResult<Long> incr(String key);
+
+    /**
+     * 是否有key
+     * @param key
+     * @return
+     */
+    public BatchResult<Boolean> exists(String key);
+
+}
@@ -1,17 +1,55 @@
 package com.example.redis.crud.starter.component;
 
+import com.example.redis.crud.starter.bigkey.BigKeyDetector;
+import com.example.redis.crud.starter.breaker.CallNotPermittedException;
+import com.example.redis.crud.starter.breaker.CircuitBreakers;
+import com.example.redis.crud.starter.cache.NearCache;
+import com.example.redis.crud.starter.cache.SingleFlight;
+import com.example.redis.crud.starter.codec.HashMapper;
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.codec.TrackedHash;
+import com.example.redis.crud.starter.compress.ValueCompressor;
+import com.example.redis.crud.starter.hotkey.HotKeyDetector;
+import com.example.redis.crud.starter.metrics.RedisCommandMetrics;
+import com.example.redis.crud.starter.scan.ChunkedIterator;
+import com.example.redis.crud.starter.scan.ClusterKeyScanIterator;
+import com.example.redis.crud.starter.slowlog.SlowCommandLog;
+import com.example.redis.crud.starter.scan.KeyScanIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.SafeEncoder;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author jackie wang
@@ -21,17 +59,163 @@ import java.util.Set;
  * @date 2019/10/30 16:59
  */
 @Component
-public class RedisClusterUtil {
+public class RedisClusterUtil implements InitializingBean, DisposableBean {
     private Logger LOGGER = LoggerFactory.getLogger(getClass());
 
+    /** 集群版UNLINK：Jedis 2.9.x没有UNLINK命令，通过脚本执行，返回字符串避免pipeline中的类型转换问题 */
+    private static final String UNLINK_SCRIPT = "return tostring(redis.call('UNLINK', unpack(KEYS)))";
+
+    /** keys(...)每次SCAN的COUNT参数 */
+    private static final int DEFAULT_SCAN_COUNT = 1000;
+    /** 最多并行扫描的主节点数 */
+    private static final int MAX_SCAN_PARALLELISM = 16;
+
     @Autowired(required = false)
     private JedisCluster jedisCluster;
 
-    public Set<String> keys(String keys) {
+    /** 本地缓存，jedis.near-cache.enabled=true时注入 */
+    @Autowired(required = false)
+    private NearCache nearCache;
+
+    /** 值压缩，jedis.compression.enabled=true时注入 */
+    @Autowired(required = false)
+    private ValueCompressor valueCompressor;
+
+    /** 请求合并，jedis.single-flight.enabled=true时注入 */
+    @Autowired(required = false)
+    private SingleFlight singleFlight;
+
+    /** 命令耗时监控，classpath中有micrometer时注入 */
+    @Autowired(required = false)
+    private RedisCommandMetrics commandMetrics = RedisCommandMetrics.NONE;
+
+    /** 自动pipeline，jedis.auto-pipeline.enabled=true时注入 */
+    @Autowired(required = false)
+    private AutoPipelining autoPipelining;
+
+    /** 从节点读取配置，jedis.read.policy不是MASTER时注入 */
+    @Autowired(required = false)
+    private ReplicaReads replicaReads;
+
+    /** 热点key检测，jedis.hot-keys.enabled=true时注入 */
+    @Autowired(required = false)
+    private HotKeyDetector hotKeyDetector;
+
+    /** 大key检测，jedis.big-keys.enabled=true时注入 */
+    @Autowired(required = false)
+    private BigKeyDetector bigKeyDetector;
+
+    /** 客户端慢命令日志，jedis.slow-log.enabled=true时注入 */
+    @Autowired(required = false)
+    private SlowCommandLog slowCommandLog;
+
+    /** 按节点熔断，jedis.circuit-breaker.enabled=true时注入 */
+    @Autowired(required = false)
+    private CircuitBreakers circuitBreakers;
+
+    /** 拓扑主动刷新，jedis.cluster.topology-refresh.enabled=true时注入，移除的节点关闭后清理按连接池缓存的数据 */
+    @Autowired(required = false)
+    private ClusterTopologyRefresher topologyRefresher;
+
+    /** 多key命令执行器：按slot/节点分组并行执行 */
+    private ClusterMultiKeyExecutor multiKeyExecutor;
+
+    /** 只读命令路由，从主节点读取时为null */
+    private ReplicaReadRouter replicaReadRouter;
+
+    /** 主节点连接池 -> 该节点的自动pipeline */
+    private final ConcurrentMap<JedisPool, AutoPipeline<Pipeline>> autoPipelines = new ConcurrentHashMap<>();
+
+    /** 主节点连接池 -> 节点名称（host:port），JedisCluster.getClusterNodes()每次复制节点表，不在每个命令上调用 */
+    private final ConcurrentMap<JedisPool, String> nodeNames = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        if (jedisCluster != null) {
+            multiKeyExecutor = new ClusterMultiKeyExecutor(new ClusterSlotRouter(jedisCluster));
+            if (replicaReads != null && replicaReads.getPolicy() != ReadPolicy.MASTER) {
+                replicaReadRouter = new ReplicaReadRouter(multiKeyExecutor.getRouter(), replicaReads);
+            }
+        }
+        if (topologyRefresher != null) {
+            topologyRefresher.addRetireListener(pool -> {
+                autoPipelines.remove(pool);
+                nodeNames.remove(pool);
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (multiKeyExecutor != null) {
+            multiKeyExecutor.shutdown();
+        }
+        if (replicaReadRouter != null) {
+            replicaReadRouter.shutdown();
+        }
+    }
+
+    /**
+     * 查询集群所有主节点中匹配的key，通过SCAN遍历，不会像KEYS一样阻塞节点。
+     * 结果全部加载到内存，key很多时请使用scan(...)。
+     * @param pattern 匹配模式，如user:*
+     * @return
+     */
+    public Set<String> keys(String pattern) {
+        try (KeyScanIterator iterator = new ClusterKeyScanIterator(multiKeyExecutor.getRouter(), pattern,
+                DEFAULT_SCAN_COUNT, MAX_SCAN_PARALLELISM, commandMetrics).start();
+             Stream<String> keys = iterator.stream()) {
+            return keys.collect(Collectors.toCollection(LinkedHashSet::new));
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        }
+    }
+
+    /**
+     * 流式扫描集群所有主节点中匹配的key（SCAN），多个主节点并行扫描，按需读取，缓冲区有界。
+     * 扫描期间发生故障转移或slot迁移时，在新的主节点上补扫受影响的slot。
+     * 同一个key可能返回多次，使用完必须关闭Stream。
+     * 使用示例：
+     * try (Stream<String> keys = redisClusterUtil.scan("user:*", 500)) {
+     *     keys.forEach(key -> ...);
+     * }
+     * @param pattern 匹配模式，为空时匹配所有key
+     * @param count 每次SCAN的COUNT参数
+     * @return 创建失败返回null，扫描失败时读取Stream抛出JedisException
+     */
+    public Stream<String> scan(String pattern, int count) {
+        KeyScanIterator iterator = scanIterator(pattern, count);
+        return iterator == null ? null : iterator.stream();
+    }
+
+    /**
+     * 流式扫描集群所有主节点中匹配的key，返回迭代器，使用完必须close()。
+     * @param pattern 匹配模式，为空时匹配所有key
+     * @param count 每次SCAN的COUNT参数
+     * @return 创建失败返回null
+     */
+    public KeyScanIterator scanIterator(String pattern, int count) {
         try {
-            return jedisCluster.hkeys(keys);
+            return new ClusterKeyScanIterator(multiKeyExecutor.getRouter(), pattern, count, MAX_SCAN_PARALLELISM,
+                    commandMetrics).start();
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取hash的所有field。
+     * @param key
+     * @return
+     */
+    public Set<String> hKeys(String key) {
+        try {
+            return time("hkeys", key, () -> read(key, jedis -> jedis.hkeys(key),
+                    () -> jedisCluster.hkeys(key)));
+        } catch (Exception e) {
+            logError(e);
             return null;
         }
     }
@@ -46,11 +230,12 @@ public class RedisClusterUtil {
     public boolean expire(String key, int timeout) {
         try {
             if (timeout > 0) {
-                jedisCluster.expire(key, timeout);
+                time("expire", key, () -> autoPipelined(key, pipeline -> pipeline.expire(key, timeout),
+                        () -> jedisCluster.expire(key, timeout)));
             }
             return true;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return false;
         }
     }
@@ -73,26 +258,87 @@ public class RedisClusterUtil {
      */
     public boolean hasKey(String key) {
         try {
-            return jedisCluster.exists(key);
+            return time("exists", key, () -> read(key, jedis -> jedis.exists(key),
+                    () -> autoPipelined(key, pipeline -> pipeline.exists(key), () -> jedisCluster.exists(key))));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return false;
         }
     }
 
     /**
-     * 删除缓存
+     * 删除缓存，多个key时按slot分组，每个节点一次pipeline往返。
      *
      * @param key 可以传一个值， 或多个
+     * @return 删除的个数
      */
-    @SuppressWarnings("unchecked")
-    public void del(String... key) {
+    public Long del(String... key) {
         if (key != null && key.length > 0) {
-            if (key.length == 1) {
-                jedisCluster.del(key[0]);
-            } else {
-                jedisCluster.del(key);
+            try {
+                if (key.length == 1) {
+                    return time("del", key[0], () -> autoPipelined(key[0], pipeline -> pipeline.del(key[0]),
+                            () -> jedisCluster.del(key[0])));
+                } else {
+                    sampleAll("del", key);
+                    return timed("del", key[0], () -> sum(multiKeyExecutor.execute(key,
+                            (pipeline, group) -> pipeline.del(group.getKeys()),
+                            group -> jedisCluster.del(group.getKeys()))));
+                }
+            } finally {
+                invalidate(key);
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * 异步删除缓存（UNLINK，由Redis后台线程释放内存），需要Redis 4.0及以上版本。
+     *
+     * @param keys 可以传一个值， 或多个
+     * @return 删除的个数，执行失败返回0
+     */
+    public Long unlink(String... keys) {
+        if (keys == null || keys.length == 0) {
+            return 0L;
+        }
+        try {
+            sampleAll("unlink", keys);
+            List<ClusterMultiKeyExecutor.SlotGroup<String>> groups = timed("unlink", keys[0],
+                    () -> multiKeyExecutor.execute(keys,
+                            (pipeline, group) -> pipeline.eval(UNLINK_SCRIPT, group.getKeys().length, group.getKeys()),
+                            group -> (String) jedisCluster.eval(UNLINK_SCRIPT, group.getKeys().length,
+                                    group.getKeys())));
+            long count = 0;
+            for (ClusterMultiKeyExecutor.SlotGroup<String> group : groups) {
+                count += Long.parseLong(group.getResult());
             }
+            return count;
+        } catch (Exception e) {
+            logError(e);
+            return 0L;
+        } finally {
+            invalidate(keys);
+        }
+    }
+
+    /**
+     * 判断多个key中存在的个数。
+     *
+     * @param keys 键；
+     * @return 存在的个数
+     */
+    public Long exists(String... keys) {
+        if (keys == null || keys.length == 0) {
+            return 0L;
+        }
+        try {
+            sampleAll("exists", keys);
+            return timed("exists", keys[0], () -> sum(multiKeyExecutor.execute(keys,
+                    (pipeline, group) -> pipeline.exists(group.getKeys()),
+                    group -> jedisCluster.exists(group.getKeys()))));
+        } catch (Exception e) {
+            logError(e);
+            return 0L;
         }
     }
 
@@ -106,11 +352,105 @@ public class RedisClusterUtil {
         if (key == null) {
             return null;
         }
-        Object result = jedisCluster.get(key);
-        if (result != null) {
-            return result.toString();
+        if (nearCache != null) {
+            Object cached = nearCache.get(key);
+            if (cached instanceof String) {
+                return (String) cached;
+            }
+        }
+        return singleFlight != null ? singleFlight.execute("get:" + key, () -> getFromRedis(key))
+                : getFromRedis(key);
+    }
+
+    /**
+     * 缓存获取，不存在时通过loader加载（如查询数据库）并按写入选项放入缓存。
+     * 启用请求合并（jedis.single-flight.enabled=true）时，同一个key的并发调用只读取一次redis、只调用一次loader。
+     * 使用示例：get("user:1", () -> userService.loadJson(1L), WriteOptions.ex(600))
+     *
+     * @param key     键；
+     * @param loader  加载器，返回null时不放入缓存；
+     * @param options 写入选项；
+     * @return 值，loader的异常原样抛出
+     */
+    public String get(String key, Supplier<String> loader, WriteOptions options) {
+        return singleFlight != null ? singleFlight.execute("load:" + key, () -> load(key, loader, options))
+                : load(key, loader, options);
+    }
+
+    /**
+     * 批量获取，按slot分组，每个节点一次pipeline往返，多个节点并行执行。
+     *
+     * @param keys 键；
+     * @return 与keys顺序一致的值，不存在的key对应null
+     */
+    public List<String> mget(String... keys) {
+        if (keys == null || keys.length == 0) {
+            return new ArrayList<>();
+        }
+        sampleAll("mget", keys);
+        try {
+            String[] values = new String[keys.length];
+            if (valueCompressor != null) {
+                List<ClusterMultiKeyExecutor.SlotGroup<List<byte[]>>> groups = timed("mget", keys[0],
+                        () -> multiKeyExecutor.<List<byte[]>>execute(keys,
+                                (pipeline, group) -> pipeline.mget(SafeEncoder.encodeMany(group.getKeys())),
+                                group -> jedisCluster.mget(SafeEncoder.encodeMany(group.getKeys()))));
+                for (ClusterMultiKeyExecutor.SlotGroup<List<byte[]>> group : groups) {
+                    int[] indexes = group.getIndexes();
+                    List<byte[]> result = group.getResult();
+                    for (int i = 0; i < indexes.length; i++) {
+                        values[indexes[i]] = valueCompressor.decompressToString(result.get(i));
+                    }
+                }
+                return Arrays.asList(values);
+            }
+            List<ClusterMultiKeyExecutor.SlotGroup<List<String>>> groups = timed("mget", keys[0],
+                    () -> multiKeyExecutor.<List<String>>execute(keys,
+                            (pipeline, group) -> pipeline.mget(group.getKeys()),
+                            group -> jedisCluster.mget(group.getKeys())));
+            for (ClusterMultiKeyExecutor.SlotGroup<List<String>> group : groups) {
+                int[] indexes = group.getIndexes();
+                List<String> result = group.getResult();
+                for (int i = 0; i < indexes.length; i++) {
+                    values[indexes[i]] = result.get(i);
+                }
+            }
+            return Arrays.asList(values);
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        }
+    }
+
+    /**
+     * 批量放入，按slot分组，每个节点一次pipeline往返，多个节点并行执行。
+     *
+     * @param keyValues 键值对；
+     * @return true成功 false失败
+     */
+    public boolean mset(Map<String, String> keyValues) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            return true;
+        }
+        try {
+            String[] keys = keyValues.keySet().toArray(new String[0]);
+            sampleAll("mset", keys);
+            if (valueCompressor != null) {
+                timed("mset", keys[0], () -> multiKeyExecutor.<String>execute(keys,
+                        (pipeline, group) -> pipeline.mset(toBinaryKeysValues(group.getKeys(), keyValues)),
+                        group -> jedisCluster.mset(toBinaryKeysValues(group.getKeys(), keyValues))));
+                invalidate(keys);
+                return true;
+            }
+            timed("mset", keys[0], () -> multiKeyExecutor.<String>execute(keys,
+                    (pipeline, group) -> pipeline.mset(toKeysValues(group.getKeys(), keyValues)),
+                    group -> jedisCluster.mset(toKeysValues(group.getKeys(), keyValues))));
+            invalidate(keys);
+            return true;
+        } catch (Exception e) {
+            logError(e);
+            return false;
         }
-        return null;
     }
 
     /**
@@ -122,41 +462,153 @@ public class RedisClusterUtil {
      */
     public boolean set(String key, String value) {
         try {
-            jedisCluster.set(key, value);
+            write(key, value, WriteOptions.none());
+            invalidate(key);
             return true;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return false;
         }
     }
 
     /**
-     * 普通缓存放入并设置时间
+     * 普通缓存放入并设置时间，一次网络往返（SET EX）。
      *
      * @param key     键；
      * @param value   值；
-     * @param timeout 时间(秒)； timeout要大于0 如果time小于等于0 将设置无限期
+     * @param timeout 时间(秒)； timeout要大于0 如果time为null或小于等于0 将设置无限期
      * @return true成功 false 失败
      */
     public boolean set(String key, String value, Long timeout) {
-        try {
-            if (hasKey(key)) {
-                jedisCluster.del(key);
-            }
+        return set(key, value, ttl(timeout));
+    }
 
-            // NX是不存在时才set， XX是存在时才set， EX是秒，PX是毫秒
-            if (timeout > 0) {
-                jedisCluster.set(key, value, "NX", "EX", timeout);
+    /**
+     * 按写入选项放入缓存，一次网络往返。
+     * 使用示例：set(key, value, WriteOptions.ex(60).nx())
+     *
+     * @param key     键；
+     * @param value   值；
+     * @param options 写入选项，NX/XX/EX/PX/KEEPTTL；
+     * @return true成功 false失败或NX/XX条件不满足
+     */
+    public boolean set(String key, String value, WriteOptions options) {
+        try {
+            Object result;
+            if (options.isKeepTtl()) {
+                result = time("set", key, value, () -> RedisScripts.SET_KEEP_TTL.eval(jedisCluster,
+                        Collections.singletonList(key), Arrays.asList(options.keepTtlArgs(value))));
             } else {
-                set(key, value);
+                result = write(key, value, options);
             }
+            invalidate(key);
+            return result != null;
+        } catch (Exception e) {
+            logError(e);
+            return false;
+        }
+    }
+
+    /**
+     * 按编解码器序列化对象后放入缓存。
+     * 使用示例：set("user:1", userVo, JacksonBinaryCodec.smile(UserVo.class))
+     *
+     * @param key   键；
+     * @param value 对象；
+     * @param codec 编解码器；
+     * @return true成功 false失败
+     */
+    public <T> boolean set(String key, T value, RedisCodec<T> codec) {
+        try {
+            byte[] bytes = compress(codec.encode(value));
+            time("set", key, bytes, () -> jedisCluster.set(SafeEncoder.encode(key), bytes));
+            invalidate(key);
             return true;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
+            return false;
+        }
+    }
+
+    /**
+     * 获取缓存，并按编解码器反序列化。
+     *
+     * @param key   键；
+     * @param codec 编解码器；
+     * @return 对象，key不存在或执行失败返回null
+     */
+    public <T> T get(String key, RedisCodec<T> codec) {
+        try {
+            byte[] binaryKey = SafeEncoder.encode(key);
+            byte[] bytes = time("get", key, () -> read(key, jedis -> jedis.get(binaryKey),
+                    () -> jedisCluster.get(binaryKey)));
+            return bytes == null ? null : codec.decode(decompress(bytes));
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        }
+    }
+
+    /**
+     * 按编解码器序列化对象后按写入选项放入缓存，一次网络往返。
+     * 使用示例：set("user:1", userVo, codec, WriteOptions.ex(60).nx())
+     *
+     * @param key     键；
+     * @param value   对象；
+     * @param codec   编解码器；
+     * @param options 写入选项，不支持KEEPTTL、毫秒级或超过int秒数的PX（不带NX/XX）和不带过期时间的XX；
+     * @return true成功 false失败或NX/XX条件不满足
+     */
+    public <T> boolean set(String key, T value, RedisCodec<T> codec, WriteOptions options) {
+        if (!options.isClusterBinaryWritable()) {
+            throw new IllegalArgumentException("Unsupported write options for binary values: " + options);
+        }
+        try {
+            byte[] bytes = compress(codec.encode(value));
+            String result = time("set", key, bytes, () -> options.set(jedisCluster, SafeEncoder.encode(key), bytes));
+            invalidate(key);
+            return result != null;
+        } catch (Exception e) {
+            logError(e);
             return false;
         }
     }
 
+    /**
+     * 批量获取，并按编解码器反序列化。按slot分组，每个节点一次pipeline往返，多个节点并行执行。
+     *
+     * @param codec 编解码器；
+     * @param keys  键；
+     * @return 与keys顺序一致的对象，不存在的key对应null；执行失败返回null
+     */
+    public <T> List<T> mget(RedisCodec<T> codec, String... keys) {
+        if (keys == null || keys.length == 0) {
+            return new ArrayList<>();
+        }
+        sampleAll("mget", keys);
+        try {
+            List<T> values = new ArrayList<>(Collections.nCopies(keys.length, (T) null));
+            List<ClusterMultiKeyExecutor.SlotGroup<List<byte[]>>> groups = timed("mget", keys[0],
+                    () -> multiKeyExecutor.<List<byte[]>>execute(keys,
+                            (pipeline, group) -> pipeline.mget(SafeEncoder.encodeMany(group.getKeys())),
+                            group -> jedisCluster.mget(SafeEncoder.encodeMany(group.getKeys()))));
+            for (ClusterMultiKeyExecutor.SlotGroup<List<byte[]>> group : groups) {
+                int[] indexes = group.getIndexes();
+                List<byte[]> result = group.getResult();
+                for (int i = 0; i < indexes.length; i++) {
+                    byte[] bytes = result.get(i);
+                    if (bytes != null) {
+                        values.set(indexes[i], codec.decode(decompress(bytes)));
+                    }
+                }
+            }
+            return values;
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        }
+    }
+
     /**
      * 递增
      *
@@ -168,7 +620,12 @@ public class RedisClusterUtil {
         if (delta < 0) {
             throw new RuntimeException("递增因子必须大于0");
         }
-        return jedisCluster.incrBy(key, delta);
+        try {
+            return time("incrby", key, () -> autoPipelined(key, pipeline -> pipeline.incrBy(key, delta),
+                    () -> jedisCluster.incrBy(key, delta)));
+        } finally {
+            invalidate(key);
+        }
     }
 
     /**
@@ -182,7 +639,11 @@ public class RedisClusterUtil {
         if (delta < 0) {
             throw new RuntimeException("递减因子必须大于0");
         }
-        return jedisCluster.incrBy(key, -delta);
+        try {
+            return time("incrby", key, () -> jedisCluster.incrBy(key, -delta));
+        } finally {
+            invalidate(key);
+        }
     }
 
     /**
@@ -193,7 +654,29 @@ public class RedisClusterUtil {
      * @return 值；
      */
     public String hget(String key, String item) {
-        return jedisCluster.hget(key, item);
+        return time("hget", key, () -> read(key, jedis -> jedis.hget(key, item),
+                () -> autoPipelined(key, pipeline -> pipeline.hget(key, item), () -> jedisCluster.hget(key, item))));
+    }
+
+    /**
+     * 获取Hash项的内容，并按编解码器反序列化。
+     *
+     * @param key   键；
+     * @param item  项；
+     * @param codec 编解码器；
+     * @return 对象，不存在或执行失败返回null
+     */
+    public <T> T hget(String key, String item, RedisCodec<T> codec) {
+        try {
+            byte[] binaryKey = SafeEncoder.encode(key);
+            byte[] binaryItem = SafeEncoder.encode(item);
+            byte[] bytes = time("hget", key, () -> read(key, jedis -> jedis.hget(binaryKey, binaryItem),
+                    () -> jedisCluster.hget(binaryKey, binaryItem)));
+            return bytes == null ? null : codec.decode(decompress(bytes));
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        }
     }
 
     /**
@@ -203,7 +686,8 @@ public class RedisClusterUtil {
      * @return 对应的多个属性；
      */
     public List<String> hmget(String key, String[] fields) {
-        return jedisCluster.hmget(key, fields);
+        return time("hmget", key, () -> read(key, jedis -> jedis.hmget(key, fields),
+                () -> jedisCluster.hmget(key, fields)));
     }
 
     /**
@@ -212,8 +696,60 @@ public class RedisClusterUtil {
      * @param key 键；
      * @return 对应的多个属性值；
      */
+    @SuppressWarnings("unchecked")
     public Map<String, String> hgetAll(String key) {
-        return jedisCluster.hgetAll(key);
+        if (nearCache != null) {
+            Object cached = nearCache.get(key);
+            if (cached instanceof Map) {
+                // 返回副本，调用方修改返回值不影响本地缓存
+                return new HashMap<>((Map<String, String>) cached);
+            }
+        }
+        if (singleFlight == null) {
+            return hgetAllFromRedis(key);
+        }
+        // 合并的调用共享同一个Map，返回副本
+        return copy(singleFlight.execute("hgetall:" + key, () -> hgetAllFromRedis(key)));
+    }
+
+    /**
+     * 获取hash的所有键值，不存在时通过loader加载（如查询数据库）并按写入选项放入缓存。
+     * 启用请求合并（jedis.single-flight.enabled=true）时，同一个key的并发调用只读取一次redis、只调用一次loader。
+     *
+     * @param key     键；
+     * @param loader  加载器，返回null或空Map时不放入缓存；
+     * @param options 写入选项，只支持过期时间；
+     * @return 对应的多个键值，loader的异常原样抛出
+     */
+    public Map<String, String> hgetAll(String key, Supplier<Map<String, String>> loader, WriteOptions options) {
+        if (singleFlight == null) {
+            return hload(key, loader, options);
+        }
+        return copy(singleFlight.execute("hload:" + key, () -> hload(key, loader, options)));
+    }
+
+    /**
+     * 分批读取hash的所有项（HSCAN），内存中最多保留一批，适合很大的hash，代替hgetAll。
+     * 使用示例：redisClusterUtil.hScan("user:index", 500).forEach(entry -> ...);
+     *
+     * @param key       键；
+     * @param chunkSize 每批的COUNT参数；
+     * @return 读取失败时抛出JedisException
+     */
+    public Stream<Map.Entry<String, String>> hScan(String key, int chunkSize) {
+        return hScanIterator(key, chunkSize).stream();
+    }
+
+    /**
+     * 分批读取hash的所有项（HSCAN），返回迭代器。
+     *
+     * @param key       键；
+     * @param chunkSize 每批的COUNT参数；
+     * @return
+     */
+    public ChunkedIterator<Map.Entry<String, String>> hScanIterator(String key, int chunkSize) {
+        return ChunkedIterator.cursor((cursor, params) ->
+                time("hscan", key, () -> jedisCluster.hscan(key, cursor, params)), chunkSize);
     }
 
     /**
@@ -224,7 +760,11 @@ public class RedisClusterUtil {
      * @return
      */
     public String hmset(String key, Map<String, String> map) {
-        return jedisCluster.hmset(key, map);
+        try {
+            return time("hmset", key, map, () -> jedisCluster.hmset(key, map));
+        } finally {
+            invalidate(key);
+        }
     }
 
 
@@ -237,18 +777,134 @@ public class RedisClusterUtil {
      * @return
      */
     public String hmset(String key, Map<String, String> map, int timeout) {
+        return hmset(key, map, ttl(timeout));
+    }
+
+    /**
+     * HashSet 并设置过期时间，一次网络往返并且是原子操作。
+     *
+     * @param key     键；
+     * @param map     对应多个键值；
+     * @param options 写入选项，只支持过期时间；
+     * @return
+     */
+    public String hmset(String key, Map<String, String> map, WriteOptions options) {
         String result = null;
         try {
-            result = jedisCluster.hmset(key, map);
-            if (timeout > 0) {
-                expire(key, timeout);
-            }
+            result = (String) writeWithTtl(key, "HMSET", options, map.size() * 2, args -> {
+                for (Map.Entry<String, String> entry : map.entrySet()) {
+                    args.add(entry.getKey());
+                    args.add(entry.getValue());
+                }
+            }, () -> jedisCluster.hmset(key, map));
+            invalidate(key);
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
         }
         return result;
     }
 
+    /**
+     * 对象按属性写入hash，每个属性一个field，属性值保持可还原的类型，null属性不写入。
+     * 使用示例：redisClusterUtil.hmset("user:1", userVo, HashMapper.of(UserVo.class));
+     *
+     * @param key    键；
+     * @param value  对象；
+     * @param mapper 对象映射；
+     * @param fields 只写入这些属性，为空时写入所有属性；
+     * @return
+     */
+    public <T> String hmset(String key, T value, HashMapper<T> mapper, String... fields) {
+        try {
+            Map<String, String> hash = mapper.toHash(value, mapper.checkFields(fields));
+            if (hash.isEmpty()) {
+                return null;
+            }
+            return time("hmset", key, hash, () -> jedisCluster.hmset(key, hash));
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * 读取hash并转换为对象，可以只读取部分属性（HMGET），其他属性保持默认值。
+     * 使用示例：UserVo user = redisClusterUtil.hmget("user:1", HashMapper.of(UserVo.class), "name");
+     *
+     * @param key    键；
+     * @param mapper 对象映射；
+     * @param fields 只读取这些属性，为空时读取所有属性（HGETALL）；
+     * @return key不存在返回null
+     */
+    public <T> T hmget(String key, HashMapper<T> mapper, String... fields) {
+        try {
+            return readHash(key, mapper, fields);
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        }
+    }
+
+    /**
+     * 读取hash并转换为带修改跟踪的对象，修改属性后通过hsetChanged(...)只写入修改过的field。
+     *
+     * @param key    键；
+     * @param mapper 对象映射；
+     * @param fields 只读取并跟踪这些属性，为空时读取所有属性；
+     * @return key不存在时返回新创建的对象（写入时写入所有非null的属性），读取失败返回null
+     */
+    public <T> TrackedHash<T> hmgetTracked(String key, HashMapper<T> mapper, String... fields) {
+        try {
+            T value = readHash(key, mapper, fields);
+            return value != null ? new TrackedHash<>(key, value, mapper, fields)
+                    : new TrackedHash<>(key, mapper.newInstance(), mapper, false, fields);
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        }
+    }
+
+    /**
+     * 只写入修改过的field：修改的属性HMSET，置为null的属性HDEL，通过脚本在一次往返中原子执行。
+     *
+     * @param tracked hmgetTracked(...)返回的对象；
+     * @return 写入/删除的field个数，没有修改返回0
+     */
+    public <T> Long hsetChanged(TrackedHash<T> tracked) {
+        String key = tracked.getKey();
+        try {
+            Map<String, String> changes = tracked.changes();
+            if (changes.isEmpty()) {
+                return 0L;
+            }
+            // ARGV：写入的field个数，field、值交替，最后是删除的field
+            List<String> args = new ArrayList<>(changes.size() * 2 + 1);
+            List<String> deletes = new ArrayList<>();
+            args.add(null);
+            for (Map.Entry<String, String> entry : changes.entrySet()) {
+                if (entry.getValue() != null) {
+                    args.add(entry.getKey());
+                    args.add(entry.getValue());
+                } else {
+                    deletes.add(entry.getKey());
+                }
+            }
+            args.set(0, String.valueOf((args.size() - 1) / 2));
+            args.addAll(deletes);
+            time("hmset", key, changes, () -> RedisScripts.HASH_CHANGES.eval(jedisCluster,
+                    Collections.singletonList(key), args));
+            tracked.markClean();
+            return (long) changes.size();
+        } catch (Exception e) {
+            logError(e);
+            return null;
+        } finally {
+            invalidate(key);
+        }
+    }
+
     /**
      * 向一张hash表中放入数据,如果不存在将创建
      *
@@ -258,7 +914,31 @@ public class RedisClusterUtil {
      * @return true 成功 false失败
      */
     public Long hset(String key, String item, String value) {
-        return jedisCluster.hset(key, item, value);
+        try {
+            return time("hset", key, value, () -> autoPipelined(key, pipeline -> pipeline.hset(key, item, value),
+                    () -> jedisCluster.hset(key, item, value)));
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * 按编解码器序列化对象后放入hash表。
+     *
+     * @param key   键；
+     * @param item  项；
+     * @param value 对象；
+     * @param codec 编解码器；
+     * @return 新建项返回1，覆盖返回0
+     */
+    public <T> Long hset(String key, String item, T value, RedisCodec<T> codec) {
+        try {
+            byte[] bytes = compress(codec.encode(value));
+            return time("hset", key, bytes,
+                    () -> jedisCluster.hset(SafeEncoder.encode(key), SafeEncoder.encode(item), bytes));
+        } finally {
+            invalidate(key);
+        }
     }
 
     /**
@@ -271,14 +951,28 @@ public class RedisClusterUtil {
      * @return true 成功 false失败
      */
     public Long hset(String key, String item, String value, int timeout) {
+        return hset(key, item, value, ttl(timeout));
+    }
+
+    /**
+     * 向一张hash表中放入数据并设置过期时间，一次网络往返并且是原子操作。
+     *
+     * @param key     键；
+     * @param item    项
+     * @param value   值；
+     * @param options 写入选项，只支持过期时间；
+     * @return
+     */
+    public Long hset(String key, String item, String value, WriteOptions options) {
         Long result = null;
         try {
-            result = jedisCluster.hset(key, item, value);
-            if (timeout > 0) {
-                expire(key, timeout);
-            }
+            result = (Long) writeWithTtl(key, "HSET", options, 2, args -> {
+                args.add(item);
+                args.add(value);
+            }, () -> jedisCluster.hset(key, item, value));
+            invalidate(key);
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
         }
         return result;
     }
@@ -290,7 +984,8 @@ public class RedisClusterUtil {
      * @param item 项 可以使多个,不能为null
      */
     public void hdel(String key, String... item) {
-        jedisCluster.hdel(key, item);
+        time("hdel", key, () -> jedisCluster.hdel(key, item));
+        invalidate(key);
     }
 
     /**
@@ -301,7 +996,8 @@ public class RedisClusterUtil {
      * @return true 存在 false不存在
      */
     public boolean hHasKey(String key, String item) {
-        return jedisCluster.hexists(key, item);
+        return time("hexists", key, () -> read(key, jedis -> jedis.hexists(key, item),
+                () -> jedisCluster.hexists(key, item)));
     }
 
     /**
@@ -316,7 +1012,11 @@ public class RedisClusterUtil {
         if (by == null || by <= 0) {
             throw new IllegalArgumentException("The parameter 'by' must be greater than 0.");
         }
-        return jedisCluster.hincrBy(key, item, by);
+        try {
+            return time("hincrby", key, () -> jedisCluster.hincrBy(key, item, by));
+        } finally {
+            invalidate(key);
+        }
     }
 
     /**
@@ -331,7 +1031,11 @@ public class RedisClusterUtil {
         if (by == null || by <= 0) {
             throw new IllegalArgumentException("The parameter 'by' must be greater than 0.");
         }
-        return jedisCluster.hincrBy(key, item, -by);
+        try {
+            return time("hincrby", key, () -> jedisCluster.hincrBy(key, item, -by));
+        } finally {
+            invalidate(key);
+        }
     }
 
     /**
@@ -343,9 +1047,9 @@ public class RedisClusterUtil {
      */
     public Long sSet(String key, Map<String, Double> scoreMembers) {
         try {
-            return jedisCluster.zadd(key, scoreMembers);
+            return time("zadd", key, scoreMembers.keySet(), () -> jedisCluster.zadd(key, scoreMembers));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return 0L;
         }
     }
@@ -360,9 +1064,9 @@ public class RedisClusterUtil {
      */
     public Long sSet(String key, Double score, String member) {
         try {
-            return jedisCluster.zadd(key, score, member);
+            return time("zadd", key, member, () -> jedisCluster.zadd(key, score, member));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return 0L;
         }
     }
@@ -376,14 +1080,27 @@ public class RedisClusterUtil {
      * @return 成功个数
      */
     public Long sSetAndTime(String key, Map<String, Double> scoreMembers, Integer timeout) {
+        return sSet(key, scoreMembers, ttl(timeout));
+    }
+
+    /**
+     * 将set数据放入缓存并设置过期时间，一次网络往返并且是原子操作。
+     *
+     * @param key          键；
+     * @param scoreMembers 值，可以是多个
+     * @param options      写入选项，只支持过期时间；
+     * @return 成功个数
+     */
+    public Long sSet(String key, Map<String, Double> scoreMembers, WriteOptions options) {
         try {
-            Long count = jedisCluster.zadd(key, scoreMembers);
-            if (timeout > 0) {
-                expire(key, timeout);
-            }
-            return count;
+            return (Long) writeWithTtl(key, "ZADD", options, scoreMembers.size() * 2, args -> {
+                for (Map.Entry<String, Double> entry : scoreMembers.entrySet()) {
+                    args.add(String.valueOf(entry.getValue()));
+                    args.add(entry.getKey());
+                }
+            }, () -> jedisCluster.zadd(key, scoreMembers));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return 0L;
         }
     }
@@ -397,13 +1114,59 @@ public class RedisClusterUtil {
      */
     public Long setRemove(String key, String... values) {
         try {
-            Long count = jedisCluster.zrem(key, values);
+            Long count = time("zrem", key, () -> jedisCluster.zrem(key, values));
             return count;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return 0L;
         }
     }
+
+    /**
+     * 分批读取有序集合的所有成员和分数（ZSCAN），内存中最多保留一批，返回顺序不按分数排序。
+     *
+     * @param key       键；
+     * @param chunkSize 每批的COUNT参数；
+     * @return 读取失败时抛出JedisException
+     */
+    public Stream<Tuple> zScan(String key, int chunkSize) {
+        return zScanIterator(key, chunkSize).stream();
+    }
+
+    /**
+     * 分批读取有序集合的所有成员和分数（ZSCAN），返回迭代器。
+     *
+     * @param key       键；
+     * @param chunkSize 每批的COUNT参数；
+     * @return
+     */
+    public ChunkedIterator<Tuple> zScanIterator(String key, int chunkSize) {
+        return ChunkedIterator.cursor((cursor, params) ->
+                time("zscan", key, () -> jedisCluster.zscan(key, cursor, params)), chunkSize);
+    }
+
+    /**
+     * 分批读取集合（SET）的所有成员（SSCAN），内存中最多保留一批。
+     *
+     * @param key       键；
+     * @param chunkSize 每批的COUNT参数；
+     * @return 读取失败时抛出JedisException
+     */
+    public Stream<String> sScan(String key, int chunkSize) {
+        return sScanIterator(key, chunkSize).stream();
+    }
+
+    /**
+     * 分批读取集合（SET）的所有成员（SSCAN），返回迭代器。
+     *
+     * @param key       键；
+     * @param chunkSize 每批的COUNT参数；
+     * @return
+     */
+    public ChunkedIterator<String> sScanIterator(String key, int chunkSize) {
+        return ChunkedIterator.cursor((cursor, params) ->
+                time("sscan", key, () -> jedisCluster.sscan(key, cursor, params)), chunkSize);
+    }
     // ===============================list=================================
 
     /**
@@ -416,13 +1179,38 @@ public class RedisClusterUtil {
      */
     public List<String> lGet(String key, Long start, Long end) {
         try {
-            return jedisCluster.lrange(key, start, end);
+            return time("lrange", key, () -> read(key, jedis -> jedis.lrange(key, start, end),
+                    () -> jedisCluster.lrange(key, start, end)));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return null;
         }
     }
 
+    /**
+     * 按窗口分批读取list的所有元素（LRANGE），内存中最多保留一批，代替lGet(key, 0, -1)。
+     * 读取期间在list头部插入/删除元素会导致元素重复或遗漏。
+     *
+     * @param key       键；
+     * @param chunkSize 每批元素个数；
+     * @return 读取失败时抛出JedisException
+     */
+    public Stream<String> lScan(String key, int chunkSize) {
+        return lScanIterator(key, chunkSize).stream();
+    }
+
+    /**
+     * 按窗口分批读取list的所有元素（LRANGE），返回迭代器。
+     *
+     * @param key       键；
+     * @param chunkSize 每批元素个数；
+     * @return
+     */
+    public ChunkedIterator<String> lScanIterator(String key, int chunkSize) {
+        return ChunkedIterator.range((start, end) ->
+                time("lrange", key, () -> jedisCluster.lrange(key, start, end)), chunkSize);
+    }
+
     /**
      * 获取list缓存的长度
      *
@@ -431,9 +1219,10 @@ public class RedisClusterUtil {
      */
     public Long lGetListSize(String key) {
         try {
-            return jedisCluster.llen(key);
+            return time("llen", key, () -> read(key, jedis -> jedis.llen(key),
+                    () -> jedisCluster.llen(key)));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return 0L;
         }
     }
@@ -447,9 +1236,10 @@ public class RedisClusterUtil {
      */
     public Object lGetIndex(String key, Long index) {
         try {
-            return jedisCluster.lindex(key, index);
+            return time("lindex", key, () -> read(key, jedis -> jedis.lindex(key, index),
+                    () -> jedisCluster.lindex(key, index)));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return null;
         }
     }
@@ -463,10 +1253,10 @@ public class RedisClusterUtil {
      */
     public boolean rPush(String key, String... value) {
         try {
-            jedisCluster.rpush(key, value);
+            time("rpush", key, value, () -> jedisCluster.rpush(key, value));
             return true;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return false;
         }
     }
@@ -480,14 +1270,24 @@ public class RedisClusterUtil {
      * @return
      */
     public boolean rPush(Integer timeout, String key, String... value) {
+        return rPush(ttl(timeout), key, value);
+    }
+
+    /**
+     * 将list放入缓存并设置过期时间，一次网络往返并且是原子操作。
+     *
+     * @param options 写入选项，只支持过期时间；
+     * @param key     键；
+     * @param value   值；
+     * @return
+     */
+    public boolean rPush(WriteOptions options, String key, String... value) {
         try {
-            jedisCluster.rpush(key, value);
-            if (timeout > 0) {
-                expire(key, timeout);
-            }
+            writeWithTtl(key, "RPUSH", options, value.length, args -> Collections.addAll(args, value),
+                    () -> jedisCluster.rpush(key, value));
             return true;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return false;
         }
     }
@@ -501,10 +1301,10 @@ public class RedisClusterUtil {
      */
     public boolean lPush(String key, String... value) {
         try {
-            jedisCluster.lpush(key, value);
+            time("lpush", key, value, () -> jedisCluster.lpush(key, value));
             return true;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return false;
         }
     }
@@ -518,14 +1318,24 @@ public class RedisClusterUtil {
      * @return
      */
     public boolean lPush(Integer timeout, String key, String... value) {
+        return lPush(ttl(timeout), key, value);
+    }
+
+    /**
+     * 将list放入缓存并设置过期时间，一次网络往返并且是原子操作。
+     *
+     * @param options 写入选项，只支持过期时间；
+     * @param key     键；
+     * @param value   值；
+     * @return
+     */
+    public boolean lPush(WriteOptions options, String key, String... value) {
         try {
-            jedisCluster.lpush(key, value);
-            if (timeout > 0) {
-                expire(key, timeout);
-            }
+            writeWithTtl(key, "LPUSH", options, value.length, args -> Collections.addAll(args, value),
+                    () -> jedisCluster.lpush(key, value));
             return true;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return false;
         }
     }
@@ -540,10 +1350,10 @@ public class RedisClusterUtil {
      */
     public boolean lUpdateIndex(String key, Long index, String value) {
         try {
-            jedisCluster.lset(key, index, value);
+            time("lset", key, value, () -> jedisCluster.lset(key, index, value));
             return true;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return false;
         }
     }
@@ -558,10 +1368,10 @@ public class RedisClusterUtil {
      */
     public Long lRemove(String key, Long count, String value) {
         try {
-            Long remove = jedisCluster.lrem(key, count, value);
+            Long remove = time("lrem", key, () -> jedisCluster.lrem(key, count, value));
             return remove;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return 0L;
         }
     }
@@ -574,9 +1384,9 @@ public class RedisClusterUtil {
      */
     public String lPop(String key) {
         try {
-            return jedisCluster.lpop(key);
+            return time("lpop", key, () -> jedisCluster.lpop(key));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return null;
         }
     }
@@ -591,10 +1401,10 @@ public class RedisClusterUtil {
     public String lPop(String key, Integer timeout) {
         String result = null;
         try {
-            result = jedisCluster.lpop(key);
+            result = time("lpop", key, () -> jedisCluster.lpop(key));
             expire(key, timeout);
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
         }
         return result;
     }
@@ -607,9 +1417,9 @@ public class RedisClusterUtil {
      */
     public String rPop(String key) {
         try {
-            return jedisCluster.rpop(key);
+            return time("rpop", key, () -> jedisCluster.rpop(key));
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return null;
         }
     }
@@ -624,10 +1434,10 @@ public class RedisClusterUtil {
     public String rPop(String key, Integer timeout) {
         String result = null;
         try {
-            result = jedisCluster.rpop(key);
+            result = time("rpop", key, () -> jedisCluster.rpop(key));
             expire(key, timeout);
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
         }
         return result;
     }
@@ -641,10 +1451,10 @@ public class RedisClusterUtil {
      */
     public List<String> bLPop(Integer timeout, String... keys) {
         try {
-            List<String> list = jedisCluster.blpop(timeout, keys);
+            List<String> list = commandMetrics.time("blpop", () -> jedisCluster.blpop(timeout, keys));
             return list;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return null;
         }
     }
@@ -658,13 +1468,331 @@ public class RedisClusterUtil {
      */
     public List<String> bRPop(Integer timeout, String... keys) {
         try {
-            List<String> list = jedisCluster.brpop(timeout, keys);
+            List<String> list = commandMetrics.time("brpop", () -> jedisCluster.brpop(timeout, keys));
             return list;
         } catch (Exception e) {
-            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+            logError(e);
             return null;
         }
     }
 
-}
+    private static String[] toKeysValues(String[] keys, Map<String, String> keyValues) {
+        String[] keysValues = new String[keys.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keysValues[2 * i] = keys[i];
+            keysValues[2 * i + 1] = keyValues.get(keys[i]);
+        }
+        return keysValues;
+    }
 
+    private byte[][] toBinaryKeysValues(String[] keys, Map<String, String> keyValues) {
+        byte[][] keysValues = new byte[keys.length * 2][];
+        for (int i = 0; i < keys.length; i++) {
+            keysValues[2 * i] = SafeEncoder.encode(keys[i]);
+            keysValues[2 * i + 1] = compress(SafeEncoder.encode(keyValues.get(keys[i])));
+        }
+        return keysValues;
+    }
+
+    private static Long sum(List<ClusterMultiKeyExecutor.SlotGroup<Long>> groups) {
+        long count = 0;
+        for (ClusterMultiKeyExecutor.SlotGroup<Long> group : groups) {
+            count += group.getResult();
+        }
+        return count;
+    }
+
+    /**
+     * 写入集合并设置过期时间：没有过期时间时直接执行写命令；有过期时间时通过脚本一次往返完成；
+     * 参数过多（超过Lua unpack限制）时退化为写命令 + PEXPIRE两次往返。
+     */
+    private Object writeWithTtl(String key, String command, WriteOptions options, int argCount,
+                                Consumer<List<String>> argsWriter, Supplier<Object> plainWrite) {
+        options.checkCollectionWrite();
+        if (options.getExpireMillis() <= 0) {
+            return time(command, key, plainWrite);
+        }
+        if (argCount > RedisScripts.MAX_SCRIPT_ARGS) {
+            Object result = time(command, key, plainWrite);
+            timed("pexpire", key, () -> jedisCluster.pexpire(key, options.getExpireMillis()));
+            return result;
+        }
+        List<String> args = RedisScripts.writeWithTtlArgs(command, options, argCount);
+        argsWriter.accept(args);
+        return time(command, key,
+                () -> RedisScripts.WRITE_WITH_TTL.eval(jedisCluster, Collections.singletonList(key), args));
+    }
+
+    /**
+     * 读取hash并转换为对象，key不存在返回null，异常原样抛出。
+     */
+    private <T> T readHash(String key, HashMapper<T> mapper, String... fields) {
+        if (fields == null || fields.length == 0) {
+            return mapper.fromHash(hgetAll(key));
+        }
+        String[] names = mapper.checkFields(fields);
+        return mapper.fromHash(names, time("hmget", key, () -> jedisCluster.hmget(key, names)));
+    }
+
+    /**
+     * 按选项写入字符串，启用压缩时超过阈值的值压缩后按二进制写入。
+     */
+    private String write(String key, String value, WriteOptions options) {
+        if (valueCompressor != null && options.isClusterBinaryWritable()) {
+            byte[] binaryKey = SafeEncoder.encode(key);
+            byte[] bytes = valueCompressor.compress(SafeEncoder.encode(value));
+            if (options == WriteOptions.none()) {
+                return time("set", key, bytes, () -> autoPipelined(key, pipeline -> pipeline.set(binaryKey, bytes),
+                        () -> jedisCluster.set(binaryKey, bytes)));
+            }
+            return time("set", key, bytes, () -> options.set(jedisCluster, binaryKey, bytes));
+        }
+        if (options == WriteOptions.none()) {
+            return time("set", key, value, () -> autoPipelined(key, pipeline -> pipeline.set(key, value),
+                    () -> jedisCluster.set(key, value)));
+        }
+        return time("set", key, value, () -> options.set(jedisCluster, key, value));
+    }
+
+    /**
+     * 启用自动pipeline时，单key命令通过key所在主节点的自动pipeline执行，与其他线程的命令合并发送；
+     * 没有slot缓存、没有借到节点连接或slot已迁移（MOVED/ASK）时通过JedisCluster执行（JedisCluster处理重定向和重试）。
+     * 这几种情况命令都没有在节点上执行；连接在发送或读取回复时断开的，命令可能已经执行，不能重新执行（incrBy、hset等不是幂等的），
+     * 异常直接抛给调用方。
+     */
+    private <T> T autoPipelined(String key, Function<Pipeline, Response<T>> command, Supplier<T> direct) {
+        if (autoPipelining == null) {
+            return direct.get();
+        }
+        JedisPool pool = multiKeyExecutor.getRouter().getCachedSlotPool(ClusterSlotRouter.getSlot(key));
+        if (pool == null || pool.isClosed()) {
+            // 拓扑刷新移除的节点，不再为它创建自动pipeline
+            return direct.get();
+        }
+        try {
+            return autoPipelines.computeIfAbsent(pool, this::newAutoPipeline)
+                    .execute(pipeline -> command.apply(pipeline)::get);
+        } catch (JedisRedirectionException | BatchNotSentException e) {
+            return direct.get();
+        }
+    }
+
+    /**
+     * 单key命令：热点key采样之后执行并记录耗时。
+     */
+    private <R> R time(String command, String key, Supplier<R> body) {
+        return time(command, key, null, body);
+    }
+
+    /**
+     * 单key写命令：热点key采样之后执行并记录耗时，大key检测统计写入值和返回值的大小。
+     * @param request 写入的值，读命令为null
+     */
+    private <R> R time(String command, String key, Object request, Supplier<R> body) {
+        if (hotKeyDetector != null && hotKeyDetector.shouldSample()) {
+            hotKeyDetector.record(command, key, nodeOf(key));
+        }
+        R reply = timed(command, key, body);
+        return bigKeyDetector == null ? reply : bigKeyDetector.record(command, key, request, reply);
+    }
+
+    /**
+     * 执行并记录耗时，启用慢命令日志时同时记录。连接由JedisCluster在内部获取，等待连接的时间计入I/O时间。
+     * 启用熔断时经过key所在主节点的熔断器，已熔断时抛出CallNotPermittedException，计入失败的命令。
+     * @param key 命令的key，多key命令为第一个key
+     */
+    private <R> R timed(String command, String key, Supplier<R> body) {
+        if (circuitBreakers != null) {
+            String node = nodeOf(key);
+            Supplier<R> unguarded = body;
+            body = () -> circuitBreakers.execute(node, unguarded);
+        }
+        if (slowCommandLog == null) {
+            return commandMetrics.time(command, body);
+        }
+        long start = System.nanoTime();
+        try {
+            return commandMetrics.time(command, body);
+        } finally {
+            slowCommandLog.record(command, key, -1, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 多key命令：每个key单独采样。
+     */
+    private void sampleAll(String command, String... keys) {
+        if (hotKeyDetector != null) {
+            for (String key : keys) {
+                if (hotKeyDetector.shouldSample()) {
+                    hotKeyDetector.record(command, key, nodeOf(key));
+                }
+            }
+        }
+    }
+
+    /**
+     * key所在slot的主节点名称（host:port），热点key采样和熔断使用。
+     * @return 没有slot缓存时为null
+     */
+    private String nodeOf(String key) {
+        JedisPool pool = multiKeyExecutor.getRouter().getCachedSlotPool(ClusterSlotRouter.getSlot(key));
+        if (pool == null) {
+            return null;
+        }
+        String name = nodeNames.get(pool);
+        return name != null ? name : nodeNames.computeIfAbsent(pool, this::findNodeName);
+    }
+
+    private String findNodeName(JedisPool pool) {
+        for (Map.Entry<String, JedisPool> node : multiKeyExecutor.getRouter().getNodes().entrySet()) {
+            if (node.getValue() == pool) {
+                return node.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 熔断时的调用每次都打印ERROR日志会在故障期间刷屏，只打印DEBUG日志。
+     */
+    private void logError(Exception e) {
+        if (e instanceof CallNotPermittedException) {
+            LOGGER.debug("[RedisClusterUtil]Redis operation rejected: {}", e.getMessage());
+        } else {
+            LOGGER.error("[RedisClusterUtil]Redis operating exception.", e);
+        }
+    }
+
+    /**
+     * 只读命令：配置了从节点读取（jedis.read.policy）时按策略路由到从节点，否则直接在主节点上执行。
+     */
+    private <T> T read(String key, Function<Jedis, T> replica, Supplier<T> master) {
+        return replicaReadRouter == null ? master.get() : replicaReadRouter.read(key, replica, master);
+    }
+
+    private AutoPipeline<Pipeline> newAutoPipeline(JedisPool pool) {
+        return new AutoPipeline<>(autoPipelining, commands -> {
+            Jedis resource;
+            try {
+                resource = pool.getResource();
+            } catch (RuntimeException e) {
+                throw new BatchNotSentException(e);
+            }
+            try (Jedis jedis = resource) {
+                Pipeline pipeline = jedis.pipelined();
+                commands.accept(pipeline);
+                pipeline.sync();
+            }
+        });
+    }
+
+    /**
+     * 自动pipeline没有借到节点连接，这一批命令一条都没有发送，可以通过JedisCluster重新执行。
+     */
+    private static final class BatchNotSentException extends JedisConnectionException {
+
+        private static final long serialVersionUID = 1L;
+
+        BatchNotSentException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * 标记读取由从节点执行。从节点的复制可能落后于主节点，读到的旧值对应的失效通知可能已经发出，
+     * 放入本地缓存后会一直保留到过期，所以从节点读取的值不放入本地缓存。
+     */
+    private static <T> Function<Jedis, T> onReplica(AtomicBoolean replicaRead, Function<Jedis, T> command) {
+        return jedis -> {
+            replicaRead.set(true);
+            return command.apply(jedis);
+        };
+    }
+
+    /**
+     * 从redis读取，从主节点读取到的值放入本地缓存。
+     */
+    private String getFromRedis(String key) {
+        long stamp = nearCache != null ? nearCache.stamp(key) : 0L;
+        AtomicBoolean replicaRead = new AtomicBoolean();
+        String result;
+        if (valueCompressor != null) {
+            byte[] binaryKey = SafeEncoder.encode(key);
+            result = valueCompressor.decompressToString(time("get", key, () -> read(key,
+                    onReplica(replicaRead, jedis -> jedis.get(binaryKey)),
+                    () -> autoPipelined(key, pipeline -> pipeline.get(binaryKey), () -> jedisCluster.get(binaryKey)))));
+        } else {
+            result = time("get", key, () -> read(key, onReplica(replicaRead, jedis -> jedis.get(key)),
+                    () -> autoPipelined(key, pipeline -> pipeline.get(key), () -> jedisCluster.get(key))));
+        }
+        if (result != null && nearCache != null && !replicaRead.get()) {
+            nearCache.put(key, result, stamp);
+        }
+        return result;
+    }
+
+    private Map<String, String> hgetAllFromRedis(String key) {
+        long stamp = nearCache != null ? nearCache.stamp(key) : 0L;
+        AtomicBoolean replicaRead = new AtomicBoolean();
+        Map<String, String> result = time("hgetall", key, () -> read(key,
+                onReplica(replicaRead, jedis -> jedis.hgetAll(key)), () -> jedisCluster.hgetAll(key)));
+        if (result != null && !result.isEmpty() && nearCache != null && !replicaRead.get()) {
+            nearCache.put(key, new HashMap<>(result), stamp);
+        }
+        return result;
+    }
+
+    private String load(String key, Supplier<String> loader, WriteOptions options) {
+        String value = get(key);
+        if (value == null) {
+            value = loader.get();
+            if (value != null) {
+                set(key, value, options);
+            }
+        }
+        return value;
+    }
+
+    private Map<String, String> hload(String key, Supplier<Map<String, String>> loader, WriteOptions options) {
+        Map<String, String> value = hgetAll(key);
+        if (value == null || value.isEmpty()) {
+            value = loader.get();
+            if (value != null && !value.isEmpty()) {
+                hmset(key, value, options);
+            }
+        }
+        return value;
+    }
+
+    private static Map<String, String> copy(Map<String, String> map) {
+        return map == null ? null : new HashMap<>(map);
+    }
+
+    private byte[] compress(byte[] value) {
+        return valueCompressor == null ? value : valueCompressor.compress(value);
+    }
+
+    private byte[] decompress(byte[] value) {
+        return valueCompressor == null ? value : valueCompressor.decompress(value);
+    }
+
+    /**
+     * 过期时间(秒)转换为写入选项，timeout为null或小于等于0时不设置过期时间。
+     */
+    private static WriteOptions ttl(Number timeout) {
+        return timeout != null && timeout.longValue() > 0 ? WriteOptions.ex(timeout.longValue()) : WriteOptions.none();
+    }
+
+    /**
+     * 写操作之后失效本地缓存。
+     */
+    private void invalidate(String... keys) {
+        if (nearCache != null) {
+            for (String key : keys) {
+                nearCache.invalidate(key);
+            }
+        }
+    }
+
+}
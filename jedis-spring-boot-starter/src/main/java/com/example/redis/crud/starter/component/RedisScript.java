@@ -0,0 +1,79 @@
+package com.example.redis.crud.starter.component;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: RedisScript
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: Lua脚本，优先使用EVALSHA只发送脚本摘要，服务端没有缓存该脚本时（NOSCRIPT）再使用EVAL发送脚本内容。
+ * @date 2019/11/25 09:40
+ */
+public class RedisScript {
+
+    private final String script;
+    private final String sha1;
+
+    public RedisScript(String script) {
+        this.script = script;
+        this.sha1 = sha1Hex(script);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    /**
+     * 在单个节点上执行脚本。
+     * @param jedis
+     * @param keys
+     * @param args
+     * @return
+     */
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(script, keys, args);
+        }
+    }
+
+    /**
+     * 在集群上执行脚本，keys必须在同一个slot。
+     * @param jedisCluster
+     * @param keys
+     * @param args
+     * @return
+     */
+    public Object eval(JedisCluster jedisCluster, List<String> keys, List<String> args) {
+        try {
+            return jedisCluster.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedisCluster.eval(script, keys, args);
+        }
+    }
+
+    private static String sha1Hex(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not supported.", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.redis.crud.starter.component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: RedisScripts
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 工具类内部使用的Lua脚本。
+ * @date 2019/11/25 09:40
+ */
+final class RedisScripts {
+
+    /**
+     * 写入集合并设置过期时间，一次网络往返并且是原子操作。
+     * KEYS[1]：key；ARGV[1]：写命令（HMSET/HSET/RPUSH/LPUSH/ZADD）；ARGV[2]：过期时间(毫秒)，小于等于0不设置；
+     * ARGV[3...]：写命令的参数。
+     */
+    static final RedisScript WRITE_WITH_TTL = new RedisScript(
+            "local result = redis.call(ARGV[1], KEYS[1], unpack(ARGV, 3)) "
+                    + "local ttl = tonumber(ARGV[2]) "
+                    + "if ttl > 0 then redis.call('PEXPIRE', KEYS[1], ttl) end "
+                    + "return result");
+
+    /**
+     * SET并保留原有过期时间（Redis 6.0及以上版本）。
+     * KEYS[1]：key；ARGV[1]：value；ARGV[2]：NX/XX，空字符串表示不限制。
+     */
+    static final RedisScript SET_KEEP_TTL = new RedisScript(
+            "if ARGV[2] == '' then return redis.call('SET', KEYS[1], ARGV[1], 'KEEPTTL') end "
+                    + "return redis.call('SET', KEYS[1], ARGV[1], ARGV[2], 'KEEPTTL')");
+
+    /**
+     * 写入修改过的hash field并删除置为null的field，一次网络往返并且是原子操作。
+     * KEYS[1]：key；ARGV[1]：写入的field个数n；ARGV[2...2n+1]：field、值交替；ARGV[2n+2...]：删除的field。
+     */
+    static final RedisScript HASH_CHANGES = new RedisScript(
+            "local n = tonumber(ARGV[1]) "
+                    + "if n > 0 then redis.call('HMSET', KEYS[1], unpack(ARGV, 2, 2 * n + 1)) end "
+                    + "if #ARGV > 2 * n + 1 then redis.call('HDEL', KEYS[1], unpack(ARGV, 2 * n + 2)) end "
+                    + "return n");
+
+    /**
+     * unpack()受Lua栈大小限制，参数超过该值时不使用脚本。
+     */
+    static final int MAX_SCRIPT_ARGS = 7000;
+
+    private RedisScripts() {
+    }
+
+    /**
+     * WRITE_WITH_TTL脚本的参数。
+     */
+    static List<String> writeWithTtlArgs(String command, WriteOptions options, int size) {
+        List<String> args = new ArrayList<>(size + 2);
+        args.add(command);
+        args.add(String.valueOf(options.getExpireMillis()));
+        return args;
+    }
+}
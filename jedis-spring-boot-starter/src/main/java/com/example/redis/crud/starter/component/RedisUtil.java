@@ -1,7 +1,14 @@
 package com.example.redis.crud.starter.component;
 
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.scan.KeyScanIterator;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
 /**
  * @author jackie wang
  * @Title: RedisUtil
@@ -26,6 +33,17 @@ public interface RedisUtil {
      */
     public String get(String key);
 
+    /**
+     * 根据key查询，不存在时通过loader加载（如查询数据库）并按写入选项保存到缓存。
+     * 启用请求合并（jedis.single-flight.enabled=true）时，同一个key的并发调用只读取一次redis、只调用一次loader。
+     * 使用示例：get("user:1", () -> userService.loadJson(1L), WriteOptions.ex(600))
+     * @param key
+     * @param loader 加载器，返回null时不保存
+     * @param options 写入选项
+     * @return loader的异常原样抛出
+     */
+    public String get(String key, Supplier<String> loader, WriteOptions options);
+
     /**
      * 删除
      * @param key
@@ -42,14 +60,24 @@ public interface RedisUtil {
     public Long expire(String key, Integer timeout);
 
     /**
-     * 设置一个值，并设置过期时间
+     * 设置一个值，并设置过期时间，一次网络往返（SETEX）。
      * @param key
      * @param value
-     * @param timeout
-     * @return
+     * @param timeout 时间(秒)，小于等于0不设置过期时间
+     * @return 成功返回1
      */
     public Long set(String key, String value, Integer timeout);
 
+    /**
+     * 按写入选项设置一个值，一次网络往返。
+     * 使用示例：set(key, value, WriteOptions.ex(60).nx())
+     * @param key
+     * @param value
+     * @param options 写入选项，NX/XX/EX/PX/KEEPTTL
+     * @return "OK"，NX/XX条件不满足时返回null
+     */
+    public String set(String key, String value, WriteOptions options);
+
     /**
      * 值递增1
      * @param key
@@ -64,4 +92,94 @@ public interface RedisUtil {
      */
     public Boolean hasKey(String key);
 
+    /**
+     * 按编解码器序列化对象后保存到缓存。
+     * 使用示例：set("user:1", userVo, JacksonBinaryCodec.smile(UserVo.class))
+     * @param key
+     * @param value
+     * @param codec 编解码器
+     * @return
+     */
+    public <T> String set(String key, T value, RedisCodec<T> codec);
+
+    /**
+     * 根据key查询，并按编解码器反序列化。
+     * @param key
+     * @param codec 编解码器
+     * @return key不存在返回null
+     */
+    public <T> T get(String key, RedisCodec<T> codec);
+
+    /**
+     * 按编解码器序列化对象后按写入选项保存到缓存，一次网络往返。
+     * 使用示例：set("user:1", userVo, codec, WriteOptions.ex(60).nx())
+     * @param key
+     * @param value
+     * @param codec 编解码器
+     * @param options 写入选项，不支持KEEPTTL
+     * @return "OK"，NX/XX条件不满足时返回null
+     */
+    public <T> String set(String key, T value, RedisCodec<T> codec, WriteOptions options);
+
+    /**
+     * 批量查询，并按编解码器反序列化。key按分片分组，每个分片一条MGET，所有分片的命令先发送再统一读取回复。
+     * @param codec 编解码器
+     * @param keys
+     * @return 与keys顺序一致的对象，不存在的key对应null；执行失败返回null
+     */
+    public <T> List<T> mget(RedisCodec<T> codec, String... keys);
+
+    /**
+     * 按编解码器序列化对象后保存到hash。
+     * @param key
+     * @param field
+     * @param value
+     * @param codec 编解码器
+     * @return
+     */
+    public <T> Long hset(String key, String field, T value, RedisCodec<T> codec);
+
+    /**
+     * 获取hash中的值，并按编解码器反序列化。
+     * @param key
+     * @param field
+     * @param codec 编解码器
+     * @return 不存在返回null
+     */
+    public <T> T hget(String key, String field, RedisCodec<T> codec);
+
+    /**
+     * 批量执行命令（pipeline），回调中排队的命令按分片分组，每个分片一次网络往返。
+     * 使用示例：
+     * List<BatchResult<?>> results = redisUtil.pipelined(batch -> {
+     *     batch.set("k1", "v1");
+     *     batch.incr("counter");
+     * });
+     * 单条命令失败不影响其他命令，通过BatchResult.getError()获取失败原因。
+     * @param batch 批量命令回调
+     * @return 按调用顺序排列的结果，获取连接失败返回null
+     */
+    public List<BatchResult<?>> pipelined(Consumer<RedisBatch> batch);
+
+    /**
+     * 流式扫描所有分片中匹配的key（SCAN），多个分片并行扫描，按需读取，缓冲区有界。
+     * 同一个key可能返回多次，使用完必须关闭Stream。
+     * 使用示例：
+     * try (Stream<String> keys = redisUtil.scan("user:*", 500)) {
+     *     keys.forEach(key -> ...);
+     * }
+     * @param pattern 匹配模式，为空时匹配所有key
+     * @param count 每次SCAN的COUNT参数
+     * @return 创建失败返回null，扫描失败时读取Stream抛出JedisException
+     */
+    public Stream<String> scan(String pattern, int count);
+
+    /**
+     * 流式扫描所有分片中匹配的key，返回迭代器，使用完必须close()。
+     * @param pattern 匹配模式，为空时匹配所有key
+     * @param count 每次SCAN的COUNT参数
+     * @return 创建失败返回null
+     */
+    public KeyScanIterator scanIterator(String pattern, int count);
+
 }
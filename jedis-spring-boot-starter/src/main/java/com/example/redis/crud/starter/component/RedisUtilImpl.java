@@ -1,13 +1,46 @@
 package com.example.redis.crud.starter.component;
 
+import com.example.redis.crud.starter.bigkey.BigKeyDetector;
+import com.example.redis.crud.starter.breaker.CallNotPermittedException;
+import com.example.redis.crud.starter.breaker.CircuitBreaker;
+import com.example.redis.crud.starter.breaker.CircuitBreakers;
+import com.example.redis.crud.starter.cache.NearCache;
+import com.example.redis.crud.starter.cache.SingleFlight;
+import com.example.redis.crud.starter.cache.SingleFlightWaitException;
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.compress.ValueCompressor;
+import com.example.redis.crud.starter.hotkey.HotKeyDetector;
+import com.example.redis.crud.starter.metrics.RedisCommandMetrics;
+import com.example.redis.crud.starter.pool.PooledShardedJedisPool;
+import com.example.redis.crud.starter.slowlog.SlowCommandLog;
+import com.example.redis.crud.starter.scan.KeyScanIterator;
+import com.example.redis.crud.starter.scan.ShardedKeyScanIterator;
+import com.example.redis.crud.starter.sentinel.SentinelShardedJedisPool;
+import com.example.redis.crud.starter.shard.ConsistentHashShardedJedisPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.ShardedJedis;
 import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.util.SafeEncoder;
+import redis.clients.util.Sharded;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 
 /**
@@ -18,11 +51,67 @@ import java.util.function.Function;
  * @date 2019/11/6 14:30
  */
 @Component
-public class RedisUtilImpl implements RedisUtil {
+public class RedisUtilImpl implements RedisUtil, InitializingBean {
     private Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    /** 最多并行扫描的分片数 */
+    private static final int MAX_SCAN_PARALLELISM = 16;
+
     @Autowired
     private ShardedJedisPool shardedJedisPool;
 
+    /** 本地缓存，jedis.near-cache.enabled=true时注入 */
+    @Autowired(required = false)
+    private NearCache nearCache;
+
+    /** 值压缩，jedis.compression.enabled=true时注入 */
+    @Autowired(required = false)
+    private ValueCompressor valueCompressor;
+
+    /** 请求合并，jedis.single-flight.enabled=true时注入 */
+    @Autowired(required = false)
+    private SingleFlight singleFlight;
+
+    /** 命令耗时监控，classpath中有micrometer时注入 */
+    @Autowired(required = false)
+    private RedisCommandMetrics commandMetrics = RedisCommandMetrics.NONE;
+
+    /** 自动pipeline，jedis.auto-pipeline.enabled=true时注入 */
+    @Autowired(required = false)
+    private AutoPipelining autoPipelining;
+
+    /** 热点key检测，jedis.hot-keys.enabled=true时注入 */
+    @Autowired(required = false)
+    private HotKeyDetector hotKeyDetector;
+
+    /** 大key检测，jedis.big-keys.enabled=true时注入 */
+    @Autowired(required = false)
+    private BigKeyDetector bigKeyDetector;
+
+    /** 客户端慢命令日志，jedis.slow-log.enabled=true时注入 */
+    @Autowired(required = false)
+    private SlowCommandLog slowCommandLog;
+
+    /** 按节点熔断，jedis.circuit-breaker.enabled=true时注入 */
+    @Autowired(required = false)
+    private CircuitBreakers circuitBreakers;
+
+    /** 按key定位该分片的自动pipeline，每个分片一个，慢的分片不影响其他分片的命令；哨兵模式只有一个分片 */
+    private Function<String, AutoPipeline<RedisBatch>> autoPipelines;
+
+    /** 按key定位分片所在的节点（host:port，与ShardedJedisPool的分片算法一致），热点key采样和熔断使用 */
+    private Function<String, String> nodes;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (hotKeyDetector != null || circuitBreakers != null) {
+            nodes = nodeResolver();
+        }
+        if (autoPipelining != null) {
+            autoPipelines = autoPipelineResolver();
+        }
+    }
+
     /**
      * 通用操作方法1：统一处理获取资源，归还资源。（打开链接，关闭链接）
      * @param bizContent 业务描述信息；
@@ -30,18 +119,51 @@ public class RedisUtilImpl implements RedisUtil {
      * @return
      */
     public <R> R execute(String bizContent, Function<ShardedJedis, R> function) {
+        return execute(bizContent, null, function);
+    }
+
+    /**
+     * 通用操作方法1，同时记录命令的key（慢命令日志使用）。
+     * @param bizContent 业务描述信息；
+     * @param key 命令的key，没有时为null
+     * @param function 函数式接口Function<T, R>
+     * @return
+     */
+    private <R> R execute(String bizContent, String key, Function<ShardedJedis, R> function) {
         ShardedJedis shardedJedis = null;
+        CircuitBreaker.Permit permit = null;
+        Exception error = null;
+        long start = System.nanoTime();
+        long borrowed = start;
+        boolean success = false;
 
         try{
-            // 1.从连接池中获取jedis分片对象shardedJedis
+            // 1.key所在节点已熔断或并发调用数已满时直接失败
+            permit = acquire(key);
+            // 从连接池中获取jedis分片对象shardedJedis
             shardedJedis = shardedJedisPool.getResource();
+            borrowed = System.nanoTime();
 
             // 执行业务逻辑
             // 2.shardedJedis执行操作，并返回执行结果
-            return function.apply(shardedJedis);
+            R result = function.apply(shardedJedis);
+            success = true;
+            return result;
+        } catch (CallNotPermittedException e) {
+            rejected(bizContent, e);
         } catch (Exception e) {
+            error = e;
             LOGGER.error("[RedisUtilImpl]Operation redis {} method exception.", bizContent,e);
         } finally {
+            // 3.记录耗时（包括从连接池获取连接的时间）
+            long end = System.nanoTime();
+            commandMetrics.record(bizContent, end - start, success);
+            if (permit != null) {
+                permit.onComplete(end - start, error);
+            }
+            if (slowCommandLog != null) {
+                slowCommandLog.record(bizContent, key, (shardedJedis == null ? end : borrowed) - start, end - start);
+            }
             // 4.归还资源
             if(null != shardedJedis) {
                 shardedJedis.close();
@@ -57,16 +179,53 @@ public class RedisUtilImpl implements RedisUtil {
      * @return
      */
     public <R> R myExecute(MyFunction<ShardedJedis, R> function) {
+        return myExecute("myExecute", function);
+    }
+
+    /**
+     * 通用操作方法2：统一处理获取资源，归还资源。（打开链接，关闭链接）
+     * @param bizContent 业务描述信息，同时作为监控的命令名称，使用字符串常量；
+     * @param function 函数式接口Function<T, R>，第一个参数T为入参，可以根据入参执行业务操作，第二个参数R为出参；
+     * @return
+     */
+    public <R> R myExecute(String bizContent, MyFunction<ShardedJedis, R> function) {
+        return myExecute(bizContent, null, function);
+    }
+
+    /**
+     * 通用操作方法2，同时记录命令的key（慢命令日志使用）。
+     */
+    private <R> R myExecute(String bizContent, String key, MyFunction<ShardedJedis, R> function) {
         ShardedJedis shardedJedis = null;
+        CircuitBreaker.Permit permit = null;
+        Exception error = null;
+        long start = System.nanoTime();
+        long borrowed = start;
+        boolean success = false;
 
         try{
+            permit = acquire(key);
             // 从连接池中获取jedis分片对象
             shardedJedis = shardedJedisPool.getResource();
+            borrowed = System.nanoTime();
 
-            return function.callback(shardedJedis);
+            R result = function.callback(shardedJedis);
+            success = true;
+            return result;
+        } catch (CallNotPermittedException e) {
+            rejected(bizContent, e);
         } catch (Exception e) {
+            error = e;
             LOGGER.error("[RedisUtilImpl]Redis operating exception.", e);
         } finally {
+            long end = System.nanoTime();
+            commandMetrics.record(bizContent, end - start, success);
+            if (permit != null) {
+                permit.onComplete(end - start, error);
+            }
+            if (slowCommandLog != null) {
+                slowCommandLog.record(bizContent, key, (shardedJedis == null ? end : borrowed) - start, end - start);
+            }
             if(null != shardedJedis) {
                 shardedJedis.close();
             }
@@ -77,64 +236,475 @@ public class RedisUtilImpl implements RedisUtil {
 
     @Override
     public String set(String key, String value) {
+        sample("set", key);
         // 3.shardedJedis执行操作
-        String returnValue = execute("set(String key, String value)", fun ->{
-            return fun.set(key, value);
+        if (autoPipelines != null) {
+            String returnValue = autoPipelined("set(String key, String value)", key, batch -> batch.set(key, value));
+            invalidate(key);
+            return measure("set", key, value, returnValue);
+        }
+        String returnValue = execute("set(String key, String value)", key, fun ->{
+            return write(fun, key, value, WriteOptions.none());
 //            throw new RuntimeException("异常测试");
         });
+        invalidate(key);
 
-        return returnValue;
+        return measure("set", key, value, returnValue);
     }
 
     @Override
     public String get(String key) {
+        if (nearCache != null) {
+            Object cached = nearCache.get(key);
+            if (cached instanceof String) {
+                return (String) cached;
+            }
+        }
+        return singleFlight != null ? shared("get(String key)", "get:" + key, () -> getAndCache(key))
+                : getAndCache(key);
+    }
+
+    @Override
+    public String get(String key, Supplier<String> loader, WriteOptions options) {
+        return singleFlight != null
+                ? shared("get(String key, Supplier<String> loader, WriteOptions options)", "load:" + key,
+                        () -> load(key, loader, options))
+                : load(key, loader, options);
+    }
+
+    /**
+     * 通过请求合并执行。等待其他线程的调用超时或被中断（SingleFlight已恢复中断标志）时，
+     * 与命令执行失败一样打印日志并返回null。
+     * @param bizContent 业务描述信息
+     * @param flightKey 合并的key
+     * @return
+     */
+    private <R> R shared(String bizContent, String flightKey, Supplier<R> supplier) {
+        try {
+            return singleFlight.execute(flightKey, supplier);
+        } catch (SingleFlightWaitException e) {
+            LOGGER.error("[RedisUtilImpl]Operation redis {} method exception.", bizContent, e);
+            return null;
+        }
+    }
+
+    /**
+     * 从redis读取，读取到的值放入本地缓存。
+     */
+    private String getAndCache(String key) {
+        if (nearCache == null) {
+            return getFromRedis(key);
+        }
+        long stamp = nearCache.stamp(key);
+        String value = getFromRedis(key);
+        if (value != null) {
+            nearCache.put(key, value, stamp);
+        }
+        return value;
+    }
+
+    private String load(String key, Supplier<String> loader, WriteOptions options) {
+        String value = get(key);
+        if (value == null) {
+            value = loader.get();
+            if (value != null) {
+                set(key, value, options);
+            }
+        }
+        return value;
+    }
+
+    private String getFromRedis(String key) {
+        sample("get", key);
+        if (autoPipelines != null) {
+            return measure("get", key, null, autoPipelined("get(String key)", key, batch -> batch.get(key)));
+        }
         /** 通用操作方法1 */
 //        return execute("get(String key)", fun -> {
 //            return fun.get(key);
 //        });
 
         /** 通用操作方法2：需要实现MyFunction接口的callback方法 */
-        return myExecute(new MyFunction<ShardedJedis, String>() {
+        return measure("get", key, null, myExecute("get(String key)", key, new MyFunction<ShardedJedis, String>() {
             @Override
             public String callback(ShardedJedis shardedJedis) {
+                if (valueCompressor != null) {
+                    return valueCompressor.decompressToString(shardedJedis.get(SafeEncoder.encode(key)));
+                }
                 return shardedJedis.get(key);
             }
-        });
+        }));
     }
 
     @Override
     public Long del(String key) {
-        return execute("del(String key)", fun -> {
-            return fun.del(key);
-        });
+        sample("del", key);
+        Long result;
+        if (autoPipelines != null) {
+            result = autoPipelined("del(String key)", key, batch -> batch.del(key));
+        } else {
+            result = execute("del(String key)", key, fun -> {
+                return fun.del(key);
+            });
+        }
+        invalidate(key);
+        return result;
     }
 
     @Override
     public Long expire(String key, Integer timeout) {
-        return execute("expire(String key, Integer timeout)", fun -> {
+        sample("expire", key);
+        if (autoPipelines != null) {
+            return autoPipelined("expire(String key, Integer timeout)", key, batch -> batch.expire(key, timeout));
+        }
+        return execute("expire(String key, Integer timeout)", key, fun -> {
             return fun.expire(key, timeout);
         });
     }
 
     @Override
     public Long set(String key, String value, Integer timeout) {
-        return execute("set(String key, String value, Integer timeout)",  fun -> {
-            fun.set(key, value);
-            return fun.expire(key, timeout);
+        sample("set", key);
+        WriteOptions options = timeout != null && timeout > 0 ? WriteOptions.ex(timeout) : WriteOptions.none();
+        Long result = execute("set(String key, String value, Integer timeout)", key,  fun -> {
+            return "OK".equals(write(fun, key, value, options)) ? 1L : 0L;
         });
+        invalidate(key);
+        return measure("set", key, value, result);
     }
 
     @Override
-    public Long incr(String key) {
-        return execute("incr(String key)", fun -> {
-            return fun.incr(key);
+    public String set(String key, String value, WriteOptions options) {
+        sample("set", key);
+        String result = execute("set(String key, String value, WriteOptions options)", key, fun -> {
+            if (options.isKeepTtl()) {
+                return (String) RedisScripts.SET_KEEP_TTL.eval(fun.getShard(key), Collections.singletonList(key),
+                        Arrays.asList(options.keepTtlArgs(value)));
+            }
+            return write(fun, key, value, options);
         });
+        invalidate(key);
+        return measure("set", key, value, result);
+    }
+
+    @Override
+    public Long incr(String key) {
+        sample("incr", key);
+        Long result;
+        if (autoPipelines != null) {
+            result = autoPipelined("incr(String key)", key, batch -> batch.incr(key));
+        } else {
+            result = execute("incr(String key)", key, fun -> {
+                return fun.incr(key);
+            });
+        }
+        invalidate(key);
+        return result;
     }
 
     @Override
     public Boolean hasKey(String key) {
-        return execute("hasKey(String key)", fun -> {
+        sample("exists", key);
+        if (autoPipelines != null) {
+            return autoPipelined("hasKey(String key)", key, batch -> batch.exists(key));
+        }
+        return execute("hasKey(String key)", key, fun -> {
             return fun.exists(key);
         });
     }
+
+    @Override
+    public <T> String set(String key, T value, RedisCodec<T> codec) {
+        sample("set", key);
+        byte[] bytes = codec.encode(value);
+        String result = execute("set(String key, T value, RedisCodec<T> codec)", key, fun -> {
+            return fun.set(SafeEncoder.encode(key), compress(bytes));
+        });
+        invalidate(key);
+        return measure("set", key, bytes, result);
+    }
+
+    @Override
+    public <T> T get(String key, RedisCodec<T> codec) {
+        sample("get", key);
+        byte[] bytes = execute("get(String key, RedisCodec<T> codec)", key, fun -> {
+            return fun.get(SafeEncoder.encode(key));
+        });
+        measure("get", key, null, bytes);
+        return bytes == null ? null : codec.decode(decompress(bytes));
+    }
+
+    @Override
+    public <T> String set(String key, T value, RedisCodec<T> codec, WriteOptions options) {
+        if (!options.isBinaryWritable()) {
+            throw new IllegalArgumentException("Unsupported write options for binary values: " + options);
+        }
+        sample("set", key);
+        byte[] bytes = codec.encode(value);
+        String result = execute("set(String key, T value, RedisCodec<T> codec, WriteOptions options)", key, fun -> {
+            return options.set(fun, SafeEncoder.encode(key), compress(bytes));
+        });
+        invalidate(key);
+        return measure("set", key, bytes, result);
+    }
+
+    @Override
+    public <T> List<T> mget(RedisCodec<T> codec, String... keys) {
+        if (keys == null || keys.length == 0) {
+            return new ArrayList<>();
+        }
+        for (String key : keys) {
+            sample("mget", key);
+        }
+        List<byte[]> values = execute("mget(RedisCodec<T> codec, String... keys)", keys[0], fun -> {
+            // 按分片分组，key在keys中的下标
+            Map<Jedis, List<Integer>> shards = new IdentityHashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                shards.computeIfAbsent(fun.getShard(keys[i]), shard -> new ArrayList<>()).add(i);
+            }
+            List<Pipeline> pipelines = new ArrayList<>(shards.size());
+            List<Response<List<byte[]>>> responses = new ArrayList<>(shards.size());
+            for (Map.Entry<Jedis, List<Integer>> shard : shards.entrySet()) {
+                List<Integer> indexes = shard.getValue();
+                byte[][] shardKeys = new byte[indexes.size()][];
+                for (int i = 0; i < shardKeys.length; i++) {
+                    shardKeys[i] = SafeEncoder.encode(keys[indexes.get(i)]);
+                }
+                Pipeline pipeline = shard.getKey().pipelined();
+                pipelines.add(pipeline);
+                responses.add(pipeline.mget(shardKeys));
+            }
+            for (Pipeline pipeline : pipelines) {
+                pipeline.sync();
+            }
+
+            byte[][] result = new byte[keys.length][];
+            int shardIndex = 0;
+            for (List<Integer> indexes : shards.values()) {
+                List<byte[]> shardValues = responses.get(shardIndex++).get();
+                for (int i = 0; i < indexes.size(); i++) {
+                    result[indexes.get(i)] = shardValues.get(i);
+                }
+            }
+            return Arrays.asList(result);
+        });
+        if (values == null) {
+            return null;
+        }
+        List<T> decoded = new ArrayList<>(values.size());
+        for (byte[] bytes : values) {
+            decoded.add(bytes == null ? null : codec.decode(decompress(bytes)));
+        }
+        return decoded;
+    }
+
+    @Override
+    public <T> Long hset(String key, String field, T value, RedisCodec<T> codec) {
+        sample("hset", key);
+        byte[] bytes = codec.encode(value);
+        Long result = execute("hset(String key, String field, T value, RedisCodec<T> codec)", key, fun -> {
+            return fun.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), compress(bytes));
+        });
+        invalidate(key);
+        return measure("hset", key, bytes, result);
+    }
+
+    @Override
+    public <T> T hget(String key, String field, RedisCodec<T> codec) {
+        sample("hget", key);
+        byte[] bytes = execute("hget(String key, String field, RedisCodec<T> codec)", key, fun -> {
+            return fun.hget(SafeEncoder.encode(key), SafeEncoder.encode(field));
+        });
+        measure("hget", key, null, bytes);
+        return bytes == null ? null : codec.decode(decompress(bytes));
+    }
+
+    @Override
+    public List<BatchResult<?>> pipelined(Consumer<RedisBatch> batch) {
+        return execute("pipelined(Consumer<RedisBatch> batch)", fun -> {
+            ShardedRedisBatch shardedRedisBatch = new ShardedRedisBatch(fun, nearCache, valueCompressor);
+            try {
+                batch.accept(shardedRedisBatch);
+            } catch (RuntimeException e) {
+                // 回调异常时也要读取已发送命令的回复，否则连接归还后状态错乱
+                shardedRedisBatch.sync();
+                throw e;
+            }
+            return shardedRedisBatch.sync();
+        });
+    }
+
+    @Override
+    public Stream<String> scan(String pattern, int count) {
+        KeyScanIterator iterator = scanIterator(pattern, count);
+        return iterator == null ? null : iterator.stream();
+    }
+
+    @Override
+    public KeyScanIterator scanIterator(String pattern, int count) {
+        try {
+            return new ShardedKeyScanIterator(shardedJedisPool, pattern, count, MAX_SCAN_PARALLELISM,
+                    commandMetrics).start();
+        } catch (Exception e) {
+            LOGGER.error("[RedisUtilImpl]Redis operating exception.", e);
+            return null;
+        }
+    }
+
+    /**
+     * 通过自动pipeline执行单key命令，与其他线程并发执行的命令合并为一批发送。
+     * @param bizContent 业务描述信息，同时作为监控的命令名称
+     * @param key 命令的key
+     * @param command 向批量命令中添加命令
+     * @return 执行失败返回null
+     */
+    private <R> R autoPipelined(String bizContent, String key, Function<RedisBatch, BatchResult<R>> command) {
+        CircuitBreaker.Permit permit = null;
+        Exception error = null;
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            permit = acquire(key);
+            R result = autoPipelines.apply(key).execute(batch -> command.apply(batch)::get);
+            success = true;
+            return result;
+        } catch (CallNotPermittedException e) {
+            rejected(bizContent, e);
+            return null;
+        } catch (Exception e) {
+            error = e;
+            LOGGER.error("[RedisUtilImpl]Operation redis {} method exception.", bizContent, e);
+            return null;
+        } finally {
+            long end = System.nanoTime();
+            commandMetrics.record(bizContent, end - start, success);
+            if (permit != null) {
+                permit.onComplete(end - start, error);
+            }
+            if (slowCommandLog != null) {
+                // 连接由批量发送的线程获取，等待时间计入I/O时间
+                slowCommandLog.record(bizContent, key, -1, end - start);
+            }
+        }
+    }
+
+    /**
+     * 按选项写入字符串，启用压缩时超过阈值的值压缩后按二进制写入。
+     */
+    private String write(ShardedJedis shardedJedis, String key, String value, WriteOptions options) {
+        if (valueCompressor != null && options.isBinaryWritable()) {
+            byte[] bytes = valueCompressor.compress(SafeEncoder.encode(value));
+            return options.set(shardedJedis, SafeEncoder.encode(key), bytes);
+        }
+        return options.set(shardedJedis, key, value);
+    }
+
+    private byte[] compress(byte[] value) {
+        return valueCompressor == null ? value : valueCompressor.compress(value);
+    }
+
+    private byte[] decompress(byte[] value) {
+        return valueCompressor == null ? value : valueCompressor.decompress(value);
+    }
+
+    /**
+     * 热点key采样，命中时记录key和所在的分片。
+     */
+    private void sample(String command, String key) {
+        if (hotKeyDetector != null && hotKeyDetector.shouldSample()) {
+            hotKeyDetector.record(command, key, nodes.apply(key));
+        }
+    }
+
+    /**
+     * 申请在key所在的节点上执行，没有启用熔断或没有key时返回null。
+     * @throws CallNotPermittedException 节点已熔断或并发调用数已满
+     */
+    private CircuitBreaker.Permit acquire(String key) {
+        return circuitBreakers == null || key == null ? null : circuitBreakers.acquire(nodes.apply(key));
+    }
+
+    /**
+     * 熔断时的调用与执行失败一样返回null，每次都打印ERROR日志会在故障期间刷屏，只打印DEBUG日志。
+     */
+    private void rejected(String bizContent, CallNotPermittedException e) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("[RedisUtilImpl]Operation redis {} rejected: {}", bizContent, e.getMessage());
+        }
+    }
+
+    /**
+     * 按key定位节点：一致性hash环、jedis默认分片算法，哨兵模式时所有key都在当前主节点上。
+     */
+    private Function<String, String> nodeResolver() {
+        if (shardedJedisPool instanceof SentinelShardedJedisPool) {
+            SentinelShardedJedisPool sentinelPool = (SentinelShardedJedisPool) shardedJedisPool;
+            return key -> sentinelPool.getMasterName();
+        }
+        Function<String, JedisShardInfo> shards = shardLocator();
+        // 节点名称只计算一次，定位时不拼接字符串
+        Map<JedisShardInfo, String> names = new IdentityHashMap<>();
+        for (JedisShardInfo info : PooledShardedJedisPool.shardsOf(shardedJedisPool)) {
+            names.put(info, info.getHost() + ":" + info.getPort());
+        }
+        return key -> names.get(shards.apply(key));
+    }
+
+    /**
+     * 按key定位自动pipeline：每个分片一个，启动时创建。哨兵模式主从切换后分片会变化，但始终只有一个分片，使用同一个自动pipeline。
+     */
+    private Function<String, AutoPipeline<RedisBatch>> autoPipelineResolver() {
+        if (shardedJedisPool instanceof SentinelShardedJedisPool) {
+            AutoPipeline<RedisBatch> autoPipeline = newAutoPipeline();
+            return key -> autoPipeline;
+        }
+        Function<String, JedisShardInfo> shards = shardLocator();
+        Map<JedisShardInfo, AutoPipeline<RedisBatch>> autoPipelines = new IdentityHashMap<>();
+        for (JedisShardInfo info : PooledShardedJedisPool.shardsOf(shardedJedisPool)) {
+            autoPipelines.put(info, newAutoPipeline());
+        }
+        return key -> autoPipelines.get(shards.apply(key));
+    }
+
+    /**
+     * 按key定位分片（与连接池的分片算法一致），返回连接池中的JedisShardInfo实例。
+     */
+    private Function<String, JedisShardInfo> shardLocator() {
+        if (shardedJedisPool instanceof ConsistentHashShardedJedisPool) {
+            return ((ConsistentHashShardedJedisPool) shardedJedisPool).getRing()::get;
+        }
+        // 与连接池相同的分片顺序，未命名分片的虚拟节点与顺序有关
+        return new Sharded<Jedis, JedisShardInfo>(PooledShardedJedisPool.shardsOf(shardedJedisPool))::getShardInfo;
+    }
+
+    /**
+     * 一个分片的自动pipeline。借出的ShardedJedis包含所有分片的连接，同一批命令都在同一个分片上，只使用其中一个连接。
+     */
+    private AutoPipeline<RedisBatch> newAutoPipeline() {
+        return new AutoPipeline<>(autoPipelining, commands -> {
+            try (ShardedJedis shardedJedis = shardedJedisPool.getResource()) {
+                ShardedRedisBatch batch = new ShardedRedisBatch(shardedJedis, nearCache, valueCompressor);
+                commands.accept(batch);
+                batch.sync();
+            }
+        });
+    }
+
+    /**
+     * 大key检测：统计写入值和返回值的大小。
+     * @param request 写入的值，读命令为null
+     * @return reply
+     */
+    private <R> R measure(String command, String key, Object request, R reply) {
+        return bigKeyDetector == null ? reply : bigKeyDetector.record(command, key, request, reply);
+    }
+
+    /**
+     * 写操作之后失效本地缓存。
+     */
+    private void invalidate(String key) {
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
+    }
 }
@@ -0,0 +1,425 @@
+package com.example.redis.crud.starter.component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import redis.clients.jedis.BinaryJedisCluster;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: ReplicaReadRouter
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群版只读命令路由：按CLUSTER SLOTS维护每个slot的主节点和从节点，按ReadPolicy选择节点读取。
+ * 从节点使用单独的READONLY连接池，不影响JedisCluster的连接；主节点仍然通过JedisCluster读取（处理MOVED/ASK）。
+ * 从节点连接失败或者已经不负责该slot（MOVED）时暂停使用该节点、异步刷新拓扑，并回退到主节点读取。
+ * 拓扑按refresh-interval定时刷新，故障转移之后最多一个刷新间隔内由回退机制保证可用。
+ * @date 2019/12/18 10:20
+ */
+class ReplicaReadRouter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaReadRouter.class);
+
+    /** 节点读取失败后暂停使用的时间(毫秒) */
+    private static final long DOWN_MILLIS = 1000;
+    /** 延迟采样个数，必须是2的幂 */
+    private static final int SAMPLES = 1024;
+    /** 开始对冲读取前至少需要的采样个数 */
+    private static final int MIN_SAMPLES = 100;
+    /** 对冲读取延迟阈值的计算间隔(毫秒) */
+    private static final long HEDGE_DELAY_INTERVAL_MILLIS = 1000;
+    /** NEAREST策略每16次随机选择一次节点，保持各节点的延迟统计更新 */
+    private static final int EXPLORE_ONE_IN = 16;
+    /** 节点平均延迟（指数加权移动平均）的权重 */
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final ClusterSlotRouter router;
+    private final ReplicaReads settings;
+
+    /** 节点名称（host:port） -> 节点 */
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    /** slot -> 候选节点，下标0为主节点，之后为从节点 */
+    private volatile Node[][] slots = new Node[BinaryJedisCluster.HASHSLOTS][];
+
+    /** 最近读取延迟的环形采样(纳秒)，用于计算对冲读取的延迟阈值 */
+    private final long[] latencies = new long[SAMPLES];
+    private final AtomicLong sampleCount = new AtomicLong();
+    private volatile long hedgeDelayNanos = Long.MAX_VALUE;
+
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor hedgeExecutor;
+    private final AtomicBoolean refreshRequested = new AtomicBoolean();
+
+    ReplicaReadRouter(ClusterSlotRouter router, ReplicaReads settings) {
+        this.router = router;
+        this.settings = settings;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-replica-refresh-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        if (settings.isHedgeEnabled()) {
+            CustomizableThreadFactory hedgeFactory = new CustomizableThreadFactory("redis-replica-read-");
+            hedgeFactory.setDaemon(true);
+            // 不排队：线程用完时在调用线程中直接读取，不再对冲
+            this.hedgeExecutor = new ThreadPoolExecutor(0, settings.getHedgeThreads(), 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), hedgeFactory);
+            scheduler.scheduleWithFixedDelay(this::updateHedgeDelay, HEDGE_DELAY_INTERVAL_MILLIS,
+                    HEDGE_DELAY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            this.hedgeExecutor = null;
+        }
+
+        refreshQuietly();
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, settings.getRefreshIntervalMillis(),
+                settings.getRefreshIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 按读取策略执行只读命令。
+     * @param key 键，用于计算slot
+     * @param command 在从节点（READONLY连接）上执行的命令
+     * @param master 通过JedisCluster在主节点上执行的命令
+     * @return
+     */
+    <T> T read(String key, Function<Jedis, T> command, Supplier<T> master) {
+        Node[] candidates = slots[ClusterSlotRouter.getSlot(key)];
+        Node primary = select(candidates, null);
+        if (primary == null || hedgeExecutor == null || hedgeDelayNanos == Long.MAX_VALUE) {
+            return execute(primary, command, master);
+        }
+        return hedged(candidates, primary, command, master);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+        for (Node node : nodes.values()) {
+            node.close();
+        }
+        nodes.clear();
+    }
+
+    /**
+     * 先向primary发送请求，超过延迟阈值仍未返回时向另一个节点发送第二个请求，返回先成功的结果。
+     */
+    private <T> T hedged(Node[] candidates, Node primary, Function<Jedis, T> command, Supplier<T> master) {
+        CompletableFuture<T> first;
+        try {
+            first = CompletableFuture.supplyAsync(() -> execute(primary, command, master), hedgeExecutor);
+        } catch (RejectedExecutionException e) {
+            return execute(primary, command, master);
+        }
+        try {
+            return first.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 超过延迟阈值，发送对冲请求
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisException("Interrupted while reading from cluster.", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+
+        Node second = select(candidates, primary);
+        if (second == null) {
+            return await(first);
+        }
+        CompletableFuture<T> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(() -> execute(second, command, master), hedgeExecutor);
+        } catch (RejectedExecutionException e) {
+            return await(first);
+        }
+        settings.recordHedge();
+
+        // 先成功的结果；两个请求都失败时为后失败的异常
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        first.whenComplete((value, error) -> complete(result, failures, value, error, false));
+        hedge.whenComplete((value, error) -> complete(result, failures, value, error, true));
+        return await(result);
+    }
+
+    private <T> void complete(CompletableFuture<T> result, AtomicInteger failures, T value, Throwable error,
+                              boolean hedge) {
+        if (error == null) {
+            if (result.complete(value) && hedge) {
+                settings.recordHedgeWin();
+            }
+        } else if (failures.incrementAndGet() == 2) {
+            result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+        }
+    }
+
+    /**
+     * 在节点上执行一次读取：主节点通过JedisCluster读取；从节点失败时暂停使用该节点并回退到主节点。
+     */
+    private <T> T execute(Node node, Function<Jedis, T> command, Supplier<T> master) {
+        long start = System.nanoTime();
+        if (node == null || node.pool == null) {
+            settings.recordRead(false);
+            T result = master.get();
+            if (node != null) {
+                record(node, System.nanoTime() - start);
+            }
+            return result;
+        }
+        T result;
+        try (Jedis jedis = node.pool.getResource()) {
+            result = command.apply(jedis);
+        } catch (JedisException e) {
+            if (e instanceof JedisDataException && !(e instanceof JedisRedirectionException)) {
+                // 命令本身的错误（如WRONGTYPE），在主节点上也会失败
+                throw e;
+            }
+            // 从节点不可用，或者故障转移/slot迁移之后已经不负责该slot
+            LOGGER.warn("[ReplicaReadRouter]Read from replica {} failed, fallback to master.", node.name, e);
+            node.downUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DOWN_MILLIS);
+            requestRefresh();
+            settings.recordFallback();
+            settings.recordRead(false);
+            return master.get();
+        }
+        record(node, System.nanoTime() - start);
+        settings.recordRead(true);
+        return result;
+    }
+
+    /**
+     * 按读取策略选择节点。
+     * @param candidates slot的候选节点，为null时返回null（从主节点读取）
+     * @param excluded 排除的节点（对冲读取时排除第一个节点）
+     * @return 没有可选节点时返回null
+     */
+    private Node select(Node[] candidates, Node excluded) {
+        if (candidates == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (settings.getPolicy() == ReadPolicy.REPLICA_PREFERRED) {
+            int replicas = candidates.length - 1;
+            int offset = replicas > 0 ? random.nextInt(replicas) : 0;
+            for (int i = 0; i < replicas; i++) {
+                Node node = candidates[1 + (offset + i) % replicas];
+                if (node != excluded && node.isAvailable(now)) {
+                    return node;
+                }
+            }
+            return candidates[0] != excluded ? candidates[0] : null;
+        }
+
+        // NEAREST：平均延迟最低的节点，偶尔随机选择
+        boolean explore = random.nextInt(EXPLORE_ONE_IN) == 0;
+        int offset = random.nextInt(candidates.length);
+        Node best = null;
+        for (int i = 0; i < candidates.length; i++) {
+            Node node = candidates[(offset + i) % candidates.length];
+            if (node == excluded || !node.isAvailable(now)) {
+                continue;
+            }
+            if (explore) {
+                return node;
+            }
+            if (best == null || node.latencyNanos < best.latencyNanos) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    private void record(Node node, long nanos) {
+        double latency = node.latencyNanos;
+        node.latencyNanos = latency == 0 ? nanos : latency + EWMA_WEIGHT * (nanos - latency);
+        latencies[(int) (sampleCount.getAndIncrement() & (SAMPLES - 1))] = nanos;
+    }
+
+    /**
+     * 按最近的读取延迟计算对冲读取的延迟阈值，采样不足时不对冲。
+     */
+    private void updateHedgeDelay() {
+        int count = (int) Math.min(sampleCount.get(), SAMPLES);
+        if (count < MIN_SAMPLES) {
+            hedgeDelayNanos = Long.MAX_VALUE;
+            return;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(count * settings.getHedgePercentile() / 100) - 1;
+        hedgeDelayNanos = Math.max(settings.getHedgeMinDelayNanos(), sorted[Math.max(0, Math.min(count - 1, index))]);
+    }
+
+    private void requestRefresh() {
+        if (refreshRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    refreshRequested.set(false);
+                    refreshQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                // 已关闭
+                refreshRequested.set(false);
+            }
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            LOGGER.warn("[ReplicaReadRouter]Failed to refresh cluster topology.", e);
+        }
+    }
+
+    /**
+     * 通过任意一个节点执行CLUSTER SLOTS，重建slot -> 候选节点的映射，关闭已经不在集群中的从节点连接池。
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized void refresh() {
+        List<Object> clusterSlots = null;
+        String connectedHost = null;
+        for (JedisPool pool : router.getCache().getShuffledNodesPool()) {
+            try (Jedis jedis = pool.getResource()) {
+                clusterSlots = jedis.clusterSlots();
+                connectedHost = jedis.getClient().getHost();
+                break;
+            } catch (JedisException e) {
+                LOGGER.debug("[ReplicaReadRouter]Failed to get cluster slots from node.", e);
+            }
+        }
+        if (clusterSlots == null) {
+            LOGGER.warn("[ReplicaReadRouter]No reachable node in cluster, keep the current topology.");
+            return;
+        }
+
+        Node[][] newSlots = new Node[BinaryJedisCluster.HASHSLOTS][];
+        Set<String> alive = new HashSet<>();
+        for (Object item : clusterSlots) {
+            // [start, end, [masterHost, masterPort, id], [replicaHost, replicaPort, id], ...]
+            List<Object> info = (List<Object>) item;
+            if (info.size() < 3) {
+                continue;
+            }
+            Node[] candidates = new Node[info.size() - 2];
+            for (int i = 2; i < info.size(); i++) {
+                List<Object> hostAndPort = (List<Object>) info.get(i);
+                String host = SafeEncoder.encode((byte[]) hostAndPort.get(0));
+                if (host.isEmpty()) {
+                    host = connectedHost;
+                }
+                int port = ((Long) hostAndPort.get(1)).intValue();
+                candidates[i - 2] = node(host, port, i == 2);
+                alive.add(candidates[i - 2].name);
+            }
+            int start = ((Long) info.get(0)).intValue();
+            int end = ((Long) info.get(1)).intValue();
+            Arrays.fill(newSlots, start, end + 1, candidates);
+        }
+        slots = newSlots;
+
+        for (Iterator<Node> iterator = nodes.values().iterator(); iterator.hasNext(); ) {
+            Node node = iterator.next();
+            if (!alive.contains(node.name)) {
+                iterator.remove();
+                node.close();
+            }
+        }
+    }
+
+    /**
+     * 获取节点，角色变化（从节点提升为主节点等）时重建。
+     */
+    private Node node(String host, int port, boolean master) {
+        String name = host + ":" + port;
+        Node node = nodes.get(name);
+        if (node != null && (node.pool == null) == master) {
+            return node;
+        }
+        if (node != null) {
+            node.close();
+        }
+        node = new Node(name, master ? null : new ReadOnlyJedisPool(settings.getPoolConfig(), host, port,
+                settings.getTimeout(), settings.getPassword()));
+        nodes.put(name, node);
+        return node;
+    }
+
+    /**
+     * 集群节点：主节点没有连接池（通过JedisCluster读取）。
+     */
+    private static final class Node {
+        private final String name;
+        private final JedisPool pool;
+        /** 读取失败后暂停使用，直到该时间(System.nanoTime) */
+        private volatile long downUntil;
+        /** 平均读取延迟(纳秒)，0表示还没有采样 */
+        private volatile double latencyNanos;
+
+        Node(String name, JedisPool pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        boolean isAvailable(long now) {
+            return downUntil == 0 || now - downUntil > 0;
+        }
+
+        void close() {
+            if (pool != null) {
+                try {
+                    pool.close();
+                } catch (Exception e) {
+                    LOGGER.warn("[ReplicaReadRouter]Failed to close pool of replica {}.", name, e);
+                }
+            }
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new JedisException(cause);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisException("Interrupted while reading from cluster.", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+}
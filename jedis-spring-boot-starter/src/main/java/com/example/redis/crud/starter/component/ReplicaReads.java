@@ -0,0 +1,163 @@
+package com.example.redis.crud.starter.component;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author jackie wang
+ * @Title: ReplicaReads
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群版从节点读取配置和统计，jedis.read.policy不是MASTER时注入RedisClusterUtil。
+ * 只读命令（get/hget/hmget/hgetAll/hKeys/hHasKey/hasKey/lGet/lGetIndex/lGetListSize）按策略路由到从节点，
+ * 从节点的连接建立后先执行READONLY；写命令、多key命令和脚本仍然由JedisCluster发送到主节点。
+ * 启用对冲读取（hedge-enabled）时，第一个请求超过最近读取延迟的指定百分位仍未返回，
+ * 向该slot的另一个从节点（没有时为主节点）发送第二个请求，返回先完成的结果。
+ * @date 2019/12/18 10:20
+ */
+public class ReplicaReads {
+
+    private final ReadPolicy policy;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayNanos;
+    private final int hedgeThreads;
+    private final long refreshIntervalMillis;
+    private final GenericObjectPoolConfig poolConfig;
+    private final int timeout;
+    private final String password;
+
+    private final LongAdder replicaReadCount = new LongAdder();
+    private final LongAdder masterReadCount = new LongAdder();
+    private final LongAdder fallbackCount = new LongAdder();
+    private final LongAdder hedgeCount = new LongAdder();
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    /**
+     * @param policy 读取策略
+     * @param hedgeEnabled 是否启用对冲读取
+     * @param hedgePercentile 触发对冲读取的延迟百分位，如95表示超过p95延迟时发送第二个请求
+     * @param hedgeMinDelayMillis 触发对冲读取的最短等待时间(毫秒)
+     * @param hedgeThreads 执行对冲读取的最大线程数
+     * @param refreshIntervalMillis 从节点拓扑（CLUSTER SLOTS）刷新间隔(毫秒)
+     * @param poolConfig 从节点连接池配置
+     * @param timeout 连接和读取超时时间(毫秒)
+     * @param password 密码，没有时为null
+     */
+    public ReplicaReads(ReadPolicy policy, boolean hedgeEnabled, double hedgePercentile, long hedgeMinDelayMillis,
+                        int hedgeThreads, long refreshIntervalMillis, GenericObjectPoolConfig poolConfig, int timeout,
+                        String password) {
+        if (hedgePercentile <= 0 || hedgePercentile >= 100) {
+            throw new IllegalArgumentException("The parameter 'hedgePercentile' must be between 0 and 100.");
+        }
+        if (refreshIntervalMillis <= 0) {
+            throw new IllegalArgumentException("The parameter 'refreshIntervalMillis' must be greater than 0.");
+        }
+        this.policy = policy == null ? ReadPolicy.MASTER : policy;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, hedgeMinDelayMillis));
+        this.hedgeThreads = Math.max(1, hedgeThreads);
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.poolConfig = poolConfig;
+        this.timeout = timeout;
+        this.password = password;
+    }
+
+    public ReadPolicy getPolicy() {
+        return policy;
+    }
+
+    public boolean isHedgeEnabled() {
+        return hedgeEnabled;
+    }
+
+    /**
+     * 从从节点读取的次数。
+     * @return
+     */
+    public long getReplicaReadCount() {
+        return replicaReadCount.sum();
+    }
+
+    /**
+     * 从主节点读取的次数（包括从节点失败后回退到主节点）。
+     * @return
+     */
+    public long getMasterReadCount() {
+        return masterReadCount.sum();
+    }
+
+    /**
+     * 从节点读取失败后回退到主节点的次数。
+     * @return
+     */
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    /**
+     * 发送的对冲请求数。
+     * @return
+     */
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    /**
+     * 对冲请求先于第一个请求返回的次数。
+     * @return
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    long getHedgeMinDelayNanos() {
+        return hedgeMinDelayNanos;
+    }
+
+    int getHedgeThreads() {
+        return hedgeThreads;
+    }
+
+    long getRefreshIntervalMillis() {
+        return refreshIntervalMillis;
+    }
+
+    GenericObjectPoolConfig getPoolConfig() {
+        return poolConfig;
+    }
+
+    int getTimeout() {
+        return timeout;
+    }
+
+    String getPassword() {
+        return password;
+    }
+
+    void recordRead(boolean replica) {
+        if (replica) {
+            replicaReadCount.increment();
+        } else {
+            masterReadCount.increment();
+        }
+    }
+
+    void recordFallback() {
+        fallbackCount.increment();
+    }
+
+    void recordHedge() {
+        hedgeCount.increment();
+    }
+
+    void recordHedgeWin() {
+        hedgeWinCount.increment();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.redis.crud.starter.component;
+
+import com.example.redis.crud.starter.cache.NearCache;
+import com.example.redis.crud.starter.compress.ValueCompressor;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * @author jackie wang
+ * @Title: ShardedRedisBatch
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 基于ShardedJedis的批量命令实现。按key所在分片分组，每个分片使用一个Pipeline。
+ * 说明：没有直接使用ShardedJedisPipeline，因为它的sync()遇到第一条错误回复就会抛出异常，
+ * 剩余的回复留在连接中无法读取；Pipeline.sync()会把错误回复保存到对应的Response中。
+ * @date 2019/11/20 10:15
+ */
+class ShardedRedisBatch implements RedisBatch {
+
+    private final ShardedJedis shardedJedis;
+
+    /** 本地缓存，可以为null */
+    private final NearCache nearCache;
+
+    /** 值压缩，可以为null */
+    private final ValueCompressor valueCompressor;
+
+    /** 写命令的key，执行后失效本地缓存 */
+    private final List<String> writtenKeys = new ArrayList<>();
+
+    /** 分片 -> 该分片的pipeline，ShardInfo没有重写equals，按实例区分 */
+    private final Map<JedisShardInfo, ShardPipeline> pipelines = new IdentityHashMap<>();
+
+    /** 按调用顺序保存的所有结果 */
+    private final List<BatchResult<?>> results = new ArrayList<>();
+
+    ShardedRedisBatch(ShardedJedis shardedJedis, NearCache nearCache, ValueCompressor valueCompressor) {
+        this.shardedJedis = shardedJedis;
+        this.nearCache = nearCache;
+        this.valueCompressor = valueCompressor;
+    }
+
+    @Override
+    public BatchResult<String> set(String key, String value) {
+        written(key);
+        ShardPipeline shard = shard(key);
+        if (valueCompressor != null) {
+            return shard.add(shard.pipeline.set(SafeEncoder.encode(key),
+                    valueCompressor.compress(SafeEncoder.encode(value))));
+        }
+        return shard.add(shard.pipeline.set(key, value));
+    }
+
+    @Override
+    public BatchResult<String> get(String key) {
+        ShardPipeline shard = shard(key);
+        if (valueCompressor != null) {
+            return shard.add(shard.pipeline.get(SafeEncoder.encode(key)), valueCompressor::decompressToString);
+        }
+        return shard.add(shard.pipeline.get(key));
+    }
+
+    @Override
+    public BatchResult<Long> del(String key) {
+        written(key);
+        ShardPipeline shard = shard(key);
+        return shard.add(shard.pipeline.del(key));
+    }
+
+    @Override
+    public BatchResult<Long> expire(String key, Integer timeout) {
+        ShardPipeline shard = shard(key);
+        return shard.add(shard.pipeline.expire(key, timeout));
+    }
+
+    @Override
+    public BatchResult<Long> incr(String key) {
+        written(key);
+        ShardPipeline shard = shard(key);
+        return shard.add(shard.pipeline.incr(key));
+    }
+
+    @Override
+    public BatchResult<Boolean> exists(String key) {
+        ShardPipeline shard = shard(key);
+        return shard.add(shard.pipeline.exists(key));
+    }
+
+    /**
+     * 发送所有分片的命令并读取回复。某个分片连接异常时，只有该分片上的命令标记为失败。
+     * @return 按调用顺序排列的结果
+     */
+    List<BatchResult<?>> sync() {
+        for (ShardPipeline shard : pipelines.values()) {
+            try {
+                shard.pipeline.sync();
+            } catch (JedisConnectionException e) {
+                for (BatchResult<?> result : shard.results) {
+                    result.fail(e);
+                }
+            }
+        }
+        if (nearCache != null) {
+            for (String key : writtenKeys) {
+                nearCache.invalidate(key);
+            }
+        }
+        return results;
+    }
+
+    private void written(String key) {
+        if (nearCache != null) {
+            writtenKeys.add(key);
+        }
+    }
+
+    private ShardPipeline shard(String key) {
+        JedisShardInfo shardInfo = shardedJedis.getShardInfo(key);
+        ShardPipeline shard = pipelines.get(shardInfo);
+        if (shard == null) {
+            shard = new ShardPipeline(shardedJedis.getShard(key).pipelined());
+            pipelines.put(shardInfo, shard);
+        }
+        return shard;
+    }
+
+    private class ShardPipeline {
+        private final Pipeline pipeline;
+        private final List<BatchResult<?>> results = new ArrayList<>();
+
+        ShardPipeline(Pipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        <T> BatchResult<T> add(Response<T> response) {
+            return register(new BatchResult<>(response));
+        }
+
+        <R, T> BatchResult<T> add(Response<R> response, Function<? super R, T> converter) {
+            return register(new BatchResult<>(response, converter));
+        }
+
+        private <T> BatchResult<T> register(BatchResult<T> result) {
+            this.results.add(result);
+            ShardedRedisBatch.this.results.add(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.redis.crud.starter.component;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisSlotBasedConnectionHandler;
+
+import java.util.Set;
+
+/**
+ * @author jackie wang
+ * @Title: TopologyAwareConnectionHandler
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: JedisCluster的连接处理器：MOVED或连接失败时JedisCluster调用renewSlotCache(...)，
+ * 设置了拓扑刷新器时交给刷新器处理（同一时间只执行一次CLUSTER SLOTS，其他线程等待同一次刷新的结果），
+ * 否则按JedisCluster原有方式刷新。
+ * @date 2019/12/22 10:20
+ */
+class TopologyAwareConnectionHandler extends JedisSlotBasedConnectionHandler {
+
+    private volatile ClusterTopologyRefresher refresher;
+
+    TopologyAwareConnectionHandler(Set<HostAndPort> nodes, GenericObjectPoolConfig poolConfig, int connectionTimeout,
+                                   int soTimeout, String password) {
+        super(nodes, poolConfig, connectionTimeout, soTimeout, password);
+    }
+
+    void setRefresher(ClusterTopologyRefresher refresher) {
+        this.refresher = refresher;
+    }
+
+    @Override
+    public void renewSlotCache() {
+        ClusterTopologyRefresher current = refresher;
+        if (current == null) {
+            super.renewSlotCache();
+        } else {
+            current.onRedirect();
+        }
+    }
+
+    @Override
+    public void renewSlotCache(Jedis jedis) {
+        ClusterTopologyRefresher current = refresher;
+        if (current == null) {
+            super.renewSlotCache(jedis);
+        } else {
+            current.onRedirect();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.redis.crud.starter.component;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisCluster;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * @author jackie wang
+ * @Title: TopologyRefreshingJedisCluster
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 支持主动拓扑刷新的JedisCluster，jedis.cluster.topology-refresh.enabled=true时使用。
+ * 与JedisCluster的区别只有连接处理器：MOVED之后的slot缓存刷新交给ClusterTopologyRefresher合并执行。
+ * @date 2019/12/22 10:20
+ */
+public class TopologyRefreshingJedisCluster extends JedisCluster {
+
+    /**
+     * @param nodes 启动节点
+     * @param timeout 连接和读取超时时间(毫秒)
+     * @param maxRedirects 最大重定向（重试）次数
+     * @param password 密码，没有时为null
+     * @param poolConfig 每个节点的连接池配置
+     */
+    public TopologyRefreshingJedisCluster(Set<HostAndPort> nodes, int timeout, int maxRedirects, String password,
+                                          GenericObjectPoolConfig poolConfig) {
+        // 父类使用空的启动节点，不连接集群，随后替换为TopologyAwareConnectionHandler
+        super(Collections.<HostAndPort>emptySet(), timeout, timeout, maxRedirects, password, poolConfig);
+        this.connectionHandler = new TopologyAwareConnectionHandler(nodes, poolConfig, timeout, timeout, password);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.redis.crud.starter.component;
+
+import redis.clients.jedis.BinaryJedisClusterCommands;
+import redis.clients.jedis.BinaryShardedJedis;
+import redis.clients.jedis.JedisCommands;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * @author jackie wang
+ * @Title: WriteOptions
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 写入选项，对应SET命令的NX/XX/EX/PX/KEEPTTL参数，写入和设置过期时间在一次网络往返中完成。
+ * 使用示例：
+ * WriteOptions.ex(60).nx()    // 不存在时写入，60秒过期
+ * WriteOptions.px(500).xx()   // 存在时写入，500毫秒过期
+ * WriteOptions.keepTtl()      // 写入并保留原有过期时间（Redis 6.0及以上版本）
+ * 对象不可变，nx()/xx()返回新的对象。
+ * @date 2019/11/25 09:40
+ */
+public final class WriteOptions {
+
+    private static final WriteOptions NONE = new WriteOptions(null, 0L, false);
+
+    /** NX：不存在时写入；XX：存在时写入；null：不限制 */
+    private final String condition;
+
+    /** 过期时间(毫秒)，小于等于0表示不设置过期时间 */
+    private final long expireMillis;
+
+    /** 是否保留原有的过期时间 */
+    private final boolean keepTtl;
+
+    private WriteOptions(String condition, long expireMillis, boolean keepTtl) {
+        this.condition = condition;
+        this.expireMillis = expireMillis;
+        this.keepTtl = keepTtl;
+    }
+
+    /**
+     * 不设置过期时间（普通写入会清除原有的过期时间）。
+     * @return
+     */
+    public static WriteOptions none() {
+        return NONE;
+    }
+
+    /**
+     * 过期时间(秒)。
+     * @param seconds 必须大于0，换算成毫秒后不能超过Long.MAX_VALUE
+     * @return
+     */
+    public static WriteOptions ex(long seconds) {
+        if (seconds <= 0 || seconds > Long.MAX_VALUE / 1000) {
+            throw new IllegalArgumentException("The parameter 'seconds' must be between 1 and "
+                    + Long.MAX_VALUE / 1000 + ".");
+        }
+        return new WriteOptions(null, seconds * 1000L, false);
+    }
+
+    /**
+     * 过期时间(毫秒)。
+     * @param milliseconds 必须大于0
+     * @return
+     */
+    public static WriteOptions px(long milliseconds) {
+        if (milliseconds <= 0) {
+            throw new IllegalArgumentException("The parameter 'milliseconds' must be greater than 0.");
+        }
+        return new WriteOptions(null, milliseconds, false);
+    }
+
+    /**
+     * 保留key原有的过期时间。
+     * @return
+     */
+    public static WriteOptions keepTtl() {
+        return new WriteOptions(null, 0L, true);
+    }
+
+    /**
+     * key不存在时才写入。
+     * @return
+     */
+    public WriteOptions nx() {
+        return new WriteOptions("NX", expireMillis, keepTtl);
+    }
+
+    /**
+     * key存在时才写入。
+     * @return
+     */
+    public WriteOptions xx() {
+        return new WriteOptions("XX", expireMillis, keepTtl);
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public long getExpireMillis() {
+        return expireMillis;
+    }
+
+    public boolean isKeepTtl() {
+        return keepTtl;
+    }
+
+    /**
+     * 按选项执行SET（KEEPTTL除外，KEEPTTL需要通过脚本执行）。
+     * @return "OK"，NX/XX条件不满足时返回null
+     */
+    String set(JedisCommands commands, String key, String value) {
+        if (expireMillis > 0) {
+            if (condition != null) {
+                return expireMillis % 1000 == 0
+                        ? commands.set(key, value, condition, "EX", expireMillis / 1000)
+                        : commands.set(key, value, condition, "PX", expireMillis);
+            }
+            return isSetexSeconds()
+                    ? commands.setex(key, (int) (expireMillis / 1000), value)
+                    : commands.psetex(key, expireMillis, value);
+        }
+        return condition != null ? commands.set(key, value, condition) : commands.set(key, value);
+    }
+
+    /**
+     * 是否可以用二进制SET执行（压缩后的值需要二进制写入），只有KEEPTTL需要通过脚本按字符串写入。
+     */
+    boolean isBinaryWritable() {
+        return !keepTtl;
+    }
+
+    /**
+     * 集群版是否可以用二进制SET执行。jedis集群版二进制接口没有PSETEX，也没有不带过期时间的SET NX/XX（NX通过SETNX执行），
+     * 毫秒级或超过SETEX范围的PX（不带NX/XX）、不带过期时间的XX和KEEPTTL只能按字符串写入。
+     */
+    boolean isClusterBinaryWritable() {
+        if (keepTtl) {
+            return false;
+        }
+        if (condition != null) {
+            return expireMillis > 0 || "NX".equals(condition);
+        }
+        return expireMillis <= 0 || isSetexSeconds();
+    }
+
+    /**
+     * 按选项执行二进制SET，调用前需要检查isBinaryWritable()。
+     * @return "OK"，NX/XX条件不满足时返回null
+     */
+    String set(BinaryShardedJedis commands, byte[] key, byte[] value) {
+        if (expireMillis <= 0) {
+            return condition != null ? commands.set(key, value, SafeEncoder.encode(condition))
+                    : commands.set(key, value);
+        }
+        if (condition != null) {
+            return commands.set(key, value, SafeEncoder.encode(condition), expireUnit(), expireTime());
+        }
+        // 分片的二进制接口没有PSETEX，在key所在分片的连接上执行
+        return isSetexSeconds() ? commands.setex(key, (int) (expireMillis / 1000), value)
+                : commands.getShard(key).psetex(key, expireMillis, value);
+    }
+
+    /**
+     * 按选项执行二进制SET（集群版），调用前需要检查isClusterBinaryWritable()。
+     * @return "OK"，NX/XX条件不满足时返回null
+     */
+    String set(BinaryJedisClusterCommands commands, byte[] key, byte[] value) {
+        if (condition != null && expireMillis <= 0) {
+            return commands.setnx(key, value) == 1L ? "OK" : null;
+        }
+        if (condition != null) {
+            return commands.set(key, value, SafeEncoder.encode(condition), expireUnit(), expireTime());
+        }
+        return expireMillis > 0 ? commands.setex(key, (int) (expireMillis / 1000), value) : commands.set(key, value);
+    }
+
+    /**
+     * 过期时间可以用SETEX的秒数（int）表示，否则使用PSETEX。
+     */
+    private boolean isSetexSeconds() {
+        return expireMillis % 1000 == 0 && expireMillis / 1000 <= Integer.MAX_VALUE;
+    }
+
+    private byte[] expireUnit() {
+        return SafeEncoder.encode(expireMillis % 1000 == 0 ? "EX" : "PX");
+    }
+
+    private long expireTime() {
+        return expireMillis % 1000 == 0 ? expireMillis / 1000 : expireMillis;
+    }
+
+    /**
+     * KEEPTTL脚本参数。
+     */
+    String[] keepTtlArgs(String value) {
+        return new String[]{value, condition == null ? "" : condition};
+    }
+
+    /**
+     * 集合类型写入只支持过期时间选项。
+     */
+    void checkCollectionWrite() {
+        if (condition != null) {
+            throw new IllegalArgumentException("NX/XX are only supported by string writes.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WriteOptions{condition=" + condition + ", expireMillis=" + expireMillis + ", keepTtl=" + keepTtl + '}';
+    }
+}
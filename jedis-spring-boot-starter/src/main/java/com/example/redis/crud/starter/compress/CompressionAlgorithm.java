@@ -0,0 +1,36 @@
+package com.example.redis.crud.starter.compress;
+
+/**
+ * @author jackie wang
+ * @Title: CompressionAlgorithm
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 值压缩算法，id写入压缩头，新增算法只能追加，不能修改已有的id。
+ * @date 2019/12/2 10:15
+ */
+public enum CompressionAlgorithm {
+
+    /** raw deflate（无zlib头），体积最小 */
+    DEFLATE((byte) 1),
+
+    /** gzip格式，可以用其他语言的标准库解压 */
+    GZIP((byte) 2);
+
+    private final byte id;
+
+    CompressionAlgorithm(byte id) {
+        this.id = id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    static CompressionAlgorithm valueOf(byte id) {
+        for (CompressionAlgorithm algorithm : values()) {
+            if (algorithm.id == id) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression algorithm id " + id);
+    }
+}
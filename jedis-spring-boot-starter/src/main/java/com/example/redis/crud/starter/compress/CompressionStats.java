@@ -0,0 +1,80 @@
+package com.example.redis.crud.starter.compress;
+
+/**
+ * @author jackie wang
+ * @Title: CompressionStats
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 值压缩统计信息快照。
+ * @date 2019/12/2 10:15
+ */
+public class CompressionStats {
+
+    private final long compressedCount;
+    private final long skippedCount;
+    private final long decompressedCount;
+    private final long bytesBeforeCompression;
+    private final long bytesAfterCompression;
+    private final long compressNanos;
+    private final long decompressNanos;
+
+    public CompressionStats(long compressedCount, long skippedCount, long decompressedCount,
+                            long bytesBeforeCompression, long bytesAfterCompression, long compressNanos,
+                            long decompressNanos) {
+        this.compressedCount = compressedCount;
+        this.skippedCount = skippedCount;
+        this.decompressedCount = decompressedCount;
+        this.bytesBeforeCompression = bytesBeforeCompression;
+        this.bytesAfterCompression = bytesAfterCompression;
+        this.compressNanos = compressNanos;
+        this.decompressNanos = decompressNanos;
+    }
+
+    /** 压缩后写入的条数 */
+    public long getCompressedCount() {
+        return compressedCount;
+    }
+
+    /** 超过阈值但压缩后没有变小、按原值写入的条数 */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public long getDecompressedCount() {
+        return decompressedCount;
+    }
+
+    /** 压缩写入的值的原始字节数 */
+    public long getBytesBeforeCompression() {
+        return bytesBeforeCompression;
+    }
+
+    /** 压缩写入的值的压缩后字节数（含压缩头） */
+    public long getBytesAfterCompression() {
+        return bytesAfterCompression;
+    }
+
+    /**
+     * 压缩率（压缩后/压缩前），没有压缩过时返回1。
+     * @return
+     */
+    public double getCompressionRatio() {
+        return bytesBeforeCompression == 0 ? 1.0 : (double) bytesAfterCompression / bytesBeforeCompression;
+    }
+
+    /** 压缩累计耗时(纳秒)，包括压缩后没有变小的值 */
+    public long getCompressNanos() {
+        return compressNanos;
+    }
+
+    /** 解压累计耗时(纳秒) */
+    public long getDecompressNanos() {
+        return decompressNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStats{compressedCount=" + compressedCount + ", skippedCount=" + skippedCount
+                + ", decompressedCount=" + decompressedCount + ", compressionRatio=" + getCompressionRatio()
+                + ", compressNanos=" + compressNanos + ", decompressNanos=" + decompressNanos + '}';
+    }
+}
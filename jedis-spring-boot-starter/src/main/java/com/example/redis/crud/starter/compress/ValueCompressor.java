@@ -0,0 +1,266 @@
+package com.example.redis.crud.starter.compress;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author jackie wang
+ * @Title: ValueCompressor
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 值压缩：超过阈值的值压缩后写入，读取时根据压缩头自动解压，未压缩的旧数据原样返回。
+ * 格式：0xFF(1字节) + 算法id(1字节) + 原始长度(4字节) + 压缩数据。
+ * 0xFF不会出现在UTF-8字符串的第一个字节，所以可以和未压缩的字符串值区分；自定义RedisCodec编码结果的第一个字节不能是0xFF。
+ * Deflater/Inflater和缓冲区按线程复用，大值的压缩不会反复申请临时数组。
+ * @date 2019/12/2 10:15
+ */
+public class ValueCompressor {
+
+    private static final byte MAGIC = (byte) 0xFF;
+    private static final int HEADER_LENGTH = 6;
+
+    /** gzip固定头：魔数、deflate、无flag、无时间戳、无额外flag、未知操作系统 */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    /** 按线程保留的缓冲区上限，超过的临时申请，避免大值长期占用内存 */
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    private final int thresholdBytes;
+    private final CompressionAlgorithm algorithm;
+    private final ThreadLocal<Buffers> buffers;
+
+    private final LongAdder compressedCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+    private final LongAdder decompressedCount = new LongAdder();
+    private final LongAdder bytesBeforeCompression = new LongAdder();
+    private final LongAdder bytesAfterCompression = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    /**
+     * @param thresholdBytes 小于该字节数的值不压缩
+     * @param algorithm 压缩算法
+     * @param level 压缩级别0-9，-1为默认级别
+     */
+    public ValueCompressor(int thresholdBytes, CompressionAlgorithm algorithm, int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("The compression level must be between -1 and 9.");
+        }
+        this.thresholdBytes = Math.max(HEADER_LENGTH + 1, thresholdBytes);
+        this.algorithm = algorithm;
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(level));
+    }
+
+    /**
+     * 压缩值。
+     * @param value
+     * @return 小于阈值或压缩后没有变小时返回原值，否则返回带压缩头的值
+     */
+    public byte[] compress(byte[] value) {
+        if (value.length < thresholdBytes) {
+            return value;
+        }
+        long start = System.nanoTime();
+        Buffers buffers = this.buffers.get();
+        // 压缩后不小于原值就不压缩，所以只需要原值大小的缓冲区
+        byte[] out = buffers.scratch(value.length);
+        int limit = value.length - 1;
+        int length = algorithm == CompressionAlgorithm.GZIP ? gzip(buffers, value, out, limit)
+                : deflate(buffers, value, out, HEADER_LENGTH, limit);
+        compressNanos.add(System.nanoTime() - start);
+        if (length < 0) {
+            skippedCount.increment();
+            return value;
+        }
+
+        out[0] = MAGIC;
+        out[1] = algorithm.getId();
+        writeInt(out, 2, value.length);
+        compressedCount.increment();
+        bytesBeforeCompression.add(value.length);
+        bytesAfterCompression.add(length);
+        return Arrays.copyOf(out, length);
+    }
+
+    /**
+     * 解压值。
+     * @param value
+     * @return 没有压缩头时返回原值
+     */
+    public byte[] decompress(byte[] value) {
+        if (!isCompressed(value)) {
+            return value;
+        }
+        byte[] out = new byte[readInt(value, 2)];
+        inflate(value, out);
+        return out;
+    }
+
+    /**
+     * 解压并按UTF-8转换为字符串，解压使用线程复用的缓冲区。
+     * @param value
+     * @return
+     */
+    public String decompressToString(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        if (!isCompressed(value)) {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+        int length = readInt(value, 2);
+        byte[] out = buffers.get().scratch(length);
+        inflate(value, out);
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 是否是压缩后的值。
+     * @param value
+     * @return
+     */
+    public static boolean isCompressed(byte[] value) {
+        return value != null && value.length > HEADER_LENGTH && value[0] == MAGIC;
+    }
+
+    public CompressionStats stats() {
+        return new CompressionStats(compressedCount.sum(), skippedCount.sum(), decompressedCount.sum(),
+                bytesBeforeCompression.sum(), bytesAfterCompression.sum(), compressNanos.sum(), decompressNanos.sum());
+    }
+
+    /**
+     * raw deflate压缩到out[offset...limit)。
+     * @return 压缩后的总长度，超过limit时返回-1
+     */
+    private static int deflate(Buffers buffers, byte[] value, byte[] out, int offset, int limit) {
+        Deflater deflater = buffers.deflater;
+        deflater.reset();
+        deflater.setInput(value);
+        deflater.finish();
+        int position = offset;
+        while (!deflater.finished()) {
+            if (position == limit) {
+                return -1;
+            }
+            position += deflater.deflate(out, position, limit - position);
+        }
+        return position;
+    }
+
+    private static int gzip(Buffers buffers, byte[] value, byte[] out, int limit) {
+        if (limit <= HEADER_LENGTH + GZIP_HEADER.length + GZIP_TRAILER_LENGTH) {
+            return -1;
+        }
+        System.arraycopy(GZIP_HEADER, 0, out, HEADER_LENGTH, GZIP_HEADER.length);
+        int position = deflate(buffers, value, out, HEADER_LENGTH + GZIP_HEADER.length, limit - GZIP_TRAILER_LENGTH);
+        if (position < 0) {
+            return -1;
+        }
+        CRC32 crc = buffers.crc;
+        crc.reset();
+        crc.update(value);
+        writeIntLe(out, position, (int) crc.getValue());
+        writeIntLe(out, position + 4, value.length);
+        return position + GZIP_TRAILER_LENGTH;
+    }
+
+    /**
+     * 解压到out[0...length)，length为压缩头中的原始长度。
+     */
+    private void inflate(byte[] value, byte[] out) {
+        long start = System.nanoTime();
+        int length = readInt(value, 2);
+        CompressionAlgorithm algorithm = CompressionAlgorithm.valueOf(value[1]);
+        int offset = HEADER_LENGTH;
+        int inputLength = value.length - HEADER_LENGTH;
+        if (algorithm == CompressionAlgorithm.GZIP) {
+            offset += GZIP_HEADER.length;
+            inputLength -= GZIP_HEADER.length + GZIP_TRAILER_LENGTH;
+        }
+
+        Buffers buffers = this.buffers.get();
+        Inflater inflater = buffers.inflater;
+        inflater.reset();
+        inflater.setInput(value, offset, inputLength);
+        try {
+            int position = 0;
+            while (position < length) {
+                int count = inflater.inflate(out, position, length - position);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                position += count;
+            }
+            if (position != length) {
+                throw new IllegalStateException("Compressed value is truncated.");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed value is corrupted.", e);
+        }
+
+        if (algorithm == CompressionAlgorithm.GZIP) {
+            CRC32 crc = buffers.crc;
+            crc.reset();
+            crc.update(out, 0, length);
+            if ((int) crc.getValue() != readIntLe(value, value.length - GZIP_TRAILER_LENGTH)) {
+                throw new IllegalStateException("Compressed value checksum mismatch.");
+            }
+        }
+        decompressedCount.increment();
+        decompressNanos.add(System.nanoTime() - start);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static void writeIntLe(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static int readIntLe(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * 线程复用的压缩器和缓冲区。
+     */
+    private static final class Buffers {
+        private final Deflater deflater;
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private byte[] scratch = new byte[0];
+
+        Buffers(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+
+        byte[] scratch(int size) {
+            if (scratch.length >= size) {
+                return scratch;
+            }
+            if (size > MAX_RETAINED_BUFFER) {
+                return new byte[size];
+            }
+            scratch = new byte[Math.max(size, Math.min(MAX_RETAINED_BUFFER, scratch.length * 2))];
+            return scratch;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.redis.crud.starter.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author jackie wang
+ * @Title: JedisPoolProperties
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 连接池配置属性，前缀jedis.pool，对应commons-pool2的GenericObjectPoolConfig。
+ * 连接数相关的属性未配置时使用spring.redis.pool.*，默认不在获取连接时校验，由后台空闲检测校验连接。
+ * @date 2019/12/6 09:30
+ */
+@ConfigurationProperties(prefix = "jedis.pool")
+public class JedisPoolProperties {
+
+    /**
+     * 最大连接数，未配置时使用spring.redis.pool.max-active
+     */
+    private Integer maxTotal;
+
+    /**
+     * 最大空闲连接数，未配置时使用spring.redis.pool.max-idle
+     */
+    private Integer maxIdle;
+
+    /**
+     * 最小空闲连接数，未配置时使用spring.redis.pool.min-idle，预热时创建到该数量
+     */
+    private Integer minIdle;
+
+    /**
+     * 连接池耗尽时获取连接的最大等待时间(毫秒)，-1表示一直等待，未配置时使用spring.redis.pool.max-wait
+     */
+    private Long maxWaitMillis;
+
+    /**
+     * 连接池耗尽时是否等待，false时直接抛出异常
+     */
+    private boolean blockWhenExhausted = true;
+
+    /**
+     * 空闲连接是否后进先出，false时先进先出（连接使用更均匀）
+     */
+    private boolean lifo = true;
+
+    /**
+     * 等待连接的线程是否按先来先得的顺序获取连接
+     */
+    private boolean fairness = false;
+
+    /**
+     * 创建连接时是否校验
+     */
+    private boolean testOnCreate = false;
+
+    /**
+     * 获取连接时是否校验（PING），会增加一次网络往返，默认由后台空闲检测代替
+     */
+    private boolean testOnBorrow = false;
+
+    /**
+     * 归还连接时是否校验
+     */
+    private boolean testOnReturn = false;
+
+    /**
+     * 后台空闲检测时是否校验连接，校验失败的连接被销毁
+     */
+    private boolean testWhileIdle = true;
+
+    /**
+     * 后台空闲检测的间隔(毫秒)，小于等于0时不检测
+     */
+    private long timeBetweenEvictionRunsMillis = 30000;
+
+    /**
+     * 连接空闲超过该时间(毫秒)后可以被回收
+     */
+    private long minEvictableIdleTimeMillis = 60000;
+
+    /**
+     * 连接空闲超过该时间(毫秒)并且空闲连接数大于minIdle时可以被回收
+     */
+    private long softMinEvictableIdleTimeMillis = -1;
+
+    /**
+     * 每次空闲检测的连接数，负数表示空闲连接数的1/n，-1表示全部
+     */
+    private int numTestsPerEvictionRun = -1;
+
+    /**
+     * 关闭连接池时等待后台检测线程结束的时间(毫秒)
+     */
+    private long evictorShutdownTimeoutMillis = 10000;
+
+    /**
+     * 是否注册JMX
+     */
+    private boolean jmxEnabled = true;
+
+    /**
+     * JMX名称前缀
+     */
+    private String jmxNamePrefix = "pool";
+
+    /**
+     * 启动时是否把所有连接池（单机、分片、集群每个节点）预热到minIdle
+     */
+    private boolean prewarm = false;
+
+    /**
+     * 预热超时时间(毫秒)，超时后未完成的连接由后台空闲检测补齐
+     */
+    private long prewarmTimeoutMillis = 30000;
+
+    public Integer getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(Integer maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public Integer getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(Integer maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public Integer getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(Integer minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public Long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(Long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public boolean isBlockWhenExhausted() {
+        return blockWhenExhausted;
+    }
+
+    public void setBlockWhenExhausted(boolean blockWhenExhausted) {
+        this.blockWhenExhausted = blockWhenExhausted;
+    }
+
+    public boolean isLifo() {
+        return lifo;
+    }
+
+    public void setLifo(boolean lifo) {
+        this.lifo = lifo;
+    }
+
+    public boolean isFairness() {
+        return fairness;
+    }
+
+    public void setFairness(boolean fairness) {
+        this.fairness = fairness;
+    }
+
+    public boolean isTestOnCreate() {
+        return testOnCreate;
+    }
+
+    public void setTestOnCreate(boolean testOnCreate) {
+        this.testOnCreate = testOnCreate;
+    }
+
+    public boolean isTestOnBorrow() {
+        return testOnBorrow;
+    }
+
+    public void setTestOnBorrow(boolean testOnBorrow) {
+        this.testOnBorrow = testOnBorrow;
+    }
+
+    public boolean isTestOnReturn() {
+        return testOnReturn;
+    }
+
+    public void setTestOnReturn(boolean testOnReturn) {
+        this.testOnReturn = testOnReturn;
+    }
+
+    public boolean isTestWhileIdle() {
+        return testWhileIdle;
+    }
+
+    public void setTestWhileIdle(boolean testWhileIdle) {
+        this.testWhileIdle = testWhileIdle;
+    }
+
+    public long getTimeBetweenEvictionRunsMillis() {
+        return timeBetweenEvictionRunsMillis;
+    }
+
+    public void setTimeBetweenEvictionRunsMillis(long timeBetweenEvictionRunsMillis) {
+        this.timeBetweenEvictionRunsMillis = timeBetweenEvictionRunsMillis;
+    }
+
+    public long getMinEvictableIdleTimeMillis() {
+        return minEvictableIdleTimeMillis;
+    }
+
+    public void setMinEvictableIdleTimeMillis(long minEvictableIdleTimeMillis) {
+        this.minEvictableIdleTimeMillis = minEvictableIdleTimeMillis;
+    }
+
+    public long getSoftMinEvictableIdleTimeMillis() {
+        return softMinEvictableIdleTimeMillis;
+    }
+
+    public void setSoftMinEvictableIdleTimeMillis(long softMinEvictableIdleTimeMillis) {
+        this.softMinEvictableIdleTimeMillis = softMinEvictableIdleTimeMillis;
+    }
+
+    public int getNumTestsPerEvictionRun() {
+        return numTestsPerEvictionRun;
+    }
+
+    public void setNumTestsPerEvictionRun(int numTestsPerEvictionRun) {
+        this.numTestsPerEvictionRun = numTestsPerEvictionRun;
+    }
+
+    public long getEvictorShutdownTimeoutMillis() {
+        return evictorShutdownTimeoutMillis;
+    }
+
+    public void setEvictorShutdownTimeoutMillis(long evictorShutdownTimeoutMillis) {
+        this.evictorShutdownTimeoutMillis = evictorShutdownTimeoutMillis;
+    }
+
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    public String getJmxNamePrefix() {
+        return jmxNamePrefix;
+    }
+
+    public void setJmxNamePrefix(String jmxNamePrefix) {
+        this.jmxNamePrefix = jmxNamePrefix;
+    }
+
+    public boolean isPrewarm() {
+        return prewarm;
+    }
+
+    public void setPrewarm(boolean prewarm) {
+        this.prewarm = prewarm;
+    }
+
+    public long getPrewarmTimeoutMillis() {
+        return prewarmTimeoutMillis;
+    }
+
+    public void setPrewarmTimeoutMillis(long prewarmTimeoutMillis) {
+        this.prewarmTimeoutMillis = prewarmTimeoutMillis;
+    }
+}
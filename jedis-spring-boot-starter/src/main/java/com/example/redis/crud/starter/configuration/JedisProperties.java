@@ -0,0 +1,1535 @@
+package com.example.redis.crud.starter.configuration;
+
+import com.example.redis.crud.starter.component.ReadPolicy;
+import com.example.redis.crud.starter.compress.CompressionAlgorithm;
+import com.example.redis.crud.starter.shard.ShardHashing;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: JedisProperties
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: starter扩展配置属性，前缀jedis。连接相关的配置仍然使用spring.redis.*（RedisProperties）。
+ * @date 2019/11/27 10:20
+ */
+@ConfigurationProperties(prefix = "jedis")
+public class JedisProperties {
+
+    /**
+     * 本地缓存（L1）配置
+     */
+    private NearCache nearCache = new NearCache();
+
+    /**
+     * 值压缩配置
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * 监控配置
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 异步API配置
+     */
+    private Async async = new Async();
+
+    /**
+     * 分布式锁配置
+     */
+    private Lock lock = new Lock();
+
+    /**
+     * Spring Cache配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 请求合并配置
+     */
+    private SingleFlight singleFlight = new SingleFlight();
+
+    /**
+     * 自动pipeline配置
+     */
+    private AutoPipeline autoPipeline = new AutoPipeline();
+
+    /**
+     * 集群版从节点读取配置
+     */
+    private Read read = new Read();
+
+    /**
+     * 热点key检测配置
+     */
+    private HotKeys hotKeys = new HotKeys();
+
+    /**
+     * 大key检测配置
+     */
+    private BigKeys bigKeys = new BigKeys();
+
+    /**
+     * 客户端慢命令日志配置
+     */
+    private SlowLog slowLog = new SlowLog();
+
+    /**
+     * 集群版客户端配置
+     */
+    private Cluster cluster = new Cluster();
+
+    /**
+     * 单机版多分片配置
+     */
+    private Sharding sharding = new Sharding();
+
+    /**
+     * 哨兵模式配置
+     */
+    private Sentinel sentinel = new Sentinel();
+
+    /**
+     * 熔断和并发隔离配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public void setAsync(Async async) {
+        this.async = async;
+    }
+
+    public Lock getLock() {
+        return lock;
+    }
+
+    public void setLock(Lock lock) {
+        this.lock = lock;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    public void setSingleFlight(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    public AutoPipeline getAutoPipeline() {
+        return autoPipeline;
+    }
+
+    public void setAutoPipeline(AutoPipeline autoPipeline) {
+        this.autoPipeline = autoPipeline;
+    }
+
+    public Read getRead() {
+        return read;
+    }
+
+    public void setRead(Read read) {
+        this.read = read;
+    }
+
+    public HotKeys getHotKeys() {
+        return hotKeys;
+    }
+
+    public void setHotKeys(HotKeys hotKeys) {
+        this.hotKeys = hotKeys;
+    }
+
+    public BigKeys getBigKeys() {
+        return bigKeys;
+    }
+
+    public void setBigKeys(BigKeys bigKeys) {
+        this.bigKeys = bigKeys;
+    }
+
+    public SlowLog getSlowLog() {
+        return slowLog;
+    }
+
+    public void setSlowLog(SlowLog slowLog) {
+        this.slowLog = slowLog;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    public Sharding getSharding() {
+        return sharding;
+    }
+
+    public void setSharding(Sharding sharding) {
+        this.sharding = sharding;
+    }
+
+    public Sentinel getSentinel() {
+        return sentinel;
+    }
+
+    public void setSentinel(Sentinel sentinel) {
+        this.sentinel = sentinel;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * 本地缓存配置：缓存RedisUtil.get、RedisClusterUtil.get/hgetAll的结果，通过keyspace通知失效。
+     */
+    public static class NearCache {
+
+        /**
+         * 是否启用本地缓存
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最大缓存条数
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * 最大占用内存（估算值），单位字节
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+
+        /**
+         * 默认过期时间(秒)，0表示不缓存
+         */
+        private long timeToLive = 60;
+
+        /**
+         * 按key模式（支持*通配符）配置过期时间，按顺序匹配第一个
+         */
+        private List<KeyPatternTtl> keyPatterns = new ArrayList<>();
+
+        /**
+         * 是否订阅keyspace通知，其他节点修改key时失效本地缓存
+         */
+        private boolean invalidationEnabled = true;
+
+        /**
+         * 启动时是否通过CONFIG SET开启服务端keyspace通知（notify-keyspace-events），
+         * 服务端禁用CONFIG命令时需要运维手动配置
+         */
+        private boolean configureNotifications = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public long getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(long timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public List<KeyPatternTtl> getKeyPatterns() {
+            return keyPatterns;
+        }
+
+        public void setKeyPatterns(List<KeyPatternTtl> keyPatterns) {
+            this.keyPatterns = keyPatterns;
+        }
+
+        public boolean isInvalidationEnabled() {
+            return invalidationEnabled;
+        }
+
+        public void setInvalidationEnabled(boolean invalidationEnabled) {
+            this.invalidationEnabled = invalidationEnabled;
+        }
+
+        public boolean isConfigureNotifications() {
+            return configureNotifications;
+        }
+
+        public void setConfigureNotifications(boolean configureNotifications) {
+            this.configureNotifications = configureNotifications;
+        }
+    }
+
+    /**
+     * 值压缩配置：RedisUtil/RedisClusterUtil的set/get以及编解码器读写，超过阈值的值压缩后写入。
+     */
+    public static class Compression {
+
+        /**
+         * 是否启用压缩，未启用时读取到压缩的值不会解压
+         */
+        private boolean enabled = false;
+
+        /**
+         * 压缩阈值，值的字节数小于该值时不压缩
+         */
+        private int thresholdBytes = 4096;
+
+        /**
+         * 压缩算法，DEFLATE或GZIP
+         */
+        private CompressionAlgorithm algorithm = CompressionAlgorithm.DEFLATE;
+
+        /**
+         * 压缩级别0-9，-1为默认级别
+         */
+        private int level = -1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getThresholdBytes() {
+            return thresholdBytes;
+        }
+
+        public void setThresholdBytes(int thresholdBytes) {
+            this.thresholdBytes = thresholdBytes;
+        }
+
+        public CompressionAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(CompressionAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+    }
+
+    /**
+     * 监控配置：classpath中有micrometer并且容器中有MeterRegistry时，记录命令耗时和连接池状态。
+     */
+    public static class Metrics {
+
+        /**
+         * 是否启用监控
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * 异步API配置：AsyncRedisUtil/AsyncRedisClusterUtil在独立的有界线程池中执行命令，返回CompletableFuture。
+     */
+    public static class Async {
+
+        /**
+         * 是否启用异步API
+         */
+        private boolean enabled = false;
+
+        /**
+         * 线程池线程数，使用虚拟线程时不生效
+         */
+        private int threads = 64;
+
+        /**
+         * 最大并发（执行中+排队）命令数，超过时调用线程等待
+         */
+        private int maxInFlight = 1024;
+
+        /**
+         * 并发数用满时调用线程最长等待时间(毫秒)，超时后返回的future以RejectedExecutionException结束，负数表示一直等待
+         */
+        private long acquireTimeoutMillis = 1000;
+
+        /**
+         * 是否使用虚拟线程（每个命令一个虚拟线程），需要Java 21+，低版本自动退回线程池
+         */
+        private boolean virtualThreads = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public long getAcquireTimeoutMillis() {
+            return acquireTimeoutMillis;
+        }
+
+        public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+            this.acquireTimeoutMillis = acquireTimeoutMillis;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+    }
+
+    /**
+     * 分布式锁配置：RedisLockRegistry。
+     */
+    public static class Lock {
+
+        /**
+         * 是否启用分布式锁
+         */
+        private boolean enabled = false;
+
+        /**
+         * 锁的key前缀
+         */
+        private String keyPrefix = "lock:";
+
+        /**
+         * 看门狗租约时间(毫秒)，每1/3租约时间续约一次
+         */
+        private long leaseTimeMillis = 30000;
+
+        /**
+         * 等待锁时最长重试间隔(毫秒)，收到解锁消息时立即重试
+         */
+        private long pollIntervalMillis = 500;
+
+        /**
+         * 是否订阅解锁消息
+         */
+        private boolean notifications = true;
+
+        /**
+         * 解锁消息频道
+         */
+        private String channel = "redis-lock:released";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public void setKeyPrefix(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+        }
+
+        public long getLeaseTimeMillis() {
+            return leaseTimeMillis;
+        }
+
+        public void setLeaseTimeMillis(long leaseTimeMillis) {
+            this.leaseTimeMillis = leaseTimeMillis;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public boolean isNotifications() {
+            return notifications;
+        }
+
+        public void setNotifications(boolean notifications) {
+            this.notifications = notifications;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Spring Cache配置：RedisCacheManager。
+     */
+    public static class Cache {
+
+        /**
+         * 是否启用RedisCacheManager
+         */
+        private boolean enabled = false;
+
+        /**
+         * key前缀，redis中的key为keyPrefix + 缓存名称 + "::" + key
+         */
+        private String keyPrefix = "cache:";
+
+        /**
+         * 默认过期时间(秒)，小于等于0表示不过期
+         */
+        private long timeToLive = 0;
+
+        /**
+         * 每个缓存的过期时间(秒)，如jedis.cache.expires.users=600
+         */
+        private Map<String, Long> expires = new LinkedHashMap<>();
+
+        /**
+         * 启动时创建的缓存，配置后不再按名称动态创建缓存
+         */
+        private List<String> cacheNames = new ArrayList<>();
+
+        /**
+         * 是否缓存null值
+         */
+        private boolean cacheNullValues = true;
+
+        /**
+         * 是否使用本地缓存（L1），需要同时启用jedis.near-cache.enabled
+         */
+        private boolean nearCache = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public void setKeyPrefix(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+        }
+
+        public long getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(long timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Map<String, Long> getExpires() {
+            return expires;
+        }
+
+        public void setExpires(Map<String, Long> expires) {
+            this.expires = expires;
+        }
+
+        public List<String> getCacheNames() {
+            return cacheNames;
+        }
+
+        public void setCacheNames(List<String> cacheNames) {
+            this.cacheNames = cacheNames;
+        }
+
+        public boolean isCacheNullValues() {
+            return cacheNullValues;
+        }
+
+        public void setCacheNullValues(boolean cacheNullValues) {
+            this.cacheNullValues = cacheNullValues;
+        }
+
+        public boolean isNearCache() {
+            return nearCache;
+        }
+
+        public void setNearCache(boolean nearCache) {
+            this.nearCache = nearCache;
+        }
+    }
+
+    /**
+     * 请求合并配置：同一个key的并发读取共享一次redis调用。
+     */
+    public static class SingleFlight {
+
+        /**
+         * 是否启用请求合并
+         */
+        private boolean enabled = false;
+
+        /**
+         * 等待执行中的调用的最长时间(毫秒)，超时时RedisUtil打印日志返回null，RedisClusterUtil抛出SingleFlightWaitException
+         */
+        private long maxWaitMillis = 3000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public void setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+        }
+    }
+
+    /**
+     * 自动pipeline配置：并发执行的单key命令按分片/节点合并为一次pipeline往返。
+     */
+    public static class AutoPipeline {
+
+        /**
+         * 是否启用自动pipeline
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每批最多的命令数
+         */
+        private int maxBatchSize = 128;
+
+        /**
+         * 发送前等待更多命令的时间(微秒)，0表示不等待（上一批执行期间到达的命令自然组成下一批）
+         */
+        private long lingerMicros = 0;
+
+        /**
+         * 命令排队的最长时间(毫秒)，超时抛出JedisException
+         */
+        private long timeoutMillis = 2000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public long getLingerMicros() {
+            return lingerMicros;
+        }
+
+        public void setLingerMicros(long lingerMicros) {
+            this.lingerMicros = lingerMicros;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    /**
+     * 集群版从节点读取配置：只读命令按策略路由到从节点，可选对冲读取。启用本地缓存时从节点读取的值不放入本地缓存。
+     */
+    public static class Read {
+
+        /**
+         * 读取策略：MASTER（默认）、REPLICA_PREFERRED、NEAREST
+         */
+        private ReadPolicy policy = ReadPolicy.MASTER;
+
+        /**
+         * 是否启用对冲读取：第一个请求超过延迟百分位仍未返回时向另一个节点发送第二个请求
+         */
+        private boolean hedgeEnabled = false;
+
+        /**
+         * 触发对冲读取的延迟百分位
+         */
+        private double hedgePercentile = 95;
+
+        /**
+         * 触发对冲读取的最短等待时间(毫秒)
+         */
+        private long hedgeMinDelayMillis = 2;
+
+        /**
+         * 执行对冲读取的最大线程数，线程用完时不再对冲
+         */
+        private int hedgeThreads = 64;
+
+        /**
+         * 从节点拓扑（CLUSTER SLOTS）刷新间隔(毫秒)
+         */
+        private long refreshIntervalMillis = 10000;
+
+        public ReadPolicy getPolicy() {
+            return policy;
+        }
+
+        public void setPolicy(ReadPolicy policy) {
+            this.policy = policy;
+        }
+
+        public boolean isHedgeEnabled() {
+            return hedgeEnabled;
+        }
+
+        public void setHedgeEnabled(boolean hedgeEnabled) {
+            this.hedgeEnabled = hedgeEnabled;
+        }
+
+        public double getHedgePercentile() {
+            return hedgePercentile;
+        }
+
+        public void setHedgePercentile(double hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+        }
+
+        public long getHedgeMinDelayMillis() {
+            return hedgeMinDelayMillis;
+        }
+
+        public void setHedgeMinDelayMillis(long hedgeMinDelayMillis) {
+            this.hedgeMinDelayMillis = hedgeMinDelayMillis;
+        }
+
+        public int getHedgeThreads() {
+            return hedgeThreads;
+        }
+
+        public void setHedgeThreads(int hedgeThreads) {
+            this.hedgeThreads = hedgeThreads;
+        }
+
+        public long getRefreshIntervalMillis() {
+            return refreshIntervalMillis;
+        }
+
+        public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+            this.refreshIntervalMillis = refreshIntervalMillis;
+        }
+    }
+
+    /**
+     * 热点key检测配置：按采样率抽样命令，统计每个时间窗口访问最多的key。
+     */
+    public static class HotKeys {
+
+        /**
+         * 是否启用热点key检测
+         */
+        private boolean enabled = false;
+
+        /**
+         * 采样率，(0, 1]，1表示每个命令都统计
+         */
+        private double sampleRate = 0.01;
+
+        /**
+         * 统计窗口长度(秒)
+         */
+        private long windowSeconds = 10;
+
+        /**
+         * 每个维度（全部、每种命令、每个节点）保留的key个数
+         */
+        private int topK = 10;
+
+        /**
+         * 每秒访问次数超过该值的key打印WARN日志，0表示不打印
+         */
+        private double warnThreshold = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public void setWindowSeconds(long windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+
+        public double getWarnThreshold() {
+            return warnThreshold;
+        }
+
+        public void setWarnThreshold(double warnThreshold) {
+            this.warnThreshold = warnThreshold;
+        }
+    }
+
+    /**
+     * 大key检测配置：统计单key命令写入值和返回值的大小，超过阈值时记录并打印WARN日志。
+     */
+    public static class BigKeys {
+
+        /**
+         * 是否启用大key检测
+         */
+        private boolean enabled = false;
+
+        /**
+         * 写入值或返回值的字节数阈值，0表示不检查
+         */
+        private long byteThreshold = 10240;
+
+        /**
+         * 写入或返回的元素个数阈值（hash的field数、list的元素数等），0表示不检查
+         */
+        private long elementThreshold = 5000;
+
+        /**
+         * 保留最近超过阈值的命令个数
+         */
+        private int capacity = 100;
+
+        /**
+         * key模式，支持*通配符，例如user:*；未匹配的key把含数字的段替换为*
+         */
+        private List<String> keyPatterns = new ArrayList<>();
+
+        /**
+         * 最多统计的命令和key模式组合数，超过后统计到(other)
+         */
+        private int maxPatterns = 1000;
+
+        /**
+         * 同一命令和key模式打印WARN日志的最小间隔(秒)
+         */
+        private long logIntervalSeconds = 60;
+
+        /**
+         * 按命令和key模式累计大小的采样率，(0, 1]，1表示每个命令都统计；超过阈值的命令始终记录
+         */
+        private double sampleRate = 0.1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getByteThreshold() {
+            return byteThreshold;
+        }
+
+        public void setByteThreshold(long byteThreshold) {
+            this.byteThreshold = byteThreshold;
+        }
+
+        public long getElementThreshold() {
+            return elementThreshold;
+        }
+
+        public void setElementThreshold(long elementThreshold) {
+            this.elementThreshold = elementThreshold;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public List<String> getKeyPatterns() {
+            return keyPatterns;
+        }
+
+        public void setKeyPatterns(List<String> keyPatterns) {
+            this.keyPatterns = keyPatterns;
+        }
+
+        public int getMaxPatterns() {
+            return maxPatterns;
+        }
+
+        public void setMaxPatterns(int maxPatterns) {
+            this.maxPatterns = maxPatterns;
+        }
+
+        public long getLogIntervalSeconds() {
+            return logIntervalSeconds;
+        }
+
+        public void setLogIntervalSeconds(long logIntervalSeconds) {
+            this.logIntervalSeconds = logIntervalSeconds;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    /**
+     * 客户端慢命令日志配置：耗时包括等待连接、网络和解析返回值。
+     */
+    public static class SlowLog {
+
+        /**
+         * 是否启用客户端慢命令日志
+         */
+        private boolean enabled = false;
+
+        /**
+         * 慢命令阈值(毫秒)
+         */
+        private long thresholdMillis = 10;
+
+        /**
+         * 保留最近的慢命令个数
+         */
+        private int capacity = 128;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getThresholdMillis() {
+            return thresholdMillis;
+        }
+
+        public void setThresholdMillis(long thresholdMillis) {
+            this.thresholdMillis = thresholdMillis;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * 集群版客户端配置：最大重定向次数和拓扑主动刷新。
+     */
+    public static class Cluster {
+
+        /**
+         * MOVED/ASK重定向和连接失败的最大重试次数
+         */
+        private int maxRedirects = 3;
+
+        /**
+         * 拓扑主动刷新
+         */
+        private TopologyRefresh topologyRefresh = new TopologyRefresh();
+
+        public int getMaxRedirects() {
+            return maxRedirects;
+        }
+
+        public void setMaxRedirects(int maxRedirects) {
+            this.maxRedirects = maxRedirects;
+        }
+
+        public TopologyRefresh getTopologyRefresh() {
+            return topologyRefresh;
+        }
+
+        public void setTopologyRefresh(TopologyRefresh topologyRefresh) {
+            this.topologyRefresh = topologyRefresh;
+        }
+    }
+
+    /**
+     * 集群拓扑主动刷新配置：定时和遇到重定向时执行CLUSTER SLOTS，新节点预热后再接入流量。
+     */
+    public static class TopologyRefresh {
+
+        /**
+         * 是否启用拓扑主动刷新
+         */
+        private boolean enabled = false;
+
+        /**
+         * 定时刷新间隔(毫秒)，0表示不定时刷新
+         */
+        private long periodMillis = 30000;
+
+        /**
+         * MOVED和连接失败时是否刷新（合并执行，其他线程等待同一次刷新）
+         */
+        private boolean refreshOnRedirect = true;
+
+        /**
+         * 节点移除后延迟关闭连接池的时间(毫秒)，等待已借出的连接归还
+         */
+        private long retireDelayMillis = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPeriodMillis() {
+            return periodMillis;
+        }
+
+        public void setPeriodMillis(long periodMillis) {
+            this.periodMillis = periodMillis;
+        }
+
+        public boolean isRefreshOnRedirect() {
+            return refreshOnRedirect;
+        }
+
+        public void setRefreshOnRedirect(boolean refreshOnRedirect) {
+            this.refreshOnRedirect = refreshOnRedirect;
+        }
+
+        public long getRetireDelayMillis() {
+            return retireDelayMillis;
+        }
+
+        public void setRetireDelayMillis(long retireDelayMillis) {
+            this.retireDelayMillis = retireDelayMillis;
+        }
+    }
+
+    /**
+     * 单机版多分片配置：配置shards后ShardedJedisPool按一致性hash环分片，不再只使用spring.redis.host一个节点
+     * （spring.redis.host仍然需要配置，用于启用单机版）。
+     */
+    public static class Sharding {
+
+        /**
+         * 分片列表，为空时只有spring.redis.host一个分片
+         */
+        private List<Shard> shards = new ArrayList<>();
+
+        /**
+         * 权重为1的分片的虚拟节点数
+         */
+        private int virtualNodes = 160;
+
+        /**
+         * hash算法：ketama、murmur
+         */
+        private ShardHashing hashing = ShardHashing.KETAMA;
+
+        /**
+         * 是否使用hash tag（key中第一个{...}之间的内容参与hash）
+         */
+        private boolean hashTags = true;
+
+        /**
+         * 分片迁移
+         */
+        private Rebalance rebalance = new Rebalance();
+
+        public List<Shard> getShards() {
+            return shards;
+        }
+
+        public void setShards(List<Shard> shards) {
+            this.shards = shards;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+
+        public ShardHashing getHashing() {
+            return hashing;
+        }
+
+        public void setHashing(ShardHashing hashing) {
+            this.hashing = hashing;
+        }
+
+        public boolean isHashTags() {
+            return hashTags;
+        }
+
+        public void setHashTags(boolean hashTags) {
+            this.hashTags = hashTags;
+        }
+
+        public Rebalance getRebalance() {
+            return rebalance;
+        }
+
+        public void setRebalance(Rebalance rebalance) {
+            this.rebalance = rebalance;
+        }
+    }
+
+    /**
+     * 一个分片。
+     */
+    public static class Shard {
+
+        /**
+         * 主机地址
+         */
+        private String host;
+
+        /**
+         * 端口
+         */
+        private int port = 6379;
+
+        /**
+         * 权重，虚拟节点数为virtual-nodes * weight
+         */
+        private int weight = 1;
+
+        /**
+         * 分片名称，决定虚拟节点的位置，默认为host:port。分片换了地址但数据不变时保持名称不变，key的分布就不会变化
+         */
+        private String name;
+
+        /**
+         * 密码，为空时使用spring.redis.password
+         */
+        private String password;
+
+        /**
+         * 数据库，为空时使用spring.redis.database
+         */
+        private Integer database;
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public Integer getDatabase() {
+            return database;
+        }
+
+        public void setDatabase(Integer database) {
+            this.database = database;
+        }
+    }
+
+    /**
+     * 分片迁移配置。
+     */
+    public static class Rebalance {
+
+        /**
+         * 是否启用分片迁移工具（ShardRebalancer）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每次SCAN的COUNT参数，也是每批迁移的最大key数
+         */
+        private int scanCount = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getScanCount() {
+            return scanCount;
+        }
+
+        public void setScanCount(int scanCount) {
+            this.scanCount = scanCount;
+        }
+    }
+
+    /**
+     * 哨兵模式配置，主节点名称和哨兵地址使用spring.redis.sentinel.master和spring.redis.sentinel.nodes。
+     */
+    public static class Sentinel {
+
+        /**
+         * 订阅哨兵断开后的重连间隔(毫秒)
+         */
+        private long subscribeRetryMillis = 1000;
+
+        /**
+         * 主从切换后等待新主节点可用的最长时间(毫秒)
+         */
+        private long recoveryTimeoutMillis = 10000;
+
+        public long getSubscribeRetryMillis() {
+            return subscribeRetryMillis;
+        }
+
+        public void setSubscribeRetryMillis(long subscribeRetryMillis) {
+            this.subscribeRetryMillis = subscribeRetryMillis;
+        }
+
+        public long getRecoveryTimeoutMillis() {
+            return recoveryTimeoutMillis;
+        }
+
+        public void setRecoveryTimeoutMillis(long recoveryTimeoutMillis) {
+            this.recoveryTimeoutMillis = recoveryTimeoutMillis;
+        }
+    }
+
+    /**
+     * 熔断和并发隔离配置：节点故障或变慢时快速失败，不再让每个调用等待连接超时和读超时。
+     */
+    public static class CircuitBreaker {
+
+        /**
+         * 是否启用按节点熔断（RedisUtil按分片，RedisClusterUtil按key所在slot的主节点）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 统计失败率和慢调用率的滑动窗口(秒)，小于1时按1
+         */
+        private int windowSeconds = 10;
+
+        /**
+         * 窗口内调用数达到该值才计算失败率和慢调用率
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 失败率阈值(百分比)，超过时熔断
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 慢调用阈值(毫秒)，包括等待连接的时间
+         */
+        private long slowCallDurationMillis = 500;
+
+        /**
+         * 慢调用率阈值(百分比)，超过时熔断
+         */
+        private int slowCallRateThreshold = 80;
+
+        /**
+         * 熔断后经过该时间进入半开状态，放行少量探测调用
+         */
+        private long waitInOpenMillis = 5000;
+
+        /**
+         * 半开状态放行的探测调用数，全部成功时恢复，任何一个失败或超时重新熔断
+         */
+        private int halfOpenCalls = 3;
+
+        /**
+         * 每个节点最大并发调用数（并发隔离），0表示不限制
+         */
+        private int maxConcurrentCalls = 0;
+
+        /**
+         * 超过最大并发调用数时的等待时间(毫秒)，等待期间阻塞调用线程，0表示立即失败
+         */
+        private long maxWaitMillis = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public void setWindowSeconds(int windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public long getSlowCallDurationMillis() {
+            return slowCallDurationMillis;
+        }
+
+        public void setSlowCallDurationMillis(long slowCallDurationMillis) {
+            this.slowCallDurationMillis = slowCallDurationMillis;
+        }
+
+        public int getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public long getWaitInOpenMillis() {
+            return waitInOpenMillis;
+        }
+
+        public void setWaitInOpenMillis(long waitInOpenMillis) {
+            this.waitInOpenMillis = waitInOpenMillis;
+        }
+
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public void setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+        }
+    }
+
+    /**
+     * key模式对应的过期时间。
+     */
+    public static class KeyPatternTtl {
+
+        /**
+         * key模式，支持*通配符，例如user:*
+         */
+        private String pattern;
+
+        /**
+         * 过期时间(秒)，0表示匹配的key不缓存
+         */
+        private long timeToLive;
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public long getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(long timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+}
@@ -1,23 +1,68 @@
 package com.example.redis.crud.starter.configuration;
 
+import com.example.redis.crud.starter.async.AsyncRedisClusterUtil;
+import com.example.redis.crud.starter.async.AsyncRedisUtil;
+import com.example.redis.crud.starter.async.RedisAsyncExecutor;
+import com.example.redis.crud.starter.breaker.CircuitBreakers;
+import com.example.redis.crud.starter.cache.CacheCommands;
+import com.example.redis.crud.starter.cache.ClusterCacheCommands;
+import com.example.redis.crud.starter.bigkey.BigKeyDetector;
+import com.example.redis.crud.starter.cache.NearCache;
+import com.example.redis.crud.starter.cache.NearCacheInvalidator;
+import com.example.redis.crud.starter.cache.RedisCacheManager;
+import com.example.redis.crud.starter.cache.ShardedCacheCommands;
+import com.example.redis.crud.starter.cache.SingleFlight;
+import com.example.redis.crud.starter.codec.JdkSerializationCodec;
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.component.AutoPipelining;
+import com.example.redis.crud.starter.component.ClusterTopologyRefresher;
+import com.example.redis.crud.starter.component.RedisClusterUtil;
+import com.example.redis.crud.starter.component.ReplicaReads;
+import com.example.redis.crud.starter.component.RedisUtil;
+import com.example.redis.crud.starter.component.TopologyRefreshingJedisCluster;
+import com.example.redis.crud.starter.compress.ValueCompressor;
+import com.example.redis.crud.starter.hotkey.HotKeyDetector;
+import com.example.redis.crud.starter.lock.ClusterLockCommands;
+import com.example.redis.crud.starter.lock.LockCommands;
+import com.example.redis.crud.starter.lock.RedisLockRegistry;
+import com.example.redis.crud.starter.lock.ShardedLockCommands;
+import com.example.redis.crud.starter.metrics.RedisCommandMetrics;
+import com.example.redis.crud.starter.pool.PoolPrewarmer;
+import com.example.redis.crud.starter.pool.PooledShardedJedisPool;
+import com.example.redis.crud.starter.sentinel.SentinelFailoverWatcher;
+import com.example.redis.crud.starter.sentinel.SentinelJedisPool;
+import com.example.redis.crud.starter.sentinel.SentinelShardedJedisPool;
+import com.example.redis.crud.starter.shard.ConsistentHashShardedJedisPool;
+import com.example.redis.crud.starter.shard.ShardRebalancer;
+import com.example.redis.crud.starter.shard.ShardRing;
+import com.example.redis.crud.starter.slowlog.SlowCommandLog;
 import com.sun.jndi.toolkit.url.Uri;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import redis.clients.jedis.*;
+import redis.clients.util.Pool;
 
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -28,12 +73,18 @@ import java.util.Set;
  * @date 2019/10/30 11:36
  */
 @Configuration
-@EnableConfigurationProperties(RedisProperties.class) // 激活配置属性类
+@EnableConfigurationProperties({RedisProperties.class, JedisProperties.class, JedisPoolProperties.class}) // 激活配置属性类
 public class RedisAutoConfiguration {
 
     @Autowired
     private RedisProperties redisProperties;
 
+    @Autowired
+    private JedisProperties jedisProperties;
+
+    @Autowired
+    private JedisPoolProperties jedisPoolProperties;
+
     /**
      * redis集群版bean初始化。
      *
@@ -50,17 +101,39 @@ public class RedisAutoConfiguration {
             hostAndPortSet.add(getHostAndPort(node));
         }
 
+        JedisProperties.Cluster cluster = jedisProperties.getCluster();
+        if (cluster.getTopologyRefresh().isEnabled()) {
+            // 拓扑主动刷新：MOVED之后的slot缓存刷新交给ClusterTopologyRefresher
+            String password = StringUtils.hasText(redisProperties.getPassword()) ? redisProperties.getPassword() : null;
+            return new TopologyRefreshingJedisCluster(hostAndPortSet, redisProperties.getTimeout(),
+                    cluster.getMaxRedirects(), password, getPoolConfig());
+        }
+
         JedisCluster jedisCluster = null;
         if (StringUtils.hasText(redisProperties.getPassword())) {
             jedisCluster = new JedisCluster(hostAndPortSet, redisProperties.getTimeout(), redisProperties.getTimeout(),
-                    3, redisProperties.getPassword(), getPoolConfig());
+                    cluster.getMaxRedirects(), redisProperties.getPassword(), getPoolConfig());
         } else {
             jedisCluster = new JedisCluster(hostAndPortSet, redisProperties.getTimeout(), redisProperties.getTimeout(),
-                    3, getPoolConfig());
+                    cluster.getMaxRedirects(), getPoolConfig());
         }
         return jedisCluster;
     }
 
+    /**
+     * 集群拓扑主动刷新bean初始化，jedis.cluster.topology-refresh.enabled=true时启用（只用于集群版）。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.cluster.topology-refresh.enabled", havingValue = "true")
+    public ClusterTopologyRefresher clusterTopologyRefresher(JedisCluster jedisCluster) {
+        JedisProperties.TopologyRefresh properties = jedisProperties.getCluster().getTopologyRefresh();
+        return new ClusterTopologyRefresher(jedisCluster, properties.getPeriodMillis(),
+                properties.isRefreshOnRedirect(), Math.max(1, getPoolConfig().getMinIdle()),
+                properties.getRetireDelayMillis(), getTimeout());
+    }
+
     /**
      * redis单击版JedisPool bean初始化。（不推荐）
      * 使用示例：
@@ -83,6 +156,7 @@ public class RedisAutoConfiguration {
     @Bean
     @ConditionalOnProperty(value = "spring.redis.host")
     @ConditionalOnMissingBean(JedisCluster.class)  // 如果集群模式JedisCluster bean创建，则不执行
+    @ConditionalOnExpression("'${spring.redis.sentinel.master:}'.isEmpty()")  // 哨兵模式时不执行
     public JedisPool jedisPool() {
         String host = redisProperties.getHost();
         Integer port = redisProperties.getPort();
@@ -110,13 +184,374 @@ public class RedisAutoConfiguration {
      *   }
      *
      * 使用示例更多参考：https://www.programcreek.com/java-api-examples/index.php?api=redis.clients.jedis.JedisShardInfo
+     * 配置jedis.sharding.shards时按一致性hash环（ShardRing）分片，支持权重、虚拟节点数、ketama算法和hash tag。
      * @return
      */
     @Bean
     @ConditionalOnProperty(value = "spring.redis.host")
     @ConditionalOnMissingBean(JedisCluster.class)  // 如果集群模式JedisCluster bean创建，则不执行
+    @ConditionalOnExpression("'${spring.redis.sentinel.master:}'.isEmpty()")  // 哨兵模式时不执行
     public ShardedJedisPool shardedJedisPool() throws Exception {
+        if (!jedisProperties.getSharding().getShards().isEmpty()) {
+            return new ConsistentHashShardedJedisPool(getPoolConfig(), shardRing());
+        }
+        return new PooledShardedJedisPool(getPoolConfig(), shardInfos());
+    }
+
+    /**
+     * 哨兵模式连接池bean初始化，配置spring.redis.sentinel.master时启用，此时不再创建spring.redis.host的连接池。
+     * 使用示例：
+     * try (Jedis jedis = jedisSentinelPool.getResource()) {
+     *     jedis.set("hello", "jedis");
+     * }
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "spring.redis.sentinel.master")
+    public SentinelJedisPool jedisSentinelPool() {
+        RedisProperties.Sentinel sentinel = redisProperties.getSentinel();
+        Assert.hasText(sentinel.getNodes(), "The property 'spring.redis.sentinel.nodes' must not be empty.");
+        Set<String> sentinels = new LinkedHashSet<>(Arrays.asList(
+                StringUtils.trimArrayElements(StringUtils.commaDelimitedListToStringArray(sentinel.getNodes()))));
+        String password = StringUtils.hasText(redisProperties.getPassword()) ? redisProperties.getPassword() : null;
+        return new SentinelJedisPool(sentinel.getMaster(), sentinels, getPoolConfig(), getTimeout(), password,
+                redisProperties.getDatabase());
+    }
+
+    /**
+     * 哨兵模式下RedisUtil使用的ShardedJedisPool，只有一个分片，即当前主节点。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "spring.redis.sentinel.master")
+    public SentinelShardedJedisPool sentinelShardedJedisPool(SentinelJedisPool jedisSentinelPool) {
+        String password = StringUtils.hasText(redisProperties.getPassword()) ? redisProperties.getPassword() : null;
+        return new SentinelShardedJedisPool(getPoolConfig(), jedisSentinelPool.getCurrentHostMaster(), getTimeout(),
+                password, redisProperties.getDatabase());
+    }
+
+    /**
+     * 哨兵模式主从切换监听bean初始化：订阅+switch-master，立即切换连接池并记录切换耗时。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "spring.redis.sentinel.master")
+    public SentinelFailoverWatcher sentinelFailoverWatcher(SentinelJedisPool jedisSentinelPool,
+                                                           SentinelShardedJedisPool sentinelShardedJedisPool) {
+        RedisProperties.Sentinel sentinel = redisProperties.getSentinel();
+        List<HostAndPort> sentinels = new ArrayList<>();
+        for (String node : StringUtils.commaDelimitedListToStringArray(sentinel.getNodes())) {
+            sentinels.add(getHostAndPort(node.trim()));
+        }
+        JedisProperties.Sentinel properties = jedisProperties.getSentinel();
+        return new SentinelFailoverWatcher(sentinel.getMaster(), sentinels, jedisSentinelPool,
+                sentinelShardedJedisPool, getTimeout(), Math.max(1, getPoolConfig().getMinIdle()),
+                properties.getSubscribeRetryMillis(), properties.getRecoveryTimeoutMillis());
+    }
+
+    /**
+     * 分片迁移工具bean初始化，jedis.sharding.rebalance.enabled=true时启用（需要配置jedis.sharding.shards）。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.sharding.rebalance.enabled", havingValue = "true")
+    public ShardRebalancer shardRebalancer(ShardedJedisPool shardedJedisPool) {
+        Assert.state(shardedJedisPool instanceof ConsistentHashShardedJedisPool,
+                "Shard rebalancing requires 'jedis.sharding.shards'.");
+        return new ShardRebalancer(((ConsistentHashShardedJedisPool) shardedJedisPool).getRing(),
+                jedisProperties.getSharding().getRebalance().getScanCount());
+    }
+
+    /**
+     * 本地缓存（L1）bean初始化，jedis.near-cache.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.near-cache.enabled", havingValue = "true")
+    public NearCache nearCache() {
+        return new NearCache(jedisProperties.getNearCache());
+    }
+
+    /**
+     * 本地缓存失效监听：集群模式订阅每个节点，单机版分片模式订阅每个分片，哨兵模式订阅当前主节点，主从切换后重新订阅。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.near-cache.enabled", havingValue = "true")
+    public NearCacheInvalidator nearCacheInvalidator(NearCache nearCache, ObjectProvider<JedisCluster> jedisCluster,
+                                                     ObjectProvider<SentinelShardedJedisPool> sentinelShardedJedisPool,
+                                                     ObjectProvider<SentinelFailoverWatcher> sentinelFailoverWatcher) {
+        JedisProperties.NearCache properties = jedisProperties.getNearCache();
+        List<JedisShardInfo> endpoints = new ArrayList<>();
+        if (properties.isInvalidationEnabled()) {
+            SentinelShardedJedisPool sentinelPool = sentinelShardedJedisPool.getIfAvailable();
+            if (sentinelPool != null) {
+                NearCacheInvalidator invalidator = new NearCacheInvalidator(nearCache,
+                        () -> sentinelPool.getShards().get(0), properties.isConfigureNotifications());
+                SentinelFailoverWatcher watcher = sentinelFailoverWatcher.getIfAvailable();
+                if (watcher != null) {
+                    watcher.addFailoverListener(master -> invalidator.resubscribe());
+                }
+                return invalidator;
+            }
+            JedisCluster cluster = jedisCluster.getIfAvailable();
+            if (cluster != null) {
+                for (String node : cluster.getClusterNodes().keySet()) {
+                    HostAndPort hostAndPort = getHostAndPort(node);
+                    JedisShardInfo endpoint = new JedisShardInfo(hostAndPort.getHost(), hostAndPort.getPort(),
+                            getTimeout());
+                    if (StringUtils.hasText(redisProperties.getPassword())) {
+                        endpoint.setPassword(redisProperties.getPassword());
+                    }
+                    endpoints.add(endpoint);
+                }
+            } else if (StringUtils.hasText(redisProperties.getHost())) {
+                endpoints.addAll(shardInfos());
+            }
+        }
+        return new NearCacheInvalidator(nearCache, endpoints, properties.isConfigureNotifications());
+    }
+
+    /**
+     * 请求合并bean初始化，jedis.single-flight.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.single-flight.enabled", havingValue = "true")
+    public SingleFlight singleFlight() {
+        return new SingleFlight(jedisProperties.getSingleFlight().getMaxWaitMillis());
+    }
+
+    /**
+     * 自动pipeline bean初始化，jedis.auto-pipeline.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.auto-pipeline.enabled", havingValue = "true")
+    public AutoPipelining autoPipelining() {
+        JedisProperties.AutoPipeline properties = jedisProperties.getAutoPipeline();
+        return new AutoPipelining(properties.getMaxBatchSize(), properties.getLingerMicros(),
+                properties.getTimeoutMillis());
+    }
+
+    /**
+     * 集群版从节点读取配置bean初始化，设置了jedis.read.policy时启用，MASTER时RedisClusterUtil仍然只读主节点。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.read.policy")
+    public ReplicaReads replicaReads() {
+        JedisProperties.Read properties = jedisProperties.getRead();
+        String password = StringUtils.hasText(redisProperties.getPassword()) ? redisProperties.getPassword() : null;
+        return new ReplicaReads(properties.getPolicy(), properties.isHedgeEnabled(), properties.getHedgePercentile(),
+                properties.getHedgeMinDelayMillis(), properties.getHedgeThreads(),
+                properties.getRefreshIntervalMillis(), getPoolConfig(), getTimeout(), password);
+    }
+
+    /**
+     * 热点key检测bean初始化，jedis.hot-keys.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.hot-keys.enabled", havingValue = "true")
+    public HotKeyDetector hotKeyDetector() {
+        JedisProperties.HotKeys properties = jedisProperties.getHotKeys();
+        return new HotKeyDetector(properties.getSampleRate(), properties.getWindowSeconds() * 1000,
+                properties.getTopK(), properties.getWarnThreshold());
+    }
+
+    /**
+     * 大key检测bean初始化，jedis.big-keys.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.big-keys.enabled", havingValue = "true")
+    public BigKeyDetector bigKeyDetector() {
+        JedisProperties.BigKeys properties = jedisProperties.getBigKeys();
+        return new BigKeyDetector(properties.getByteThreshold(), properties.getElementThreshold(),
+                properties.getCapacity(), properties.getKeyPatterns(), properties.getMaxPatterns(),
+                properties.getLogIntervalSeconds() * 1000, properties.getSampleRate());
+    }
+
+    /**
+     * 客户端慢命令日志bean初始化，jedis.slow-log.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.slow-log.enabled", havingValue = "true")
+    public SlowCommandLog slowCommandLog() {
+        JedisProperties.SlowLog properties = jedisProperties.getSlowLog();
+        return new SlowCommandLog(properties.getThresholdMillis(), properties.getCapacity());
+    }
+
+    /**
+     * 按节点熔断bean初始化，jedis.circuit-breaker.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.circuit-breaker.enabled", havingValue = "true")
+    public CircuitBreakers circuitBreakers() {
+        return new CircuitBreakers(jedisProperties.getCircuitBreaker());
+    }
+
+    /**
+     * 值压缩bean初始化，jedis.compression.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.compression.enabled", havingValue = "true")
+    public ValueCompressor valueCompressor() {
+        JedisProperties.Compression properties = jedisProperties.getCompression();
+        return new ValueCompressor(properties.getThresholdBytes(), properties.getAlgorithm(), properties.getLevel());
+    }
+
+    /**
+     * 连接池预热bean初始化，jedis.pool.prewarm=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.pool.prewarm", havingValue = "true")
+    public PoolPrewarmer poolPrewarmer(ObjectProvider<JedisPool> jedisPool,
+                                       ObjectProvider<ShardedJedisPool> shardedJedisPool,
+                                       ObjectProvider<JedisCluster> jedisCluster,
+                                       ObjectProvider<JedisSentinelPool> jedisSentinelPool) {
+        Map<String, Pool<?>> pools = new LinkedHashMap<>();
+        JedisPool pool = jedisPool.getIfAvailable();
+        if (pool != null) {
+            pools.put("jedisPool", pool);
+        }
+        JedisSentinelPool sentinelPool = jedisSentinelPool.getIfAvailable();
+        if (sentinelPool != null) {
+            pools.put("jedisSentinelPool", sentinelPool);
+        }
+        ShardedJedisPool shardedPool = shardedJedisPool.getIfAvailable();
+        if (shardedPool != null) {
+            pools.put("shardedJedisPool", shardedPool);
+        }
+        JedisCluster cluster = jedisCluster.getIfAvailable();
+        if (cluster != null) {
+            pools.putAll(cluster.getClusterNodes());
+        }
+        return new PoolPrewarmer(pools, getPoolConfig().getMinIdle(), jedisPoolProperties.getPrewarmTimeoutMillis());
+    }
+
+    /**
+     * 异步API执行器bean初始化，jedis.async.enabled=true时启用。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.async.enabled", havingValue = "true")
+    public RedisAsyncExecutor redisAsyncExecutor() {
+        JedisProperties.Async properties = jedisProperties.getAsync();
+        return new RedisAsyncExecutor(properties.getThreads(), properties.getMaxInFlight(),
+                properties.getAcquireTimeoutMillis(), properties.isVirtualThreads());
+    }
+
+    /**
+     * redis单击版分片模式异步工具类bean初始化。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.async.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(JedisCluster.class)
+    public AsyncRedisUtil asyncRedisUtil(RedisUtil redisUtil, RedisAsyncExecutor redisAsyncExecutor) {
+        return new AsyncRedisUtil(redisUtil, redisAsyncExecutor);
+    }
+
+    /**
+     * redis集群版异步工具类bean初始化。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.async.enabled", havingValue = "true")
+    public AsyncRedisClusterUtil asyncRedisClusterUtil(RedisClusterUtil redisClusterUtil,
+                                                       RedisAsyncExecutor redisAsyncExecutor) {
+        return new AsyncRedisClusterUtil(redisClusterUtil, redisAsyncExecutor);
+    }
+
+    /**
+     * 分布式锁注册表bean初始化，jedis.lock.enabled=true时启用，集群版优先。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.lock.enabled", havingValue = "true")
+    public RedisLockRegistry redisLockRegistry(ObjectProvider<JedisCluster> jedisCluster,
+                                               ObjectProvider<ShardedJedisPool> shardedJedisPool,
+                                               ObjectProvider<RedisCommandMetrics> commandMetrics) {
+        JedisCluster cluster = jedisCluster.getIfAvailable();
+        LockCommands commands = cluster != null ? new ClusterLockCommands(cluster)
+                : new ShardedLockCommands(shardedJedisPool.getObject());
+        RedisCommandMetrics metrics = commandMetrics.getIfAvailable();
+        JedisProperties.Lock properties = jedisProperties.getLock();
+        return new RedisLockRegistry(commands, properties.getKeyPrefix(), properties.getLeaseTimeMillis(),
+                properties.getPollIntervalMillis(), properties.getChannel(), properties.isNotifications(),
+                metrics != null ? metrics : RedisCommandMetrics.NONE);
+    }
+
+    /**
+     * Spring Cache管理器bean初始化，jedis.cache.enabled=true时启用，集群版优先。
+     * 默认使用JDK序列化，可以通过名称为redisCacheCodec的RedisCodec<Object> bean替换。
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jedis.cache.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(CacheManager.class)
+    public RedisCacheManager cacheManager(ObjectProvider<JedisCluster> jedisCluster,
+                                          ObjectProvider<RedisClusterUtil> redisClusterUtil,
+                                          ObjectProvider<RedisUtil> redisUtil,
+                                          ObjectProvider<NearCache> nearCache,
+                                          @Qualifier("redisCacheCodec") ObjectProvider<RedisCodec<Object>> codec) {
+        JedisProperties.Cache properties = jedisProperties.getCache();
+        CacheCommands commands = jedisCluster.getIfAvailable() != null
+                ? new ClusterCacheCommands(redisClusterUtil.getObject())
+                : new ShardedCacheCommands(redisUtil.getObject());
+        RedisCodec<Object> cacheCodec = codec.getIfAvailable();
+        return new RedisCacheManager(commands, cacheCodec != null ? cacheCodec : new JdkSerializationCodec(),
+                properties.isNearCache() ? nearCache.getIfAvailable() : null, properties);
+    }
+
+    /**
+     * 分片节点信息：配置了jedis.sharding.shards时使用配置的分片，否则只有spring.redis.host一个分片。
+     * @return
+     */
+    private List<JedisShardInfo> shardInfos() {
         List<JedisShardInfo> shards = new ArrayList<>();
+        if (!jedisProperties.getSharding().getShards().isEmpty()) {
+            for (JedisProperties.Shard shard : jedisProperties.getSharding().getShards()) {
+                Assert.hasText(shard.getHost(), "The property 'jedis.sharding.shards[].host' must not be empty.");
+                JedisShardInfo shardInfo = new JedisShardInfo(shard.getHost(), shard.getName(), shard.getPort(),
+                        getTimeout(), shard.getWeight());
+                setDatabase(shardInfo,
+                        shard.getDatabase() != null ? shard.getDatabase() : redisProperties.getDatabase());
+                String password = StringUtils.hasText(shard.getPassword()) ? shard.getPassword()
+                        : redisProperties.getPassword();
+                if (StringUtils.hasText(password)) {
+                    shardInfo.setPassword(password);
+                }
+                shards.add(shardInfo);
+            }
+            return shards;
+        }
         /** 添加节点1的主机信息 */
         JedisShardInfo jedisShardInfo = new JedisShardInfo(redisProperties.getHost(), redisProperties.getPort());
         // 设置数据库
@@ -130,10 +565,21 @@ public class RedisAutoConfiguration {
 //        shards.add(new JedisShardInfo(redisProperties.getHost(), redisProperties.getPort()));
 //        shards.get(n).setPassword(redisProperties.getPassword());
 
+        return shards;
+    }
 
+    /**
+     * 一致性hash环。
+     * @return
+     */
+    private ShardRing shardRing() {
+        JedisProperties.Sharding sharding = jedisProperties.getSharding();
+        return new ShardRing(shardInfos(), sharding.getVirtualNodes(), sharding.getHashing(),
+                sharding.isHashTags() ? ShardRing.DEFAULT_TAG_PATTERN : null);
+    }
 
-
-        return new ShardedJedisPool(getPoolConfig(), shards);
+    private int getTimeout() {
+        return redisProperties.getTimeout() > 0 ? redisProperties.getTimeout() : Protocol.DEFAULT_TIMEOUT;
     }
 
     private void setDatabase(JedisShardInfo jedisShardInfo, Integer database) {
@@ -166,15 +612,32 @@ public class RedisAutoConfiguration {
     }
 
     /**
-     * 连接池配置
+     * 连接池配置：jedis.pool.*，连接数相关的属性未配置时使用spring.redis.pool.*。
      */
     @Bean
     public JedisPoolConfig getPoolConfig() {
+        JedisPoolProperties pool = jedisPoolProperties;
+        RedisProperties.Pool defaults = redisProperties.getPool();
         JedisPoolConfig poolConfig = new JedisPoolConfig();
-        poolConfig.setMaxTotal(redisProperties.getPool().getMaxActive());
-        poolConfig.setMaxWaitMillis(redisProperties.getPool().getMaxWait());
-        poolConfig.setMaxIdle(redisProperties.getPool().getMaxIdle());
-        poolConfig.setMinIdle(redisProperties.getPool().getMinIdle());
+        poolConfig.setMaxTotal(pool.getMaxTotal() != null ? pool.getMaxTotal() : defaults.getMaxActive());
+        poolConfig.setMaxWaitMillis(pool.getMaxWaitMillis() != null ? pool.getMaxWaitMillis() : defaults.getMaxWait());
+        poolConfig.setMaxIdle(pool.getMaxIdle() != null ? pool.getMaxIdle() : defaults.getMaxIdle());
+        poolConfig.setMinIdle(pool.getMinIdle() != null ? pool.getMinIdle() : defaults.getMinIdle());
+        poolConfig.setBlockWhenExhausted(pool.isBlockWhenExhausted());
+        poolConfig.setLifo(pool.isLifo());
+        poolConfig.setFairness(pool.isFairness());
+        // 默认不在获取/归还连接时校验，由后台空闲检测（testWhileIdle）校验，避免每次获取连接多一次PING
+        poolConfig.setTestOnCreate(pool.isTestOnCreate());
+        poolConfig.setTestOnBorrow(pool.isTestOnBorrow());
+        poolConfig.setTestOnReturn(pool.isTestOnReturn());
+        poolConfig.setTestWhileIdle(pool.isTestWhileIdle());
+        poolConfig.setTimeBetweenEvictionRunsMillis(pool.getTimeBetweenEvictionRunsMillis());
+        poolConfig.setMinEvictableIdleTimeMillis(pool.getMinEvictableIdleTimeMillis());
+        poolConfig.setSoftMinEvictableIdleTimeMillis(pool.getSoftMinEvictableIdleTimeMillis());
+        poolConfig.setNumTestsPerEvictionRun(pool.getNumTestsPerEvictionRun());
+        poolConfig.setEvictorShutdownTimeoutMillis(pool.getEvictorShutdownTimeoutMillis());
+        poolConfig.setJmxEnabled(pool.isJmxEnabled());
+        poolConfig.setJmxNamePrefix(pool.getJmxNamePrefix());
         return poolConfig;
     }
 
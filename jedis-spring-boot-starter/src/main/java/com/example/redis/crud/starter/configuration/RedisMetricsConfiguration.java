@@ -0,0 +1,111 @@
+package com.example.redis.crud.starter.configuration;
+
+import com.example.redis.crud.starter.bigkey.BigKeyDetector;
+import com.example.redis.crud.starter.breaker.CircuitBreakers;
+import com.example.redis.crud.starter.cache.NearCache;
+import com.example.redis.crud.starter.component.ClusterTopologyRefresher;
+import com.example.redis.crud.starter.compress.ValueCompressor;
+import com.example.redis.crud.starter.hotkey.HotKeyDetector;
+import com.example.redis.crud.starter.metrics.MicrometerRedisMetrics;
+import com.example.redis.crud.starter.metrics.RedisCommandMetrics;
+import com.example.redis.crud.starter.sentinel.SentinelFailoverWatcher;
+import com.example.redis.crud.starter.slowlog.SlowCommandLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisSentinelPool;
+import redis.clients.jedis.ShardedJedisPool;
+
+/**
+ * @author jackie wang
+ * @Title: RedisMetricsConfiguration
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 命令和连接池监控配置，classpath中有micrometer并且容器中有MeterRegistry时启用，
+ * 可以通过jedis.metrics.enabled=false关闭。
+ * @date 2019/12/4 14:20
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(value = "jedis.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisMetricsConfiguration {
+
+    /**
+     * 命令监控bean初始化，同时注册已创建的连接池、本地缓存、值压缩、热点key、大key、慢命令、集群拓扑刷新、哨兵主从切换和熔断的监控。
+     *
+     * @return 没有MeterRegistry时返回RedisCommandMetrics.NONE
+     */
+    @Bean
+    public RedisCommandMetrics redisCommandMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                                   ObjectProvider<JedisPool> jedisPool,
+                                                   ObjectProvider<ShardedJedisPool> shardedJedisPool,
+                                                   ObjectProvider<JedisCluster> jedisCluster,
+                                                   ObjectProvider<NearCache> nearCache,
+                                                   ObjectProvider<ValueCompressor> valueCompressor,
+                                                   ObjectProvider<HotKeyDetector> hotKeyDetector,
+                                                   ObjectProvider<BigKeyDetector> bigKeyDetector,
+                                                   ObjectProvider<SlowCommandLog> slowCommandLog,
+                                                   ObjectProvider<ClusterTopologyRefresher> topologyRefresher,
+                                                   ObjectProvider<JedisSentinelPool> jedisSentinelPool,
+                                                   ObjectProvider<SentinelFailoverWatcher> sentinelFailoverWatcher,
+                                                   ObjectProvider<CircuitBreakers> circuitBreakers) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return RedisCommandMetrics.NONE;
+        }
+        MicrometerRedisMetrics metrics = new MicrometerRedisMetrics(registry);
+        JedisPool jedisPoolBean = jedisPool.getIfAvailable();
+        if (jedisPoolBean != null) {
+            metrics.bindPool("jedisPool", jedisPoolBean);
+        }
+        ShardedJedisPool shardedJedisPoolBean = shardedJedisPool.getIfAvailable();
+        if (shardedJedisPoolBean != null) {
+            metrics.bindPool("shardedJedisPool", shardedJedisPoolBean);
+        }
+        JedisCluster jedisClusterBean = jedisCluster.getIfAvailable();
+        if (jedisClusterBean != null) {
+            metrics.bindCluster(jedisClusterBean);
+        }
+        NearCache nearCacheBean = nearCache.getIfAvailable();
+        if (nearCacheBean != null) {
+            metrics.bindNearCache(nearCacheBean);
+        }
+        ValueCompressor valueCompressorBean = valueCompressor.getIfAvailable();
+        if (valueCompressorBean != null) {
+            metrics.bindCompression(valueCompressorBean);
+        }
+        HotKeyDetector hotKeyDetectorBean = hotKeyDetector.getIfAvailable();
+        if (hotKeyDetectorBean != null) {
+            metrics.bindHotKeys(hotKeyDetectorBean);
+        }
+        BigKeyDetector bigKeyDetectorBean = bigKeyDetector.getIfAvailable();
+        if (bigKeyDetectorBean != null) {
+            metrics.bindBigKeys(bigKeyDetectorBean);
+        }
+        SlowCommandLog slowCommandLogBean = slowCommandLog.getIfAvailable();
+        if (slowCommandLogBean != null) {
+            metrics.bindSlowLog(slowCommandLogBean);
+        }
+        ClusterTopologyRefresher topologyRefresherBean = topologyRefresher.getIfAvailable();
+        if (topologyRefresherBean != null) {
+            metrics.bindTopologyRefresh(topologyRefresherBean);
+        }
+        JedisSentinelPool jedisSentinelPoolBean = jedisSentinelPool.getIfAvailable();
+        if (jedisSentinelPoolBean != null) {
+            metrics.bindPool("jedisSentinelPool", jedisSentinelPoolBean);
+        }
+        SentinelFailoverWatcher sentinelFailoverWatcherBean = sentinelFailoverWatcher.getIfAvailable();
+        if (sentinelFailoverWatcherBean != null) {
+            metrics.bindSentinel(sentinelFailoverWatcherBean);
+        }
+        CircuitBreakers circuitBreakersBean = circuitBreakers.getIfAvailable();
+        if (circuitBreakersBean != null) {
+            metrics.bindCircuitBreakers(circuitBreakersBean);
+        }
+        return metrics;
+    }
+}
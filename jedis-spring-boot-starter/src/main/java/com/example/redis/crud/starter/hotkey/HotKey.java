@@ -0,0 +1,49 @@
+package com.example.redis.crud.starter.hotkey;
+
+/**
+ * @author jackie wang
+ * @Title: HotKey
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一个窗口内的热点key：按采样估算的访问次数（已按采样率换算为实际次数）和每秒次数。
+ * @date 2019/12/19 10:20
+ */
+public class HotKey {
+
+    private final String key;
+    private final String node;
+    private final long count;
+    private final double ratePerSecond;
+
+    public HotKey(String key, String node, long count, double ratePerSecond) {
+        this.key = key;
+        this.node = node;
+        this.count = count;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * key所在的节点：集群模式为slot所属主节点，分片模式为分片，host:port。
+     * @return 未知时为null
+     */
+    public String getNode() {
+        return node;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return key + (node == null ? "" : "@" + node) + " count=" + count
+                + " rate=" + String.format("%.1f/s", ratePerSecond);
+    }
+}
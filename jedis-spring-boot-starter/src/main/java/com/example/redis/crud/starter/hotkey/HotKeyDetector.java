@@ -0,0 +1,248 @@
+package com.example.redis.crud.starter.hotkey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author jackie wang
+ * @Title: HotKeyDetector
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 热点key检测，jedis.hot-keys.enabled=true时注入RedisUtilImpl和RedisClusterUtil。
+ * 命令执行前按采样率抽样（未命中时只有一次随机数比较），命中的key写入当前时间窗口的Count-Min Sketch，
+ * 并按估算次数更新全部命令、每种命令、每个节点的top-K。窗口结束后生成报告（getReport()），
+ * 每秒次数超过warn-threshold的key打印WARN日志。报告中的次数已按采样率换算，是估算值。
+ * 同时注册为JMX MBean（jedis:name=hotKeys），可以通过JConsole等工具查看。
+ * @date 2019/12/19 10:20
+ */
+@ManagedResource(objectName = "jedis:name=hotKeys", description = "Redis hot keys")
+public class HotKeyDetector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotKeyDetector.class);
+
+    /** Count-Min Sketch的行数和列数 */
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 4096;
+
+    private final double sampleRate;
+    /** 每period个命令采样一个 */
+    private final int period;
+    private final long windowMillis;
+    private final int topK;
+    private final double warnThreshold;
+
+    private final LongAdder sampledCount = new LongAdder();
+    private volatile Window current;
+    private volatile HotKeyReport last;
+
+    /**
+     * @param sampleRate 采样率，(0, 1]
+     * @param windowMillis 统计窗口长度(毫秒)
+     * @param topK 每个维度保留的key个数
+     * @param warnThreshold 每秒次数超过该值的key打印WARN日志，0表示不打印
+     */
+    public HotKeyDetector(double sampleRate, long windowMillis, int topK, double warnThreshold) {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("The parameter 'sampleRate' must be in (0, 1].");
+        }
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("The parameter 'windowMillis' must be greater than 0.");
+        }
+        this.period = (int) Math.max(1, Math.round(1 / sampleRate));
+        this.sampleRate = 1.0 / period;
+        this.windowMillis = windowMillis;
+        this.topK = Math.max(1, topK);
+        this.warnThreshold = warnThreshold;
+        long now = System.currentTimeMillis();
+        this.current = new Window(windowStart(now));
+        this.last = HotKeyReport.empty(current.start - windowMillis, current.start, this.sampleRate);
+    }
+
+    /**
+     * 本次命令是否采样，命中时调用record(...)。
+     * @return
+     */
+    public boolean shouldSample() {
+        return period == 1 || ThreadLocalRandom.current().nextInt(period) == 0;
+    }
+
+    /**
+     * 记录一次采样。
+     * @param command 命令类型，如get、hget
+     * @param key 键
+     * @param node key所在的节点，未知时为null
+     */
+    public void record(String command, String key, String node) {
+        if (key == null) {
+            return;
+        }
+        sampledCount.increment();
+        window(System.currentTimeMillis()).add(command, key, node);
+    }
+
+    /**
+     * 最近一个完整窗口的热点key。
+     * @return
+     */
+    public HotKeyReport getReport() {
+        window(System.currentTimeMillis());
+        return last;
+    }
+
+    /**
+     * 当前窗口（未结束）到目前为止的热点key，次数按已经过的时间计算每秒次数。
+     * @return
+     */
+    public HotKeyReport getCurrentReport() {
+        long now = System.currentTimeMillis();
+        return window(now).report(now);
+    }
+
+    /**
+     * 累计采样的命令数。
+     * @return
+     */
+    public long getSampledCount() {
+        return sampledCount.sum();
+    }
+
+    /**
+     * 最近一个完整窗口中访问最多的key的每秒次数。
+     * @return 没有采样时为0
+     */
+    public double getMaxRate() {
+        List<HotKey> keys = getReport().getTopKeys();
+        return keys.isEmpty() ? 0 : keys.get(0).getRatePerSecond();
+    }
+
+    /**
+     * 最近一个完整窗口中每秒次数超过warn-threshold的key数。
+     * @return warn-threshold为0时为0
+     */
+    public int getOverThresholdCount() {
+        if (warnThreshold <= 0) {
+            return 0;
+        }
+        int count = 0;
+        for (HotKey key : getReport().getTopKeys()) {
+            if (key.getRatePerSecond() >= warnThreshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    @ManagedOperation(description = "Hot keys of the last complete window")
+    public String hotKeys() {
+        return getReport().toString();
+    }
+
+    @ManagedOperation(description = "Hot keys of the current window so far")
+    public String currentHotKeys() {
+        return getCurrentReport().toString();
+    }
+
+    /**
+     * 获取当前窗口，窗口已经结束时生成报告并开始新窗口。
+     */
+    private Window window(long now) {
+        Window window = current;
+        if (now < window.start + windowMillis) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (now < window.start + windowMillis) {
+                return window;
+            }
+            long start = windowStart(now);
+            if (window.start + windowMillis == start) {
+                last = window.report(start);
+                warn(last);
+            } else {
+                // 上一个完整窗口没有任何采样
+                last = HotKeyReport.empty(start - windowMillis, start, sampleRate);
+            }
+            current = new Window(start);
+            return current;
+        }
+    }
+
+    private long windowStart(long now) {
+        return now - now % windowMillis;
+    }
+
+    private void warn(HotKeyReport report) {
+        if (warnThreshold <= 0) {
+            return;
+        }
+        for (HotKey key : report.getTopKeys()) {
+            if (key.getRatePerSecond() >= warnThreshold) {
+                LOGGER.warn("[HotKeyDetector]Hot key detected: {}", key);
+            }
+        }
+    }
+
+    /**
+     * 一个时间窗口的统计。
+     */
+    private final class Window {
+        private final long start;
+        private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        private final LongAdder samples = new LongAdder();
+        private final TopK top = new TopK(topK);
+        private final ConcurrentMap<String, TopK> byCommand = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, TopK> byNode = new ConcurrentHashMap<>();
+
+        Window(long start) {
+            this.start = start;
+        }
+
+        void add(String command, String key, String node) {
+            samples.increment();
+            long count = sketch.add(CountMinSketch.hash(key, 0));
+            top.offer(key, node, count);
+            if (node != null) {
+                // 一个key只属于一个节点，节点维度直接使用key的次数
+                byNode.computeIfAbsent(node, n -> new TopK(topK)).offer(key, node, count);
+            }
+            if (command != null) {
+                long commandCount = sketch.add(CountMinSketch.hash(key, command.hashCode()));
+                byCommand.computeIfAbsent(command, c -> new TopK(topK)).offer(key, node, commandCount);
+            }
+        }
+
+        HotKeyReport report(long end) {
+            long elapsed = Math.max(1, end - start);
+            return new HotKeyReport(start, end, sampleRate, samples.sum(), top.snapshot(period, elapsed),
+                    snapshot(byCommand, elapsed), snapshot(byNode, elapsed));
+        }
+
+        private Map<String, List<HotKey>> snapshot(Map<String, TopK> dimension, long elapsed) {
+            if (dimension.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            List<String> names = new ArrayList<>(dimension.keySet());
+            Collections.sort(names);
+            Map<String, List<HotKey>> result = new LinkedHashMap<>();
+            for (String name : names) {
+                result.put(name, dimension.get(name).snapshot(period, elapsed));
+            }
+            return result;
+        }
+    }
+}
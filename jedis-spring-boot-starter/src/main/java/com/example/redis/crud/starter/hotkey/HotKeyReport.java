@@ -0,0 +1,115 @@
+package com.example.redis.crud.starter.hotkey;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: HotKeyReport
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一个时间窗口的热点key统计：全部命令、按命令类型、按节点的top-K。
+ * @date 2019/12/19 10:20
+ */
+public class HotKeyReport {
+
+    private final long windowStart;
+    private final long windowEnd;
+    private final double sampleRate;
+    private final long sampledCount;
+    private final List<HotKey> topKeys;
+    private final Map<String, List<HotKey>> byCommand;
+    private final Map<String, List<HotKey>> byNode;
+
+    public HotKeyReport(long windowStart, long windowEnd, double sampleRate, long sampledCount, List<HotKey> topKeys,
+                        Map<String, List<HotKey>> byCommand, Map<String, List<HotKey>> byNode) {
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.sampleRate = sampleRate;
+        this.sampledCount = sampledCount;
+        this.topKeys = topKeys;
+        this.byCommand = byCommand;
+        this.byNode = byNode;
+    }
+
+    static HotKeyReport empty(long windowStart, long windowEnd, double sampleRate) {
+        return new HotKeyReport(windowStart, windowEnd, sampleRate, 0, Collections.emptyList(),
+                Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * 窗口开始时间(毫秒时间戳)。
+     * @return
+     */
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    /**
+     * 窗口结束时间(毫秒时间戳)。
+     * @return
+     */
+    public long getWindowEnd() {
+        return windowEnd;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 窗口内采样的命令数。
+     * @return
+     */
+    public long getSampledCount() {
+        return sampledCount;
+    }
+
+    /**
+     * 全部命令中访问次数最高的key，从高到低。
+     * @return
+     */
+    public List<HotKey> getTopKeys() {
+        return topKeys;
+    }
+
+    /**
+     * 命令类型（get/hget/set等） -> 该命令访问次数最高的key。
+     * @return
+     */
+    public Map<String, List<HotKey>> getByCommand() {
+        return byCommand;
+    }
+
+    /**
+     * 节点（host:port） -> 该节点上访问次数最高的key。
+     * @return
+     */
+    public Map<String, List<HotKey>> getByNode() {
+        return byNode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("window=[").append(windowStart).append(", ").append(windowEnd).append(") sampleRate=")
+                .append(sampleRate).append(" sampled=").append(sampledCount).append('\n');
+        builder.append("top:").append('\n');
+        append(builder, topKeys);
+        for (Map.Entry<String, List<HotKey>> entry : byCommand.entrySet()) {
+            builder.append("command ").append(entry.getKey()).append(':').append('\n');
+            append(builder, entry.getValue());
+        }
+        for (Map.Entry<String, List<HotKey>> entry : byNode.entrySet()) {
+            builder.append("node ").append(entry.getKey()).append(':').append('\n');
+            append(builder, entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, List<HotKey> keys) {
+        for (HotKey key : keys) {
+            builder.append("  ").append(key).append('\n');
+        }
+    }
+}
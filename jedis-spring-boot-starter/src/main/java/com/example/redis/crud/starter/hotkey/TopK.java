@@ -0,0 +1,76 @@
+package com.example.redis.crud.starter.hotkey;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: TopK
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 保留估算次数最高的k个key：key已经在其中时更新次数，否则替换次数最低的key（次数更高时）。
+ * k很小（默认10），直接线性查找最小值；只在采样命中时调用，使用synchronized。
+ * @date 2019/12/19 10:20
+ */
+class TopK {
+
+    private final int k;
+    private final Map<String, Candidate> candidates;
+
+    TopK(int k) {
+        this.k = Math.max(1, k);
+        this.candidates = new HashMap<>(this.k * 2);
+    }
+
+    synchronized void offer(String key, String node, long count) {
+        Candidate candidate = candidates.get(key);
+        if (candidate != null) {
+            candidate.count = Math.max(candidate.count, count);
+            return;
+        }
+        if (candidates.size() < k) {
+            candidates.put(key, new Candidate(key, node, count));
+            return;
+        }
+        Candidate min = null;
+        for (Candidate c : candidates.values()) {
+            if (min == null || c.count < min.count) {
+                min = c;
+            }
+        }
+        if (count > min.count) {
+            candidates.remove(min.key);
+            candidates.put(key, new Candidate(key, node, count));
+        }
+    }
+
+    /**
+     * 按次数从高到低排列。
+     * @param scale 采样次数换算为实际次数的倍数
+     * @param windowMillis 窗口长度，用于计算每秒次数
+     * @return
+     */
+    synchronized List<HotKey> snapshot(long scale, long windowMillis) {
+        List<HotKey> result = new ArrayList<>(candidates.size());
+        for (Candidate c : candidates.values()) {
+            long count = c.count * scale;
+            result.add(new HotKey(c.key, c.node, count, count * 1000.0 / windowMillis));
+        }
+        result.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+        return result;
+    }
+
+    private static final class Candidate {
+        private final String key;
+        private final String node;
+        private long count;
+
+        Candidate(String key, String node, long count) {
+            this.key = key;
+            this.node = node;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.redis.crud.starter.lock;
+
+import com.example.redis.crud.starter.component.RedisScript;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: ClusterLockCommands
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群版分布式锁命令。
+ * @date 2019/12/12 10:20
+ */
+public class ClusterLockCommands implements LockCommands {
+
+    private final JedisCluster jedisCluster;
+
+    public ClusterLockCommands(JedisCluster jedisCluster) {
+        this.jedisCluster = jedisCluster;
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, String token, long leaseMillis) {
+        return "OK".equals(jedisCluster.set(key, token, "NX", "PX", leaseMillis));
+    }
+
+    @Override
+    public Object eval(RedisScript script, String key, List<String> args) {
+        return script.eval(jedisCluster, Collections.singletonList(key), args);
+    }
+
+    @Override
+    public int subscribeEndpoints() {
+        return 1;
+    }
+
+    @Override
+    public void subscribe(int endpoint, JedisPubSub pubSub, String channel) {
+        jedisCluster.subscribe(pubSub, channel);
+    }
+}
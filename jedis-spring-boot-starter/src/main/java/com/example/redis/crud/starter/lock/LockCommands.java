@@ -0,0 +1,48 @@
+package com.example.redis.crud.starter.lock;
+
+import com.example.redis.crud.starter.component.RedisScript;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: LockCommands
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 分布式锁用到的redis命令，集群版和单机版分片模式各有一个实现。
+ * @date 2019/12/12 10:20
+ */
+public interface LockCommands {
+
+    /**
+     * SET key token NX PX leaseMillis。
+     * @param key
+     * @param token 持有者标识
+     * @param leaseMillis 租约时间(毫秒)
+     * @return 是否写入成功
+     */
+    boolean setIfAbsent(String key, String token, long leaseMillis);
+
+    /**
+     * 在key所在节点上执行脚本。
+     * @param script
+     * @param key
+     * @param args
+     * @return
+     */
+    Object eval(RedisScript script, String key, List<String> args);
+
+    /**
+     * 订阅端点数：集群版消息在所有节点间广播，只需要订阅一个节点；分片模式每个分片都需要订阅。
+     * @return
+     */
+    int subscribeEndpoints();
+
+    /**
+     * 在某个端点上订阅频道，阻塞直到取消订阅或连接断开。
+     * @param endpoint 端点下标
+     * @param pubSub
+     * @param channel
+     */
+    void subscribe(int endpoint, JedisPubSub pubSub, String channel);
+}
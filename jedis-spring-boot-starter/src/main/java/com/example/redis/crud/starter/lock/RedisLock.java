@@ -0,0 +1,192 @@
+package com.example.redis.crud.starter.lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * @author jackie wang
+ * @Title: RedisLock
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 基于租约的分布式锁，可重入（同一个线程重复加锁只在本地计数），不支持Condition。
+ * lock()/tryLock(...)由看门狗自动续约，直到unlock()；tryLock(waitTime, leaseTime, unit)指定租约时间，不续约，
+ * 租约到期后锁自动释放。通过RedisLockRegistry.getLock(name)获取。
+ * @date 2019/12/12 10:20
+ */
+public class RedisLock implements Lock {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisLock.class);
+
+    private final RedisLockRegistry registry;
+    private final String name;
+    private final String key;
+
+    RedisLock(RedisLockRegistry registry, String name, String key) {
+        this.registry = registry;
+        this.name = name;
+        this.key = key;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 加锁，一直等待，等待期间忽略中断（返回前恢复中断标记）。
+     */
+    @Override
+    public void lock() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                acquire(-1, -1);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        acquire(-1, -1);
+    }
+
+    /**
+     * 尝试加锁一次，不等待。
+     * @return
+     */
+    @Override
+    public boolean tryLock() {
+        try {
+            return acquire(0, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        return acquire(unit.toMillis(time), -1);
+    }
+
+    /**
+     * 尝试加锁，指定租约时间，不自动续约。
+     * @param waitTime 最长等待时间
+     * @param leaseTime 租约时间，必须大于0
+     * @param unit 时间单位
+     * @return 是否加锁成功
+     */
+    public boolean tryLock(long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        if (leaseTime <= 0) {
+            throw new IllegalArgumentException("The parameter 'leaseTime' must be greater than 0.");
+        }
+        return acquire(unit.toMillis(waitTime), unit.toMillis(leaseTime));
+    }
+
+    /**
+     * 解锁，重入时最后一次unlock()才删除redis中的锁。
+     * @throws IllegalMonitorStateException 当前线程没有持有锁
+     */
+    @Override
+    public void unlock() {
+        RedisLockRegistry.LockEntry entry = registry.get(key);
+        if (entry == null || entry.owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("Lock " + name + " is not held by current thread.");
+        }
+        if (--entry.holds > 0) {
+            return;
+        }
+        if (entry.watchdog != null) {
+            entry.watchdog.cancel(false);
+            entry.watchdog = null;
+        }
+        String token = entry.token;
+        entry.owner = null;
+        entry.token = null;
+        try {
+            if (!registry.release(key, token)) {
+                LOGGER.warn("[RedisLock]Lock {} expired before unlock.", name);
+            }
+        } finally {
+            // 本地下一个等待线程立即重试
+            entry.permit.release();
+            registry.release(key, entry);
+        }
+    }
+
+    /**
+     * 当前线程是否持有锁。
+     * @return
+     */
+    public boolean isHeldByCurrentThread() {
+        RedisLockRegistry.LockEntry entry = registry.get(key);
+        return entry != null && entry.owner == Thread.currentThread();
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("RedisLock does not support conditions.");
+    }
+
+    /**
+     * @param waitMillis 最长等待时间(毫秒)，负数表示一直等待
+     * @param leaseMillis 租约时间(毫秒)，小于等于0时使用看门狗续约
+     */
+    private boolean acquire(long waitMillis, long leaseMillis) throws InterruptedException {
+        RedisLockRegistry.LockEntry entry = registry.retain(key);
+        if (entry.owner == Thread.currentThread()) {
+            entry.holds++;
+            registry.release(key, entry);
+            return true;
+        }
+
+        boolean acquired = false;
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, waitMillis));
+            // 本地排队，只有拿到许可的线程访问redis
+            if (waitMillis < 0) {
+                entry.permit.acquire();
+            } else if (!entry.permit.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+
+            try {
+                String token = registry.newToken();
+                long lease = leaseMillis > 0 ? leaseMillis : registry.getLeaseMillis();
+                while (true) {
+                    long version = entry.version();
+                    if (registry.tryAcquire(key, token, lease)) {
+                        entry.owner = Thread.currentThread();
+                        entry.holds = 1;
+                        entry.token = token;
+                        entry.watchdog = leaseMillis > 0 ? null : registry.scheduleWatchdog(key, token);
+                        acquired = true;
+                        return true;
+                    }
+                    long remaining = waitMillis < 0 ? Long.MAX_VALUE
+                            : TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    // 等待解锁消息，最多等待一个轮询间隔
+                    entry.await(version, Math.min(remaining, registry.getPollIntervalMillis()));
+                }
+            } finally {
+                if (!acquired) {
+                    entry.permit.release();
+                }
+            }
+        } finally {
+            if (!acquired) {
+                registry.release(key, entry);
+            }
+        }
+    }
+}
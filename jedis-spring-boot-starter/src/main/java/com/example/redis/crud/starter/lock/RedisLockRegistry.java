@@ -0,0 +1,326 @@
+package com.example.redis.crud.starter.lock;
+
+import com.example.redis.crud.starter.component.RedisScript;
+import com.example.redis.crud.starter.metrics.RedisCommandMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author jackie wang
+ * @Title: RedisLockRegistry
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 分布式锁注册表，通过getLock(name)获取锁。
+ * 加锁：SET key token NX PX lease，一次网络往返；解锁：脚本比较token后删除，并发布解锁消息；
+ * 未指定租约时间时由看门狗每lease/3续约一次，持有者进程退出后锁在租约到期后自动释放。
+ * 同一个进程中等待同一把锁的线程在本地公平排队，只有队首线程访问redis，
+ * 队首线程收到解锁消息（或者轮询间隔到期）时重试，本进程内解锁时下一个线程立即重试，减少竞争时的网络请求。
+ * 使用示例：
+ * Lock lock = redisLockRegistry.getLock("order:1");
+ * if (lock.tryLock(3, TimeUnit.SECONDS)) {
+ *     try {
+ *         // 业务操作
+ *     } finally {
+ *         lock.unlock();
+ *     }
+ * }
+ * @date 2019/12/12 10:20
+ */
+public class RedisLockRegistry implements InitializingBean, DisposableBean {
+    private Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    /**
+     * 解锁：token一致时删除并发布解锁消息。
+     * KEYS[1]：锁的key；ARGV[1]：token；ARGV[2]：解锁消息频道。
+     */
+    static final RedisScript UNLOCK = new RedisScript(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('DEL', KEYS[1]) redis.call('PUBLISH', ARGV[2], KEYS[1]) return 1 end "
+                    + "return 0");
+
+    /**
+     * 续约：token一致时重新设置过期时间。
+     * KEYS[1]：锁的key；ARGV[1]：token；ARGV[2]：租约时间(毫秒)。
+     */
+    static final RedisScript EXTEND = new RedisScript(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+                    + "return 0");
+
+    /** 订阅断开后重连间隔(毫秒) */
+    private static final long RESUBSCRIBE_INTERVAL_MILLIS = 1000;
+
+    private final LockCommands commands;
+    private final String keyPrefix;
+    private final long leaseMillis;
+    private final long pollIntervalMillis;
+    private final String channel;
+    private final boolean notifications;
+    private final RedisCommandMetrics metrics;
+
+    /** 本进程中正在持有或等待的锁 */
+    private final ConcurrentMap<String, LockEntry> entries = new ConcurrentHashMap<>();
+    /** token前缀，区分进程 */
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong tokenSequence = new AtomicLong();
+    private final List<JedisPubSub> subscriptions = new ArrayList<>();
+    private ScheduledExecutorService watchdog;
+    private volatile boolean closed;
+
+    /**
+     * @param commands redis命令
+     * @param keyPrefix 锁的key前缀
+     * @param leaseMillis 看门狗租约时间(毫秒)
+     * @param pollIntervalMillis 等待锁时最长重试间隔(毫秒)
+     * @param channel 解锁消息频道
+     * @param notifications 是否订阅解锁消息，不订阅时只按轮询间隔重试
+     * @param metrics 命令耗时监控
+     */
+    public RedisLockRegistry(LockCommands commands, String keyPrefix, long leaseMillis, long pollIntervalMillis,
+                             String channel, boolean notifications, RedisCommandMetrics metrics) {
+        if (leaseMillis <= 0) {
+            throw new IllegalArgumentException("The parameter 'leaseMillis' must be greater than 0.");
+        }
+        this.commands = commands;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        this.leaseMillis = leaseMillis;
+        this.pollIntervalMillis = Math.max(1, pollIntervalMillis);
+        this.channel = channel;
+        this.notifications = notifications;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-lock-watchdog-");
+        threadFactory.setDaemon(true);
+        watchdog = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        if (notifications) {
+            CustomizableThreadFactory subscriberFactory = new CustomizableThreadFactory("redis-lock-subscriber-");
+            subscriberFactory.setDaemon(true);
+            for (int i = 0; i < commands.subscribeEndpoints(); i++) {
+                int endpoint = i;
+                JedisPubSub pubSub = new JedisPubSub() {
+                    @Override
+                    public void onMessage(String channel, String message) {
+                        signal(message);
+                    }
+                };
+                subscriptions.add(pubSub);
+                subscriberFactory.newThread(() -> subscribe(endpoint, pubSub)).start();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        for (JedisPubSub pubSub : subscriptions) {
+            try {
+                if (pubSub.isSubscribed()) {
+                    pubSub.unsubscribe();
+                }
+            } catch (Exception e) {
+                LOGGER.warn("[RedisLockRegistry]Failed to unsubscribe channel {}.", channel, e);
+            }
+        }
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取锁，同名的锁在本进程中共享持有状态（可重入）。
+     * @param name 锁名称，实际的key为keyPrefix + name
+     * @return
+     */
+    public RedisLock getLock(String name) {
+        return new RedisLock(this, name, keyPrefix + name);
+    }
+
+    long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    long getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    String newToken() {
+        return instanceId + ":" + tokenSequence.incrementAndGet();
+    }
+
+    boolean tryAcquire(String key, String token, long lease) {
+        return metrics.time("set", () -> commands.setIfAbsent(key, token, lease));
+    }
+
+    boolean release(String key, String token) {
+        Object result = metrics.time("evalsha",
+                () -> commands.eval(UNLOCK, key, Arrays.asList(token, channel)));
+        return Long.valueOf(1L).equals(result);
+    }
+
+    boolean extend(String key, String token, long lease) {
+        Object result = metrics.time("evalsha",
+                () -> commands.eval(EXTEND, key, Arrays.asList(token, String.valueOf(lease))));
+        return Long.valueOf(1L).equals(result);
+    }
+
+    /**
+     * 看门狗：每lease/3续约一次，锁已经不属于当前持有者时停止续约。
+     */
+    ScheduledFuture<?> scheduleWatchdog(String key, String token) {
+        long period = Math.max(1, leaseMillis / 3);
+        Renewal renewal = new Renewal(key, token);
+        renewal.future = watchdog.scheduleAtFixedRate(renewal, period, period, TimeUnit.MILLISECONDS);
+        return renewal.future;
+    }
+
+    /**
+     * 获取本地锁状态，引用计数加1。
+     */
+    LockEntry retain(String key) {
+        return entries.compute(key, (k, entry) -> {
+            LockEntry result = entry == null ? new LockEntry() : entry;
+            result.refs++;
+            return result;
+        });
+    }
+
+    /**
+     * 引用计数减1，没有线程持有或等待时移除。
+     */
+    void release(String key, LockEntry entry) {
+        entries.computeIfPresent(key, (k, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            return --current.refs == 0 ? null : current;
+        });
+    }
+
+    LockEntry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 收到解锁消息，唤醒本进程中等待该锁的队首线程。
+     */
+    private void signal(String key) {
+        LockEntry entry = entries.get(key);
+        if (entry != null) {
+            entry.signal();
+        }
+    }
+
+    private void subscribe(int endpoint, JedisPubSub pubSub) {
+        while (!closed) {
+            try {
+                commands.subscribe(endpoint, pubSub, channel);
+            } catch (Exception e) {
+                if (closed) {
+                    return;
+                }
+                LOGGER.warn("[RedisLockRegistry]Subscription of channel {} lost, resubscribe later.", channel, e);
+            }
+            try {
+                Thread.sleep(RESUBSCRIBE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 续约任务。
+     */
+    private final class Renewal implements Runnable {
+        private final String key;
+        private final String token;
+        private volatile ScheduledFuture<?> future;
+
+        Renewal(String key, String token) {
+            this.key = key;
+            this.token = token;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!extend(key, token, leaseMillis)) {
+                    LOGGER.warn("[RedisLockRegistry]Lock {} is no longer held, stop renewing.", key);
+                    if (future != null) {
+                        future.cancel(false);
+                    }
+                }
+            } catch (Exception e) {
+                // 网络异常时下一个周期继续续约
+                LOGGER.warn("[RedisLockRegistry]Failed to renew lock {}.", key, e);
+            }
+        }
+    }
+
+    /**
+     * 本进程中一把锁的状态：本地排队的许可、持有线程、重入次数、token和看门狗。
+     */
+    static final class LockEntry {
+        /** 本地公平排队，只有拿到许可的线程访问redis */
+        final Semaphore permit = new Semaphore(1, true);
+        private final Object monitor = new Object();
+        private long version;
+        /** 引用计数，只在entries.compute中修改 */
+        int refs;
+
+        volatile Thread owner;
+        int holds;
+        String token;
+        ScheduledFuture<?> watchdog;
+
+        long version() {
+            synchronized (monitor) {
+                return version;
+            }
+        }
+
+        /**
+         * 等待解锁消息，最多等待waitMillis毫秒。
+         * @param version 等待前读取的版本，期间收到过消息时立即返回
+         */
+        void await(long version, long waitMillis) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+            synchronized (monitor) {
+                while (this.version == version) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        return;
+                    }
+                    monitor.wait(remaining);
+                }
+            }
+        }
+
+        void signal() {
+            synchronized (monitor) {
+                version++;
+                monitor.notifyAll();
+            }
+        }
+    }
+}
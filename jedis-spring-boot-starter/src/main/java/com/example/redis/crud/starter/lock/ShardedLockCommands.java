@@ -0,0 +1,57 @@
+package com.example.redis.crud.starter.lock;
+
+import com.example.redis.crud.starter.component.RedisScript;
+import com.example.redis.crud.starter.pool.PooledShardedJedisPool;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: ShardedLockCommands
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 单机版分片模式分布式锁命令，锁保存在key所在的分片上。
+ * 订阅使用单独创建的连接，不占用连接池。每次（重新）订阅时读取连接池当前的分片，哨兵模式主从切换后订阅新主节点。
+ * @date 2019/12/12 10:20
+ */
+public class ShardedLockCommands implements LockCommands {
+
+    private final ShardedJedisPool shardedJedisPool;
+    /** 分片数不会变化，哨兵模式只有一个分片 */
+    private final int endpoints;
+
+    public ShardedLockCommands(ShardedJedisPool shardedJedisPool) {
+        this.shardedJedisPool = shardedJedisPool;
+        this.endpoints = PooledShardedJedisPool.shardsOf(shardedJedisPool).size();
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, String token, long leaseMillis) {
+        try (ShardedJedis shardedJedis = shardedJedisPool.getResource()) {
+            return "OK".equals(shardedJedis.set(key, token, "NX", "PX", leaseMillis));
+        }
+    }
+
+    @Override
+    public Object eval(RedisScript script, String key, List<String> args) {
+        try (ShardedJedis shardedJedis = shardedJedisPool.getResource()) {
+            return script.eval(shardedJedis.getShard(key), Collections.singletonList(key), args);
+        }
+    }
+
+    @Override
+    public int subscribeEndpoints() {
+        return endpoints;
+    }
+
+    @Override
+    public void subscribe(int endpoint, JedisPubSub pubSub, String channel) {
+        try (Jedis jedis = new Jedis(PooledShardedJedisPool.shardsOf(shardedJedisPool).get(endpoint))) {
+            jedis.subscribe(pubSub, channel);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.redis.crud.starter.metrics;
+
+import com.example.redis.crud.starter.bigkey.BigKeyDetector;
+import com.example.redis.crud.starter.breaker.CircuitBreaker;
+import com.example.redis.crud.starter.breaker.CircuitBreakers;
+import com.example.redis.crud.starter.cache.NearCache;
+import com.example.redis.crud.starter.component.ClusterTopologyRefresher;
+import com.example.redis.crud.starter.compress.ValueCompressor;
+import com.example.redis.crud.starter.hotkey.HotKeyDetector;
+import com.example.redis.crud.starter.sentinel.SentinelFailoverWatcher;
+import com.example.redis.crud.starter.slowlog.SlowCommandLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.util.Pool;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @author jackie wang
+ * @Title: MicrometerRedisMetrics
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 基于micrometer的命令和连接池监控。
+ * 命令：redis.command（Timer，tag：command、outcome=success|error，发布百分位直方图），Timer的count即成功/失败次数。
+ * 连接池：redis.pool.active/idle/waiters、redis.pool.borrow.wait.mean/max（tag：pool，集群模式还有node）。
+ * command名称取第一个'('之前的部分并转为小写，只在第一次出现时计算，之后按原字符串直接查找缓存的Timer。
+ * @date 2019/12/4 14:20
+ */
+public class MicrometerRedisMetrics implements RedisCommandMetrics {
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, CommandTimers> timers = new ConcurrentHashMap<>();
+
+    public MicrometerRedisMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void record(String command, long durationNanos, boolean success) {
+        CommandTimers commandTimers = timers.get(command);
+        if (commandTimers == null) {
+            commandTimers = timers.computeIfAbsent(command, this::newTimers);
+        }
+        (success ? commandTimers.success : commandTimers.error).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 注册连接池监控。
+     * @param name 连接池名称，作为tag：pool
+     * @param pool
+     */
+    public void bindPool(String name, Pool<?> pool) {
+        bindPool(Tags.of("pool", name), pool, p -> p);
+    }
+
+    /**
+     * 注册集群模式每个节点连接池的监控。注册时取一次节点的连接池并保存引用，采集时不再复制集群的节点表；
+     * 连接池关闭（节点下线或重建）后才按节点名称重新查找。注册之后新增的节点不会被监控。
+     * @param cluster
+     */
+    public void bindCluster(JedisCluster cluster) {
+        for (Map.Entry<String, JedisPool> entry : cluster.getClusterNodes().entrySet()) {
+            NodePool nodePool = new NodePool(cluster, entry.getKey(), entry.getValue());
+            // gauge对owner是弱引用，owner仍然使用集群对象，节点连接池引用由函数持有
+            bindPool(Tags.of("pool", "cluster", "node", entry.getKey()), cluster, c -> nodePool.get());
+        }
+    }
+
+    /**
+     * 注册本地缓存监控：redis.near-cache.hits/misses/evictions/invalidations、redis.near-cache.size。
+     * @param nearCache
+     */
+    public void bindNearCache(NearCache nearCache) {
+        FunctionCounter.builder("redis.near-cache.hits", nearCache, c -> c.stats().getHitCount()).register(registry);
+        FunctionCounter.builder("redis.near-cache.misses", nearCache, c -> c.stats().getMissCount()).register(registry);
+        FunctionCounter.builder("redis.near-cache.evictions", nearCache, c -> c.stats().getEvictionCount())
+                .register(registry);
+        FunctionCounter.builder("redis.near-cache.invalidations", nearCache, c -> c.stats().getInvalidationCount())
+                .register(registry);
+        Gauge.builder("redis.near-cache.size", nearCache, c -> c.stats().getSize()).register(registry);
+    }
+
+    /**
+     * 注册值压缩监控：redis.compression.ratio、redis.compression.compressed/skipped、
+     * redis.compression.compress.time/decompress.time。
+     * @param compressor
+     */
+    public void bindCompression(ValueCompressor compressor) {
+        Gauge.builder("redis.compression.ratio", compressor, c -> c.stats().getCompressionRatio()).register(registry);
+        FunctionCounter.builder("redis.compression.compressed", compressor, c -> c.stats().getCompressedCount())
+                .register(registry);
+        FunctionCounter.builder("redis.compression.skipped", compressor, c -> c.stats().getSkippedCount())
+                .register(registry);
+        FunctionCounter.builder("redis.compression.compress.time", compressor,
+                c -> c.stats().getCompressNanos() / 1e9).baseUnit("seconds").register(registry);
+        FunctionCounter.builder("redis.compression.decompress.time", compressor,
+                c -> c.stats().getDecompressNanos() / 1e9).baseUnit("seconds").register(registry);
+    }
+
+    /**
+     * 注册热点key监控：redis.hot-keys.sampled、redis.hot-keys.max-rate、redis.hot-keys.over-threshold。
+     * @param detector
+     */
+    public void bindHotKeys(HotKeyDetector detector) {
+        FunctionCounter.builder("redis.hot-keys.sampled", detector, HotKeyDetector::getSampledCount)
+                .register(registry);
+        Gauge.builder("redis.hot-keys.max-rate", detector, HotKeyDetector::getMaxRate).register(registry);
+        Gauge.builder("redis.hot-keys.over-threshold", detector, HotKeyDetector::getOverThresholdCount)
+                .register(registry);
+    }
+
+    /**
+     * 注册大key监控：redis.big-keys.detected、redis.big-keys.max-reply-bytes。
+     * @param detector
+     */
+    public void bindBigKeys(BigKeyDetector detector) {
+        FunctionCounter.builder("redis.big-keys.detected", detector, BigKeyDetector::getDetectedCount)
+                .register(registry);
+        Gauge.builder("redis.big-keys.max-reply-bytes", detector, BigKeyDetector::getMaxReplyBytes)
+                .baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * 注册慢命令监控：redis.slow-log.commands。
+     * @param slowCommandLog
+     */
+    public void bindSlowLog(SlowCommandLog slowCommandLog) {
+        FunctionCounter.builder("redis.slow-log.commands", slowCommandLog, SlowCommandLog::getSlowCount)
+                .register(registry);
+    }
+
+    /**
+     * 注册集群拓扑刷新监控：redis.cluster.topology.refresh（FunctionTimer）、redis.cluster.topology.refresh.last、
+     * redis.cluster.topology.refresh.failures/redirects/moved-slots/nodes-added/nodes-retired。
+     * @param refresher
+     */
+    public void bindTopologyRefresh(ClusterTopologyRefresher refresher) {
+        FunctionTimer.builder("redis.cluster.topology.refresh", refresher, ClusterTopologyRefresher::getRefreshCount,
+                ClusterTopologyRefresher::getRefreshNanos, TimeUnit.NANOSECONDS).register(registry);
+        TimeGauge.builder("redis.cluster.topology.refresh.last", refresher, TimeUnit.NANOSECONDS,
+                ClusterTopologyRefresher::getLastRefreshNanos).register(registry);
+        FunctionCounter.builder("redis.cluster.topology.refresh.failures", refresher,
+                ClusterTopologyRefresher::getFailureCount).register(registry);
+        FunctionCounter.builder("redis.cluster.topology.refresh.redirects", refresher,
+                ClusterTopologyRefresher::getRedirectCount).register(registry);
+        FunctionCounter.builder("redis.cluster.topology.moved-slots", refresher,
+                ClusterTopologyRefresher::getMovedSlotCount).register(registry);
+        FunctionCounter.builder("redis.cluster.topology.nodes-added", refresher,
+                ClusterTopologyRefresher::getAddedNodeCount).register(registry);
+        FunctionCounter.builder("redis.cluster.topology.nodes-retired", refresher,
+                ClusterTopologyRefresher::getRetiredNodeCount).register(registry);
+    }
+
+    /**
+     * 注册哨兵模式主从切换监控：redis.sentinel.failovers、redis.sentinel.failover.recovery（FunctionTimer，
+     * 主节点下线到新主节点可用的耗时）、redis.sentinel.failover.recovery.last。
+     * @param watcher
+     */
+    public void bindSentinel(SentinelFailoverWatcher watcher) {
+        FunctionCounter.builder("redis.sentinel.failovers", watcher, SentinelFailoverWatcher::getFailoverCount)
+                .register(registry);
+        FunctionTimer.builder("redis.sentinel.failover.recovery", watcher, SentinelFailoverWatcher::getRecoveredCount,
+                SentinelFailoverWatcher::getRecoveryNanos, TimeUnit.NANOSECONDS).register(registry);
+        TimeGauge.builder("redis.sentinel.failover.recovery.last", watcher, TimeUnit.NANOSECONDS,
+                SentinelFailoverWatcher::getLastRecoveryNanos).register(registry);
+    }
+
+    /**
+     * 注册熔断监控，每个节点第一次被调用时注册：redis.circuit-breaker.state（0关闭、1熔断、2半开）、
+     * redis.circuit-breaker.failure-rate、redis.circuit-breaker.slow-call-rate（百分比）、
+     * redis.circuit-breaker.opened、redis.circuit-breaker.not-permitted（reason：open、bulkhead-full），
+     * 配置了并发隔离时还有redis.circuit-breaker.concurrent-calls。tag：node。
+     * @param breakers
+     */
+    public void bindCircuitBreakers(CircuitBreakers breakers) {
+        breakers.forEach(breaker -> {
+            Tags tags = Tags.of("node", breaker.getNode());
+            Gauge.builder("redis.circuit-breaker.state", breaker, b -> b.getState().getValue()).tags(tags)
+                    .register(registry);
+            Gauge.builder("redis.circuit-breaker.failure-rate", breaker, CircuitBreaker::getFailureRate).tags(tags)
+                    .register(registry);
+            Gauge.builder("redis.circuit-breaker.slow-call-rate", breaker, CircuitBreaker::getSlowCallRate)
+                    .tags(tags).register(registry);
+            FunctionCounter.builder("redis.circuit-breaker.opened", breaker, CircuitBreaker::getOpenedCount)
+                    .tags(tags).register(registry);
+            FunctionCounter.builder("redis.circuit-breaker.not-permitted", breaker, CircuitBreaker::getRejectedCount)
+                    .tags(tags.and("reason", "open")).register(registry);
+            FunctionCounter.builder("redis.circuit-breaker.not-permitted", breaker,
+                    CircuitBreaker::getBulkheadFullCount).tags(tags.and("reason", "bulkhead-full"))
+                    .register(registry);
+            if (breaker.getConcurrentCalls() >= 0) {
+                Gauge.builder("redis.circuit-breaker.concurrent-calls", breaker, CircuitBreaker::getConcurrentCalls)
+                        .tags(tags).register(registry);
+            }
+        });
+    }
+
+    private <T> void bindPool(Tags tags, T owner, PoolResolver<T> resolver) {
+        Gauge.builder("redis.pool.active", owner, poolValue(resolver, Pool::getNumActive)).tags(tags)
+                .register(registry);
+        Gauge.builder("redis.pool.idle", owner, poolValue(resolver, Pool::getNumIdle)).tags(tags)
+                .register(registry);
+        Gauge.builder("redis.pool.waiters", owner, poolValue(resolver, Pool::getNumWaiters)).tags(tags)
+                .register(registry);
+        TimeGauge.builder("redis.pool.borrow.wait.mean", owner, TimeUnit.MILLISECONDS,
+                poolValue(resolver, Pool::getMeanBorrowWaitTimeMillis)).tags(tags).register(registry);
+        TimeGauge.builder("redis.pool.borrow.wait.max", owner, TimeUnit.MILLISECONDS,
+                poolValue(resolver, Pool::getMaxBorrowWaitTimeMillis)).tags(tags).register(registry);
+    }
+
+    private static <T> ToDoubleFunction<T> poolValue(PoolResolver<T> resolver, ToDoubleFunction<Pool<?>> value) {
+        return owner -> {
+            Pool<?> pool = resolver.resolve(owner);
+            return pool == null || pool.isClosed() ? Double.NaN : value.applyAsDouble(pool);
+        };
+    }
+
+    private CommandTimers newTimers(String command) {
+        int end = command.indexOf('(');
+        String name = (end < 0 ? command : command.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+        return new CommandTimers(newTimer(name, "success"), newTimer(name, "error"));
+    }
+
+    private Timer newTimer(String command, String outcome) {
+        return Timer.builder("redis.command")
+                .description("Redis command latency")
+                .tags("command", command, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private interface PoolResolver<T> {
+        Pool<?> resolve(T owner);
+    }
+
+    /**
+     * 集群一个节点的连接池引用，连接池关闭后重新查找。
+     */
+    private static final class NodePool {
+        private final JedisCluster cluster;
+        private final String node;
+        private volatile JedisPool pool;
+
+        NodePool(JedisCluster cluster, String node, JedisPool pool) {
+            this.cluster = cluster;
+            this.node = node;
+            this.pool = pool;
+        }
+
+        JedisPool get() {
+            JedisPool current = pool;
+            if (current == null || current.isClosed()) {
+                current = cluster.getClusterNodes().get(node);
+                pool = current;
+            }
+            return current;
+        }
+    }
+
+    private static final class CommandTimers {
+        private final Timer success;
+        private final Timer error;
+
+        CommandTimers(Timer success, Timer error) {
+            this.success = success;
+            this.error = error;
+        }
+    }
+}
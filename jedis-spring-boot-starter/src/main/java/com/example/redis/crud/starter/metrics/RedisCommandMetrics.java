@@ -0,0 +1,48 @@
+package com.example.redis.crud.starter.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * @author jackie wang
+ * @Title: RedisCommandMetrics
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 命令耗时记录接口，RedisUtil/RedisClusterUtil的每个命令执行后调用record(...)。
+ * command使用字符串常量，实现类按command缓存计量对象，记录时不做字符串拼接。
+ * 没有监控实现时使用NONE。
+ * @date 2019/12/4 14:20
+ */
+public interface RedisCommandMetrics {
+
+    /** 不记录 */
+    RedisCommandMetrics NONE = (command, durationNanos, success) -> {
+    };
+
+    /**
+     * 记录一次命令执行。
+     * @param command 命令名称，字符串常量
+     * @param durationNanos 耗时(纳秒)
+     * @param success 是否成功（没有抛出异常）
+     */
+    void record(String command, long durationNanos, boolean success);
+
+    /**
+     * 执行并记录耗时，异常原样抛出。
+     * @param command 命令名称，字符串常量
+     * @param body 命令
+     * @return 命令返回值
+     */
+    default <R> R time(String command, Supplier<R> body) {
+        if (this == NONE) {
+            return body.get();
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            R result = body.get();
+            success = true;
+            return result;
+        } finally {
+            record(command, System.nanoTime() - start, success);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.redis.crud.starter.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.util.Pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author jackie wang
+ * @Title: PoolPrewarmer
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 连接池预热，jedis.pool.prewarm=true时启用：启动时在后台并行创建连接，把每个连接池（单机、分片、集群每个节点）补齐到minIdle，
+ * 避免发布后第一批请求承担建立连接的耗时。
+ * ShardedJedis创建时不会建立连接，分片连接池预热时借出minIdle个对象，连接所有分片后再归还。
+ * 就绪信号：isWarm()/awaitWarm(...)，预热结束时发布PoolsWarmedEvent，可以用于就绪探针或延迟接入流量。
+ * @date 2019/12/6 09:30
+ */
+public class PoolPrewarmer implements InitializingBean, DisposableBean, ApplicationEventPublisherAware {
+    private Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    private final Map<String, Pool<?>> pools;
+    private final int minIdle;
+    private final long timeoutMillis;
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean warm;
+    private ApplicationEventPublisher eventPublisher;
+    private ExecutorService executor;
+
+    /**
+     * @param pools 连接池名称 -> 连接池
+     * @param minIdle 每个连接池预热的连接数
+     * @param timeoutMillis 预热超时时间(毫秒)
+     */
+    public PoolPrewarmer(Map<String, Pool<?>> pools, int minIdle, long timeoutMillis) {
+        this.pools = new LinkedHashMap<>(pools);
+        this.minIdle = minIdle;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        int threads = Math.max(1, Math.min(pools.size() * Math.max(1, minIdle),
+                Runtime.getRuntime().availableProcessors() * 2));
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-pool-prewarm-");
+        threadFactory.setDaemon(true);
+        executor = Executors.newFixedThreadPool(threads, threadFactory);
+        Thread coordinator = threadFactory.newThread(this::prewarm);
+        coordinator.start();
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 所有连接池是否已经预热到minIdle。
+     * @return
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * 等待预热结束。
+     * @param timeout
+     * @param unit
+     * @return 所有连接池预热成功返回true，预热失败或等待超时返回false
+     * @throws InterruptedException
+     */
+    public boolean awaitWarm(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit) && warm;
+    }
+
+    private void prewarm() {
+        long start = System.currentTimeMillis();
+        AtomicInteger created = new AtomicInteger();
+        Map<String, List<Future<?>>> tasks = new LinkedHashMap<>();
+        for (Map.Entry<String, Pool<?>> entry : pools.entrySet()) {
+            Pool<?> pool = entry.getValue();
+            List<Future<?>> futures = new ArrayList<>();
+            if (pool instanceof ShardedJedisPool) {
+                futures.add(executor.submit(() -> prewarm((ShardedJedisPool) pool, created)));
+                tasks.put(entry.getKey(), futures);
+                continue;
+            }
+            for (int i = pool.getNumIdle(); i < minIdle; i++) {
+                futures.add(executor.submit(() -> {
+                    pool.addObjects(1);
+                    created.incrementAndGet();
+                }));
+            }
+            tasks.put(entry.getKey(), futures);
+        }
+
+        Set<String> failedPools = new LinkedHashSet<>();
+        long deadline = start + timeoutMillis;
+        for (Map.Entry<String, List<Future<?>>> entry : tasks.entrySet()) {
+            for (Future<?> future : entry.getValue()) {
+                try {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    failedPools.add(entry.getKey());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failedPools.add(entry.getKey());
+                } catch (Exception e) {
+                    if (failedPools.add(entry.getKey())) {
+                        LOGGER.warn("[PoolPrewarmer]Prewarm redis pool {} failed.", entry.getKey(), e);
+                    }
+                }
+            }
+        }
+        executor.shutdown();
+
+        long elapsed = System.currentTimeMillis() - start;
+        warm = failedPools.isEmpty();
+        done.countDown();
+        if (warm) {
+            LOGGER.info("[PoolPrewarmer]Redis pools {} warmed, {} connections created in {} ms.", pools.keySet(),
+                    created.get(), elapsed);
+        } else {
+            LOGGER.warn("[PoolPrewarmer]Redis pools {} not warmed in {} ms, the evictor will fill them to minIdle.",
+                    failedPools, elapsed);
+        }
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new PoolsWarmedEvent(this, created.get(),
+                    Collections.unmodifiableList(new ArrayList<>(failedPools)), elapsed));
+        }
+    }
+
+    private void prewarm(ShardedJedisPool pool, AtomicInteger created) {
+        List<ShardedJedis> borrowed = new ArrayList<>();
+        try {
+            for (int i = 0; i < minIdle; i++) {
+                ShardedJedis shardedJedis = pool.getResource();
+                borrowed.add(shardedJedis);
+                for (Jedis jedis : shardedJedis.getAllShards()) {
+                    if (!jedis.isConnected()) {
+                        jedis.connect();
+                    }
+                }
+                created.incrementAndGet();
+            }
+        } finally {
+            for (ShardedJedis shardedJedis : borrowed) {
+                shardedJedis.close();
+            }
+        }
+    }
+}
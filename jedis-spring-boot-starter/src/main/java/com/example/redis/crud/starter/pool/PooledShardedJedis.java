@@ -0,0 +1,72 @@
+package com.example.redis.crud.starter.pool;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.util.Hashing;
+import redis.clients.util.Pool;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * @author jackie wang
+ * @Title: PooledShardedJedis
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 修复jedis 2.9.x ShardedJedis.close()的并发问题：父类先归还到连接池，再把dataSource置为null，
+ * 归还之后其他线程可能已经借出这个对象并设置了dataSource，被置为null后那个线程close()时只断开连接、不归还，
+ * 连接池的对象逐个泄漏，最终所有调用等待max-wait后失败（32个线程并发时1秒内泄漏完16个对象）。
+ * 这里与jedis 2.9.x的Jedis.close()一样，先清空再归还。
+ * @date 2019/12/25 10:20
+ */
+public class PooledShardedJedis extends ShardedJedis {
+
+    /** 父类的dataSource是私有的，这里单独保存 */
+    private Pool<ShardedJedis> pool;
+
+    public PooledShardedJedis(List<JedisShardInfo> shards, Hashing algo, Pattern keyTagPattern) {
+        super(shards, algo, keyTagPattern);
+    }
+
+    @Override
+    public void setDataSource(Pool<ShardedJedis> jedisPool) {
+        this.pool = jedisPool;
+        super.setDataSource(jedisPool);
+    }
+
+    /**
+     * 与父类一样只能通过returnResource/returnBrokenResource归还，jedis 2.9.x没有替代方法。
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public void close() {
+        Pool<ShardedJedis> current = pool;
+        if (current == null) {
+            disconnect();
+            return;
+        }
+        pool = null;
+        super.setDataSource(null);
+        boolean broken = false;
+        for (Jedis jedis : getAllShards()) {
+            if (jedis.getClient().isBroken()) {
+                broken = true;
+                break;
+            }
+        }
+        if (broken) {
+            current.returnBrokenResource(this);
+        } else {
+            current.returnResource(this);
+        }
+    }
+
+    /**
+     * 父类BinaryShardedJedis返回的是原始类型List，这里声明为List<byte[]>，避免子类编译时出现unchecked警告。
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<byte[]> srandmember(byte[] key, int count) {
+        return super.srandmember(key, count);
+    }
+}
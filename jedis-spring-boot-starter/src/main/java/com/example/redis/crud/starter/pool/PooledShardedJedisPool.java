@@ -0,0 +1,138 @@
+package com.example.redis.crud.starter.pool;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.util.Hashing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * @author jackie wang
+ * @Title: PooledShardedJedisPool
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 创建PooledShardedJedis的ShardedJedisPool，分片算法与jedis ShardedJedisPool相同，
+ * 归还时不会泄漏连接池对象（见PooledShardedJedis）。
+ * @date 2019/12/25 10:20
+ */
+public class PooledShardedJedisPool extends ShardedJedisPool {
+
+    private final List<JedisShardInfo> shards;
+
+    public PooledShardedJedisPool(GenericObjectPoolConfig poolConfig, List<JedisShardInfo> shards) {
+        this(poolConfig, shards, null, () -> new PooledShardedJedis(shards, Hashing.MURMUR_HASH, null));
+    }
+
+    /**
+     * @param poolConfig
+     * @param shards 分片
+     * @param keyTagPattern hash tag
+     * @param factory 创建连接池对象，对象的close()必须先清空dataSource再归还
+     */
+    protected PooledShardedJedisPool(GenericObjectPoolConfig poolConfig, List<JedisShardInfo> shards,
+                                     Pattern keyTagPattern, Supplier<? extends PooledShardedJedis> factory) {
+        super(poolConfig, shards, keyTagPattern);
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        // 替换父类创建的对象工厂
+        initPool(poolConfig, new PooledShardedJedisFactory(factory));
+    }
+
+    /**
+     * 配置的分片，顺序与创建时相同（jedis默认分片算法中未命名分片的虚拟节点与顺序有关）。
+     * @return
+     */
+    public List<JedisShardInfo> getShards() {
+        return shards;
+    }
+
+    /**
+     * 连接池的分片。ShardedJedis.getAllShardInfo()返回的是每个虚拟节点的分片（每个分片160 * weight个，按hash排序），
+     * 不是PooledShardedJedisPool时只能从中去重，未命名分片的顺序可能与配置不同。
+     * @param pool
+     * @return
+     */
+    public static List<JedisShardInfo> shardsOf(ShardedJedisPool pool) {
+        if (pool instanceof PooledShardedJedisPool) {
+            return ((PooledShardedJedisPool) pool).getShards();
+        }
+        Map<JedisShardInfo, Boolean> distinct = new IdentityHashMap<>();
+        List<JedisShardInfo> shards = new ArrayList<>();
+        // 创建ShardedJedis不会建立连接，只读取分片信息
+        try (ShardedJedis shardedJedis = pool.getResource()) {
+            for (JedisShardInfo shard : shardedJedis.getAllShardInfo()) {
+                if (distinct.put(shard, Boolean.TRUE) == null) {
+                    shards.add(shard);
+                }
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * 与jedis ShardedJedisPool.ShardedJedisFactory相同，只是创建的是PooledShardedJedis。
+     */
+    private static class PooledShardedJedisFactory implements PooledObjectFactory<ShardedJedis> {
+
+        private final Supplier<? extends PooledShardedJedis> factory;
+
+        PooledShardedJedisFactory(Supplier<? extends PooledShardedJedis> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public PooledObject<ShardedJedis> makeObject() {
+            return new DefaultPooledObject<>(factory.get());
+        }
+
+        @Override
+        public void destroyObject(PooledObject<ShardedJedis> pooledShardedJedis) {
+            for (Jedis jedis : pooledShardedJedis.getObject().getAllShards()) {
+                if (jedis.isConnected()) {
+                    try {
+                        try {
+                            jedis.quit();
+                        } catch (Exception e) {
+                            // 连接已断开
+                        }
+                        jedis.disconnect();
+                    } catch (Exception e) {
+                        // 忽略
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean validateObject(PooledObject<ShardedJedis> pooledShardedJedis) {
+            try {
+                for (Jedis jedis : pooledShardedJedis.getObject().getAllShards()) {
+                    if (!"PONG".equals(jedis.ping())) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void activateObject(PooledObject<ShardedJedis> pooledShardedJedis) {
+        }
+
+        @Override
+        public void passivateObject(PooledObject<ShardedJedis> pooledShardedJedis) {
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.redis.crud.starter.pool;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: PoolsWarmedEvent
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 连接池预热完成事件，预热失败或超时也会发布，通过isWarm()判断是否全部预热成功。
+ * @date 2019/12/6 09:30
+ */
+public class PoolsWarmedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int createdConnections;
+    private final List<String> failedPools;
+    private final long elapsedMillis;
+
+    public PoolsWarmedEvent(Object source, int createdConnections, List<String> failedPools, long elapsedMillis) {
+        super(source);
+        this.createdConnections = createdConnections;
+        this.failedPools = failedPools;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 所有连接池是否都预热到minIdle。
+     * @return
+     */
+    public boolean isWarm() {
+        return failedPools.isEmpty();
+    }
+
+    /** 预热创建的连接数 */
+    public int getCreatedConnections() {
+        return createdConnections;
+    }
+
+    /** 预热失败或超时的连接池名称 */
+    public List<String> getFailedPools() {
+        return failedPools;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
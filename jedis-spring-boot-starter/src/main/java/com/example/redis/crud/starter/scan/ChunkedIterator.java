@@ -0,0 +1,140 @@
+package com.example.redis.crud.starter.scan;
+
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author jackie wang
+ * @Title: ChunkedIterator
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 大集合分批读取迭代器：每次读取一批（HSCAN/SSCAN/ZSCAN游标或LRANGE窗口），当前批读完才读取下一批，
+ * 内存中最多保留一批元素，在调用线程中执行，不需要关闭。
+ * 游标方式与SCAN语义一致：读取期间一直存在的元素至少返回一次，可能重复返回；
+ * 集合较小（ziplist/intset编码）时Redis忽略COUNT，一次返回全部元素。
+ * LRANGE窗口方式按下标分批，读取期间在列表头部插入/删除元素会导致元素重复或遗漏。
+ * @date 2019/12/11 10:30
+ */
+public class ChunkedIterator<T> implements Iterator<T> {
+
+    private final ChunkReader<T> reader;
+    private Iterator<T> current = Collections.emptyIterator();
+    private boolean exhausted;
+
+    private ChunkedIterator(ChunkReader<T> reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 按游标分批读取（HSCAN/SSCAN/ZSCAN）。
+     * @param command 按游标执行一次扫描
+     * @param chunkSize 每批的COUNT参数
+     * @return
+     */
+    public static <T> ChunkedIterator<T> cursor(CursorCommand<T> command, int chunkSize) {
+        ScanParams params = new ScanParams().count(Math.max(1, chunkSize));
+        return new ChunkedIterator<>(new ChunkReader<T>() {
+            private String cursor = ScanParams.SCAN_POINTER_START;
+            private boolean done;
+
+            @Override
+            public List<T> read() {
+                if (done) {
+                    return null;
+                }
+                ScanResult<T> result = command.scan(cursor, params);
+                cursor = result.getStringCursor();
+                done = ScanParams.SCAN_POINTER_START.equals(cursor);
+                return result.getResult();
+            }
+        });
+    }
+
+    /**
+     * 按下标窗口分批读取（LRANGE）。
+     * @param command 读取[start, end]范围内的元素
+     * @param chunkSize 每批元素个数
+     * @return
+     */
+    public static <T> ChunkedIterator<T> range(RangeCommand<T> command, int chunkSize) {
+        int size = Math.max(1, chunkSize);
+        return new ChunkedIterator<>(new ChunkReader<T>() {
+            private long offset;
+            private boolean done;
+
+            @Override
+            public List<T> read() {
+                if (done) {
+                    return null;
+                }
+                List<T> chunk = command.range(offset, offset + size - 1);
+                if (chunk == null || chunk.size() < size) {
+                    done = true;
+                }
+                if (chunk != null) {
+                    offset += chunk.size();
+                }
+                return chunk;
+            }
+        });
+    }
+
+    /**
+     * 转换为Stream，按需分批读取。
+     * @return
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (exhausted) {
+                return false;
+            }
+            List<T> chunk = reader.read();
+            if (chunk == null) {
+                exhausted = true;
+                return false;
+            }
+            current = chunk.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * 按游标执行一次扫描。
+     */
+    public interface CursorCommand<T> {
+        ScanResult<T> scan(String cursor, ScanParams params);
+    }
+
+    /**
+     * 读取[start, end]范围内的元素。
+     */
+    public interface RangeCommand<T> {
+        List<T> range(long start, long end);
+    }
+
+    private interface ChunkReader<T> {
+        /** 读取下一批，没有更多元素时返回null */
+        List<T> read();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.redis.crud.starter.scan;
+
+import com.example.redis.crud.starter.component.ClusterSlotRouter;
+import com.example.redis.crud.starter.metrics.RedisCommandMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisClusterException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author jackie wang
+ * @Title: ClusterKeyScanIterator
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 集群版key迭代器：按slot缓存找到所有主节点，每个主节点一个线程并行SCAN。
+ * 拓扑变化处理：记录每个slot由哪个主节点完整扫描过，一轮结束后刷新slot缓存，
+ * slot所属主节点发生变化（故障转移、slot迁移）或者节点扫描失败时，在新的主节点上只扫描这些slot，
+ * 直到所有slot都由其当前主节点扫描过，最多MAX_ROUNDS轮。
+ * @date 2019/12/10 11:05
+ */
+public class ClusterKeyScanIterator extends KeyScanIterator {
+    private Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    /** 最多扫描轮数（第一轮之后每轮只补扫拓扑变化的slot） */
+    private static final int MAX_ROUNDS = 5;
+    /** 节点连接失败时的重试次数 */
+    private static final int MAX_NODE_RETRIES = 3;
+    /** 重试间隔(毫秒)，按重试次数递增 */
+    private static final long RETRY_INTERVAL_MILLIS = 200;
+
+    private final ClusterSlotRouter router;
+    /** slot -> 完整扫描过该slot的主节点 */
+    private final AtomicReferenceArray<JedisPool> scannedBy = new AtomicReferenceArray<>(JedisCluster.HASHSLOTS);
+    private volatile boolean nodeFailed;
+
+    /**
+     * @param router slot路由
+     * @param pattern 匹配模式，为空时匹配所有key
+     * @param count 每次SCAN的COUNT参数
+     * @param maxParallelism 最多并行扫描的主节点数
+     * @param metrics 命令耗时监控
+     */
+    public ClusterKeyScanIterator(ClusterSlotRouter router, String pattern, int count, int maxParallelism,
+                                  RedisCommandMetrics metrics) {
+        super(pattern, count, Math.min(maxParallelism, masterCount(router)), metrics);
+        this.router = router;
+    }
+
+    @Override
+    protected void scan() throws Exception {
+        for (int round = 0; ; round++) {
+            if (round > 0) {
+                if (nodeFailed) {
+                    // 等待故障转移完成
+                    Thread.sleep(RETRY_INTERVAL_MILLIS * round);
+                    nodeFailed = false;
+                }
+                router.renewSlotCache();
+            }
+            Map<JedisPool, BitSet> pending = new IdentityHashMap<>();
+            int unowned = pendingSlots(pending);
+            if (pending.isEmpty() && unowned == 0) {
+                return;
+            }
+            if (round >= MAX_ROUNDS) {
+                throw new JedisClusterException("Cluster topology kept changing while scanning keys, "
+                        + (unowned + cardinality(pending)) + " slots not scanned.");
+            }
+            if (unowned > 0) {
+                nodeFailed = true;
+            }
+
+            // 第一轮完整扫描每个主节点；之后只补扫拓扑变化的slot，按slot过滤key
+            boolean fullScan = round == 0;
+            List<Callable<Void>> tasks = new ArrayList<>(pending.size());
+            for (Map.Entry<JedisPool, BitSet> entry : pending.entrySet()) {
+                JedisPool pool = entry.getKey();
+                BitSet slots = entry.getValue();
+                tasks.add(() -> {
+                    scanMaster(pool, slots, fullScan);
+                    return null;
+                });
+            }
+            runAll(tasks);
+        }
+    }
+
+    private void scanMaster(JedisPool pool, BitSet slots, boolean fullScan) throws InterruptedException {
+        try {
+            scanNode((cursor, params) -> {
+                for (int attempt = 0; ; attempt++) {
+                    try (Jedis jedis = pool.getResource()) {
+                        return jedis.scan(cursor, params);
+                    } catch (JedisConnectionException e) {
+                        if (attempt >= MAX_NODE_RETRIES || isClosed()) {
+                            throw e;
+                        }
+                        sleep(RETRY_INTERVAL_MILLIS * (attempt + 1));
+                    }
+                }
+            }, fullScan ? null : key -> slots.get(ClusterSlotRouter.getSlot(key)));
+        } catch (JedisConnectionException e) {
+            // 节点不可用，下一轮刷新slot缓存后在新的主节点上补扫
+            LOGGER.warn("[ClusterKeyScanIterator]Scan failed on node {}, retry on new master later.",
+                    nodeName(pool), e);
+            nodeFailed = true;
+            return;
+        }
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            scannedBy.set(slot, pool);
+        }
+    }
+
+    /**
+     * 按当前slot缓存，找出所属主节点与扫描过的主节点不一致的slot，按主节点分组。
+     * @param pending 主节点 -> 需要扫描的slot
+     * @return 没有主节点的slot数
+     */
+    private int pendingSlots(Map<JedisPool, BitSet> pending) {
+        int unowned = 0;
+        for (int slot = 0; slot < JedisCluster.HASHSLOTS; slot++) {
+            JedisPool owner = router.getCachedSlotPool(slot);
+            if (owner == null) {
+                unowned++;
+            } else if (scannedBy.get(slot) != owner) {
+                pending.computeIfAbsent(owner, pool -> new BitSet(JedisCluster.HASHSLOTS)).set(slot);
+            }
+        }
+        return unowned;
+    }
+
+    private String nodeName(JedisPool pool) {
+        for (Map.Entry<String, JedisPool> node : router.getNodes().entrySet()) {
+            if (node.getValue() == pool) {
+                return node.getKey();
+            }
+        }
+        return "unknown";
+    }
+
+    private static int cardinality(Map<JedisPool, BitSet> pending) {
+        int count = 0;
+        for (BitSet slots : pending.values()) {
+            count += slots.cardinality();
+        }
+        return count;
+    }
+
+    private static int masterCount(ClusterSlotRouter router) {
+        Set<JedisPool> masters = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int slot = 0; slot < JedisCluster.HASHSLOTS; slot++) {
+            JedisPool pool = router.getCachedSlotPool(slot);
+            if (pool != null) {
+                masters.add(pool);
+            }
+        }
+        return Math.max(1, masters.size());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisConnectionException("Interrupted while retrying scan.", e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.redis.crud.starter.scan;
+
+import com.example.redis.crud.starter.metrics.RedisCommandMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author jackie wang
+ * @Title: KeyScanIterator
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 基于SCAN游标的key迭代器：后台线程并行扫描每个节点，每批key写入有界缓冲区，调用方按需读取，
+ * 缓冲区满时扫描线程等待，不会把所有key加载到内存。每次SCAN单独借用连接，执行一批后立即归还，不会长时间占用节点。
+ * 与SCAN命令的语义一致：扫描期间一直存在的key至少返回一次，可能重复返回，扫描期间新增/删除的key不保证。
+ * 使用完必须close()（或者关闭stream()返回的Stream），否则扫描线程一直等待缓冲区。
+ * @date 2019/12/10 10:20
+ */
+public abstract class KeyScanIterator implements Iterator<String>, Closeable {
+
+    /** 扫描结束标记 */
+    private static final Object END = new Object();
+    /** 写缓冲区时检查是否已关闭的间隔(毫秒) */
+    private static final long OFFER_INTERVAL_MILLIS = 100;
+
+    private final ScanParams params;
+    private final RedisCommandMetrics metrics;
+    private final BlockingQueue<Object> buffer;
+    private final ExecutorService executor;
+
+    private volatile boolean closed;
+    private boolean finished;
+    private Iterator<String> current = Collections.emptyIterator();
+
+    /**
+     * @param pattern 匹配模式，为空时匹配所有key
+     * @param count 每次SCAN的COUNT参数
+     * @param parallelism 并行扫描的节点数
+     * @param metrics 命令耗时监控
+     */
+    protected KeyScanIterator(String pattern, int count, int parallelism, RedisCommandMetrics metrics) {
+        this.params = new ScanParams().count(Math.max(1, count));
+        if (pattern != null && !pattern.isEmpty()) {
+            params.match(pattern);
+        }
+        this.metrics = metrics;
+        int threads = Math.max(1, parallelism);
+        this.buffer = new ArrayBlockingQueue<>(threads * 2);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-scan-");
+        threadFactory.setDaemon(true);
+        // 一个协调线程 + parallelism个扫描线程
+        this.executor = Executors.newFixedThreadPool(threads + 1, threadFactory);
+    }
+
+    /**
+     * 启动后台扫描，由创建方在构造之后调用。
+     * @return this
+     */
+    public KeyScanIterator start() {
+        executor.execute(() -> {
+            try {
+                scan();
+                offer(END);
+            } catch (InterruptedException e) {
+                // 已关闭
+            } catch (Throwable e) {
+                try {
+                    offer(e);
+                } catch (InterruptedException ignored) {
+                    // 已关闭
+                }
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 转换为Stream，关闭Stream时停止扫描。
+     * 使用示例：try (Stream<String> keys = iterator.stream()) { keys.forEach(...); }
+     * @return
+     */
+    public Stream<String> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (finished || closed) {
+                return false;
+            }
+            Object next;
+            try {
+                next = buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new JedisException("Interrupted while scanning keys.", e);
+            }
+            if (next == END) {
+                finished = true;
+                close();
+                return false;
+            }
+            if (next instanceof Throwable) {
+                finished = true;
+                close();
+                Throwable cause = (Throwable) next;
+                throw cause instanceof JedisException ? (JedisException) cause
+                        : new JedisException("Failed to scan keys.", cause);
+            }
+            current = ((List<String>) next).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        buffer.clear();
+    }
+
+    /**
+     * 执行扫描，在协调线程中调用；需要并行时通过runAll(...)提交扫描任务。
+     */
+    protected abstract void scan() throws Exception;
+
+    /**
+     * 并行执行扫描任务并等待全部结束，任务异常原样抛出。
+     * @param tasks 扫描任务
+     */
+    protected void runAll(List<Callable<Void>> tasks) throws InterruptedException {
+        List<Future<Void>> futures = new ArrayList<>(tasks.size());
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new JedisException(cause);
+            }
+        }
+    }
+
+    /**
+     * 从游标0开始扫描一个节点，直到游标回到0，每批key写入缓冲区。
+     * @param command 在节点上执行一次SCAN
+     * @param filter key过滤条件，为null时不过滤
+     */
+    protected void scanNode(ScanCommand command, Predicate<String> filter) throws InterruptedException {
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            if (closed) {
+                throw new InterruptedException();
+            }
+            String from = cursor;
+            ScanResult<String> result = metrics.time("scan", () -> command.scan(from, params));
+            List<String> keys = result.getResult();
+            if (filter != null) {
+                List<String> filtered = new ArrayList<>(keys.size());
+                for (String key : keys) {
+                    if (filter.test(key)) {
+                        filtered.add(key);
+                    }
+                }
+                keys = filtered;
+            }
+            if (!keys.isEmpty()) {
+                offer(keys);
+            }
+            cursor = result.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+
+    protected boolean isClosed() {
+        return closed;
+    }
+
+    private void offer(Object batch) throws InterruptedException {
+        while (!buffer.offer(batch, OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (closed) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * 在某个节点上执行一次SCAN。
+     */
+    protected interface ScanCommand {
+        ScanResult<String> scan(String cursor, ScanParams params);
+    }
+}
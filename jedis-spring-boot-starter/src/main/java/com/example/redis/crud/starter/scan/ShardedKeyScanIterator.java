@@ -0,0 +1,78 @@
+package com.example.redis.crud.starter.scan;
+
+import com.example.redis.crud.starter.metrics.RedisCommandMetrics;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * @author jackie wang
+ * @Title: ShardedKeyScanIterator
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 单机版分片模式key迭代器：每个分片一个线程并行SCAN。
+ * 每次SCAN从连接池借用ShardedJedis，只使用其中一个分片的连接，执行一批后归还。
+ * @date 2019/12/10 11:40
+ */
+public class ShardedKeyScanIterator extends KeyScanIterator {
+
+    private final ShardedJedisPool shardedJedisPool;
+    private final int shards;
+
+    /**
+     * @param shardedJedisPool 分片连接池
+     * @param pattern 匹配模式，为空时匹配所有key
+     * @param count 每次SCAN的COUNT参数
+     * @param maxParallelism 最多并行扫描的分片数
+     * @param metrics 命令耗时监控
+     */
+    public ShardedKeyScanIterator(ShardedJedisPool shardedJedisPool, String pattern, int count, int maxParallelism,
+                                  RedisCommandMetrics metrics) {
+        this(shardedJedisPool, shardCount(shardedJedisPool), pattern, count, maxParallelism, metrics);
+    }
+
+    private ShardedKeyScanIterator(ShardedJedisPool shardedJedisPool, int shards, String pattern, int count,
+                                   int maxParallelism, RedisCommandMetrics metrics) {
+        super(pattern, count, Math.min(maxParallelism, shards), metrics);
+        this.shardedJedisPool = shardedJedisPool;
+        this.shards = shards;
+    }
+
+    @Override
+    protected void scan() throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            int index = i;
+            tasks.add(() -> {
+                scanNode((cursor, params) -> {
+                    try (ShardedJedis shardedJedis = shardedJedisPool.getResource()) {
+                        return shard(shardedJedis, index).scan(cursor, params);
+                    }
+                }, null);
+                return null;
+            });
+        }
+        runAll(tasks);
+    }
+
+    /**
+     * 获取第index个分片，同一个连接池中的ShardedJedis分片顺序一致。
+     */
+    private static Jedis shard(ShardedJedis shardedJedis, int index) {
+        Iterator<Jedis> shards = shardedJedis.getAllShards().iterator();
+        for (int i = 0; i < index; i++) {
+            shards.next();
+        }
+        return shards.next();
+    }
+
+    private static int shardCount(ShardedJedisPool shardedJedisPool) {
+        try (ShardedJedis shardedJedis = shardedJedisPool.getResource()) {
+            return shardedJedis.getAllShards().size();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.redis.crud.starter.sentinel;
+
+/**
+ * @author jackie wang
+ * @Title: FailoverEvent
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一次主从切换。时间单位为毫秒，从收到主节点下线事件（+sdown/+odown/+try-failover，没有收到时为+switch-master）
+ * 到切换后第一次在新主节点上执行命令成功为止。
+ * @date 2019/12/24 10:20
+ */
+public class FailoverEvent {
+
+    private final long timestamp;
+    private final String oldMaster;
+    private final String newMaster;
+    private final long detectMillis;
+    private final long recoverMillis;
+    private final boolean recovered;
+
+    FailoverEvent(long timestamp, String oldMaster, String newMaster, long detectMillis, long recoverMillis,
+                  boolean recovered) {
+        this.timestamp = timestamp;
+        this.oldMaster = oldMaster;
+        this.newMaster = newMaster;
+        this.detectMillis = detectMillis;
+        this.recoverMillis = recoverMillis;
+        this.recovered = recovered;
+    }
+
+    /**
+     * 收到+switch-master的时间。
+     * @return
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getOldMaster() {
+        return oldMaster;
+    }
+
+    public String getNewMaster() {
+        return newMaster;
+    }
+
+    /**
+     * 主节点下线到收到+switch-master（哨兵完成选举）的时间，没有收到下线事件时为0。
+     * @return
+     */
+    public long getDetectMillis() {
+        return detectMillis;
+    }
+
+    /**
+     * 收到+switch-master到新主节点可用的时间。
+     * @return
+     */
+    public long getRecoverMillis() {
+        return recoverMillis;
+    }
+
+    /**
+     * 主节点下线到新主节点可用的时间。
+     * @return
+     */
+    public long getTotalMillis() {
+        return detectMillis + recoverMillis;
+    }
+
+    /**
+     * 新主节点是否在recovery-timeout-millis内可用。
+     * @return
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    @Override
+    public String toString() {
+        return oldMaster + " -> " + newMaster + " detect=" + detectMillis + "ms recover=" + recoverMillis + "ms"
+                + (recovered ? "" : " (not recovered)");
+    }
+}
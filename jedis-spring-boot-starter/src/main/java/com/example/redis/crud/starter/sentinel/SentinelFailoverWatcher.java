@@ -0,0 +1,358 @@
+package com.example.redis.crud.starter.sentinel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.ShardedJedisPool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @author jackie wang
+ * @Title: SentinelFailoverWatcher
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 哨兵模式主从切换监听。订阅每个哨兵的+switch-master（以及主节点的+sdown/+odown/+try-failover，用于计算耗时），
+ * 收到后立即切换连接池，不需要等旧主节点上的命令超时才发现。新主节点的连接在后台建立，旧主节点的连接在后台销毁。
+ * 每次切换记录从主节点下线到新主节点可用的耗时，通过JMX（jedis:name=sentinel）和监控指标查看。
+ * 订阅断开后每隔subscribe-retry-millis重连，重连时先查询一次主节点地址，避免错过断开期间的切换。
+ * @date 2019/12/24 10:20
+ */
+@ManagedResource(objectName = "jedis:name=sentinel", description = "Redis sentinel failover")
+public class SentinelFailoverWatcher implements InitializingBean, DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SentinelFailoverWatcher.class);
+
+    private static final String SWITCH_MASTER = "+switch-master";
+    private static final String SDOWN_CLEARED = "-sdown";
+    private static final String[] CHANNELS = {SWITCH_MASTER, "+sdown", "+odown", "+try-failover", SDOWN_CLEARED};
+    /** 保留最近的切换记录数 */
+    private static final int HISTORY = 16;
+    /** 新主节点不可用时的重试间隔(毫秒) */
+    private static final long RECOVER_RETRY_MILLIS = 50;
+
+    private final String masterName;
+    private final List<HostAndPort> sentinels;
+    private final SentinelJedisPool sentinelPool;
+    private final SentinelShardedJedisPool shardedPool;
+    private final int timeout;
+    private final int warmConnections;
+    private final long subscribeRetryMillis;
+    private final long recoveryTimeoutMillis;
+
+    /** 一个线程建立新主节点的连接，一个线程销毁旧主节点的连接（旧主节点不可达时可能阻塞到超时） */
+    private final ExecutorService executor;
+    private final List<SentinelListener> listeners = new ArrayList<>();
+    /** 切换主节点后的回调，参数为新主节点 */
+    private final List<Consumer<HostAndPort>> failoverListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    private HostAndPort master;
+    /** 当前主节点第一次收到下线事件的时间，0表示没有收到 */
+    private long downNanos;
+
+    private final AtomicLong failoverCount = new AtomicLong();
+    private final AtomicLong recoveredCount = new AtomicLong();
+    private final AtomicLong recoveryNanos = new AtomicLong();
+    private volatile long lastRecoveryNanos;
+    private final Deque<FailoverEvent> history = new ArrayDeque<>();
+
+    /**
+     * @param masterName 主节点名称
+     * @param sentinels 哨兵地址
+     * @param sentinelPool 哨兵模式连接池
+     * @param shardedPool RedisUtil使用的连接池
+     * @param timeout 连接超时(毫秒)
+     * @param warmConnections 切换后新主节点预先建立的连接数
+     * @param subscribeRetryMillis 订阅断开后的重连间隔(毫秒)
+     * @param recoveryTimeoutMillis 切换后等待新主节点可用的最长时间(毫秒)
+     */
+    public SentinelFailoverWatcher(String masterName, List<HostAndPort> sentinels, SentinelJedisPool sentinelPool,
+                                   SentinelShardedJedisPool shardedPool, int timeout, int warmConnections,
+                                   long subscribeRetryMillis, long recoveryTimeoutMillis) {
+        this.masterName = masterName;
+        this.sentinels = sentinels;
+        this.sentinelPool = sentinelPool;
+        this.shardedPool = shardedPool;
+        this.timeout = timeout;
+        this.warmConnections = warmConnections;
+        this.subscribeRetryMillis = subscribeRetryMillis;
+        this.recoveryTimeoutMillis = recoveryTimeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "redis-sentinel-failover-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        synchronized (this) {
+            master = sentinelPool.getCurrentHostMaster();
+        }
+        for (HostAndPort sentinel : sentinels) {
+            SentinelListener listener = new SentinelListener(sentinel);
+            listeners.add(listener);
+            listener.start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        for (SentinelListener listener : listeners) {
+            listener.shutdown();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * 注册主从切换的回调，在RedisUtil的连接池切换到新主节点之后、新主节点可用之前调用（收到+switch-master的线程）。
+     * 订阅了主节点的组件（本地缓存失效监听等）用于在新主节点上重新订阅。
+     * @param listener 参数为新主节点
+     */
+    public void addFailoverListener(Consumer<HostAndPort> listener) {
+        failoverListeners.add(listener);
+    }
+
+    public synchronized HostAndPort getMaster() {
+        return master;
+    }
+
+    /**
+     * 主从切换次数。
+     * @return
+     */
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    /**
+     * 切换后新主节点在recovery-timeout-millis内可用的次数。
+     * @return
+     */
+    public long getRecoveredCount() {
+        return recoveredCount.get();
+    }
+
+    /**
+     * 所有已恢复的切换从主节点下线到新主节点可用的总耗时(纳秒)。
+     * @return
+     */
+    public long getRecoveryNanos() {
+        return recoveryNanos.get();
+    }
+
+    /**
+     * 最近一次已恢复的切换从主节点下线到新主节点可用的耗时(纳秒)。
+     * @return
+     */
+    public long getLastRecoveryNanos() {
+        return lastRecoveryNanos;
+    }
+
+    /**
+     * 最近的切换记录，最新的在前。
+     * @return
+     */
+    public List<FailoverEvent> getFailovers() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    @ManagedOperation(description = "Current master")
+    public String currentMaster() {
+        return String.valueOf(getMaster());
+    }
+
+    @ManagedOperation(description = "Recent failovers, newest first")
+    public String failovers() {
+        return getFailovers().toString();
+    }
+
+    private void onMessage(String channel, String message) {
+        String[] parts = message.split(" ");
+        if (SWITCH_MASTER.equals(channel)) {
+            // <master name> <old ip> <old port> <new ip> <new port>
+            if (parts.length >= 5 && masterName.equals(parts[0])) {
+                onSwitch(new HostAndPort(parts[3], Integer.parseInt(parts[4])));
+            }
+        } else if (parts.length >= 4 && "master".equals(parts[0]) && masterName.equals(parts[1])) {
+            // master <master name> <ip> <port> ...
+            onDown(channel, new HostAndPort(parts[2], Integer.parseInt(parts[3])));
+        }
+    }
+
+    private synchronized void onDown(String event, HostAndPort node) {
+        if (!node.equals(master)) {
+            return;
+        }
+        if (SDOWN_CLEARED.equals(event)) {
+            // 主节点恢复，没有发生切换
+            downNanos = 0;
+        } else if (downNanos == 0) {
+            downNanos = System.nanoTime();
+            LOGGER.warn("[SentinelFailoverWatcher]Master {} {} is down: {}", masterName, node, event);
+        }
+    }
+
+    /**
+     * 切换主节点，多个哨兵发送的同一个+switch-master只处理一次。
+     */
+    private void onSwitch(HostAndPort newMaster) {
+        HostAndPort oldMaster;
+        long detectNanos;
+        ShardedJedisPool oldPool;
+        synchronized (this) {
+            if (newMaster.equals(master)) {
+                return;
+            }
+            long now = System.nanoTime();
+            oldMaster = master;
+            detectNanos = downNanos == 0 ? 0 : now - downNanos;
+            master = newMaster;
+            downNanos = 0;
+            oldPool = shardedPool.switchMaster(newMaster);
+        }
+        failoverCount.incrementAndGet();
+        long switchNanos = System.nanoTime();
+        long timestamp = System.currentTimeMillis();
+        LOGGER.warn("[SentinelFailoverWatcher]Master {} switched from {} to {}.", masterName, oldMaster, newMaster);
+        for (Consumer<HostAndPort> listener : failoverListeners) {
+            try {
+                listener.accept(newMaster);
+            } catch (RuntimeException e) {
+                LOGGER.warn("[SentinelFailoverWatcher]Failover listener failed.", e);
+            }
+        }
+
+        executor.execute(() -> recover(oldMaster, newMaster, timestamp, detectNanos, switchNanos));
+        executor.execute(() -> {
+            // jedis收到+switch-master时也会切换，已经切换过时不做任何事
+            sentinelPool.switchMaster(newMaster);
+            if (oldPool != null) {
+                oldPool.destroy();
+            }
+        });
+    }
+
+    /**
+     * 在新主节点上建立连接，直到执行命令成功或超时，成功后再建立其余的连接。
+     */
+    private void recover(HostAndPort oldMaster, HostAndPort newMaster, long timestamp, long detectNanos,
+                         long switchNanos) {
+        long deadline = switchNanos + TimeUnit.MILLISECONDS.toNanos(recoveryTimeoutMillis);
+        boolean recovered = false;
+        while (running && !recovered) {
+            try {
+                shardedPool.warm(1);
+                recovered = true;
+            } catch (Exception e) {
+                if (System.nanoTime() - deadline >= 0) {
+                    LOGGER.error("[SentinelFailoverWatcher]New master {} not available in {} ms.", newMaster,
+                            recoveryTimeoutMillis, e);
+                    break;
+                }
+                try {
+                    Thread.sleep(RECOVER_RETRY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        long recoverNanos = System.nanoTime() - switchNanos;
+        if (recovered) {
+            recoveredCount.incrementAndGet();
+            recoveryNanos.addAndGet(detectNanos + recoverNanos);
+            lastRecoveryNanos = detectNanos + recoverNanos;
+        }
+        FailoverEvent event = new FailoverEvent(timestamp, String.valueOf(oldMaster), String.valueOf(newMaster),
+                TimeUnit.NANOSECONDS.toMillis(detectNanos), TimeUnit.NANOSECONDS.toMillis(recoverNanos), recovered);
+        synchronized (history) {
+            history.addFirst(event);
+            if (history.size() > HISTORY) {
+                history.removeLast();
+            }
+        }
+        LOGGER.info("[SentinelFailoverWatcher]Failover of {}: {}", masterName, event);
+        if (recovered && warmConnections > 1) {
+            try {
+                shardedPool.warm(warmConnections);
+            } catch (Exception e) {
+                LOGGER.warn("[SentinelFailoverWatcher]Warm pool of new master {} failed.", newMaster, e);
+            }
+        }
+    }
+
+    /**
+     * 一个哨兵的订阅线程。
+     */
+    private final class SentinelListener extends Thread {
+        private final HostAndPort sentinel;
+        private volatile Jedis jedis;
+
+        SentinelListener(HostAndPort sentinel) {
+            super("redis-sentinel-listener-" + sentinel);
+            this.sentinel = sentinel;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    jedis = new Jedis(sentinel.getHost(), sentinel.getPort(), timeout);
+                    // 订阅断开期间可能错过了+switch-master
+                    List<String> address = jedis.sentinelGetMasterAddrByName(masterName);
+                    if (address != null && address.size() == 2) {
+                        onSwitch(new HostAndPort(address.get(0), Integer.parseInt(address.get(1))));
+                    }
+                    jedis.subscribe(new JedisPubSub() {
+                        @Override
+                        public void onMessage(String channel, String message) {
+                            SentinelFailoverWatcher.this.onMessage(channel, message);
+                        }
+                    }, CHANNELS);
+                } catch (Exception e) {
+                    if (running) {
+                        LOGGER.warn("[SentinelFailoverWatcher]Subscribe to sentinel {} failed, retry in {} ms.",
+                                sentinel, subscribeRetryMillis, e);
+                        try {
+                            Thread.sleep(subscribeRetryMillis);
+                        } catch (InterruptedException ie) {
+                            return;
+                        }
+                    }
+                } finally {
+                    if (jedis != null) {
+                        jedis.close();
+                    }
+                }
+            }
+        }
+
+        void shutdown() {
+            Jedis current = jedis;
+            if (current != null) {
+                current.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.redis.crud.starter.sentinel;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisSentinelPool;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * @author jackie wang
+ * @Title: SentinelJedisPool
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 哨兵模式连接池。jedis切换主节点时只清空空闲连接，切换时已借出的旧主节点连接归还后仍会被复用，
+ * 这里归还时发现不是当前主节点的连接直接断开并销毁（不发送QUIT，旧主节点不可达时不会阻塞调用方）。
+ * @date 2019/12/24 10:20
+ */
+public class SentinelJedisPool extends JedisSentinelPool {
+
+    public SentinelJedisPool(String masterName, Set<String> sentinels, GenericObjectPoolConfig poolConfig,
+                             int timeout, String password, int database) {
+        super(masterName, sentinels, poolConfig, timeout, password, database);
+    }
+
+    /**
+     * Jedis.close()归还连接时调用，所以仍需覆盖这个已废弃的方法。
+     */
+    @Override
+    @Deprecated
+    public void returnResource(Jedis resource) {
+        if (resource != null && !isCurrentMaster(resource)) {
+            resource.disconnect();
+            returnBrokenResource(resource);
+            return;
+        }
+        super.returnResource(resource);
+    }
+
+    /**
+     * 切换到新的主节点（与jedis收到+switch-master时的处理相同，已经是该主节点时不做任何事）。
+     * SentinelFailoverWatcher收到+switch-master时调用，不需要等jedis自己的订阅线程（断线后5秒才重连）。
+     * @param master
+     */
+    void switchMaster(HostAndPort master) {
+        try {
+            Method initPool = JedisSentinelPool.class.getDeclaredMethod("initPool", HostAndPort.class);
+            initPool.setAccessible(true);
+            initPool.invoke(this, master);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("JedisSentinelPool has no method 'initPool(HostAndPort)'.", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Switch master to " + master + " failed.", e.getCause());
+        }
+    }
+
+    private boolean isCurrentMaster(Jedis jedis) {
+        HostAndPort master = getCurrentHostMaster();
+        Client client = jedis.getClient();
+        return master == null || master.getHost().equals(client.getHost()) && master.getPort() == client.getPort();
+    }
+}
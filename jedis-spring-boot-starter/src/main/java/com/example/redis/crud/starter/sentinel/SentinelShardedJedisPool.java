@@ -0,0 +1,208 @@
+package com.example.redis.crud.starter.sentinel;
+
+import com.example.redis.crud.starter.pool.PooledShardedJedisPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: SentinelShardedJedisPool
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 哨兵模式下供RedisUtil使用的ShardedJedisPool：只有一个分片，即当前主节点。
+ * 每个主节点一个ShardedJedisPool，切换主节点时新建连接池并替换，借出的ShardedJedis归还到创建它的连接池，
+ * 旧连接池关闭后空闲连接立即销毁，借出的连接归还时销毁。
+ * @date 2019/12/24 10:20
+ */
+public class SentinelShardedJedisPool extends PooledShardedJedisPool {
+
+    private final GenericObjectPoolConfig poolConfig;
+    private final int timeout;
+    private final String password;
+    private final int database;
+
+    private volatile HostAndPort master;
+    /** 当前主节点的host:port，按key定位节点时使用，避免每次拼接 */
+    private volatile String masterName;
+    private volatile PooledShardedJedisPool current;
+
+    public SentinelShardedJedisPool(GenericObjectPoolConfig poolConfig, HostAndPort master, int timeout,
+                                    String password, int database) {
+        super(poolConfig, shards(master, timeout, password, database));
+        // 父类的连接池不使用，所有操作委托给当前主节点的连接池
+        closeInternalPool();
+        this.poolConfig = poolConfig;
+        this.timeout = timeout;
+        this.password = password;
+        this.database = database;
+        this.master = master;
+        this.masterName = master.toString();
+        this.current = new PooledShardedJedisPool(poolConfig, shards(master, timeout, password, database));
+    }
+
+    public HostAndPort getMaster() {
+        return master;
+    }
+
+    /**
+     * 当前主节点的host:port。
+     * @return
+     */
+    public String getMasterName() {
+        return masterName;
+    }
+
+    /**
+     * 当前主节点的分片，主从切换后返回新主节点。
+     * @return
+     */
+    @Override
+    public List<JedisShardInfo> getShards() {
+        return current.getShards();
+    }
+
+    /**
+     * 切换主节点：新建连接池并替换，不建立连接。
+     * @param newMaster
+     * @return 旧的连接池，由调用方在后台关闭；已经是该主节点时返回null
+     */
+    synchronized ShardedJedisPool switchMaster(HostAndPort newMaster) {
+        if (newMaster.equals(master)) {
+            return null;
+        }
+        ShardedJedisPool old = current;
+        current = new PooledShardedJedisPool(poolConfig, shards(newMaster, timeout, password, database));
+        master = newMaster;
+        masterName = newMaster.toString();
+        return old;
+    }
+
+    /**
+     * 同时借出connections个连接并执行PING，确认主节点可用，归还后连接池中至少有connections个连接。
+     * @param connections
+     */
+    void warm(int connections) {
+        List<ShardedJedis> borrowed = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                ShardedJedis shardedJedis = getResource();
+                borrowed.add(shardedJedis);
+                for (Jedis jedis : shardedJedis.getAllShards()) {
+                    jedis.ping();
+                }
+            }
+        } finally {
+            for (ShardedJedis shardedJedis : borrowed) {
+                shardedJedis.close();
+            }
+        }
+    }
+
+    @Override
+    public ShardedJedis getResource() {
+        ShardedJedisPool pool = current;
+        try {
+            return pool.getResource();
+        } catch (JedisException e) {
+            // 获取连接时正好切换了主节点，旧连接池已关闭
+            ShardedJedisPool switched = current;
+            if (switched != pool) {
+                return switched.getResource();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void returnResource(ShardedJedis resource) {
+        // ShardedJedis.close()归还到创建它的连接池
+        if (resource != null) {
+            resource.close();
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void returnBrokenResource(ShardedJedis resource) {
+        if (resource != null) {
+            for (Jedis jedis : resource.getAllShards()) {
+                jedis.disconnect();
+            }
+            resource.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        destroy();
+    }
+
+    @Override
+    public void destroy() {
+        current.destroy();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return current.isClosed();
+    }
+
+    @Override
+    public int getNumActive() {
+        return current.getNumActive();
+    }
+
+    @Override
+    public int getNumIdle() {
+        return current.getNumIdle();
+    }
+
+    @Override
+    public int getNumWaiters() {
+        return current.getNumWaiters();
+    }
+
+    @Override
+    public long getMeanBorrowWaitTimeMillis() {
+        return current.getMeanBorrowWaitTimeMillis();
+    }
+
+    @Override
+    public long getMaxBorrowWaitTimeMillis() {
+        return current.getMaxBorrowWaitTimeMillis();
+    }
+
+    @Override
+    public void addObjects(int count) {
+        current.addObjects(count);
+    }
+
+    private static List<JedisShardInfo> shards(HostAndPort master, int timeout, String password, int database) {
+        JedisShardInfo shard = new JedisShardInfo(master.getHost(), master.getPort(), timeout);
+        shard.setPassword(password);
+        if (database != 0) {
+            setDatabase(shard, database);
+        }
+        return Collections.singletonList(shard);
+    }
+
+    private static void setDatabase(JedisShardInfo shard, int database) {
+        try {
+            Field field = JedisShardInfo.class.getDeclaredField("db");
+            field.setAccessible(true);
+            field.set(shard, database);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Illegally set JedisShardInfo's property 'db'.", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.redis.crud.starter.shard;
+
+import com.example.redis.crud.starter.pool.PooledShardedJedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.util.Hashing;
+
+/**
+ * @author jackie wang
+ * @Title: ConsistentHashShardedJedis
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 按ShardRing路由的ShardedJedis。jedis的所有命令都经过getShardInfo(String)或getShardInfo(byte[])定位分片，
+ * 两个方法都交给ShardRing，hash tag由ShardRing处理，String和byte[]的key按同样的tag路由。
+ * @date 2019/12/23 10:20
+ */
+class ConsistentHashShardedJedis extends PooledShardedJedis {
+
+    /**
+     * 父类构造方法会按自己的算法建一遍环（每个对象160 * weight个点），路由不使用这个环，
+     * 所有点的hash都取0，只占一个TreeMap节点。
+     */
+    private static final Hashing UNUSED = new Hashing() {
+        @Override
+        public long hash(String key) {
+            return 0;
+        }
+
+        @Override
+        public long hash(byte[] key) {
+            return 0;
+        }
+    };
+
+    private final ShardRing ring;
+
+    ConsistentHashShardedJedis(ShardRing ring) {
+        super(ring.getShards(), UNUSED, ring.getTagPattern());
+        this.ring = ring;
+    }
+
+    @Override
+    public JedisShardInfo getShardInfo(String key) {
+        return ring.get(key);
+    }
+
+    @Override
+    public JedisShardInfo getShardInfo(byte[] key) {
+        return ring.get(key);
+    }
+}
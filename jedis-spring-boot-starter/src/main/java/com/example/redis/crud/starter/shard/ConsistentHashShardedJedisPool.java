@@ -0,0 +1,26 @@
+package com.example.redis.crud.starter.shard;
+
+import com.example.redis.crud.starter.pool.PooledShardedJedisPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+/**
+ * @author jackie wang
+ * @Title: ConsistentHashShardedJedisPool
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 按ShardRing分片的ShardedJedisPool，配置jedis.sharding.shards时使用。
+ * 所有ShardedJedis共用一个环，创建连接池对象时不需要重新计算虚拟节点。
+ * @date 2019/12/23 10:20
+ */
+public class ConsistentHashShardedJedisPool extends PooledShardedJedisPool {
+
+    private final ShardRing ring;
+
+    public ConsistentHashShardedJedisPool(GenericObjectPoolConfig poolConfig, ShardRing ring) {
+        super(poolConfig, ring.getShards(), ring.getTagPattern(), () -> new ConsistentHashShardedJedis(ring));
+        this.ring = ring;
+    }
+
+    public ShardRing getRing() {
+        return ring;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.redis.crud.starter.shard;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: RebalanceResult
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一次分片迁移（或迁移计划）的结果。
+ * @date 2019/12/23 10:20
+ */
+public class RebalanceResult {
+
+    private final boolean dryRun;
+    private final long startTime = System.currentTimeMillis();
+    private long elapsedMillis;
+    private long scanned;
+    private long moved;
+    private long existing;
+    private long changed;
+    private long expired;
+    private long failed;
+    /** "源分片 -> 目标分片" -> 需要移动（dryRun）或已经移动的key数 */
+    private final Map<String, Long> routes = new LinkedHashMap<>();
+
+    RebalanceResult(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    void scanned(int count) {
+        scanned += count;
+    }
+
+    void moved(String source, String target) {
+        moved++;
+        routes.merge(source + " -> " + target, 1L, Long::sum);
+    }
+
+    void existing() {
+        existing++;
+    }
+
+    void changed() {
+        changed++;
+    }
+
+    void expired() {
+        expired++;
+    }
+
+    void failed() {
+        failed++;
+    }
+
+    RebalanceResult finish() {
+        elapsedMillis = System.currentTimeMillis() - startTime;
+        return this;
+    }
+
+    /**
+     * 是否只统计需要移动的key，没有实际移动。
+     * @return
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 扫描的key数。
+     * @return
+     */
+    public long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * 移动（dryRun时为需要移动）的key数。
+     * @return
+     */
+    public long getMoved() {
+        return moved;
+    }
+
+    /**
+     * 目标分片上已经存在（迁移开始后写入的新值），没有覆盖，源分片上的key已删除。
+     * @return
+     */
+    public long getExisting() {
+        return existing;
+    }
+
+    /**
+     * 迁移过程中源分片上的值被修改，已复制到目标分片但源分片上的key没有删除。
+     * @return
+     */
+    public long getChanged() {
+        return changed;
+    }
+
+    /**
+     * 扫描之后、DUMP之前已经过期或被删除。
+     * @return
+     */
+    public long getExpired() {
+        return expired;
+    }
+
+    /**
+     * RESTORE失败，key仍在源分片上。
+     * @return
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public Map<String, Long> getRoutes() {
+        return Collections.unmodifiableMap(routes);
+    }
+
+    @Override
+    public String toString() {
+        return (dryRun ? "plan" : "rebalance") + " scanned=" + scanned + " moved=" + moved + " existing=" + existing
+                + " changed=" + changed + " expired=" + expired + " failed=" + failed + " elapsed="
+                + elapsedMillis + "ms routes=" + routes;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.redis.crud.starter.shard;
+
+/**
+ * @author jackie wang
+ * @Title: ShardHashing
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一致性hash环的hash算法。
+ * @date 2019/12/23 10:20
+ */
+public enum ShardHashing {
+
+    /**
+     * ketama：每4个虚拟节点对应一个"名称-序号"的MD5摘要，摘要每4个字节（小端）是一个点，key取MD5前4个字节。
+     * 权重都为1、虚拟节点数为160时与libketama、libmemcached等客户端的分布一致，可以和其他语言的客户端共用分片。
+     */
+    KETAMA,
+
+    /**
+     * murmur：每个虚拟节点一个点（"名称*权重"+序号的murmur hash），
+     * 虚拟节点数为160时与jedis ShardedJedis使用命名分片时的分布一致。
+     */
+    MURMUR
+}
@@ -0,0 +1,265 @@
+package com.example.redis.crud.starter.shard;
+
+import com.example.redis.crud.starter.component.RedisScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author jackie wang
+ * @Title: ShardRebalancer
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 分片迁移工具，jedis.sharding.rebalance.enabled=true时启用。
+ * 增加分片后，逐个SCAN原有分片，只把在新环上换了分片的key用DUMP/RESTORE复制到新分片，再从原分片删除。
+ * 使用步骤：1. 所有应用实例切换到包含新分片的配置；2. 调用rebalanceAdded("新分片名称")（或JMX jedis:name=shardRebalancer）。
+ * 切换之后新写入的值直接写到新分片，迁移时目标分片上已有的key不会被覆盖；源分片上的值在DUMP之后被修改时
+ * 不删除源分片上的key（计入changed）。迁移完成之前被移动的key在新分片上可能读不到，缓存场景表现为未命中。
+ * 迁移使用单独创建的连接，不占用连接池。key按字符串（UTF-8）计算hash tag，与RedisUtil的字符串命令一致。
+ * @date 2019/12/23 10:20
+ */
+@ManagedResource(objectName = "jedis:name=shardRebalancer", description = "Sharded redis rebalancer")
+public class ShardRebalancer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    /**
+     * 源分片上的值没有变化时删除。KEYS[1]：key；ARGV[1]：迁移前DUMP的结果。
+     */
+    private static final RedisScript DELETE_IF_UNCHANGED = new RedisScript(
+            "if redis.call('DUMP', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0");
+
+    private final ShardRing ring;
+    private final int scanCount;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RebalanceResult lastResult;
+
+    /**
+     * @param ring 当前（迁移目标）的环
+     * @param scanCount 每次SCAN的COUNT参数，也是每批迁移的最大key数
+     */
+    public ShardRebalancer(ShardRing ring, int scanCount) {
+        this.ring = ring;
+        this.scanCount = Math.max(1, scanCount);
+    }
+
+    /**
+     * 统计从from迁移到当前环需要移动的key，不修改数据。
+     * @param from 迁移之前的环
+     * @return
+     */
+    public RebalanceResult plan(ShardRing from) {
+        return run(from, true);
+    }
+
+    /**
+     * 把from中各分片上不属于当前环对应分片的key移动到当前环的分片上。
+     * @param from 迁移之前的环，可以包含当前环中已经去掉的分片
+     * @return
+     */
+    public RebalanceResult rebalance(ShardRing from) {
+        return run(from, false);
+    }
+
+    /**
+     * 统计增加分片之后需要移动的key。
+     * @param added 新增的分片名称，多个用逗号分隔
+     * @return
+     */
+    @ManagedOperation(description = "Count keys to move after adding shards (comma separated names)")
+    public String planAdded(String added) {
+        return plan(ring.without(names(added))).toString();
+    }
+
+    /**
+     * 增加分片之后移动key。
+     * @param added 新增的分片名称，多个用逗号分隔
+     * @return
+     */
+    @ManagedOperation(description = "Move keys to newly added shards (comma separated names)")
+    public String rebalanceAdded(String added) {
+        return rebalance(ring.without(names(added))).toString();
+    }
+
+    @ManagedOperation(description = "Share of the hash ring per shard")
+    public String distribution() {
+        return ring.getDistribution().toString();
+    }
+
+    /**
+     * 最近一次迁移（或迁移计划）的结果。
+     * @return 没有执行过时为null
+     */
+    public RebalanceResult getLastResult() {
+        return lastResult;
+    }
+
+    public ShardRing getRing() {
+        return ring;
+    }
+
+    private RebalanceResult run(ShardRing from, boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Rebalance is already running.");
+        }
+        RebalanceResult result = new RebalanceResult(dryRun);
+        Map<String, Jedis> targets = new HashMap<>();
+        try {
+            LOGGER.info("[ShardRebalancer]{} from {} to {}", dryRun ? "Plan" : "Rebalance", from.getShardNames(),
+                    ring.getShardNames());
+            for (JedisShardInfo source : from.getShards()) {
+                scan(source, targets, result);
+            }
+        } finally {
+            for (Jedis jedis : targets.values()) {
+                jedis.close();
+            }
+            running.set(false);
+        }
+        lastResult = result.finish();
+        LOGGER.info("[ShardRebalancer]{}", lastResult);
+        return lastResult;
+    }
+
+    private void scan(JedisShardInfo source, Map<String, Jedis> targets, RebalanceResult result) {
+        String sourceName = ShardRing.nameOf(source);
+        try (Jedis jedis = new Jedis(source)) {
+            byte[] deleteSha = result.isDryRun() ? null
+                    : jedis.scriptLoad(SafeEncoder.encode(DELETE_IF_UNCHANGED.getScript()));
+            ScanParams params = new ScanParams().count(scanCount);
+            byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+            do {
+                ScanResult<byte[]> page = jedis.scan(cursor, params);
+                cursor = page.getCursorAsBytes();
+                result.scanned(page.getResult().size());
+                Map<String, List<byte[]>> moving = new LinkedHashMap<>();
+                for (byte[] key : page.getResult()) {
+                    String target = ShardRing.nameOf(ring.get(SafeEncoder.encode(key)));
+                    if (!target.equals(sourceName)) {
+                        moving.computeIfAbsent(target, name -> new ArrayList<>()).add(key);
+                    }
+                }
+                for (Map.Entry<String, List<byte[]>> entry : moving.entrySet()) {
+                    if (result.isDryRun()) {
+                        for (int i = 0; i < entry.getValue().size(); i++) {
+                            result.moved(sourceName, entry.getKey());
+                        }
+                    } else {
+                        Jedis target = targets.computeIfAbsent(entry.getKey(), name -> new Jedis(shard(name)));
+                        move(jedis, sourceName, deleteSha, target, entry.getKey(), entry.getValue(), result);
+                    }
+                }
+            } while (!Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY));
+        }
+    }
+
+    /**
+     * 移动一批key：源分片pipeline DUMP和PTTL，目标分片pipeline RESTORE，源分片pipeline执行DELETE_IF_UNCHANGED。
+     */
+    private void move(Jedis source, String sourceName, byte[] deleteSha, Jedis target, String targetName,
+                      List<byte[]> keys, RebalanceResult result) {
+        Pipeline pipeline = source.pipelined();
+        List<Response<byte[]>> dumps = new ArrayList<>(keys.size());
+        List<Response<Long>> ttls = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            dumps.add(pipeline.dump(key));
+            ttls.add(pipeline.pttl(key));
+        }
+        pipeline.sync();
+
+        pipeline = target.pipelined();
+        List<Integer> restoring = new ArrayList<>(keys.size());
+        List<Response<String>> restores = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] dump = dumps.get(i).get();
+            long ttl = ttls.get(i).get();
+            if (dump == null || ttl == -2) {
+                result.expired();
+                continue;
+            }
+            // RESTORE的ttl是int，更长的过期时间在RESTORE成功之后用PEXPIRE设置
+            restoring.add(i);
+            restores.add(pipeline.restore(keys.get(i), ttl > 0 && ttl <= Integer.MAX_VALUE ? (int) ttl : 0, dump));
+        }
+        pipeline.sync();
+
+        List<Integer> deleting = new ArrayList<>(restoring.size());
+        Pipeline expire = null;
+        for (int j = 0; j < restoring.size(); j++) {
+            int i = restoring.get(j);
+            try {
+                restores.get(j).get();
+                result.moved(sourceName, targetName);
+                if (ttls.get(i).get() > Integer.MAX_VALUE) {
+                    expire = expire != null ? expire : target.pipelined();
+                    expire.pexpire(keys.get(i), ttls.get(i).get());
+                }
+                deleting.add(i);
+            } catch (JedisDataException e) {
+                if (e.getMessage() != null && e.getMessage().startsWith("BUSYKEY")) {
+                    // 切换之后写入的新值，保留目标分片上的值
+                    result.existing();
+                    deleting.add(i);
+                } else {
+                    result.failed();
+                    LOGGER.error("[ShardRebalancer]Restore failed, key: {}, {} -> {}",
+                            SafeEncoder.encode(keys.get(i)), sourceName, targetName, e);
+                }
+            }
+        }
+        if (expire != null) {
+            expire.sync();
+        }
+
+        pipeline = source.pipelined();
+        List<Response<Object>> deletes = new ArrayList<>(deleting.size());
+        for (int i : deleting) {
+            deletes.add(pipeline.evalsha(deleteSha, Collections.singletonList(keys.get(i)),
+                    Collections.singletonList(dumps.get(i).get())));
+        }
+        pipeline.sync();
+        for (int j = 0; j < deletes.size(); j++) {
+            if (!Long.valueOf(1).equals(deletes.get(j).get())) {
+                result.changed();
+                LOGGER.warn("[ShardRebalancer]Key changed during rebalance, kept on {}: {}", sourceName,
+                        SafeEncoder.encode(keys.get(deleting.get(j))));
+            }
+        }
+    }
+
+    private JedisShardInfo shard(String name) {
+        for (JedisShardInfo shard : ring.getShards()) {
+            if (ShardRing.nameOf(shard).equals(name)) {
+                return shard;
+            }
+        }
+        throw new IllegalArgumentException("Unknown shard '" + name + "'.");
+    }
+
+    private static List<String> names(String names) {
+        List<String> result = new ArrayList<>();
+        for (String name : StringUtils.commaDelimitedListToStringArray(names)) {
+            if (StringUtils.hasText(name)) {
+                result.add(name.trim());
+            }
+        }
+        return result;
+    }
+}
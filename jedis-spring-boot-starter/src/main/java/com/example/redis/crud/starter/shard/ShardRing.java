@@ -0,0 +1,239 @@
+package com.example.redis.crud.starter.shard;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.util.Hashing;
+import redis.clients.util.SafeEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author jackie wang
+ * @Title: ShardRing
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一致性hash环（不可变）。每个分片按权重放置virtualNodes * weight个虚拟节点，
+ * key顺时针找到的第一个虚拟节点所在的分片就是key所在的分片。虚拟节点由分片名称计算，分片名称默认为host:port，
+ * 所以分片的顺序无关，增加一个分片只会移动落到新分片上的key。
+ * 开启hash tag时key中第一个{...}之间的内容参与hash，{user1000}.name和{user1000}.age在同一个分片上。
+ * @date 2019/12/23 10:20
+ */
+public final class ShardRing {
+
+    /** 与jedis Sharded.DEFAULT_KEY_TAG_PATTERN相同 */
+    public static final Pattern DEFAULT_TAG_PATTERN = Pattern.compile("\\{(.+?)\\}");
+
+    /** 每次路由都要计算MD5，MessageDigest按线程复用 */
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not supported.", e);
+        }
+    });
+
+    private final List<JedisShardInfo> shards;
+    private final int virtualNodes;
+    private final ShardHashing hashing;
+    private final Pattern tagPattern;
+
+    /** 虚拟节点的hash（升序）和所在的分片 */
+    private final long[] points;
+    private final JedisShardInfo[] owners;
+
+    /**
+     * @param shards 分片，名称不能重复
+     * @param virtualNodes 权重为1的分片的虚拟节点数
+     * @param hashing hash算法
+     * @param tagPattern hash tag，为null时整个key参与hash
+     */
+    public ShardRing(List<JedisShardInfo> shards, int virtualNodes, ShardHashing hashing, Pattern tagPattern) {
+        if (shards == null || shards.isEmpty()) {
+            throw new IllegalArgumentException("The parameter 'shards' must not be empty.");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("The parameter 'virtualNodes' must be greater than 0.");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.virtualNodes = virtualNodes;
+        this.hashing = hashing;
+        this.tagPattern = tagPattern;
+
+        TreeMap<Long, JedisShardInfo> ring = new TreeMap<>();
+        Set<String> names = new HashSet<>();
+        for (JedisShardInfo shard : shards) {
+            String name = nameOf(shard);
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Duplicate shard name '" + name + "'.");
+            }
+            int count = virtualNodes * Math.max(1, shard.getWeight());
+            if (hashing == ShardHashing.KETAMA) {
+                for (int i = 0; i < (count + 3) / 4; i++) {
+                    byte[] digest = md5((name + "-" + i).getBytes(StandardCharsets.UTF_8));
+                    for (int h = 0; h < 4; h++) {
+                        ring.put(ketamaHash(digest, h), shard);
+                    }
+                }
+            } else {
+                String prefix = name + "*" + shard.getWeight();
+                for (int i = 0; i < count; i++) {
+                    ring.put(Hashing.MURMUR_HASH.hash(prefix + i), shard);
+                }
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new JedisShardInfo[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, JedisShardInfo> entry : ring.entrySet()) {
+            points[i] = entry.getKey();
+            owners[i++] = entry.getValue();
+        }
+    }
+
+    /**
+     * 分片名称：JedisShardInfo的name，没有设置时为host:port。
+     * @param shard
+     * @return
+     */
+    public static String nameOf(JedisShardInfo shard) {
+        return shard.getName() != null ? shard.getName() : shard.getHost() + ":" + shard.getPort();
+    }
+
+    /**
+     * key所在的分片（使用hash tag）。
+     * @param key
+     * @return
+     */
+    public JedisShardInfo get(String key) {
+        return locate(SafeEncoder.encode(keyTag(key)));
+    }
+
+    /**
+     * key所在的分片。与jedis ShardedJedis不同，二进制key也使用hash tag（按UTF-8解码后取tag），
+     * 同一个key通过String和byte[]命令读写时在同一个分片上。
+     * @param key
+     * @return
+     */
+    public JedisShardInfo get(byte[] key) {
+        if (tagPattern == null) {
+            return locate(key);
+        }
+        String text = SafeEncoder.encode(key);
+        String tag = keyTag(text);
+        return locate(tag == text ? key : SafeEncoder.encode(tag));
+    }
+
+    private JedisShardInfo locate(byte[] key) {
+        long hash = hashing == ShardHashing.KETAMA ? ketamaHash(md5(key), 0) : Hashing.MURMUR_HASH.hash(key);
+        int low = 0;
+        int high = points.length;
+        // 第一个 >= hash 的虚拟节点，超过最后一个时回到环的起点
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (points[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    /**
+     * key中参与hash的部分。
+     * @param key
+     * @return
+     */
+    public String keyTag(String key) {
+        if (tagPattern != null) {
+            Matcher matcher = tagPattern.matcher(key);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * 去掉指定分片之后的环，用于计算增加分片之前的分布。
+     * @param names 分片名称
+     * @return
+     */
+    public ShardRing without(Collection<String> names) {
+        List<JedisShardInfo> remaining = new ArrayList<>(shards.size());
+        for (JedisShardInfo shard : shards) {
+            if (!names.contains(nameOf(shard))) {
+                remaining.add(shard);
+            }
+        }
+        if (remaining.size() + names.size() != shards.size()) {
+            throw new IllegalArgumentException("Unknown shard in " + names + ", shards: " + getShardNames());
+        }
+        return new ShardRing(remaining, virtualNodes, hashing, tagPattern);
+    }
+
+    /**
+     * 每个分片在环上占的比例，即均匀分布的key落到每个分片的比例。
+     * @return 分片名称 -> 比例
+     */
+    public Map<String, Double> getDistribution() {
+        Map<String, Double> distribution = new LinkedHashMap<>();
+        for (JedisShardInfo shard : shards) {
+            distribution.put(nameOf(shard), 0.0);
+        }
+        double range = hashing == ShardHashing.KETAMA ? 0x100000000L : Math.pow(2, 64);
+        for (int i = 0; i < points.length; i++) {
+            // 虚拟节点负责(前一个点, 当前点]，第一个点还负责最后一个点之后的部分
+            double width = i == 0 ? range - ((double) points[points.length - 1] - points[0])
+                    : (double) points[i] - points[i - 1];
+            distribution.merge(nameOf(owners[i]), width / range, Double::sum);
+        }
+        return distribution;
+    }
+
+    public List<JedisShardInfo> getShards() {
+        return shards;
+    }
+
+    public List<String> getShardNames() {
+        List<String> names = new ArrayList<>(shards.size());
+        for (JedisShardInfo shard : shards) {
+            names.add(nameOf(shard));
+        }
+        return names;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public ShardHashing getHashing() {
+        return hashing;
+    }
+
+    public Pattern getTagPattern() {
+        return tagPattern;
+    }
+
+    private static long ketamaHash(byte[] digest, int h) {
+        return ((long) (digest[3 + h * 4] & 0xFF) << 24)
+                | ((long) (digest[2 + h * 4] & 0xFF) << 16)
+                | ((long) (digest[1 + h * 4] & 0xFF) << 8)
+                | (digest[h * 4] & 0xFF);
+    }
+
+    private static byte[] md5(byte[] bytes) {
+        return MD5.get().digest(bytes);
+    }
+}
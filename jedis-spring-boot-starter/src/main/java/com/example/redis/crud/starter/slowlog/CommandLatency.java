@@ -0,0 +1,63 @@
+package com.example.redis.crud.starter.slowlog;
+
+/**
+ * @author jackie wang
+ * @Title: CommandLatency
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一种命令在客户端的耗时分布（包括等待连接、网络和解析返回值），单位微秒。
+ * @date 2019/12/21 10:20
+ */
+public class CommandLatency {
+
+    private final String command;
+    private final long count;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    public CommandLatency(String command, long count, long p50, long p90, long p99, long p999, long max) {
+        this.command = command;
+        this.count = count;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return command + " count=" + count + " p50=" + p50 + "us p90=" + p90 + "us p99=" + p99 + "us p999=" + p999
+                + "us max=" + max + "us";
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.redis.crud.starter.slowlog;
+
+/**
+ * @author jackie wang
+ * @Title: SlowCommand
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 一次超过阈值的命令，耗时单位微秒。
+ * @date 2019/12/21 10:20
+ */
+public class SlowCommand {
+
+    private final long timestamp;
+    private final String command;
+    private final String key;
+    private final long poolWait;
+    private final long io;
+    private final long total;
+
+    public SlowCommand(long timestamp, String command, String key, long poolWait, long io, long total) {
+        this.timestamp = timestamp;
+        this.command = command;
+        this.key = key;
+        this.poolWait = poolWait;
+        this.io = io;
+        this.total = total;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * 命令的key，多key命令为第一个key。
+     * @return 没有key时为null
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 从连接池获取连接的等待时间。
+     * @return 没有单独统计时为-1（集群模式由JedisCluster内部获取连接，计入io）
+     */
+    public long getPoolWait() {
+        return poolWait;
+    }
+
+    /**
+     * 执行命令的时间：发送请求、等待返回和解析返回值。
+     * @return
+     */
+    public long getIo() {
+        return io;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return command + " " + key + " total=" + total + "us poolWait=" + poolWait + "us io=" + io + "us";
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.redis.crud.starter.slowlog;
+
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author jackie wang
+ * @Title: SlowCommandLog
+ * @ProjectName jedis-spring-boot-starter-master
+ * @Description: 客户端慢命令日志，jedis.slow-log.enabled=true时注入RedisUtilImpl和RedisClusterUtil。
+ * 与redis的SLOWLOG不同，耗时包括等待连接、网络和解析返回值。每个命令都计入按命令名称统计的耗时直方图，
+ * 超过阈值的命令（命令名称、key、等待连接时间、I/O时间、总耗时）写入无锁环形缓冲区，保留最近capacity个。
+ * 未超过阈值时只更新直方图，不分配对象。
+ * 同时注册为JMX MBean（jedis:name=slowLog）。
+ * @date 2019/12/21 10:20
+ */
+@ManagedResource(objectName = "jedis:name=slowLog", description = "Redis client-side slow log")
+public class SlowCommandLog {
+
+    /** key超过该长度时截断 */
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowCommand> entries;
+    private final AtomicLong cursor = new AtomicLong();
+    /** 按调用方传入的命令名称缓存直方图，同名命令（如set(String key, String value)和set）共用一个 */
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> byName = new ConcurrentHashMap<>();
+
+    /**
+     * @param thresholdMillis 慢命令阈值(毫秒)
+     * @param capacity 环形缓冲区大小
+     */
+    public SlowCommandLog(long thresholdMillis, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The parameter 'capacity' must be greater than 0.");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 记录一次命令。
+     * @param command 命令名称，字符串常量
+     * @param key 命令的key，没有时为null
+     * @param poolWaitNanos 等待连接的时间(纳秒)，没有单独统计时为-1
+     * @param totalNanos 总耗时(纳秒)
+     */
+    public void record(String command, String key, long poolWaitNanos, long totalNanos) {
+        LatencyHistogram histogram = histograms.get(command);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(command,
+                    c -> byName.computeIfAbsent(name(c), n -> new LatencyHistogram()));
+        }
+        long total = TimeUnit.NANOSECONDS.toMicros(totalNanos);
+        histogram.record(total);
+        if (totalNanos < thresholdNanos) {
+            return;
+        }
+        long poolWait = poolWaitNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros(poolWaitNanos);
+        long io = poolWaitNanos < 0 ? total : TimeUnit.NANOSECONDS.toMicros(totalNanos - poolWaitNanos);
+        SlowCommand entry = new SlowCommand(System.currentTimeMillis(), name(command), truncate(key), poolWait, io,
+                total);
+        entries.set((int) (cursor.getAndIncrement() % entries.length()), entry);
+    }
+
+    /**
+     * 环形缓冲区中的慢命令，最新的在前。
+     * @return
+     */
+    public List<SlowCommand> getSlowCommands() {
+        int capacity = entries.length();
+        long end = cursor.get();
+        List<SlowCommand> result = new ArrayList<>(capacity);
+        for (long i = end - 1; i >= 0 && i >= end - capacity; i--) {
+            SlowCommand entry = entries.get((int) (i % capacity));
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 每种命令的耗时分布，按命令名称排序。
+     * @return
+     */
+    public List<CommandLatency> getLatencies() {
+        Map<String, LatencyHistogram> sorted = new TreeMap<>(byName);
+        List<CommandLatency> result = new ArrayList<>(sorted.size());
+        for (Map.Entry<String, LatencyHistogram> entry : sorted.entrySet()) {
+            result.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        return result;
+    }
+
+    /**
+     * 累计慢命令数。
+     * @return
+     */
+    public long getSlowCount() {
+        return cursor.get();
+    }
+
+    @ManagedOperation(description = "Slow commands, newest first")
+    public String slowCommands() {
+        return join(getSlowCommands());
+    }
+
+    @ManagedOperation(description = "Client-side latency percentiles per command")
+    public String latencies() {
+        return join(getLatencies());
+    }
+
+    @ManagedOperation(description = "Clear latency histograms")
+    public void reset() {
+        for (LatencyHistogram histogram : byName.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * 命令名称取第一个'('之前的部分并转为小写，与redis.command监控的tag一致。
+     */
+    private static String name(String command) {
+        int end = command.indexOf('(');
+        return (end < 0 ? command : command.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String truncate(String key) {
+        return key == null || key.length() <= MAX_KEY_LENGTH ? key : key.substring(0, MAX_KEY_LENGTH) + "...";
+    }
+
+    private static String join(List<?> items) {
+        StringBuilder builder = new StringBuilder();
+        for (Object item : items) {
+            builder.append(item).append('\n');
+        }
+        return builder.toString();
+    }
+}
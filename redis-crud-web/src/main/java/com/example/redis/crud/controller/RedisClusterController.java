@@ -1,18 +1,24 @@
 package com.example.redis.crud.controller;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
-import com.alibaba.fastjson.TypeReference;
 import com.example.redis.crud.bean.UserVo;
+import com.example.redis.crud.starter.breaker.CircuitBreakers;
+import com.example.redis.crud.starter.bigkey.BigKeyDetector;
+import com.example.redis.crud.starter.codec.HashMapper;
+import com.example.redis.crud.starter.codec.JacksonBinaryCodec;
+import com.example.redis.crud.starter.codec.RedisCodec;
+import com.example.redis.crud.starter.codec.TrackedHash;
 import com.example.redis.crud.starter.component.RedisClusterUtil;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.redis.crud.starter.hotkey.HotKeyDetector;
+import com.example.redis.crud.starter.sentinel.SentinelFailoverWatcher;
+import com.example.redis.crud.starter.slowlog.SlowCommandLog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -25,9 +31,29 @@ import java.util.Map;
 @RestController
 @RequestMapping("redis")
 public class RedisClusterController {
+    /** Smile二进制编码，保留属性类型 */
+    private static final RedisCodec<UserVo> USER_CODEC = JacksonBinaryCodec.smile(UserVo.class);
+    /** 对象与hash的映射，每个属性一个field */
+    private static final HashMapper<UserVo> USER_HASH = HashMapper.of(UserVo.class);
+
     @Autowired(required = false)
     private RedisClusterUtil redisClusterUtil;
 
+    @Autowired(required = false)
+    private HotKeyDetector hotKeyDetector;
+
+    @Autowired(required = false)
+    private BigKeyDetector bigKeyDetector;
+
+    @Autowired(required = false)
+    private SlowCommandLog slowCommandLog;
+
+    @Autowired(required = false)
+    private SentinelFailoverWatcher sentinelFailoverWatcher;
+
+    @Autowired(required = false)
+    private CircuitBreakers circuitBreakers;
+
     @RequestMapping(value = "set", method = RequestMethod.GET)
     public String set() {
         redisClusterUtil.set("redis-hello", "hello redis.");
@@ -42,34 +68,105 @@ public class RedisClusterController {
     @RequestMapping(value = "hmset", method = RequestMethod.GET)
     public String hmset() {
         UserVo userVo = new UserVo();
-        ObjectMapper mapper = new ObjectMapper();
         userVo.setId(1);
         userVo.setName("张三");
         userVo.setDate(new Date());
-//        Map<String, String> userVoMap = mapper.convertValue(userVo, Map.class); // jackson默认不支持转换的Map 属性value都是String类型，支持Object类型。
-
-//        JSON.DEFFAULT_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
-//        Map<String, Object> userVoMap = (Map<String, Object>) JSON.parseObject(JSON.toJSONString(userVo, SerializerFeature.WriteDateUseDateFormat));
-
-        /**
-         * *********示例使用，生产环境不推荐该转换方式*********
-         * 虽然支持对象属性转换为Map<String, String>,但是POJO对象所有的属性类型值都变成了String类型，
-         * 比如POJO中id，age，date都变成String类型，改变了原有的属性类型 */
-        Map<String, String> userVoMap = JSONObject.parseObject(JSON.toJSONString(userVo), new TypeReference<Map<String, String>>() {
-        });
-//        Map<String, String> userVoMap = (Map<String, String>) JSON.toJSON(userVo);
-        redisClusterUtil.hmset("zhangsan", userVoMap);
+        /** 每个属性一个field，id、date按原有类型转换（date保存毫秒数），不经过JSON */
+        redisClusterUtil.hmset("zhangsan", userVo, USER_HASH);
         return "success";
     }
 
     @RequestMapping(value = "hmget", method = RequestMethod.GET)
-    public String hmget() throws JsonProcessingException {
-//        ObjectMapper mapper = new ObjectMapper();
-//        String jsonString = mapper.writeValueAsString(redisClusterUtil.hgetAll("zhangsan"));
+    public String hmget() {
+        /** 按属性类型还原，id，date属性保持原有类型 */
+        return JSON.toJSONString(redisClusterUtil.hmget("zhangsan", USER_HASH));
+    }
+
+    @RequestMapping(value = "hmgetName", method = RequestMethod.GET)
+    public String hmgetName() {
+        /** 只读取name一个field（HMGET） */
+        return JSON.toJSONString(redisClusterUtil.hmget("zhangsan", USER_HASH, "name"));
+    }
+
+    @RequestMapping(value = "rename", method = RequestMethod.GET)
+    public String rename() {
+        TrackedHash<UserVo> user = redisClusterUtil.hmgetTracked("zhangsan", USER_HASH);
+        if (user == null) {
+            return "not found";
+        }
+        user.get().setName("李四");
+        /** 只写入修改过的name */
+        return "changed: " + redisClusterUtil.hsetChanged(user);
+    }
+
+    @RequestMapping(value = "setObject", method = RequestMethod.GET)
+    public String setObject() {
+        UserVo userVo = new UserVo();
+        userVo.setId(1);
+        userVo.setName("张三");
+        userVo.setDate(new Date());
+        redisClusterUtil.set("zhangsan-object", userVo, USER_CODEC);
+        return "success";
+    }
+
+    @RequestMapping(value = "getObject", method = RequestMethod.GET)
+    public String getObject() {
+        /** 使用编解码器读取，id，date属性保持原有类型 */
+        return JSON.toJSONString(redisClusterUtil.get("zhangsan-object", USER_CODEC));
+    }
+
+    @RequestMapping(value = "hot-keys", method = RequestMethod.GET)
+    public String hotKeys() {
+        /** 需要jedis.hot-keys.enabled=true，返回最近一个完整窗口的热点key */
+        if (hotKeyDetector == null) {
+            return "hot key detection is disabled";
+        }
+        return JSON.toJSONString(hotKeyDetector.getReport());
+    }
+
+    @RequestMapping(value = "big-keys", method = RequestMethod.GET)
+    public String bigKeys() {
+        /** 需要jedis.big-keys.enabled=true，返回最近超过阈值的命令和按key模式统计的大小 */
+        if (bigKeyDetector == null) {
+            return "big key detection is disabled";
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bigKeys", bigKeyDetector.getOffenders());
+        result.put("keySizes", bigKeyDetector.getStats());
+        return JSON.toJSONString(result);
+    }
+
+    @RequestMapping(value = "slow-log", method = RequestMethod.GET)
+    public String slowLog() {
+        /** 需要jedis.slow-log.enabled=true，返回最近的慢命令和每种命令的耗时百分位(微秒) */
+        if (slowCommandLog == null) {
+            return "slow log is disabled";
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("slowCommands", slowCommandLog.getSlowCommands());
+        result.put("latencies", slowCommandLog.getLatencies());
+        return JSON.toJSONString(result);
+    }
+
+    @RequestMapping(value = "sentinel", method = RequestMethod.GET)
+    public String sentinel() {
+        /** 需要配置spring.redis.sentinel.master，返回当前主节点和最近的主从切换耗时 */
+        if (sentinelFailoverWatcher == null) {
+            return "sentinel is not configured";
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("master", sentinelFailoverWatcher.currentMaster());
+        result.put("failovers", sentinelFailoverWatcher.getFailovers());
+        return JSON.toJSONString(result);
+    }
 
-        /** redisClusterUtil.hgetAll("key"),返回的类型是Map<String,Sring>,原始数据的id，date属性值都转换了String，改变了原有的属性类型 */
-        String jsonString = JSON.toJSONString(redisClusterUtil.hgetAll("zhangsan"));
-        return jsonString;
+    @RequestMapping(value = "circuit-breakers", method = RequestMethod.GET)
+    public String circuitBreakers() {
+        /** 需要配置jedis.circuit-breaker.enabled=true，返回每个节点的熔断状态 */
+        if (circuitBreakers == null) {
+            return "circuit breaker is not enabled";
+        }
+        return circuitBreakers.states();
     }
 
 }